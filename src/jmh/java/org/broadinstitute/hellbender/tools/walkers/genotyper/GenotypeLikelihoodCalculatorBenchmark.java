@@ -0,0 +1,68 @@
+package org.broadinstitute.hellbender.tools.walkers.genotyper;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.GenotypeLikelihoods;
+import org.broadinstitute.hellbender.utils.genotyper.IndexedAlleleList;
+import org.broadinstitute.hellbender.utils.genotyper.IndexedSampleList;
+import org.broadinstitute.hellbender.utils.genotyper.LikelihoodMatrix;
+import org.broadinstitute.hellbender.utils.genotyper.ReadLikelihoods;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.SyntheticReads;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Genotype likelihoods of one sample computed by {@link GenotypeLikelihoodCalculator} from its read likelihoods.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GenotypeLikelihoodCalculatorBenchmark {
+
+    private static final List<Allele> ALLELES = Arrays.asList(Allele.create("A", true), Allele.create("C"), Allele.create("G"), Allele.create("T"));
+    private static final int READ_LENGTH = 150;
+
+    @Param({"2", "4"})
+    public int ploidy;
+
+    @Param({"2", "4"})
+    public int alleleCount;
+
+    @Param({"30", "300"})
+    public int readCount;
+
+    private GenotypeLikelihoodCalculator calculator;
+    private LikelihoodMatrix<Allele> likelihoods;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(13);
+        final SAMFileHeader header = SyntheticReads.header(READ_LENGTH * 2);
+        final List<byte[]> haplotypes = Collections.singletonList(SyntheticReads.randomBases(random, READ_LENGTH * 2));
+        final List<GATKRead> reads = SyntheticReads.reads(random, header, haplotypes, readCount, READ_LENGTH, 0.01);
+        likelihoods = new ReadLikelihoods<>(new IndexedSampleList(SyntheticReads.SAMPLE), new IndexedAlleleList<>(ALLELES.subList(0, alleleCount)),
+                Collections.singletonMap(SyntheticReads.SAMPLE, reads)).sampleMatrix(0);
+        // each read strongly supports one allele, as after the PairHMM
+        for (int r = 0; r < readCount; r++) {
+            final int supportedAllele = random.nextInt(alleleCount);
+            for (int a = 0; a < alleleCount; a++) {
+                likelihoods.set(a, r, a == supportedAllele ? -0.01 * random.nextDouble() : -2 - 10 * random.nextDouble());
+            }
+        }
+        calculator = new GenotypeLikelihoodCalculators().getInstance(ploidy, alleleCount);
+    }
+
+    @Benchmark
+    public GenotypeLikelihoods genotypeLikelihoods() {
+        return calculator.genotypeLikelihoods(likelihoods);
+    }
+}
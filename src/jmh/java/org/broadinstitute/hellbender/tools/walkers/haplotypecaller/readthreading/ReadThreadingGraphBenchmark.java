@@ -0,0 +1,71 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller.readthreading;
+
+import htsjdk.samtools.SAMFileHeader;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.SyntheticReads;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Construction of the {@link ReadThreadingGraph} of an assembly region, up to the point where it is converted into a
+ * sequence graph: threading the reference and the reads, building the graph and pruning it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReadThreadingGraphBenchmark {
+
+    private static final int REFERENCE_LENGTH = 600;
+    private static final int HAPLOTYPE_COUNT = 3;
+    private static final int READ_COUNT = 400;
+    private static final int READ_LENGTH = 150;
+    private static final byte MIN_BASE_QUALITY = 10;
+    private static final int PRUNE_FACTOR = 2;
+
+    @Param({"10", "25"})
+    public int kmerSize;
+
+    @Param({"JGRAPHT", "PACKED_KMERS"})
+    public ReadThreadingAssembler.GraphImplementation graphImplementation;
+
+    private SAMFileHeader header;
+    private byte[] reference;
+    private List<GATKRead> reads;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(13);
+        header = SyntheticReads.header(REFERENCE_LENGTH * 2);
+        reference = SyntheticReads.randomBases(random, REFERENCE_LENGTH);
+        reads = SyntheticReads.reads(random, header, SyntheticReads.haplotypes(random, reference, HAPLOTYPE_COUNT), READ_COUNT, READ_LENGTH, 0.01);
+    }
+
+    @Benchmark
+    public ReadThreadingGraph buildGraph() {
+        final ReadThreadingGraph graph = new ReadThreadingGraph(kmerSize, false, MIN_BASE_QUALITY, 1);
+        graph.addSequence("ref", reference, true);
+        for (final GATKRead read : reads) {
+            graph.addRead(read, header);
+        }
+        final PackedKmerGraph packedGraph = graphImplementation == ReadThreadingAssembler.GraphImplementation.PACKED_KMERS ?
+                PackedKmerGraph.build(graph, 1) : null;
+        if (packedGraph == null) {
+            graph.buildGraphIfNecessary();
+            if (!graph.hasCycles()) {
+                graph.pruneLowWeightChains(PRUNE_FACTOR);
+            }
+        } else {
+            if (!packedGraph.hasCycles()) {
+                packedGraph.pruneLowWeightChains(PRUNE_FACTOR);
+            }
+            packedGraph.copyInto(graph);
+        }
+        return graph;
+    }
+}
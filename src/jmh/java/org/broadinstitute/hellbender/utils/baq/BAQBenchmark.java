@@ -0,0 +1,74 @@
+package org.broadinstitute.hellbender.utils.baq;
+
+import htsjdk.samtools.SAMFileHeader;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.SyntheticReads;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BAQ of a batch of reads with each {@link BAQ.HMMImplementation}, on identical reads and reference windows.
+ * The reads carry the SNPs and short indels of their haplotype, so that some of them don't align trivially.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BAQBenchmark {
+
+    private static final int REFERENCE_LENGTH = 10_000;
+    private static final int READ_COUNT = 1_000;
+    private static final int HAPLOTYPE_COUNT = 4;
+
+    @Param({"ORIGINAL", "CACHING", "FLOAT_CACHING"})
+    public BAQ.HMMImplementation implementation;
+
+    @Param({"101", "251"})
+    public int readLength;
+
+    private BAQ baq;
+    private List<GATKRead> reads;
+    private List<byte[]> referenceWindows;
+    private int[] referenceOffsets;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(13);
+        final SAMFileHeader header = SyntheticReads.header(REFERENCE_LENGTH * 2);
+        final byte[] reference = SyntheticReads.randomBases(random, REFERENCE_LENGTH);
+        final List<byte[]> haplotypes = SyntheticReads.haplotypes(random, reference, HAPLOTYPE_COUNT);
+        reads = SyntheticReads.reads(random, header, haplotypes, READ_COUNT, readLength, 0.01);
+
+        baq = new BAQ();
+        baq.setHMMImplementation(implementation);
+
+        // reference windows are extracted up front, so that only the HMM is measured
+        referenceWindows = new ArrayList<>(READ_COUNT);
+        referenceOffsets = new int[READ_COUNT];
+        for (int i = 0; i < READ_COUNT; i++) {
+            final GATKRead read = reads.get(i);
+            final SimpleInterval window = BAQ.getReferenceWindowForRead(read, baq.getBandWidth());
+            final int end = Math.min(window.getEnd(), REFERENCE_LENGTH);
+            referenceWindows.add(Arrays.copyOfRange(reference, window.getStart() - 1, end));
+            referenceOffsets[i] = window.getStart() - read.getStart();
+        }
+    }
+
+    @Benchmark
+    public long baqReads() {
+        long sum = 0;
+        for (int i = 0; i < READ_COUNT; i++) {
+            final BAQ.BAQCalculationResult result = baq.calcBAQFromHMM(reads.get(i), referenceWindows.get(i), referenceOffsets[i]);
+            sum += result.bq[0];
+        }
+        return sum;
+    }
+}
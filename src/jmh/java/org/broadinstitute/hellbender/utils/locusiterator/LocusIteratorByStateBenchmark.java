@@ -0,0 +1,57 @@
+package org.broadinstitute.hellbender.utils.locusiterator;
+
+import htsjdk.samtools.SAMFileHeader;
+import org.broadinstitute.hellbender.engine.AlignmentContext;
+import org.broadinstitute.hellbender.utils.downsampling.DownsamplingMethod;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.ReadUtils;
+import org.broadinstitute.hellbender.utils.read.SyntheticReads;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pileup generation by {@link LocusIteratorByState} over a stretch of reference, visiting the bases of every pileup
+ * as a locus walker would.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LocusIteratorByStateBenchmark {
+
+    private static final int REFERENCE_LENGTH = 10_000;
+    private static final int READ_LENGTH = 150;
+
+    @Param({"30", "300"})
+    public int coverage;
+
+    private SAMFileHeader header;
+    private List<GATKRead> reads;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(13);
+        header = SyntheticReads.header(REFERENCE_LENGTH * 2);
+        final List<byte[]> haplotypes = SyntheticReads.haplotypes(random, SyntheticReads.randomBases(random, REFERENCE_LENGTH), 2);
+        reads = SyntheticReads.reads(random, header, haplotypes, coverage * REFERENCE_LENGTH / READ_LENGTH, READ_LENGTH, 0.01);
+    }
+
+    @Benchmark
+    public long iteratePileups() {
+        final LocusIteratorByState libs = new LocusIteratorByState(reads.iterator(), DownsamplingMethod.NONE, false,
+                ReadUtils.getSamplesFromHeader(header), header, true);
+        long baseSum = 0;
+        while (libs.hasNext()) {
+            final AlignmentContext context = libs.next();
+            for (final byte base : context.getBasePileup().getBases()) {
+                baseSum += base;
+            }
+        }
+        return baseSum;
+    }
+}
@@ -0,0 +1,74 @@
+package org.broadinstitute.hellbender.utils.pairhmm;
+
+import htsjdk.samtools.SAMFileHeader;
+import org.broadinstitute.gatk.nativebindings.pairhmm.PairHMMNativeArguments;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.genotyper.IndexedAlleleList;
+import org.broadinstitute.hellbender.utils.genotyper.IndexedSampleList;
+import org.broadinstitute.hellbender.utils.genotyper.LikelihoodMatrix;
+import org.broadinstitute.hellbender.utils.genotyper.ReadLikelihoods;
+import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.SyntheticReads;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read x haplotype likelihoods of the Java {@link PairHMM} implementations, for one assembly region.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PairHMMBenchmark {
+
+    private static final int REFERENCE_LENGTH = 400;
+    private static final int READ_COUNT = 200;
+    private static final int READ_LENGTH = 150;
+    private static final byte GAP_CONTINUATION_PENALTY = 10;
+
+    @Param({"LOGLESS_CACHING", "TRIE_LOGLESS_CACHING", "FLOAT_LOGLESS_CACHING"})
+    public PairHMM.Implementation implementation;
+
+    @Param({"4", "16"})
+    public int haplotypeCount;
+
+    private PairHMM pairHMM;
+    private LikelihoodMatrix<Haplotype> likelihoods;
+    private List<GATKRead> reads;
+    private Map<GATKRead, byte[]> gapContinuationPenalties;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(13);
+        final SAMFileHeader header = SyntheticReads.header(REFERENCE_LENGTH * 2);
+        final List<byte[]> haplotypeBases = SyntheticReads.haplotypes(random, SyntheticReads.randomBases(random, REFERENCE_LENGTH), haplotypeCount);
+        final List<Haplotype> haplotypes = new ArrayList<>(haplotypeCount);
+        for (int i = 0; i < haplotypeCount; i++) {
+            haplotypes.add(new Haplotype(haplotypeBases.get(i), i == 0));
+        }
+        reads = SyntheticReads.reads(random, header, haplotypeBases, READ_COUNT, READ_LENGTH, 0.01);
+        gapContinuationPenalties = new HashMap<>();
+        for (final GATKRead read : reads) {
+            gapContinuationPenalties.put(read, Utils.dupBytes(GAP_CONTINUATION_PENALTY, read.getLength()));
+        }
+        likelihoods = new ReadLikelihoods<>(new IndexedSampleList(SyntheticReads.SAMPLE), new IndexedAlleleList<>(haplotypes),
+                Collections.singletonMap(SyntheticReads.SAMPLE, reads)).sampleMatrix(0);
+        pairHMM = implementation.makeNewHMM(new PairHMMNativeArguments());
+    }
+
+    @Benchmark
+    public double[] computeLikelihoods() {
+        pairHMM.computeLog10Likelihoods(likelihoods, reads, gapContinuationPenalties);
+        return pairHMM.getLogLikelihoodArray();
+    }
+
+    @TearDown
+    public void tearDown() {
+        pairHMM.close();
+    }
+}
@@ -0,0 +1,136 @@
+package org.broadinstitute.hellbender.utils.read;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMReadGroupRecord;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Synthetic sequencing data for the benchmarks: a random reference, haplotypes carrying SNPs and short indels, and
+ * reads sampled from those haplotypes with sequencing errors, built with {@link ArtificialReadUtils}.
+ *
+ * All methods take the random number generator as an argument, so that benchmarks seeded with the same value
+ * measure exactly the same inputs from one commit to the next.
+ */
+public final class SyntheticReads {
+
+    public static final String READ_GROUP = "rg";
+    public static final String SAMPLE = "sample";
+
+    private static final byte[] BASES = {'A', 'C', 'G', 'T'};
+
+    // one variant every 100 bases on average in the non-reference haplotypes
+    private static final double VARIANT_RATE = 0.01;
+    private static final int MAX_INDEL_LENGTH = 3;
+
+    private static final int MIN_QUALITY = 20;
+    private static final int MAX_QUALITY = 40;
+    private static final int MAX_ERROR_QUALITY = 15;
+
+    private SyntheticReads() {}
+
+    /**
+     * @return a header with one contig of the given length and one read group, {@link #READ_GROUP}, for sample {@link #SAMPLE}.
+     */
+    public static SAMFileHeader header(final int contigLength) {
+        final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeader(1, 1, contigLength);
+        final SAMReadGroupRecord readGroup = new SAMReadGroupRecord(READ_GROUP);
+        readGroup.setSample(SAMPLE);
+        header.addReadGroup(readGroup);
+        return header;
+    }
+
+    /**
+     * @return uniformly random bases.
+     */
+    public static byte[] randomBases(final Random random, final int length) {
+        final byte[] bases = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bases[i] = BASES[random.nextInt(BASES.length)];
+        }
+        return bases;
+    }
+
+    /**
+     * Returns the reference followed by {@code count - 1} haplotypes derived from it, each one carrying its own SNPs
+     * and insertions or deletions of up to {@value #MAX_INDEL_LENGTH} bases.
+     */
+    public static List<byte[]> haplotypes(final Random random, final byte[] reference, final int count) {
+        Utils.validateArg(count >= 1, "there must be at least the reference haplotype");
+        final List<byte[]> haplotypes = new ArrayList<>(count);
+        haplotypes.add(reference);
+        for (int i = 1; i < count; i++) {
+            haplotypes.add(mutate(random, reference));
+        }
+        return haplotypes;
+    }
+
+    private static byte[] mutate(final Random random, final byte[] reference) {
+        final byte[] result = new byte[reference.length + reference.length / 10];
+        int length = 0;
+        int i = 0;
+        while (i < reference.length) {
+            if (random.nextDouble() >= VARIANT_RATE) {
+                result[length++] = reference[i++];
+                continue;
+            }
+            final double variantType = random.nextDouble();
+            final int indelLength = 1 + random.nextInt(MAX_INDEL_LENGTH);
+            if (variantType < 0.8) {
+                result[length++] = otherBase(random, reference[i++]);
+            } else if (variantType < 0.9) {
+                i += indelLength;
+            } else {
+                result[length++] = reference[i++];
+                for (int j = 0; j < indelLength; j++) {
+                    result[length++] = BASES[random.nextInt(BASES.length)];
+                }
+            }
+        }
+        return Arrays.copyOf(result, length);
+    }
+
+    /**
+     * Samples reads uniformly from the haplotypes, sorted by alignment start.
+     *
+     * The reads are placed on the reference at their offset in the haplotype, with an all-match cigar, and
+     * {@code errorRate} of their bases are replaced by a different base with a low quality.
+     */
+    public static List<GATKRead> reads(final Random random, final SAMFileHeader header, final List<byte[]> haplotypes,
+                                       final int readCount, final int readLength, final double errorRate) {
+        final List<GATKRead> reads = new ArrayList<>(readCount);
+        for (int i = 0; i < readCount; i++) {
+            final byte[] haplotype = haplotypes.get(random.nextInt(haplotypes.size()));
+            Utils.validateArg(haplotype.length >= readLength, "haplotypes must be at least as long as the reads");
+            final int start = random.nextInt(haplotype.length - readLength + 1);
+            final byte[] bases = Arrays.copyOfRange(haplotype, start, start + readLength);
+            final byte[] quals = new byte[readLength];
+            for (int j = 0; j < readLength; j++) {
+                if (random.nextDouble() < errorRate) {
+                    bases[j] = otherBase(random, bases[j]);
+                    quals[j] = (byte) (2 + random.nextInt(MAX_ERROR_QUALITY - 1));
+                } else {
+                    quals[j] = (byte) (MIN_QUALITY + random.nextInt(MAX_QUALITY - MIN_QUALITY + 1));
+                }
+            }
+            final GATKRead read = ArtificialReadUtils.createArtificialRead(header, "read" + i, 0, start + 1, bases, quals, readLength + "M");
+            read.setReadGroup(READ_GROUP);
+            reads.add(read);
+        }
+        reads.sort(Comparator.comparingInt(GATKRead::getStart));
+        return reads;
+    }
+
+    private static byte otherBase(final Random random, final byte base) {
+        byte result;
+        do {
+            result = BASES[random.nextInt(BASES.length)];
+        } while (result == base);
+        return result;
+    }
+}
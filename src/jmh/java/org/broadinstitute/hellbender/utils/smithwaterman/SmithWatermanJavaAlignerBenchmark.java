@@ -0,0 +1,63 @@
+package org.broadinstitute.hellbender.utils.smithwaterman;
+
+import htsjdk.samtools.SAMFileHeader;
+import org.broadinstitute.gatk.nativebindings.smithwaterman.SWOverhangStrategy;
+import org.broadinstitute.hellbender.utils.read.CigarUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.SyntheticReads;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SmithWatermanJavaAligner} for the two alignments done by the HaplotypeCaller: assembled haplotypes to the
+ * reference, and reads to their best haplotype.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SmithWatermanJavaAlignerBenchmark {
+
+    private static final int HAPLOTYPE_COUNT = 16;
+    private static final int READ_COUNT = 200;
+    private static final int READ_LENGTH = 150;
+
+    @Param({"300", "1000"})
+    public int referenceLength;
+
+    private SmithWatermanJavaAligner aligner;
+    private byte[] reference;
+    private List<byte[]> haplotypes;
+    private List<GATKRead> reads;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(13);
+        final SAMFileHeader header = SyntheticReads.header(referenceLength * 2);
+        reference = SyntheticReads.randomBases(random, referenceLength);
+        haplotypes = SyntheticReads.haplotypes(random, reference, HAPLOTYPE_COUNT);
+        reads = SyntheticReads.reads(random, header, haplotypes, READ_COUNT, READ_LENGTH, 0.01);
+        aligner = SmithWatermanJavaAligner.getInstance();
+    }
+
+    @Benchmark
+    public void alignHaplotypesToReference(final Blackhole blackhole) {
+        for (final byte[] haplotype : haplotypes) {
+            blackhole.consume(aligner.align(reference, haplotype, CigarUtils.NEW_SW_PARAMETERS, SWOverhangStrategy.INDEL));
+        }
+    }
+
+    @Benchmark
+    public void alignReadsToHaplotype(final Blackhole blackhole) {
+        final byte[] haplotype = haplotypes.get(1);
+        for (final GATKRead read : reads) {
+            blackhole.consume(aligner.align(haplotype, read.getBases(), CigarUtils.NEW_SW_PARAMETERS, SWOverhangStrategy.SOFTCLIP));
+        }
+    }
+}
@@ -27,6 +27,11 @@ public final class StandardArgumentDefinitions {
     public static final String CLOUD_PREFETCH_BUFFER_LONG_NAME = "cloud-prefetch-buffer";
     public static final String CLOUD_INDEX_PREFETCH_BUFFER_LONG_NAME = "cloud-index-prefetch-buffer";
     public static final String DISABLE_BAM_INDEX_CACHING_LONG_NAME = "disable-bam-index-caching";
+    public static final String READ_AHEAD_RECORDS_LONG_NAME = "read-ahead-records";
+    public static final String MEMORY_MAP_REFERENCE_LONG_NAME = "memory-map-reference";
+    public static final String VCF_WRITER_THREADS_LONG_NAME = "vcf-writer-threads";
+    public static final String PREFETCH_FEATURES_LONG_NAME = "prefetch-features";
+    public static final String THREADS_LONG_NAME = "threads";
     public static final String DISABLE_SEQUENCE_DICT_VALIDATION_NAME = "disable-sequence-dictionary-validation";
     public static final String ADD_OUTPUT_SAM_PROGRAM_RECORD = "add-output-sam-program-record";
     public static final String ADD_OUTPUT_VCF_COMMANDLINE = "add-output-vcf-command-line";
@@ -0,0 +1,42 @@
+package org.broadinstitute.hellbender.engine;
+
+/**
+ * A thread-confined processor of {@link AssemblyRegion}s, used by {@link AssemblyRegionWalker} when traversing
+ * several read shards concurrently.
+ *
+ * The engine asks the tool for one processor per worker thread (see {@link AssemblyRegionWalker#makeAssemblyRegionProcessor}),
+ * and never shares a processor between threads, so a processor may freely own non-thread-safe state such as a
+ * calling engine, a PairHMM, or a reference reader.
+ *
+ * Processing is split into two halves: {@link #process} does the expensive per-region work on the worker thread,
+ * and returns an action that publishes the results (typically by writing them to the tool's output). The engine
+ * runs these actions on the traversal thread, in exactly the order in which a single-threaded traversal would
+ * have called {@link AssemblyRegionWalker#apply}, so output written by the returned actions is identical to
+ * single-threaded output.
+ */
+public interface AssemblyRegionProcessor extends AutoCloseable {
+
+    /**
+     * @return The evaluator used by this processor's worker thread to determine whether each locus is active or not.
+     *         Must not be shared with any other processor.
+     */
+    AssemblyRegionEvaluator assemblyRegionEvaluator();
+
+    /**
+     * Process an individual AssemblyRegion on a worker thread.
+     *
+     * @param region region to process (pre-marked as either active or inactive)
+     * @param referenceContext reference data overlapping the full extended span of the assembly region
+     * @param featureContext features overlapping the full extended span of the assembly region
+     * @return an action that publishes the results for this region, to be run on the traversal thread in genomic order.
+     *         Must not be null.
+     */
+    Runnable process( final AssemblyRegion region, final ReferenceContext referenceContext, final FeatureContext featureContext );
+
+    /**
+     * Release any resources held by this processor. Called once on the traversal thread after all shards have been
+     * processed. The default implementation does nothing.
+     */
+    @Override
+    default void close() {}
+}
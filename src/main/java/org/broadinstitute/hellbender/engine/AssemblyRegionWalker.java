@@ -16,14 +16,18 @@ import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.activityprofile.ActivityProfileState;
 import org.broadinstitute.hellbender.utils.downsampling.PositionalDownsampler;
 import org.broadinstitute.hellbender.utils.downsampling.ReadsDownsampler;
+import org.broadinstitute.hellbender.utils.iterators.AsyncPrefetchingIterator;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
 
 /**
  * An AssemblyRegionWalker is a tool that processes an entire region of reads at a time, each marked as either "active"
@@ -42,6 +46,19 @@ import java.util.List;
  *
  * Internally, the reads are loaded in chunks called read shards, which are then subdivided into active/inactive regions
  * for processing by the tool implementation. One read shard is created per contig.
+ *
+ * Tools that override {@link #supportsMultiThreadedTraversal} and {@link #makeAssemblyRegionProcessor} may be run with
+ * more than one traversal thread, in which case independent read shards are processed concurrently, each worker thread
+ * with its own reads, reference and feature data sources, and the results are published in the same order as in a
+ * single-threaded traversal. Such tools may also find assembly regions on a background thread, ahead of the regions
+ * being processed by {@link #apply}, so that reading, pileup generation and activity profile calculation overlap with
+ * the tool's own processing.
+ *
+ * Note that with more than one traversal thread, the results of all regions in a shard are held in memory until every
+ * preceding shard has been published. The downsampler of each shard draws from its own generator, seeded from the shard
+ * index, so downsampling selects the same reads regardless of the number of threads. This applies to single-threaded
+ * traversals too, so when downsampling triggers the selected reads (and so the calls) differ from those of earlier
+ * versions, which drew from the shared generator.
  */
 public abstract class AssemblyRegionWalker extends GATKTool {
 
@@ -54,6 +71,7 @@ public abstract class AssemblyRegionWalker extends GATKTool {
     public static final String PROPAGATION_LONG_NAME = "max-prob-propagation-distance";
     public static final String PROFILE_OUT_LONG_NAME = "activity-profile-out";
     public static final String ASSEMBLY_REGION_OUT_LONG_NAME = "assembly-region-out";
+    public static final String PIPELINE_QUEUE_SIZE_LONG_NAME = "assembly-region-pipeline-queue-size";
 
     @Advanced
     @Argument(fullName = MIN_ASSEMBLY_LONG_NAME, doc = "Minimum size of an assembly region", optional = true)
@@ -104,6 +122,17 @@ public abstract class AssemblyRegionWalker extends GATKTool {
 
     private PrintStream assemblyRegionOutStream;
 
+    /**
+     * If greater than 0, assembly regions are found (reads decoded, pileups generated, and the activity profile
+     * computed) on a background thread, while the tool processes previously found regions. Up to this many finished
+     * regions, with their reads, are buffered ahead of the tool. Only supported by tools that override
+     * {@link #supportsMultiThreadedTraversal}, and combines with {@link #traversalThreads}: each traversal thread
+     * gets its own background region-finding thread.
+     */
+    @Advanced
+    @Argument(fullName = PIPELINE_QUEUE_SIZE_LONG_NAME, doc = "If > 0, find assembly regions on a background thread, buffering up to this many regions ahead of the tool", optional = true)
+    protected int assemblyRegionPipelineQueueSize = 0;
+
     /**
      * @return Default value for the {@link #minAssemblyRegionSize} parameter, if none is provided on the command line
      */
@@ -139,6 +168,20 @@ public abstract class AssemblyRegionWalker extends GATKTool {
      */
     protected abstract boolean includeReadsWithDeletionsInIsActivePileups();
 
+    /**
+     * Create a new, independent processor for assembly regions, to be used by a single worker thread during
+     * multi-threaded traversal. Called on the traversal thread, after {@link #onTraversalStart}, once per worker thread,
+     * and once per background region-finding thread (which uses only its {@link AssemblyRegionProcessor#assemblyRegionEvaluator}).
+     *
+     * Tools that override {@link #supportsMultiThreadedTraversal} to return true must override this method. The
+     * default implementation throws an exception.
+     *
+     * @return a processor that is not shared with any other worker thread
+     */
+    protected AssemblyRegionProcessor makeAssemblyRegionProcessor() {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support multi-threaded traversal");
+    }
+
     @Override
     public final boolean requiresReads() { return true; }
 
@@ -175,6 +218,14 @@ public abstract class AssemblyRegionWalker extends GATKTool {
             throw new CommandLineException.BadArgumentValue("maxReadsPerAlignmentStart must be >= 0");
         }
 
+        if ( assemblyRegionPipelineQueueSize < 0 ) {
+            throw new CommandLineException.BadArgumentValue(PIPELINE_QUEUE_SIZE_LONG_NAME, "must be >= 0");
+        }
+
+        if ( assemblyRegionPipelineQueueSize > 0 && ! supportsMultiThreadedTraversal() ) {
+            throw new CommandLineException.BadArgumentValue(PIPELINE_QUEUE_SIZE_LONG_NAME, getClass().getSimpleName() + " does not support multi-threaded traversal");
+        }
+
         final List<SimpleInterval> intervals = hasIntervals() ? intervalsForTraversal : IntervalUtils.getAllIntervalsForReference(getHeaderForReads().getSequenceDictionary());
         readShards = makeReadShards(intervals);
 
@@ -247,33 +298,158 @@ public abstract class AssemblyRegionWalker extends GATKTool {
         return defaultFilters;
     }
 
+    /**
+     * Create the downsampler for one read shard.
+     *
+     * @param random source of the random draws of the downsampler, seeded deterministically for the shard. Tools
+     *               must not use any other generator, so that the reads kept in a shard don't depend on the order in
+     *               which shards are processed.
+     * @return the downsampler to apply to the reads of the shard, or null to disable downsampling
+     */
+    protected ReadsDownsampler createDownsampler(final Random random) {
+        return maxReadsPerAlignmentStart > 0 ? new PositionalDownsampler(maxReadsPerAlignmentStart, getHeaderForReads(), random) : null;
+    }
+
+    /**
+     * @deprecated no longer called by the traversal, since a downsampler drawing from the shared generator keeps
+     * different reads depending on the order in which shards are processed: override {@link #createDownsampler(Random)}
+     * instead
+     */
+    @Deprecated
     protected ReadsDownsampler createDownsampler() {
-        return maxReadsPerAlignmentStart > 0 ? new PositionalDownsampler(maxReadsPerAlignmentStart, getHeaderForReads()) : null;
+        return createDownsampler(Utils.getRandomGenerator());
     }
 
     @Override
     public final void traverse() {
 
-        CountingReadFilter countedFilter = makeReadFilter();
-
         // Since we're processing regions rather than individual reads, tell the progress
         // meter to check the time more frequently (every 10 regions instead of every 1000 regions).
         progressMeter.setRecordsBetweenTimeChecks(10L);
 
-        for ( final MultiIntervalLocalReadShard readShard : readShards ) {
-            // Since reads in each shard are lazily fetched, we need to pass the filter and transformers to the window
-            // instead of filtering the reads directly here
-            readShard.setPreReadFilterTransformer(makePreReadFilterTransformer());
-            readShard.setReadFilter(countedFilter);
-            readShard.setDownsampler(createDownsampler());
-            readShard.setPostReadFilterTransformer(makePostReadFilterTransformer());
+        if ( traversalThreads > 1 ) {
+            traverseReadShardsConcurrently();
+            return;
+        }
+
+        CountingReadFilter countedFilter = makeReadFilter();
 
-            processReadShard(readShard, reference, features);
+        try ( final PipelinedRegionFinder regionFinder = assemblyRegionPipelineQueueSize > 0 ? new PipelinedRegionFinder() : null ) {
+            for ( int shardIndex = 0; shardIndex < readShards.size(); ++shardIndex ) {
+                final MultiIntervalLocalReadShard readShard = readShards.get(shardIndex);
+                configureReadShard(readShard, shardIndex, countedFilter);
+                processReadShard(readShard, reference, features, regionFinder);
+            }
         }
 
         logger.info(countedFilter.getSummaryLine());
     }
 
+    /**
+     * Since reads in each shard are lazily fetched, we need to pass the filter and transformers to the shard
+     * instead of filtering the reads directly. The downsampler gets a generator seeded from the index of the shard,
+     * so that the reads it keeps are the same whichever thread processes the shard, and in whatever order.
+     */
+    private void configureReadShard(final MultiIntervalLocalReadShard readShard, final int shardIndex, final CountingReadFilter countedFilter) {
+        readShard.setPreReadFilterTransformer(makePreReadFilterTransformer());
+        readShard.setReadFilter(countedFilter);
+        readShard.setDownsampler(createDownsampler(Utils.getIndependentRandomGenerator(shardIndex)));
+        readShard.setPostReadFilterTransformer(makePostReadFilterTransformer());
+    }
+
+    /**
+     * Process up to {@link #traversalThreads} read shards at a time on a pool of worker threads, each owning a
+     * {@link ShardWorker}, while the traversal thread publishes the results of each shard in the original shard order.
+     */
+    private void traverseReadShardsConcurrently() {
+        // Keep at most one pending shard per thread, since all of the results of a shard are held in memory
+        try ( final OrderedWorkerPool<ShardWorker> workerPool = new OrderedWorkerPool<>(traversalThreads, traversalThreads, ShardWorker::new, "assembly-region-shard-%d") ) {
+            workerPool.process(IntStream.range(0, readShards.size()).iterator(),
+                    (worker, shardIndex) -> worker.processReadShard(readShards.get(shardIndex), shardIndex),
+                    results -> results.forEach(Runnable::run),
+                    "read shard");
+
+            final List<ShardWorker> workers = workerPool.getWorkers();
+            final CountingReadFilter countedFilter = workers.get(0).countedFilter;
+            workers.subList(1, workers.size()).forEach(worker -> countedFilter.mergeFilteredCounts(worker.countedFilter));
+            logger.info(countedFilter.getSummaryLine());
+        }
+    }
+
+    /**
+     * The per-thread state used to process read shards during multi-threaded traversal: independent handles on the
+     * reads, reference and feature inputs, a read filter (so that filter counts are not shared), and the tool's
+     * {@link AssemblyRegionProcessor}.
+     */
+    private final class ShardWorker implements AutoCloseable {
+        private final ReadsDataSource workerReads = createReadsDataSource();
+        private final ReferenceDataSource workerReference = createReferenceDataSource();
+        private final FeatureManager workerFeatures = createFeatureManager(FeatureDataSource.DEFAULT_QUERY_LOOKAHEAD_BASES);
+        private final CountingReadFilter countedFilter = makeReadFilter();
+        private final AssemblyRegionProcessor processor = makeAssemblyRegionProcessor();
+        private final PipelinedRegionFinder regionFinder = assemblyRegionPipelineQueueSize > 0 ? new PipelinedRegionFinder() : null;
+
+        /**
+         * Process all of the assembly regions in a shard.
+         *
+         * @return the actions publishing the results for each region of the shard, in order, to be run on the traversal thread
+         */
+        private List<Runnable> processReadShard(final MultiIntervalLocalReadShard shard, final int shardIndex) {
+            final MultiIntervalLocalReadShard workerShard = new MultiIntervalLocalReadShard(shard.getIntervals(), assemblyRegionPadding, workerReads);
+            configureReadShard(workerShard, shardIndex, countedFilter);
+
+            final Iterator<AssemblyRegion> assemblyRegionIter = regionFinder != null ? regionFinder.findAssemblyRegions(workerShard) :
+                    findAssemblyRegions(workerShard, workerReference, workerFeatures, processor.assemblyRegionEvaluator());
+
+            final List<Runnable> results = new ArrayList<>();
+            try {
+                collectRegionResults(assemblyRegionIter, results);
+            } finally {
+                closeIfPipelined(assemblyRegionIter);
+            }
+            return results;
+        }
+
+        private void collectRegionResults(final Iterator<AssemblyRegion> assemblyRegionIter, final List<Runnable> results) {
+            while ( assemblyRegionIter.hasNext() ) {
+                final AssemblyRegion assemblyRegion = assemblyRegionIter.next();
+                final Runnable publishRegionResults = Utils.nonNull(processor.process(assemblyRegion,
+                        new ReferenceContext(workerReference, assemblyRegion.getExtendedSpan()),
+                        new FeatureContext(workerFeatures, assemblyRegion.getExtendedSpan())));
+
+                // Don't hold on to the region itself (and therefore all of its reads) until the shard is published
+                final SimpleInterval span = assemblyRegion.getSpan();
+                final boolean isActive = assemblyRegion.isActive();
+                final int numReads = assemblyRegion.getReads().size();
+                final List<ActivityProfileState> supportingStates = activityProfileOutStream != null ? assemblyRegion.getSupportingStates() : Collections.emptyList();
+
+                results.add(() -> {
+                    logger.debug("Processing assembly region at " + span + " isActive: " + isActive + " numReads: " + numReads);
+                    writeAssemblyRegion(span, isActive, supportingStates);
+                    publishRegionResults.run();
+                    progressMeter.update(span);
+                });
+            }
+        }
+
+        @Override
+        public void close() {
+            processor.close();
+            if ( regionFinder != null ) {
+                regionFinder.close();
+            }
+            if ( workerReads != null ) {
+                workerReads.close();
+            }
+            if ( workerReference != null ) {
+                workerReference.close();
+            }
+            if ( workerFeatures != null ) {
+                workerFeatures.close();
+            }
+        }
+    }
+
     /**
      * Divide the given Shard up into active/inactive AssemblyRegions using the {@link #assemblyRegionEvaluator},
      * and send each region to the tool implementation for processing.
@@ -282,9 +458,17 @@ public abstract class AssemblyRegionWalker extends GATKTool {
      * @param reference Reference data source
      * @param features FeatureManager
      */
-    private void processReadShard(MultiIntervalLocalReadShard shard, ReferenceDataSource reference, FeatureManager features ) {
-        final Iterator<AssemblyRegion> assemblyRegionIter = new AssemblyRegionIterator(shard, getHeaderForReads(), reference, features, assemblyRegionEvaluator(), minAssemblyRegionSize, maxAssemblyRegionSize, assemblyRegionPadding, activeProbThreshold, maxProbPropagationDistance, includeReadsWithDeletionsInIsActivePileups());
+    private void processReadShard(MultiIntervalLocalReadShard shard, ReferenceDataSource reference, FeatureManager features, final PipelinedRegionFinder regionFinder ) {
+        final Iterator<AssemblyRegion> assemblyRegionIter = regionFinder != null ? regionFinder.findAssemblyRegions(shard) :
+                findAssemblyRegions(shard, reference, features, assemblyRegionEvaluator());
+        try {
+            applyToRegions(assemblyRegionIter, reference, features);
+        } finally {
+            closeIfPipelined(assemblyRegionIter);
+        }
+    }
 
+    private void applyToRegions(final Iterator<AssemblyRegion> assemblyRegionIter, final ReferenceDataSource reference, final FeatureManager features) {
         // Call into the tool implementation to process each assembly region from this shard.
         while ( assemblyRegionIter.hasNext() ) {
             final AssemblyRegion assemblyRegion = assemblyRegionIter.next();
@@ -301,14 +485,61 @@ public abstract class AssemblyRegionWalker extends GATKTool {
         }
     }
 
+    /**
+     * @return an iterator over the assembly regions in the given shard, found on the calling thread using the given
+     *         data sources and evaluator
+     */
+    private Iterator<AssemblyRegion> findAssemblyRegions(final MultiIntervalLocalReadShard shard, final ReferenceDataSource reference, final FeatureManager features, final AssemblyRegionEvaluator evaluator) {
+        return new AssemblyRegionIterator(shard, getHeaderForReads(), reference, features, evaluator, minAssemblyRegionSize, maxAssemblyRegionSize, assemblyRegionPadding, activeProbThreshold, maxProbPropagationDistance, includeReadsWithDeletionsInIsActivePileups());
+    }
+
+    private static void closeIfPipelined(final Iterator<AssemblyRegion> assemblyRegionIter) {
+        if ( assemblyRegionIter instanceof AsyncPrefetchingIterator ) {
+            ((AsyncPrefetchingIterator<AssemblyRegion>)assemblyRegionIter).close();
+        }
+    }
+
+    /**
+     * Finds assembly regions on a background thread, ahead of the thread that processes them. The background thread
+     * gets its own reference and feature data sources and its own evaluator (from a dedicated {@link AssemblyRegionProcessor}),
+     * so that it never shares a non-thread-safe resource with the processing thread. The reads data source is only
+     * ever used by the region-finding thread, one shard at a time.
+     */
+    private final class PipelinedRegionFinder implements AutoCloseable {
+        private final ReferenceDataSource finderReference = createReferenceDataSource();
+        private final FeatureManager finderFeatures = createFeatureManager(FeatureDataSource.DEFAULT_QUERY_LOOKAHEAD_BASES);
+        private final AssemblyRegionProcessor finderProcessor = makeAssemblyRegionProcessor();
+
+        private Iterator<AssemblyRegion> findAssemblyRegions(final MultiIntervalLocalReadShard shard) {
+            return new AsyncPrefetchingIterator<>(
+                    () -> AssemblyRegionWalker.this.findAssemblyRegions(shard, finderReference, finderFeatures, finderProcessor.assemblyRegionEvaluator()),
+                    assemblyRegionPipelineQueueSize, "assembly-region-finder");
+        }
+
+        @Override
+        public void close() {
+            finderProcessor.close();
+            if ( finderReference != null ) {
+                finderReference.close();
+            }
+            if ( finderFeatures != null ) {
+                finderFeatures.close();
+            }
+        }
+    }
+
     private void writeAssemblyRegion(final AssemblyRegion region) {
-        writeActivityProfile(region.getSupportingStates());
+        writeAssemblyRegion(region.getSpan(), region.isActive(), region.getSupportingStates());
+    }
+
+    private void writeAssemblyRegion(final SimpleInterval span, final boolean isActive, final List<ActivityProfileState> supportingStates) {
+        writeActivityProfile(supportingStates);
 
         if ( assemblyRegionOutStream != null ) {
-            IGVUtils.printIGVFormatRow(assemblyRegionOutStream, new SimpleInterval(region.getContig(), region.getStart(), region.getStart()),
+            IGVUtils.printIGVFormatRow(assemblyRegionOutStream, new SimpleInterval(span.getContig(), span.getStart(), span.getStart()),
                     "end-marker", 0.0);
-            IGVUtils.printIGVFormatRow(assemblyRegionOutStream, region,
-                    "size=" + new SimpleInterval(region).size(), region.isActive() ? 1.0 : -1.0);
+            IGVUtils.printIGVFormatRow(assemblyRegionOutStream, span,
+                    "size=" + span.size(), isActive ? 1.0 : -1.0);
         }
     }
 
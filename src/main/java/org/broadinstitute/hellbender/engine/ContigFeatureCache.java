@@ -0,0 +1,155 @@
+package org.broadinstitute.hellbender.engine;
+
+import htsjdk.tribble.Feature;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.collections.IntervalsSkipListOneContig;
+
+import java.util.*;
+
+/**
+ * ContigFeatureCache: alternative to {@link FeatureCache} for {@link FeatureDataSource}s queried at random
+ * or non-localized positions, as is typical of annotation resources.
+ *
+ * Strategy is to load ALL records on a contig into an interval index the first time that contig is queried,
+ * so that subsequent queries on the same contig are in-memory lookups regardless of the order of the
+ * query intervals. Up to a fixed number of contigs are kept, and the least-recently queried contig is
+ * evicted when a new one needs to be loaded. This trades memory for random-access performance, and
+ * is only suitable for inputs with a modest number of records per contig.
+ *
+ * Records returned from a query are ordered by start position, then by end position. Records with the
+ * same start and end are returned in the order in which they were loaded.
+ *
+ * Usage:
+ * -Test whether each query interval is a cache hit via {@link #cacheHit(SimpleInterval)}
+ *
+ * -If it is a cache miss, load all records on the contig of the query interval using
+ *  {@link #fill(Iterator, String)}.
+ *
+ * -Retrieve the records overlapping the query interval via {@link #getOverlapping(SimpleInterval)}.
+ *
+ * @param <CACHED_FEATURE> Type of Feature record we are caching
+ */
+class ContigFeatureCache<CACHED_FEATURE extends Feature> {
+    private static final Logger logger = LogManager.getLogger(ContigFeatureCache.class);
+
+    /**
+     * Indexed records for each cached contig, in order of least- to most-recently queried.
+     */
+    private final LinkedHashMap<String, IntervalsSkipListOneContig<CACHED_FEATURE>> cache;
+
+    /**
+     * Number of times we called {@link #cacheHit(SimpleInterval)} and it returned true
+     */
+    private int numCacheHits = 0;
+
+    /**
+     * Number of times we called {@link #cacheHit(SimpleInterval)} and it returned false
+     */
+    private int numCacheMisses = 0;
+
+    /**
+     * Create an initially-empty ContigFeatureCache
+     *
+     * @param maxCachedContigs maximum number of contigs to keep in the cache at once (must be >= 1)
+     */
+    public ContigFeatureCache( final int maxCachedContigs ) {
+        Utils.validateArg(maxCachedContigs >= 1, "maxCachedContigs must be >= 1");
+
+        // access order, so that the eldest entry is the least-recently queried contig
+        cache = new LinkedHashMap<String, IntervalsSkipListOneContig<CACHED_FEATURE>>(maxCachedContigs * 2, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry( final Map.Entry<String, IntervalsSkipListOneContig<CACHED_FEATURE>> eldest ) {
+                return size() > maxCachedContigs;
+            }
+        };
+    }
+
+    /**
+     * @return the names of the contigs currently in our cache, from least- to most-recently queried
+     */
+    public List<String> getCachedContigs() {
+        return new ArrayList<>(cache.keySet());
+    }
+
+    /**
+     * @return Number of times we called {@link #cacheHit(SimpleInterval)} and it returned true
+     */
+    public int getNumCacheHits() {
+        return numCacheHits;
+    }
+
+    /**
+     * @return Number of times we called {@link #cacheHit(SimpleInterval)} and it returned false
+     */
+    public int getNumCacheMisses() {
+        return numCacheMisses;
+    }
+
+    /**
+     * Load all records from the provided iterator as the contents of our cache for the given contig,
+     * evicting the least-recently queried contig if we're already holding the maximum number of contigs.
+     *
+     * @param featureIter iterator over ALL Features on the contig
+     * @param contig contig on which all Features from featureIter are located
+     */
+    public void fill( final Iterator<CACHED_FEATURE> featureIter, final String contig ) {
+        Utils.nonNull(contig);
+        final List<CACHED_FEATURE> features = new ArrayList<>();
+        while ( featureIter.hasNext() ) {
+            features.add(featureIter.next());
+        }
+
+        cache.put(contig, new IntervalsSkipListOneContig<>(features));
+    }
+
+    /**
+     * Determines whether the records on the contig of the provided interval are already contained in our cache.
+     * Marks the contig as the most-recently queried one if so.
+     *
+     * @param interval the interval to check against the contents of our cache
+     * @return true if all records on the contig of the provided interval are already contained in our cache, otherwise false
+     */
+    public boolean cacheHit( final SimpleInterval interval ) {
+        final boolean cacheHit = cache.get(interval.getContig()) != null;
+
+        if ( cacheHit ) {
+            ++numCacheHits;
+        }
+        else {
+            ++numCacheMisses;
+        }
+
+        return cacheHit;
+    }
+
+    /**
+     * Returns all cached Features that overlap the provided interval, whose contig must be in our cache.
+     *
+     * @param interval the interval that returned Features must overlap
+     * @return all cached Features that overlap the provided interval
+     */
+    public List<CACHED_FEATURE> getOverlapping( final SimpleInterval interval ) {
+        final IntervalsSkipListOneContig<CACHED_FEATURE> contigFeatures = cache.get(interval.getContig());
+        if ( contigFeatures == null ) {
+            throw new GATKException(String.format("BUG: attempted to retrieve Features on contig %s, which is not in the cache", interval.getContig()));
+        }
+        return contigFeatures.getOverlapping(interval);
+    }
+
+    /**
+     * Print statistics about the cache hit rate for debugging
+     */
+    public void printCacheStatistics() {
+        final int totalQueries = getNumCacheHits() + getNumCacheMisses();
+        logger.debug(String.format("Contig cache hit rate was %.2f%% (%d out of %d total queries)",
+                totalQueries > 0 ? ((double)getNumCacheHits() / totalQueries) * 100.0 : 0.0,
+                getNumCacheHits(),
+                totalQueries));
+    }
+}
@@ -23,6 +23,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.channels.SeekableByteChannel;
 import java.nio.file.Path;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.function.Function;
@@ -51,6 +52,16 @@ import java.util.function.Function;
  * or involves lots of very large jumps forward on the genome or lots of contig switches. Query caching
  * can be disabled, if desired.
  *
+ * For inputs that are queried at random positions (eg., annotation resources), an alternative caching scheme
+ * that loads whole contigs into memory can be enabled via {@link #setMaxCachedContigs(int)}, or by giving the
+ * FeatureInput a {@link #MAX_CACHED_CONTIGS_ATTRIBUTE} attribute (eg., "--resource dbsnp,cachedContigs=2:dbsnp.vcf").
+ * In this mode, the first query on each contig loads all records on that contig, and all further queries on it
+ * are answered from memory regardless of their order. See {@link ContigFeatureCache}.
+ *
+ * With the default caching scheme, the next window of Features can also be loaded on a background thread as queries
+ * approach the end of the cache, so that cache misses don't stall the querying thread (see
+ * {@link #setBackgroundPrefetch(boolean)} and {@link FeaturePrefetcher}).
+ *
  * @param <T> The type of Feature returned by this data source
  */
 public final class FeatureDataSource<T extends Feature> implements GATKDataSource<T>, AutoCloseable {
@@ -90,6 +101,25 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
      */
     private final FeatureCache<T> queryCache;
 
+    /**
+     * Cache containing ALL Features on the most recently queried contigs, used instead of {@link #queryCache}
+     * if enabled via {@link #setMaxCachedContigs(int)} (null otherwise). Designed to improve the performance
+     * of random-access queries.
+     */
+    private ContigFeatureCache<T> contigCache;
+
+    /**
+     * Loads the window of Features needed by the next miss of {@link #queryCache} on a background thread, if enabled
+     * via {@link #setBackgroundPrefetch(boolean)} (null otherwise).
+     */
+    private FeaturePrefetcher<T> prefetcher;
+
+    /**
+     * Wrappers for the data and index channels of cloud inputs, kept to open additional readers for {@link #prefetcher}
+     */
+    private final Function<SeekableByteChannel, SeekableByteChannel> cloudWrapper;
+    private final Function<SeekableByteChannel, SeekableByteChannel> cloudIndexWrapper;
+
     /**
      * When we experience a cache miss (ie., a query interval not fully contained within our cache) and need
      * to re-populate the Feature cache from disk to satisfy a query, this controls the number of extra bases
@@ -125,6 +155,12 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
      */
     public static final int DEFAULT_QUERY_LOOKAHEAD_BASES = 1000;
 
+    /**
+     * Name of the FeatureInput attribute that enables caching of whole contigs for queries (see
+     * {@link #setMaxCachedContigs(int)}). Its value is the maximum number of contigs to cache at once.
+     */
+    public static final String MAX_CACHED_CONTIGS_ATTRIBUTE = "cachedContigs";
+
     /**
      * Creates a FeatureDataSource backed by the provided File. The data source will have an automatically
      * generated name, and will look ahead the default number of bases ({@link #DEFAULT_QUERY_LOOKAHEAD_BASES})
@@ -236,8 +272,8 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
         Utils.validateArg( queryLookaheadBases >= 0, "Query lookahead bases must be >= 0");
         this.featureInput = Utils.nonNull(featureInput, "featureInput must not be null");
 
-        final Function<SeekableByteChannel, SeekableByteChannel> cloudWrapper = (cloudPrefetchBuffer > 0 ? is -> SeekableByteChannelPrefetcher.addPrefetcher(cloudPrefetchBuffer, is) : Function.identity());
-        final Function<SeekableByteChannel, SeekableByteChannel> cloudIndexWrapper = (cloudIndexPrefetchBuffer > 0 ? is -> SeekableByteChannelPrefetcher.addPrefetcher(cloudIndexPrefetchBuffer, is) : Function.identity());
+        this.cloudWrapper = (cloudPrefetchBuffer > 0 ? is -> SeekableByteChannelPrefetcher.addPrefetcher(cloudPrefetchBuffer, is) : Function.identity());
+        this.cloudIndexWrapper = (cloudIndexPrefetchBuffer > 0 ? is -> SeekableByteChannelPrefetcher.addPrefetcher(cloudIndexPrefetchBuffer, is) : Function.identity());
 
         // Create a feature reader without requiring an index.  We will require one ourselves as soon as
         // a query by interval is attempted.
@@ -263,6 +299,17 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
         this.intervalsForTraversal = null;
         this.queryCache = new FeatureCache<>();
         this.queryLookaheadBases = queryLookaheadBases;
+
+        final String maxCachedContigs = featureInput.getAttribute(MAX_CACHED_CONTIGS_ATTRIBUTE);
+        if ( maxCachedContigs != null ) {
+            try {
+                setMaxCachedContigs(Integer.parseInt(maxCachedContigs));
+            }
+            catch ( IllegalArgumentException e ) {
+                throw new UserException.BadInput(String.format("Invalid value %s for attribute %s of input %s: must be a non-negative integer",
+                        maxCachedContigs, MAX_CACHED_CONTIGS_ATTRIBUTE, featureInput), e);
+            }
+        }
     }
 
     /**
@@ -408,6 +455,15 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
         return null;
     }
 
+    /**
+     * Returns the names of the sequences that have Features in this source, according to its index, in the order of
+     * the index. Unlike {@link #getSequenceDictionary}, this includes sequences that are not declared in the header.
+     * Returns an empty List if this source is not indexed.
+     */
+    public List<String> getIndexedSequenceNames() {
+        return hasIndex ? featureReader.getSequenceNames() : Collections.emptyList();
+    }
+
     /**
      * Restricts traversals of this data source via {@link #iterator} to only return Features that overlap the provided
      * intervals. Calls to {@link #query(SimpleInterval)} and/or {@link #queryAndPrefetch(SimpleInterval)} are not
@@ -432,6 +488,82 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
     }
 
 
+    /**
+     * Switches the caching of query results to loading ALL Features on each queried contig into memory, keeping
+     * up to the specified number of contigs at once and evicting the least-recently queried contig when needed.
+     * This makes queries at random or decreasing positions as fast as localized ones, at the cost of holding
+     * whole contigs in memory, so it should only be used for inputs with a modest number of records.
+     *
+     * Calls to {@link #query(SimpleInterval)} and/or {@link #queryAndPrefetch(SimpleInterval)} then return
+     * Features sorted by start and end position.
+     *
+     * Since whole contigs are not prefetched, enabling the contig cache closes the background prefetcher, if any
+     * (see {@link #setBackgroundPrefetch(boolean)}), and restoring the default caching scheme doesn't reopen it:
+     * prefetching has to be enabled again after this call.
+     *
+     * @param maxCachedContigs maximum number of contigs to cache at once, or 0 to restore the default caching
+     *                         scheme, optimized for queries with gradually increasing start positions
+     */
+    public void setMaxCachedContigs( final int maxCachedContigs ) {
+        Utils.validateArg(maxCachedContigs >= 0, "maxCachedContigs must be >= 0");
+        contigCache = maxCachedContigs > 0 ? new ContigFeatureCache<>(maxCachedContigs) : null;
+        if ( contigCache != null ) {
+            setBackgroundPrefetch(false);
+        }
+    }
+
+    /**
+     * Enables or disables the loading of Features on a background thread, ahead of queries with gradually
+     * increasing start positions. Once a query gets within half of our query lookahead of the end of the cache,
+     * the window that the next cache miss is expected to need is loaded by a background thread, using a separate
+     * reader, so that the miss can be served from memory.
+     *
+     * Has no effect on inputs that are not files, on data sources with a query lookahead of 0, or while whole
+     * contigs are being cached (see {@link #setMaxCachedContigs(int)}). Enabling prefetching when it is already
+     * enabled has no effect either, so the prefetcher (and its reader) is not reopened.
+     *
+     * @param enabled true to prefetch Features on a background thread, false to load them only when needed
+     */
+    public void setBackgroundPrefetch( final boolean enabled ) {
+        if ( enabled && prefetcher != null ) {
+            return;
+        }
+        if ( prefetcher != null ) {
+            prefetcher.printPrefetchStatistics();
+            prefetcher.close();
+            prefetcher = null;
+        }
+        if ( enabled && hasIndex && queryLookaheadBases > 0 && contigCache == null ) {
+            // our FeatureInput remembers the codec class found by the constructor, so there is no need to search again
+            prefetcher = new FeaturePrefetcher<>(getTribbleFeatureReader(featureInput, getCodecForFeatureInput(featureInput, null), cloudWrapper, cloudIndexWrapper),
+                                                 featureInput.toString());
+        }
+    }
+
+    /**
+     * @return Number of cache misses served by Features that had already been loaded in the background
+     *         (0 if background prefetch is disabled)
+     */
+    public int getNumPrefetchHits() {
+        return prefetcher != null ? prefetcher.getNumPrefetchHits() : 0;
+    }
+
+    /**
+     * @return Number of cache misses that had to wait for Features still being loaded in the background
+     *         (0 if background prefetch is disabled)
+     */
+    public int getNumPrefetchStalls() {
+        return prefetcher != null ? prefetcher.getNumStalls() : 0;
+    }
+
+    /**
+     * @return Number of cache misses that no background prefetch could serve, and so were loaded by the querying thread
+     *         (0 if background prefetch is disabled)
+     */
+    public int getNumPrefetchMisses() {
+        return prefetcher != null ? prefetcher.getNumPrefetchMisses() : 0;
+    }
+
     /**
      * Gets an iterator over all Features in this data source, restricting traversal to Features
      * overlapping our intervals if intervals were provided via {@link #setIntervalsForTraversal(List)}
@@ -502,17 +634,33 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
                                     "If it's a file, please index it using the bundled tool " + IndexFeatureFile.class.getSimpleName());
         }
 
+        // If whole contigs are cached, load the contig of the query interval on a cache miss, and
+        // look up the query interval in memory
+        if ( contigCache != null ) {
+            if ( ! contigCache.cacheHit(interval) ) {
+                refillContigCache(interval.getContig());
+            }
+            return contigCache.getOverlapping(interval);
+        }
+
         // If the query can be satisfied using existing cache contents, prepare for retrieval
         // by discarding all Features at the beginning of the cache that end before the start
         // of our query interval.
         if ( queryCache.cacheHit(interval) ) {
             queryCache.trimToNewStartPosition(interval.getStart());
         }
-        // Otherwise, we have a cache miss, so go to disk to refill our cache.
-        else {
+        // Otherwise, we have a cache miss, so refill our cache from the background prefetch if it
+        // covers our query interval, or else go to disk.
+        else if ( prefetcher == null || ! prefetcher.refill(queryCache, interval) ) {
             refillQueryCache(interval);
         }
 
+        // If we're getting close to the end of our cache, start loading the window that the next cache
+        // miss will need in the background: the same window that a miss on this query would have loaded.
+        if ( prefetcher != null && queryCache.getCacheEnd() - interval.getEnd() < queryLookaheadBases / 2 ) {
+            prefetcher.prefetch(new SimpleInterval(interval.getContig(), interval.getStart(), Math.addExact(interval.getEnd(), queryLookaheadBases)));
+        }
+
         // Return the subset of our cache that overlaps our query interval
         return queryCache.getCachedFeaturesUpToStopPosition(interval.getEnd());
     }
@@ -549,6 +697,26 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
         }
     }
 
+    /**
+     * Load all Features on the given contig into our contig cache after a cache miss.
+     *
+     * Calling this has the side effect of invalidating (closing) any currently-open iteration over
+     * this data source.
+     *
+     * @param contig the contig of the query interval that produced a cache miss
+     */
+    private void refillContigCache( final String contig ) {
+        closeOpenIterationIfNecessary();
+
+        // As when refilling the query cache, our reader's query operation does not care about contig boundaries
+        try ( CloseableTribbleIterator<T> queryIter = featureReader.query(contig, 1, Integer.MAX_VALUE) ) {
+            contigCache.fill(queryIter, contig);
+        }
+        catch ( IOException e ) {
+            throw new GATKException("Error querying file " + featureInput + " over contig " + contig, e);
+        }
+    }
+
     /**
      * Get the logical name of this data source.
      *
@@ -577,6 +745,13 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
 
         logger.debug(String.format("Cache statistics for FeatureInput %s:", featureInput));
         queryCache.printCacheStatistics();
+        if ( contigCache != null ) {
+            contigCache.printCacheStatistics();
+        }
+        if ( prefetcher != null ) {
+            prefetcher.printPrefetchStatistics();
+            prefetcher.close();
+        }
 
         try {
             if ( featureReader != null ) {
@@ -240,6 +240,16 @@ public final class FeatureManager implements AutoCloseable {
         return typeParameters[0];
     }
 
+    /**
+     * Enables or disables the loading of Features on a background thread, ahead of queries, for all of our
+     * sources of Features. See {@link FeatureDataSource#setBackgroundPrefetch(boolean)}.
+     *
+     * @param enabled true to prefetch Features on background threads, false to load them only when needed
+     */
+    public void setBackgroundPrefetch( final boolean enabled ) {
+        featureSources.values().forEach(ds -> ds.setBackgroundPrefetch(enabled));
+    }
+
     /**
      * Does this manager have no sources of Features to query?
      *
@@ -0,0 +1,210 @@
+package org.broadinstitute.hellbender.engine;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import htsjdk.tribble.CloseableTribbleIterator;
+import htsjdk.tribble.Feature;
+import htsjdk.tribble.FeatureReader;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * FeaturePrefetcher: loads the next window of Features for a {@link FeatureDataSource} on a background thread,
+ * so that the cache misses of a {@link FeatureCache} queried at gradually increasing positions can be served
+ * without going to disk on the querying thread.
+ *
+ * Strategy is to query the window that the next cache miss is expected to need (see {@link #prefetch(SimpleInterval)})
+ * on a background thread, using a reader of its own, while queries keep being answered from the cache. When a query
+ * then misses the cache, the cache is refilled from the prefetched Features if their window contains the query
+ * interval (see {@link #refill(FeatureCache, SimpleInterval)}), and from disk by the caller otherwise.
+ *
+ * Three counters describe how well this works:
+ * -prefetch hits: cache misses served by a prefetch that had already completed
+ * -stalls: cache misses served by a prefetch that was still running, so that the querying thread had to wait for it
+ * -prefetch misses: cache misses that no prefetch could serve (eg., after a large jump or a contig switch)
+ *
+ * Not thread-safe: all methods must be called from the thread querying the data source.
+ *
+ * @param <CACHED_FEATURE> Type of Feature record we are prefetching
+ */
+class FeaturePrefetcher<CACHED_FEATURE extends Feature> implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(FeaturePrefetcher.class);
+
+    /**
+     * Reader used exclusively by the background thread, since Tribble readers can't be shared between threads
+     */
+    private final FeatureReader<CACHED_FEATURE> reader;
+
+    /**
+     * Name of the source being prefetched, for error messages
+     */
+    private final String sourceName;
+
+    private final ExecutorService executor;
+
+    /**
+     * Window of the prefetch that is running or ready to be used (null if there is none)
+     */
+    private SimpleInterval pendingWindow;
+
+    /**
+     * Features overlapping {@link #pendingWindow} (null if there is no pending prefetch)
+     */
+    private Future<List<CACHED_FEATURE>> pendingFeatures;
+
+    private int numPrefetchHits = 0;
+    private int numStalls = 0;
+    private int numPrefetchMisses = 0;
+
+    /**
+     * @param reader reader over the same source as the data source being prefetched, to be used only by this prefetcher
+     *               (it is closed when this prefetcher is closed)
+     * @param sourceName name of the source being prefetched, for error messages
+     */
+    public FeaturePrefetcher( final FeatureReader<CACHED_FEATURE> reader, final String sourceName ) {
+        this.reader = Utils.nonNull(reader);
+        this.sourceName = sourceName;
+        this.executor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("feature-prefetch-%d").setDaemon(true).build());
+    }
+
+    /**
+     * @return Number of cache misses served by a prefetch that had already completed
+     */
+    public int getNumPrefetchHits() {
+        return numPrefetchHits;
+    }
+
+    /**
+     * @return Number of cache misses served by a prefetch that the querying thread had to wait for
+     */
+    public int getNumStalls() {
+        return numStalls;
+    }
+
+    /**
+     * @return Number of cache misses that had to be served from disk by the querying thread
+     */
+    public int getNumPrefetchMisses() {
+        return numPrefetchMisses;
+    }
+
+    /**
+     * @return true if a prefetch is running, or has completed but hasn't been used yet
+     */
+    public boolean isPending() {
+        return pendingFeatures != null;
+    }
+
+    /**
+     * Start loading all Features overlapping the given window on the background thread, unless a prefetch
+     * is already pending.
+     *
+     * @param window window to prefetch, which should start no later than the next query that will miss the cache
+     */
+    public void prefetch( final SimpleInterval window ) {
+        Utils.nonNull(window);
+        if ( isPending() ) {
+            return;
+        }
+
+        pendingWindow = window;
+        pendingFeatures = executor.submit(() -> {
+            final List<CACHED_FEATURE> features = new ArrayList<>();
+            try ( CloseableTribbleIterator<CACHED_FEATURE> queryIter = reader.query(window.getContig(), window.getStart(), window.getEnd()) ) {
+                while ( queryIter.hasNext() ) {
+                    features.add(queryIter.next());
+                }
+            }
+            return features;
+        });
+    }
+
+    /**
+     * Refill the cache with the pending prefetch after a cache miss, if the window of the prefetch contains the
+     * query interval, waiting for the prefetch to complete if necessary. Otherwise, the pending prefetch (if any)
+     * is discarded, and the caller must refill the cache itself.
+     *
+     * @param cache the cache that missed
+     * @param interval the query interval that produced the cache miss
+     * @return true if the cache was refilled, and now starts at the start of the query interval
+     */
+    public boolean refill( final FeatureCache<CACHED_FEATURE> cache, final SimpleInterval interval ) {
+        if ( ! isPending() || ! pendingWindow.contains(interval) ) {
+            ++numPrefetchMisses;
+            discardPendingPrefetch();
+            return false;
+        }
+
+        if ( pendingFeatures.isDone() ) {
+            ++numPrefetchHits;
+        }
+        else {
+            ++numStalls;
+        }
+
+        final List<CACHED_FEATURE> features;
+        try {
+            features = pendingFeatures.get();
+        }
+        catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new GATKException("Interrupted while waiting for Features from " + sourceName + " over interval " + pendingWindow, e);
+        }
+        catch ( ExecutionException e ) {
+            if ( e.getCause() instanceof RuntimeException ) {
+                throw (RuntimeException)e.getCause();
+            }
+            throw new GATKException("Error querying " + sourceName + " over interval " + pendingWindow, e.getCause());
+        }
+
+        cache.fill(features.iterator(), pendingWindow);
+        cache.trimToNewStartPosition(interval.getStart());
+        pendingWindow = null;
+        pendingFeatures = null;
+        return true;
+    }
+
+    private void discardPendingPrefetch() {
+        if ( pendingFeatures != null ) {
+            pendingFeatures.cancel(false);
+        }
+        pendingWindow = null;
+        pendingFeatures = null;
+    }
+
+    /**
+     * Print statistics about the prefetch hit rate for debugging
+     */
+    public void printPrefetchStatistics() {
+        logger.debug(String.format("Prefetch served %d cache misses without waiting and %d after waiting, and missed %d",
+                getNumPrefetchHits(), getNumStalls(), getNumPrefetchMisses()));
+    }
+
+    /**
+     * Discard any pending prefetch, and close our reader once the background thread is done with it.
+     */
+    @Override
+    public void close() {
+        discardPendingPrefetch();
+        // queued behind any running query, so that the reader isn't closed under it
+        executor.submit(() -> {
+            try {
+                reader.close();
+            }
+            catch ( IOException e ) {
+                logger.warn("Error closing prefetch reader for " + sourceName, e);
+            }
+        });
+        executor.shutdown();
+    }
+}
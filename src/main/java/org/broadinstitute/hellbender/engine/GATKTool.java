@@ -10,8 +10,10 @@ import htsjdk.variant.variantcontext.writer.Options;
 import htsjdk.variant.variantcontext.writer.VariantContextWriter;
 import htsjdk.variant.vcf.VCFHeaderLine;
 import htsjdk.variant.vcf.VCFSimpleHeaderLine;
+import org.broadinstitute.barclay.argparser.Advanced;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.ArgumentCollection;
+import org.broadinstitute.barclay.argparser.CommandLineException;
 import org.broadinstitute.barclay.argparser.CommandLinePluginDescriptor;
 import org.broadinstitute.hellbender.cmdline.CommandLineProgram;
 import org.broadinstitute.hellbender.cmdline.GATKPlugin.GATKReadFilterPluginDescriptor;
@@ -35,8 +37,10 @@ import org.broadinstitute.hellbender.utils.read.ReadUtils;
 import org.broadinstitute.hellbender.utils.read.SAMFileGATKReadWriter;
 import org.broadinstitute.hellbender.utils.reference.ReferenceUtils;
 import org.broadinstitute.hellbender.utils.variant.GATKVariantContextUtils;
+import org.broadinstitute.hellbender.utils.variant.writers.ParallelVCFWriter;
 
 import java.io.File;
+import java.nio.file.FileSystems;
 import java.nio.file.Path;
 import java.time.ZonedDateTime;
 import java.util.*;
@@ -114,6 +118,63 @@ public abstract class GATKTool extends CommandLineProgram {
             optional = true)
     public boolean disableBamIndexCaching = false;
 
+    /**
+     * When positive, records from each reads input are decoded on their own background thread, up to this many
+     * records ahead of the traversal; only full traversals over the reads are affected by this, not targeted queries.
+     * In addition, the reads inputs are opened with htsjdk's asynchronous I/O, so that BGZF blocks of BAM inputs are
+     * decompressed ahead of reading on background threads. This applies to every read of the inputs, including those
+     * returned by targeted queries (eg., the reads of each shard of an AssemblyRegionWalker).
+     */
+    @Advanced
+    @Argument(fullName = StandardArgumentDefinitions.READ_AHEAD_RECORDS_LONG_NAME,
+            doc = "Number of records per reads input to decompress and decode ahead of the traversal on background threads (0 to disable)",
+            optional = true)
+    public int readAheadRecords = 0;
+
+    /**
+     * When true, the reference is memory-mapped and served from the operating system's page cache by a single data
+     * source shared by all of the threads of the traversal, rather than read into a cache for each thread. Only local
+     * fasta files can be memory-mapped; other references are read as usual.
+     */
+    @Advanced
+    @Argument(fullName = StandardArgumentDefinitions.MEMORY_MAP_REFERENCE_LONG_NAME,
+            doc = "If true, memory-map the reference and share it between all threads",
+            optional = true)
+    public boolean memoryMapReference = false;
+
+    /**
+     * When positive, VCF and block-compressed VCF outputs created via {@link #createVCFWriter} are encoded and
+     * compressed by this many background threads, while records are still written out in order and indexed on the
+     * fly. Other output formats are written as usual.
+     */
+    @Advanced
+    @Argument(fullName = StandardArgumentDefinitions.VCF_WRITER_THREADS_LONG_NAME,
+            doc = "Number of threads to use to encode and compress VCF outputs (0 to write them on the traversal thread)",
+            optional = true)
+    public int vcfWriterThreads = 0;
+
+    /**
+     * When true, each Feature input queried at gradually increasing positions loads its next window of records on its
+     * own background thread as queries approach the end of its cache, instead of on the traversal thread when the
+     * cache runs out. This mostly helps tools that query several Feature inputs at every site.
+     */
+    @Advanced
+    @Argument(fullName = StandardArgumentDefinitions.PREFETCH_FEATURES_LONG_NAME,
+            doc = "If true, load records from each Feature input ahead of queries on a background thread",
+            optional = true)
+    public boolean prefetchFeatures = false;
+
+    /**
+     * Number of threads used by the traversal to process the data concurrently. Only supported by tools that override
+     * {@link #supportsMultiThreadedTraversal}; the walker type of the tool determines what is processed concurrently
+     * (batches of reads, read shards, partitions of the variants).
+     */
+    @Advanced
+    @Argument(fullName = StandardArgumentDefinitions.THREADS_LONG_NAME,
+            doc = "Number of threads to use to process the data concurrently, for tools that support it",
+            optional = true)
+    protected int traversalThreads = 1;
+
     /**
      * Master sequence dictionary to be used instead of all other dictionaries (if provided).
      */
@@ -134,6 +195,12 @@ public abstract class GATKTool extends CommandLineProgram {
      */
     ReferenceDataSource reference;
 
+    /**
+     * The thread-safe data source returned by every call to {@link #createReferenceDataSource()} when the reference is
+     * memory-mapped (null until first needed)
+     */
+    private MemoryMappedReferenceSource memoryMappedReference;
+
     /**
      * Our source of reads data (null if no source of reads was provided)
      */
@@ -292,7 +359,32 @@ public abstract class GATKTool extends CommandLineProgram {
      * May be overridden by traversals that require custom initialization of the reference data source.
      */
     void initializeReference() {
-        reference = referenceArguments.getReferencePath() != null ? ReferenceDataSource.of(referenceArguments.getReferencePath()) : null;
+        reference = createReferenceDataSource();
+    }
+
+    /**
+     * Open a new, independent source of reference data for this tool's reference argument (or return null if no
+     * reference argument was provided). When the reference is memory-mapped, the same thread-safe source is returned
+     * by every call instead.
+     *
+     * Package-private so that traversals that need one data source per thread can open additional instances.
+     */
+    ReferenceDataSource createReferenceDataSource() {
+        final Path referencePath = referenceArguments.getReferencePath();
+        if ( referencePath == null ) {
+            return null;
+        }
+        if ( memoryMapReference ) {
+            if ( referencePath.getFileSystem() == FileSystems.getDefault() ) {
+                // a memory-mapped data source is thread-safe, so there is no need for more than one
+                if ( memoryMappedReference == null ) {
+                    memoryMappedReference = new MemoryMappedReferenceSource(referencePath);
+                }
+                return memoryMappedReference;
+            }
+            logger.warn("Only local references can be memory-mapped, reading " + referencePath.toUri() + " normally");
+        }
+        return ReferenceDataSource.of(referencePath);
     }
 
     /**
@@ -302,6 +394,16 @@ public abstract class GATKTool extends CommandLineProgram {
      * May be overridden by traversals that require custom initialization of the reads data source.
      */
     void initializeReads() {
+        reads = createReadsDataSource();
+    }
+
+    /**
+     * Open a new, independent source of reads data for this tool's reads argument(s) (or return null if no reads
+     * argument(s) were provided).
+     *
+     * Package-private so that traversals that need one data source per thread can open additional instances.
+     */
+    ReadsDataSource createReadsDataSource() {
         if (! readArguments.getReadFiles().isEmpty()) {
             SamReaderFactory factory = SamReaderFactory.makeDefault().validationStringency(readArguments.getReadValidationStringency());
             if (hasReference()) { // pass in reference if available, because CRAM files need it
@@ -315,11 +417,18 @@ public abstract class GATKTool extends CommandLineProgram {
                 factory = factory.enable(SamReaderFactory.Option.CACHE_FILE_BASED_INDEXES);
             }
 
-            reads = new ReadsDataSource(readArguments.getReadPaths(), readArguments.getReadIndexPaths(), factory, cloudPrefetchBuffer,
+            // asynchronous I/O is a property of the readers, so unlike the read-ahead of records it applies to queries too
+            if (readAheadRecords > 0) {
+                factory = factory.setUseAsyncIo(true);
+            }
+
+            final ReadsDataSource readsDataSource = new ReadsDataSource(readArguments.getReadPaths(), readArguments.getReadIndexPaths(), factory, cloudPrefetchBuffer,
                 (cloudIndexPrefetchBuffer < 0 ? cloudPrefetchBuffer : cloudIndexPrefetchBuffer));
+            readsDataSource.setReadAhead(readAheadRecords);
+            return readsDataSource;
         }
         else {
-            reads = null;
+            return null;
         }
     }
 
@@ -344,11 +453,22 @@ public abstract class GATKTool extends CommandLineProgram {
      * By default, this method initializes the FeatureManager to use the lookahead cache of {@link FeatureDataSource#DEFAULT_QUERY_LOOKAHEAD_BASES} bases.
      */
     void initializeFeatures() {
-        features = new FeatureManager(this, FeatureDataSource.DEFAULT_QUERY_LOOKAHEAD_BASES, cloudPrefetchBuffer, cloudIndexPrefetchBuffer,
-                                      referenceArguments.getReferencePath());
-        if ( features.isEmpty() ) {  // No available sources of Features discovered for this tool
-            features = null;
-        }
+        features = createFeatureManager(FeatureDataSource.DEFAULT_QUERY_LOOKAHEAD_BASES);
+    }
+
+    /**
+     * Open a new, independent FeatureManager over the Feature arguments discovered for this tool (or return null
+     * if the tool has no available sources of Features).
+     *
+     * Package-private so that traversals that need one data source per thread can open additional instances.
+     *
+     * @param featureQueryLookahead look ahead this many bases during queries that produce cache misses
+     */
+    FeatureManager createFeatureManager(final int featureQueryLookahead) {
+        final FeatureManager featureManager = new FeatureManager(this, featureQueryLookahead, cloudPrefetchBuffer, cloudIndexPrefetchBuffer,
+                                                                 referenceArguments.getReferencePath());
+        featureManager.setBackgroundPrefetch(prefetchFeatures);
+        return featureManager.isEmpty() ? null : featureManager;  // null if no available sources of Features discovered for this tool
     }
 
     /**
@@ -449,6 +569,17 @@ public abstract class GATKTool extends CommandLineProgram {
         return false;
     }
 
+    /**
+     * Can this tool be run with more than one traversal thread (see {@link #traversalThreads})? Tools whose traversal
+     * type supports multi-threading, and that meet the requirements documented by that traversal type, should
+     * override to return true.
+     *
+     * @return true if this tool supports multi-threaded traversal, otherwise false
+     */
+    protected boolean supportsMultiThreadedTraversal() {
+        return false;
+    }
+
     /**
      * Load the master sequence dictionary as specified in {@code masterSequenceDictionaryFilename}.
      * Will only load the master sequence dictionary if it has not already been loaded.
@@ -549,6 +680,14 @@ public abstract class GATKTool extends CommandLineProgram {
     protected void onStartup() {
         super.onStartup();
 
+        if ( traversalThreads < 1 ) {
+            throw new CommandLineException.BadArgumentValue(StandardArgumentDefinitions.THREADS_LONG_NAME, "must be >= 1");
+        }
+
+        if ( traversalThreads > 1 && ! supportsMultiThreadedTraversal() ) {
+            throw new CommandLineException.BadArgumentValue(StandardArgumentDefinitions.THREADS_LONG_NAME, getClass().getSimpleName() + " does not support multi-threaded traversal");
+        }
+
         loadMasterSequenceDictionary();
 
         initializeReference();
@@ -556,6 +695,10 @@ public abstract class GATKTool extends CommandLineProgram {
         initializeReads(); // Must be initialized after reference, in case we are dealing with CRAM and a reference is required
 
         initializeFeatures();
+        // for walker types whose initializeFeatures() doesn't go through createFeatureManager(); a no-op otherwise
+        if ( features != null ) {
+            features.setBackgroundPrefetch(prefetchFeatures);
+        }
 
         initializeIntervals(); // Must be initialized after reference, reads and features, since intervals currently require a sequence dictionary from another data source
 
@@ -729,6 +872,18 @@ public abstract class GATKTool extends CommandLineProgram {
             }
         }
 
+        if (vcfWriterThreads > 0) {
+            if (GATKVariantContextUtils.isVCFOrBlockCompressedVCF(outFile)) {
+                return new ParallelVCFWriter(
+                        outFile,
+                        sequenceDictionary,
+                        vcfWriterThreads,
+                        createOutputVariantMD5,
+                        options.toArray(new Options[options.size()]));
+            }
+            logger.warn("Only VCF outputs can be written by multiple threads - " + outFile + " will be written on the traversal thread");
+        }
+
         return GATKVariantContextUtils.createVCFWriter(
                 outFile,
                 sequenceDictionary,
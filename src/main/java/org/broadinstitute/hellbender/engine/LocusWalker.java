@@ -2,6 +2,7 @@ package org.broadinstitute.hellbender.engine;
 
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMReadGroupRecord;
+import htsjdk.samtools.util.Locatable;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.CommandLineException;
 import org.broadinstitute.hellbender.engine.filters.CountingReadFilter;
@@ -13,6 +14,7 @@ import org.broadinstitute.hellbender.utils.locusiterator.AlignmentContextIterato
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.locusiterator.LIBSDownsamplingInfo;
 import org.broadinstitute.hellbender.utils.locusiterator.LocusIteratorByState;
+import org.broadinstitute.hellbender.utils.pileup.ReadPileup;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 
 import java.util.*;
@@ -32,6 +34,11 @@ import java.util.stream.Collectors;
  * LocusWalker authors must implement the apply() method to process each position, and may optionally implement
  * onTraversalStart(), onTraversalSuccess() and/or closeTool().
  *
+ * Tools that do little work per position may instead override {@link #getLocusBatchSize()} and
+ * {@link #applyBatch(List, ReferenceContext, FeatureContext)} to process batches of consecutive positions, sharing
+ * a single reference and feature context spanning the batch, rather than creating (and querying) new contexts at
+ * every position.
+ *
  * @author Daniel Gomez-Sanchez (magicDGS)
  */
 public abstract class LocusWalker extends GATKTool {
@@ -57,6 +64,16 @@ public abstract class LocusWalker extends GATKTool {
     @Override
     public String getProgressMeterRecordLabel() { return "loci"; }
 
+    /**
+     * Maximum size, in reference bases, of the batches of consecutive loci passed to
+     * {@link #applyBatch(List, ReferenceContext, FeatureContext)}. The default of 1 processes each locus on its own
+     * with {@link #apply(AlignmentContext, ReferenceContext, FeatureContext)}. Tools that override this to return a
+     * larger value should also override {@link #applyBatch(List, ReferenceContext, FeatureContext)}.
+     */
+    protected int getLocusBatchSize() {
+        return 1;
+    }
+
     /**
      * Does this tool require deletions in the AlignmentContext? Tools that don't should override to return {@code false}.
      *
@@ -75,6 +92,16 @@ public abstract class LocusWalker extends GATKTool {
         return false;
     }
 
+    /**
+     * Does this tool use the columnar view of the pileups ({@link ReadPileup#getColumns()}) at (nearly) every locus?
+     * Tools that do should override to return {@code true}, so that the columns are built along with the pileups.
+     *
+     * @return {@code true} if this tool uses the columns of the pileups, {@code false} otherwise
+     */
+    public boolean usePileupColumns() {
+        return false;
+    }
+
     /**
      * Does this tool emit information for uncovered loci? Tools that do should override to return {@code true}.
      *
@@ -162,21 +189,70 @@ public abstract class LocusWalker extends GATKTool {
         alignmentContextIteratorBuilder.setIncludeDeletions(includeDeletions());
         alignmentContextIteratorBuilder.setKeepUniqueReadListInLibs(keepUniqueReadListInLibs());
         alignmentContextIteratorBuilder.setIncludeNs(includeNs());
+        alignmentContextIteratorBuilder.setBuildPileupColumns(usePileupColumns());
 
         final Iterator<AlignmentContext> iterator = alignmentContextIteratorBuilder.build(
                 readIterator, header, intervalsForTraversal, getBestAvailableSequenceDictionary(),
                 hasReference());
 
-        // iterate over each alignment, and apply the function
-        iterator.forEachRemaining(alignmentContext -> {
-                        final SimpleInterval alignmentInterval = new SimpleInterval(alignmentContext);
-                        apply(alignmentContext, new ReferenceContext(reference, alignmentInterval), new FeatureContext(features, alignmentInterval));
-                        progressMeter.update(alignmentInterval);
-                }
-            );
+        final int locusBatchSize = getLocusBatchSize();
+        if ( locusBatchSize > 1 ) {
+            traverseLocusBatches(iterator, locusBatchSize);
+        }
+        else {
+            // iterate over each alignment, and apply the function
+            iterator.forEachRemaining(alignmentContext -> {
+                            final SimpleInterval alignmentInterval = getLocusInterval(alignmentContext);
+                            apply(alignmentContext, new ReferenceContext(reference, alignmentInterval), new FeatureContext(features, alignmentInterval));
+                            progressMeter.update(alignmentInterval);
+                    }
+                );
+        }
         logger.info(countedFilter.getSummaryLine());
     }
 
+    /**
+     * Group the loci into batches of consecutive loci on the same contig, spanning at most {@code locusBatchSize}
+     * reference bases, and pass each batch to {@link #applyBatch} along with a reference and feature context
+     * spanning the batch.
+     */
+    private void traverseLocusBatches( final Iterator<AlignmentContext> iterator, final int locusBatchSize ) {
+        // the same list is reused for every batch
+        final List<AlignmentContext> batch = new ArrayList<>(locusBatchSize);
+        while ( iterator.hasNext() ) {
+            final AlignmentContext alignmentContext = iterator.next();
+            if ( ! batch.isEmpty() ) {
+                final AlignmentContext firstInBatch = batch.get(0);
+                if ( ! firstInBatch.getContig().equals(alignmentContext.getContig()) || alignmentContext.getStart() >= firstInBatch.getStart() + locusBatchSize ) {
+                    applyLocusBatch(batch);
+                    batch.clear();
+                }
+            }
+            batch.add(alignmentContext);
+        }
+
+        if ( ! batch.isEmpty() ) {
+            applyLocusBatch(batch);
+        }
+    }
+
+    private void applyLocusBatch( final List<AlignmentContext> batch ) {
+        final AlignmentContext first = batch.get(0);
+        final SimpleInterval batchInterval = new SimpleInterval(first.getContig(), first.getStart(), batch.get(batch.size() - 1).getEnd());
+        applyBatch(Collections.unmodifiableList(batch), new ReferenceContext(reference, batchInterval), new FeatureContext(features, batchInterval));
+        for ( final AlignmentContext alignmentContext : batch ) {
+            progressMeter.update(alignmentContext.getLocation());
+        }
+    }
+
+    /**
+     * @return the interval for a locus, reusing the location of the alignment context when possible
+     */
+    private static SimpleInterval getLocusInterval( final AlignmentContext alignmentContext ) {
+        final Locatable location = alignmentContext.getLocation();
+        return location instanceof SimpleInterval ? (SimpleInterval)location : new SimpleInterval(location);
+    }
+
     /**
      * Process an individual AlignmentContext (with optional contextual information). Must be implemented by tool authors.
      * In general, tool authors should simply stream their output from apply(), and maintain as little internal state
@@ -193,6 +269,27 @@ public abstract class LocusWalker extends GATKTool {
      */
     public abstract void apply(AlignmentContext alignmentContext, ReferenceContext referenceContext, FeatureContext featureContext);
 
+    /**
+     * Process a batch of consecutive loci on the same contig, spanning at most {@link #getLocusBatchSize()} reference
+     * bases. Only called if {@link #getLocusBatchSize()} is greater than 1.
+     *
+     * The default implementation calls {@link #apply(AlignmentContext, ReferenceContext, FeatureContext)} for each
+     * locus, with contexts for that locus alone. Tools that override {@link #getLocusBatchSize()} should override this
+     * method to use the shared contexts instead.
+     *
+     * @param alignmentContexts the loci in the batch, in order. Only valid for the duration of the call.
+     * @param referenceContext Reference bases spanning all of the loci in the batch. Will be an empty, but non-null,
+     *                         context object if there is no backing source of reference data.
+     * @param featureContext Features overlapping the span of the batch. Will be an empty, but non-null, context object
+     *                       if there is no backing source of Feature data.
+     */
+    public void applyBatch(final List<AlignmentContext> alignmentContexts, final ReferenceContext referenceContext, final FeatureContext featureContext) {
+        for ( final AlignmentContext alignmentContext : alignmentContexts ) {
+            final SimpleInterval alignmentInterval = getLocusInterval(alignmentContext);
+            apply(alignmentContext, new ReferenceContext(reference, alignmentInterval), new FeatureContext(features, alignmentInterval));
+        }
+    }
+
     /**
      * Marked final so that tool authors don't override it. Tool authors should override onTraversalSuccess() instead.
      */
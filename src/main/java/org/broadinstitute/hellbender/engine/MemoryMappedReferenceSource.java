@@ -0,0 +1,262 @@
+package org.broadinstitute.hellbender.engine;
+
+import com.google.common.annotations.VisibleForTesting;
+import htsjdk.samtools.SAMException;
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.reference.ReferenceSequence;
+import htsjdk.samtools.util.IOUtil;
+import htsjdk.samtools.util.StringUtil;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.BaseUtils;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.fasta.CachingIndexedFastaSequenceFile;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Manages queries over reference data by memory-mapping the contigs of an indexed fasta file, so that the bases are
+ * served straight from the operating system's page cache instead of being read into a per-instance cache.
+ *
+ * Unlike {@link ReferenceFileSource}, a single instance may be shared by any number of threads: queries only read
+ * from the mapped regions, which are created on first access to each contig and kept for the lifetime of the
+ * instance. As all instances (and all processes) mapping the same file share the same physical pages, the reference
+ * is held in memory at most once no matter how many threads or tools query it.
+ *
+ * Bases are returned upper-cased, and with IUPAC ambiguity codes converted to Ns, as {@link ReferenceFileSource} does.
+ *
+ * Only fasta files on the default (local) file system can be memory-mapped.
+ */
+public final class MemoryMappedReferenceSource implements ReferenceDataSource {
+
+    /**
+     * Maximum size of a single mapped region (a limit imposed by {@link MappedByteBuffer}). Contigs larger than this
+     * are mapped as several regions, split at line boundaries.
+     */
+    private static final long MAX_REGION_BYTES = Integer.MAX_VALUE;
+
+    private final Path fastaPath;
+    private final Map<String, IndexEntry> index;
+    private final SAMSequenceDictionary sequenceDictionary;
+    private final long maxRegionBytes;
+    private final ConcurrentMap<String, MappedContig> mappedContigs = new ConcurrentHashMap<>();
+
+    /**
+     * Initialize this data source using a fasta file.
+     *
+     * The provided fasta file must have companion .fai and .dict files.
+     *
+     * @param fastaPath reference fasta file, on the default file system
+     */
+    public MemoryMappedReferenceSource(final Path fastaPath) {
+        this(fastaPath, MAX_REGION_BYTES);
+    }
+
+    /**
+     * @param maxRegionBytes maximum size of a single mapped region, for testing the mapping of contigs as several regions
+     */
+    @VisibleForTesting
+    MemoryMappedReferenceSource(final Path fastaPath, final long maxRegionBytes) {
+        Utils.nonNull(fastaPath);
+        Utils.validateArg(fastaPath.getFileSystem() == FileSystems.getDefault(), "only local fasta files can be memory-mapped: " + fastaPath.toUri());
+        Utils.validateArg(maxRegionBytes > 0 && maxRegionBytes <= MAX_REGION_BYTES, "maxRegionBytes out of range");
+
+        // Will throw a UserException if the .fai and/or .dict are missing
+        try ( final CachingIndexedFastaSequenceFile reference = CachingIndexedFastaSequenceFile.checkAndCreate(fastaPath) ) {
+            this.sequenceDictionary = reference.getSequenceDictionary();
+        }
+        catch ( IOException e ) {
+            throw new GATKException("Error closing reference file", e);
+        }
+        this.fastaPath = fastaPath;
+        this.index = readIndex(IOUtil.addExtension(fastaPath, ".fai"));
+        this.maxRegionBytes = maxRegionBytes;
+    }
+
+    /**
+     * Start an iteration over the entire reference. Not yet supported!
+     *
+     * @return iterator over all bases in this reference
+     */
+    @Override
+    public Iterator<Byte> iterator() {
+        throw new UnsupportedOperationException("Iteration over entire reference not yet implemented");
+    }
+
+    /**
+     * Query a specific interval on this reference, and get back all bases spanning that interval at once.
+     * Call getBases() on the returned ReferenceSequence to get the actual reference bases. See the BaseUtils
+     * class for guidance on how to work with bases in this format.
+     *
+     * @param contig query interval contig
+     * @param start query interval start
+     * @param stop query interval stop
+     * @return a ReferenceSequence containing all bases spanning the query interval, prefetched
+     */
+    @Override
+    public ReferenceSequence queryAndPrefetch( final String contig, final long start, final long stop ) {
+        final MappedContig mappedContig = mappedContigs.computeIfAbsent(Utils.nonNull(contig), this::mapContig);
+        final long contigLength = mappedContig.indexEntry.size;
+        if ( start < 1 || stop > contigLength || stop < start - 1 ) {
+            throw new SAMException("Query asks for data outside of contig. Query contig " + contig + " start:" + start + " stop:" + stop + " contigLength:" + contigLength);
+        }
+
+        final byte[] bases = new byte[(int)(stop - start + 1)];
+        mappedContig.getBases(start - 1, bases);
+        StringUtil.toUpperCase(bases);
+        BaseUtils.convertIUPACtoN(bases, true, false);
+        return new ReferenceSequence(contig, sequenceDictionary.getSequenceIndex(contig), bases);
+    }
+
+    /**
+     * Get the sequence dictionary for this reference
+     *
+     * @return SAMSequenceDictionary for this reference
+     */
+    @Override
+    public SAMSequenceDictionary getSequenceDictionary() {
+        return sequenceDictionary;
+    }
+
+    /**
+     * Does nothing: the mapped regions are released once this data source is garbage collected, and remain valid
+     * until then, so that a shared instance is safe to "close" from any of the threads using it.
+     */
+    @Override
+    public void close() {
+        // do nothing
+    }
+
+    private MappedContig mapContig( final String contig ) {
+        final IndexEntry indexEntry = index.get(contig);
+        if ( sequenceDictionary.getSequence(contig) == null || indexEntry == null ) {
+            throw new UserException.MissingContigInSequenceDictionary(contig, sequenceDictionary);
+        }
+
+        // the file channel can be closed once the regions are mapped, as mappings do not depend on it
+        try ( final FileChannel channel = FileChannel.open(fastaPath, StandardOpenOption.READ) ) {
+            return new MappedContig(indexEntry, channel, maxRegionBytes);
+        }
+        catch ( IOException e ) {
+            throw new UserException.CouldNotReadInputFile(fastaPath, "Could not memory-map contig " + contig, e);
+        }
+    }
+
+    /**
+     * Read the entries of a fasta index (.fai) file, keyed by contig name.
+     */
+    private static Map<String, IndexEntry> readIndex( final Path indexPath ) {
+        final List<String> lines;
+        try {
+            lines = Files.readAllLines(indexPath);
+        }
+        catch ( IOException e ) {
+            throw new UserException.CouldNotReadInputFile(indexPath, e);
+        }
+
+        final Map<String, IndexEntry> index = new HashMap<>(lines.size() * 2);
+        for ( final String line : lines ) {
+            if ( line.isEmpty() ) {
+                continue;
+            }
+            final String[] fields = line.split("\t");
+            try {
+                if ( fields.length != 5 ) {
+                    throw new NumberFormatException("expected 5 fields, found " + fields.length);
+                }
+                final IndexEntry entry = new IndexEntry(Long.parseLong(fields[1]), Long.parseLong(fields[2]), Integer.parseInt(fields[3]), Integer.parseInt(fields[4]));
+                if ( entry.basesPerLine <= 0 || entry.bytesPerLine < entry.basesPerLine ) {
+                    throw new NumberFormatException("invalid line lengths");
+                }
+                index.put(fields[0], entry);
+            }
+            catch ( NumberFormatException e ) {
+                throw new UserException.MalformedFile(indexPath.toFile(), "Invalid fasta index line: " + line, e);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * An entry of the fasta index: the length of a contig, and where and how its bases are laid out in the file.
+     */
+    private static final class IndexEntry {
+        private final long size;
+        private final long location;
+        private final int basesPerLine;
+        private final int bytesPerLine;
+
+        private IndexEntry( final long size, final long location, final int basesPerLine, final int bytesPerLine ) {
+            this.size = size;
+            this.location = location;
+            this.basesPerLine = basesPerLine;
+            this.bytesPerLine = bytesPerLine;
+        }
+    }
+
+    /**
+     * The regions of the fasta file holding the bases of a contig, each holding a whole number of lines.
+     */
+    private static final class MappedContig {
+        private final IndexEntry indexEntry;
+        private final long linesPerRegion;
+        private final MappedByteBuffer[] regions;
+
+        private MappedContig( final IndexEntry indexEntry, final FileChannel channel, final long maxRegionBytes ) throws IOException {
+            this.indexEntry = indexEntry;
+            final long basesPerLine = indexEntry.basesPerLine;
+            final long bytesPerLine = indexEntry.bytesPerLine;
+            final long size = indexEntry.size;
+
+            // the last line may be partial, and its terminator is not needed
+            final long contigBytes = (size / basesPerLine) * bytesPerLine + size % basesPerLine;
+            final long numLines = (size + basesPerLine - 1) / basesPerLine;
+            this.linesPerRegion = Math.max(1, maxRegionBytes / bytesPerLine);
+            this.regions = new MappedByteBuffer[(int)((numLines + linesPerRegion - 1) / linesPerRegion)];
+            for ( int i = 0; i < regions.length; i++ ) {
+                final long regionStart = i * linesPerRegion * bytesPerLine;
+                final long regionBytes = Math.min(linesPerRegion * bytesPerLine, contigBytes - regionStart);
+                regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, indexEntry.location + regionStart, regionBytes);
+            }
+        }
+
+        /**
+         * Copy the bases of the contig starting at the given 0-based offset into dest, one line at a time.
+         */
+        private void getBases( final long start, final byte[] dest ) {
+            final int basesPerLine = indexEntry.basesPerLine;
+            final int bytesPerLine = indexEntry.bytesPerLine;
+            int copied = 0;
+            long position = start;
+            ByteBuffer region = null;
+            int regionIndex = -1;
+            while ( copied < dest.length ) {
+                final long line = position / basesPerLine;
+                final int column = (int)(position % basesPerLine);
+                if ( line / linesPerRegion != regionIndex ) {
+                    regionIndex = (int)(line / linesPerRegion);
+                    // duplicate so that concurrent queries do not share the buffer position
+                    region = regions[regionIndex].duplicate();
+                }
+                final int length = Math.min(basesPerLine - column, dest.length - copied);
+                region.position((int)((line % linesPerRegion) * bytesPerLine) + column);
+                region.get(dest, copied, length);
+                copied += length;
+                position += length;
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package org.broadinstitute.hellbender.engine;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * OrderedWorkerPool: the thread pool shared by the multi-threaded traversals of the walkers. Tasks (read shards,
+ * batches of reads, partitions of variants, ...) run on a fixed number of threads, and each running task has exclusive
+ * use of one of a fixed set of per-thread workers, which hold the non-thread-safe state of the traversal (data
+ * sources, filters, the tool's processor). The results of the tasks are handed back to the traversal thread in the
+ * order in which the tasks were submitted.
+ *
+ * Only a bounded number of tasks are in flight at any time, so that finished results can't pile up in memory behind
+ * a slow task at the head of the queue, while there is still enough work queued to keep every thread busy.
+ *
+ * On {@link #close}, running tasks are interrupted and waited for (up to {@link #TERMINATION_TIMEOUT_SECONDS}) before
+ * the workers are closed, so that no worker is closed while a task is still using it.
+ *
+ * Not thread-safe: all methods must be called from the traversal thread.
+ *
+ * @param <W> type of the per-thread workers
+ */
+final class OrderedWorkerPool<W extends AutoCloseable> implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(OrderedWorkerPool.class);
+
+    /**
+     * Maximum time to wait on {@link #close} for running tasks to stop before closing the workers
+     */
+    static final long TERMINATION_TIMEOUT_SECONDS = 60;
+
+    private final List<W> workers;
+    private final BlockingQueue<W> idleWorkers;
+    private final ExecutorService executor;
+    private final int maxTasksInFlight;
+
+    /**
+     * Create the workers and start the threads of the pool.
+     *
+     * @param numThreads number of threads, and of workers (must be >= 1)
+     * @param maxTasksInFlight maximum number of tasks that are running or waiting for their results to be consumed
+     *                         (must be >= numThreads)
+     * @param workerFactory creates the workers, called numThreads times on the calling thread
+     * @param threadNameFormat format of the names of the threads of the pool, with a %d for the thread number
+     */
+    OrderedWorkerPool(final int numThreads, final int maxTasksInFlight, final Supplier<W> workerFactory, final String threadNameFormat) {
+        Utils.validateArg(numThreads >= 1, "numThreads must be >= 1");
+        Utils.validateArg(maxTasksInFlight >= numThreads, "maxTasksInFlight must be >= numThreads");
+        Utils.nonNull(workerFactory);
+        Utils.nonNull(threadNameFormat);
+
+        this.maxTasksInFlight = maxTasksInFlight;
+        this.workers = new ArrayList<>(numThreads);
+        this.idleWorkers = new ArrayBlockingQueue<>(numThreads);
+        try {
+            for ( int i = 0; i < numThreads; ++i ) {
+                final W worker = workerFactory.get();
+                workers.add(worker);
+                idleWorkers.add(worker);
+            }
+        } catch ( final RuntimeException e ) {
+            workers.forEach(OrderedWorkerPool::closeWorker);
+            throw e;
+        }
+        this.executor = Executors.newFixedThreadPool(numThreads, new ThreadFactoryBuilder().setNameFormat(threadNameFormat).setDaemon(true).build());
+    }
+
+    /**
+     * @return the workers of this pool, eg. to merge their statistics once all tasks are done
+     */
+    List<W> getWorkers() {
+        return Collections.unmodifiableList(workers);
+    }
+
+    /**
+     * Run a task for every input on the threads of the pool, and hand the result of each task to the consumer on the
+     * calling thread, in the order of the inputs. Returns once every result has been consumed.
+     *
+     * @param inputs inputs of the tasks, consumed on the calling thread
+     * @param task work to do on a thread of the pool for each input, with exclusive use of the given worker
+     * @param resultConsumer consumer of the results of the tasks, called on the calling thread
+     * @param taskDescription description of a task, for error messages (eg., "read shard")
+     */
+    <T, R> void process(final Iterator<T> inputs, final BiFunction<W, T, R> task, final Consumer<R> resultConsumer, final String taskDescription) {
+        Utils.nonNull(inputs);
+        Utils.nonNull(task);
+        Utils.nonNull(resultConsumer);
+
+        final Queue<Future<R>> pendingTasks = new LinkedList<>();
+        try {
+            while ( inputs.hasNext() || ! pendingTasks.isEmpty() ) {
+                while ( inputs.hasNext() && pendingTasks.size() < maxTasksInFlight ) {
+                    final T input = inputs.next();
+                    pendingTasks.add(executor.submit(() -> {
+                        final W worker = idleWorkers.take();
+                        try {
+                            return task.apply(worker, input);
+                        } finally {
+                            idleWorkers.add(worker);
+                        }
+                    }));
+                }
+
+                resultConsumer.accept(pendingTasks.remove().get());
+            }
+        } catch ( final InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new GATKException("Interrupted while waiting for a " + taskDescription + " to be processed", e);
+        } catch ( final ExecutionException e ) {
+            if ( e.getCause() instanceof RuntimeException ) {
+                throw (RuntimeException)e.getCause();
+            }
+            if ( e.getCause() instanceof Error ) {
+                throw (Error)e.getCause();
+            }
+            throw new GATKException("Error processing a " + taskDescription, e.getCause());
+        }
+    }
+
+    /**
+     * Interrupt any running tasks, wait for them to stop, and close the workers. Workers whose task doesn't stop in
+     * time are left open, rather than closed under the running task.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        boolean terminated = false;
+        try {
+            terminated = executor.awaitTermination(TERMINATION_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch ( final InterruptedException e ) {
+            Thread.currentThread().interrupt();
+        }
+
+        if ( terminated ) {
+            workers.forEach(OrderedWorkerPool::closeWorker);
+        } else {
+            logger.warn("Some worker threads didn't stop within " + TERMINATION_TIMEOUT_SECONDS + " seconds; their resources will not be closed");
+            // the workers that are back in the idle queue are no longer in use
+            final List<W> stoppedWorkers = new ArrayList<>();
+            idleWorkers.drainTo(stoppedWorkers);
+            stoppedWorkers.forEach(OrderedWorkerPool::closeWorker);
+        }
+    }
+
+    private static void closeWorker(final AutoCloseable worker) {
+        try {
+            worker.close();
+        } catch ( final RuntimeException e ) {
+            throw e;
+        } catch ( final Exception e ) {
+            throw new GATKException("Error closing worker " + worker, e);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package org.broadinstitute.hellbender.engine;
 
+import com.google.common.collect.Iterators;
 import org.broadinstitute.barclay.argparser.CommandLinePluginDescriptor;
 import org.broadinstitute.hellbender.cmdline.GATKPlugin.GATKReadFilterPluginDescriptor;
 import org.broadinstitute.hellbender.engine.filters.ReadFilter;
@@ -11,7 +12,9 @@ import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -28,6 +31,11 @@ import java.util.List;
  *
  * ReadWalker authors must implement the apply() method to process each read, and may optionally implement
  * onTraversalStart() and/or onTraversalSuccess(). See the PrintReadsWithReference walker for an example.
+ *
+ * Tools that override {@link #supportsMultiThreadedTraversal} may be run with more than one traversal thread, in which
+ * case batches of reads are filtered and transformed concurrently by worker threads, each with its own filter and
+ * transformers. Depending on {@link #requiresOrderedApply}, the reads are then either handed to apply() on the
+ * traversal thread in their original order, or to apply() on the worker threads in no particular order.
  */
 public abstract class ReadWalker extends GATKTool {
 
@@ -45,6 +53,21 @@ public abstract class ReadWalker extends GATKTool {
      */
     public static final int FEATURE_CACHE_LOOKAHEAD = 1_000;
 
+    /**
+     * Number of reads handed to a worker thread at a time during multi-threaded traversal.
+     */
+    static final int READ_BATCH_SIZE = 1_000;
+
+    /**
+     * Only consulted for multi-threaded traversal. If true (the default), {@link #apply} is called on the traversal
+     * thread with the reads in their original order, so that it doesn't need to be thread-safe and can write its
+     * output directly. If false, {@link #apply} is called concurrently by the worker threads, each with its own
+     * reference and feature data sources, in no particular order, so it must be thread-safe.
+     *
+     * @return true if {@link #apply} must see the reads in order, on a single thread
+     */
+    protected boolean requiresOrderedApply() { return true; }
+
     /**
      * Initialize data sources for traversal.
      *
@@ -87,6 +110,11 @@ public abstract class ReadWalker extends GATKTool {
      */
     @Override
     public void traverse() {
+        if ( traversalThreads > 1 ) {
+            traverseReadsConcurrently();
+            return;
+        }
+
         // Process each read in the input stream.
         // Supply reference bases spanning each read, if a reference is available.
         final CountingReadFilter countedFilter = makeReadFilter();
@@ -103,6 +131,86 @@ public abstract class ReadWalker extends GATKTool {
         logger.info(countedFilter.getSummaryLine());
     }
 
+    /**
+     * Decode reads on the traversal thread and hand them, {@link #READ_BATCH_SIZE} at a time, to a pool of worker
+     * threads, each owning a {@link ReadWorker}. Batches are published in their original order, by calling
+     * {@link #apply} on the traversal thread if {@link #requiresOrderedApply} is true.
+     */
+    private void traverseReadsConcurrently() {
+        final boolean orderedApply = requiresOrderedApply();
+        // Keep up to two batches per thread in flight, so that workers don't wait on decoding
+        try ( final OrderedWorkerPool<ReadWorker> workerPool = new OrderedWorkerPool<>(traversalThreads, 2 * traversalThreads, () -> new ReadWorker(orderedApply), "read-walker-worker-%d") ) {
+            final Iterator<GATKRead> readIter = hasReads() ? reads.iterator() : Collections.emptyIterator();
+            workerPool.process(Iterators.partition(readIter, READ_BATCH_SIZE), ReadWorker::processBatch, passingReads -> {
+                for ( final GATKRead read : passingReads ) {
+                    final SimpleInterval readInterval = getReadInterval(read);
+                    if ( orderedApply ) {
+                        apply(read, new ReferenceContext(reference, readInterval), new FeatureContext(features, readInterval));
+                    }
+                    progressMeter.update(readInterval);
+                }
+            }, "batch of reads");
+
+            final List<ReadWorker> workers = workerPool.getWorkers();
+            final CountingReadFilter countedFilter = workers.get(0).countedFilter;
+            workers.subList(1, workers.size()).forEach(worker -> countedFilter.mergeFilteredCounts(worker.countedFilter));
+            logger.info(countedFilter.getSummaryLine());
+        }
+    }
+
+    /**
+     * The per-thread state used to process batches of reads during multi-threaded traversal: a read filter (so that
+     * filter counts are not shared), the tool's transformers and, if {@link #apply} is called on the worker threads,
+     * independent handles on the reference and feature inputs.
+     */
+    private final class ReadWorker implements AutoCloseable {
+        private final boolean orderedApply;
+        private final CountingReadFilter countedFilter = makeReadFilter();
+        private final ReadTransformer preTransformer = makePreReadFilterTransformer();
+        private final ReadTransformer postTransformer = makePostReadFilterTransformer();
+        private final ReferenceDataSource workerReference;
+        private final FeatureManager workerFeatures;
+
+        private ReadWorker(final boolean orderedApply) {
+            this.orderedApply = orderedApply;
+            this.workerReference = orderedApply ? null : createReferenceDataSource();
+            this.workerFeatures = orderedApply ? null : createFeatureManager(FEATURE_CACHE_LOOKAHEAD);
+        }
+
+        /**
+         * Transform and filter a batch of reads, and pass the reads that pass the filter to {@link #apply} unless
+         * that has to happen on the traversal thread.
+         *
+         * @return the reads in the batch that passed the filter, after transformation, in their original order
+         */
+        private List<GATKRead> processBatch(final List<GATKRead> batch) {
+            final List<GATKRead> passingReads = new ArrayList<>(batch.size());
+            for ( final GATKRead originalRead : batch ) {
+                final GATKRead preTransformedRead = preTransformer.apply(originalRead);
+                if ( ! countedFilter.test(preTransformedRead) ) {
+                    continue;
+                }
+                final GATKRead read = postTransformer.apply(preTransformedRead);
+                if ( ! orderedApply ) {
+                    final SimpleInterval readInterval = getReadInterval(read);
+                    apply(read, new ReferenceContext(workerReference, readInterval), new FeatureContext(workerFeatures, readInterval));
+                }
+                passingReads.add(read);
+            }
+            return passingReads;
+        }
+
+        @Override
+        public void close() {
+            if ( workerReference != null ) {
+                workerReference.close();
+            }
+            if ( workerFeatures != null ) {
+                workerFeatures.close();
+            }
+        }
+    }
+
     /**
      * Returns an interval for the read.
      * Note: some walkers must be able to work on any read, including those whose coordinates do not form a valid SimpleInterval.
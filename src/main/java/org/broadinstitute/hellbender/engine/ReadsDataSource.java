@@ -14,6 +14,7 @@ import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.gcs.BucketUtils;
+import org.broadinstitute.hellbender.utils.iterators.ReadAheadSAMRecordIterator;
 import org.broadinstitute.hellbender.utils.iterators.SAMRecordToReadIterator;
 import org.broadinstitute.hellbender.utils.iterators.SamReaderQueryingIterator;
 import org.broadinstitute.hellbender.utils.nio.SeekableByteChannelPrefetcher;
@@ -78,6 +79,16 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
      */
     private boolean indicesAvailable;
 
+    /**
+     * Number of records per reader to read and decode ahead of the consumer, on a background thread per reader,
+     * during traversals initiated via {@link #iterator}. 0 if read-ahead is disabled.
+     *
+     * Individual queries are unaffected by this setting -- only traversals initiated via {@link #iterator} are affected.
+     * Asynchronous BGZF decompression, on the other hand, is configured through the {@link SamReaderFactory} the
+     * readers are opened with, and applies to queries as well.
+     */
+    private int readAheadRecords = 0;
+
     /**
      * Initialize this data source with a single SAM/BAM file and validation stringency SILENT.
      *
@@ -298,6 +309,21 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
         }
     }
 
+    /**
+     * Read and decode up to the given number of records per input ahead of the consumer during traversals initiated
+     * via {@link #iterator}, each input on its own background thread. Reads from multiple inputs are still merged
+     * on the consumer's thread, in the order given by the merged header.
+     *
+     * Calls to {@link #query} are not affected by this method, since targeted queries are typically too small to
+     * benefit from a background thread.
+     *
+     * @param readAheadRecords number of records to buffer per input (0 to disable read-ahead)
+     */
+    public void setReadAhead( final int readAheadRecords ) {
+        Utils.validateArg(readAheadRecords >= 0, "readAheadRecords must be >= 0");
+        this.readAheadRecords = readAheadRecords;
+    }
+
     /**
      * @return True if traversals initiated via {@link #iterator} will be restricted to reads that overlap intervals
      *         as configured via {@link #setTraversalBounds}, otherwise false
@@ -327,7 +353,7 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
     @Override
     public Iterator<GATKRead> iterator() {
         logger.debug("Preparing readers for traversal");
-        return prepareIteratorsForTraversal(intervalsForTraversal, traverseUnmapped);
+        return prepareIteratorsForTraversal(intervalsForTraversal, traverseUnmapped, readAheadRecords);
     }
 
     /**
@@ -388,6 +414,17 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
      * @return Iterator over all reads in this data source, limited to overlap with the supplied intervals
      */
     private Iterator<GATKRead> prepareIteratorsForTraversal( final List<SimpleInterval> queryIntervals, final boolean queryUnmapped ) {
+        return prepareIteratorsForTraversal(queryIntervals, queryUnmapped, 0);
+    }
+
+    /**
+     * Prepare iterators over all readers in response to a request for a complete iteration or query
+     *
+     * @param queryIntervals Intervals to bound the iteration (reads must overlap one of these intervals). If null, iteration is unbounded.
+     * @param readAheadRecords Number of records per reader to read ahead on a background thread (0 to read on the consumer's thread)
+     * @return Iterator over all reads in this data source, limited to overlap with the supplied intervals
+     */
+    private Iterator<GATKRead> prepareIteratorsForTraversal( final List<SimpleInterval> queryIntervals, final boolean queryUnmapped, final int readAheadRecords ) {
         // htsjdk requires that only one iterator be open at a time per reader, so close out
         // any previous iterations
         closePreviousIterationsIfNecessary();
@@ -409,6 +446,11 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
             } else {
                 readerEntry.setValue(readerEntry.getKey().iterator());
             }
+
+            if ( readAheadRecords > 0 ) {
+                readerEntry.setValue(new ReadAheadSAMRecordIterator(readerEntry.getValue(), readAheadRecords,
+                        "read-ahead-" + backingPaths.get(readerEntry.getKey()).getFileName()));
+            }
         }
 
         // Create a merging iterator over all readers if necessary. In the case where there's only a single reader,
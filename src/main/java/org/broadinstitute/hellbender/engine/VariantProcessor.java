@@ -0,0 +1,37 @@
+package org.broadinstitute.hellbender.engine;
+
+import htsjdk.variant.variantcontext.VariantContext;
+
+/**
+ * A thread-confined processor of variants, used by {@link VariantWalker} when traversing several partitions of the
+ * driving variants concurrently.
+ *
+ * The engine asks the tool for one processor per worker thread (see {@link VariantWalker#makeVariantProcessor}),
+ * and never shares a processor between threads, so a processor may freely own non-thread-safe state.
+ *
+ * Processing is split into two halves: {@link #process} does the per-variant work on the worker thread, and returns
+ * an action that publishes the results (typically by writing them to the tool's output). The engine runs these
+ * actions on the traversal thread, in exactly the order in which a single-threaded traversal would have called
+ * {@link VariantWalker#apply}, so output written by the returned actions is identical to single-threaded output.
+ */
+public interface VariantProcessor extends AutoCloseable {
+
+    /**
+     * Process an individual variant on a worker thread.
+     *
+     * @param variant variant to process
+     * @param readsContext reads overlapping the variant
+     * @param referenceContext reference bases spanning the variant
+     * @param featureContext features spanning the variant
+     * @return an action that publishes the results for this variant, to be run on the traversal thread in genomic order.
+     *         Must not be null.
+     */
+    Runnable process( final VariantContext variant, final ReadsContext readsContext, final ReferenceContext referenceContext, final FeatureContext featureContext );
+
+    /**
+     * Release any resources held by this processor. Called once on the traversal thread after all partitions have
+     * been processed. The default implementation does nothing.
+     */
+    @Override
+    default void close() {}
+}
@@ -1,13 +1,26 @@
 package org.broadinstitute.hellbender.engine;
 
+import com.google.common.annotations.VisibleForTesting;
 import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.vcf.VCFHeader;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
+import org.broadinstitute.hellbender.engine.filters.CountingReadFilter;
+import org.broadinstitute.hellbender.engine.filters.VariantFilter;
 import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.tools.IndexFeatureFile;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Spliterator;
+import java.util.stream.Collectors;
 
 /**
  * A VariantWalker is a tool that processes a variant at a time from a source of variants, with
@@ -16,9 +29,29 @@ import java.util.Spliterator;
  *
  * VariantWalker authors must implement the {@link #apply} method to process each variant, and may optionally implement
  * {@link #onTraversalStart}, {@link #onTraversalSuccess} and/or {@link #closeTool}.
+ *
+ * Tools that override {@link #supportsMultiThreadedTraversal} and {@link #makeVariantProcessor} may be run with more
+ * than one traversal thread, in which case the traversal intervals (or, without intervals, the contigs of the driving
+ * variants) are split into partitions of at most {@link #VARIANT_PARTITION_SIZE} bases that are processed concurrently
+ * by worker threads, each with its own indexed query on the driving variants, and the results of each partition are
+ * published in genomic order. Multi-threaded traversal requires the driving variants to be indexed. Without intervals,
+ * if the index has variants on contigs that are missing from the sequence dictionary of the driving variants, the
+ * traversal falls back to a single thread.
  */
 public abstract class VariantWalker extends VariantWalkerBase {
 
+    /**
+     * Maximum number of bases in each partition of the traversal intervals handed to a worker thread during
+     * multi-threaded traversal.
+     */
+    static final int VARIANT_PARTITION_SIZE = 1_000_000;
+
+    /**
+     * Partition size actually used, so that tests can exercise partition boundaries with small inputs.
+     */
+    @VisibleForTesting
+    int variantPartitionSize = VARIANT_PARTITION_SIZE;
+
     // NOTE: using File rather than FeatureInput<VariantContext> here so that we can keep this driving source
     //       of variants separate from any other potential sources of Features
     @Argument(fullName = StandardArgumentDefinitions.VARIANT_LONG_NAME, shortName = StandardArgumentDefinitions.VARIANT_SHORT_NAME, doc = "A VCF file containing variants", common = false, optional = false)
@@ -41,6 +74,7 @@ public abstract class VariantWalker extends VariantWalkerBase {
     @Override
     protected final void onStartup() {
         super.onStartup();
+
         if ( hasIntervals() ) {
             drivingVariants.setIntervalsForTraversal(intervalsForTraversal);
         }
@@ -62,6 +96,176 @@ public abstract class VariantWalker extends VariantWalkerBase {
         //Note: the intervals for the driving variants are set in onStartup
     }
 
+    /**
+     * Create a processor that does the work of {@link #apply} for one worker thread during multi-threaded traversal.
+     * Called once per worker thread, on the traversal thread, after {@link #onTraversalStart}. Must be overridden by
+     * tools that override {@link #supportsMultiThreadedTraversal}.
+     */
+    protected VariantProcessor makeVariantProcessor() {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support multi-threaded traversal");
+    }
+
+    @Override
+    public void traverse() {
+        if ( traversalThreads > 1 ) {
+            final List<String> undeclaredContigs = getUndeclaredDrivingVariantContigs();
+            if ( undeclaredContigs.isEmpty() ) {
+                traverseVariantPartitionsConcurrently();
+                return;
+            }
+            logger.warn(drivingVariantFile + " has variants on contigs that are not in its sequence dictionary (" +
+                        String.join(", ", undeclaredContigs) + "). Falling back to single-threaded traversal.");
+        }
+        super.traverse();
+    }
+
+    /**
+     * Without intervals, partitions are made from the sequence dictionary of the driving variants, so variants on
+     * contigs missing from it would never be reached by a multi-threaded traversal.
+     *
+     * @return the contigs that have driving variants according to the index, but aren't in the sequence dictionary
+     *         of the driving variants. Empty if there are intervals, which already determine the partitions.
+     */
+    private List<String> getUndeclaredDrivingVariantContigs() {
+        final SAMSequenceDictionary dictionary = getSequenceDictionaryForDrivingVariants();
+        if ( hasIntervals() || dictionary == null ) {
+            return Collections.emptyList();
+        }
+        return drivingVariants.getIndexedSequenceNames().stream()
+                .filter(contig -> dictionary.getSequence(contig) == null)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Process up to two partitions per thread at a time on a pool of worker threads, each owning a
+     * {@link PartitionWorker}, while the traversal thread publishes the results of each partition in genomic order.
+     */
+    private void traverseVariantPartitionsConcurrently() {
+        final List<VariantPartition> partitions = makeVariantPartitions();
+        // Keep up to two partitions per thread in flight, so that workers don't wait on a slow partition at the
+        // head of the queue
+        try ( final OrderedWorkerPool<PartitionWorker> workerPool = new OrderedWorkerPool<>(traversalThreads, 2 * traversalThreads, PartitionWorker::new, "variant-walker-worker-%d") ) {
+            workerPool.process(partitions.iterator(), PartitionWorker::processPartition, results -> results.forEach(Runnable::run), "partition of variants");
+        }
+    }
+
+    /**
+     * Split the traversal intervals (or, if there are none, the contigs of the driving variants) into partitions of
+     * at most {@link #variantPartitionSize} bases, in genomic order. Each partition only keeps the variants that a
+     * single-threaded traversal would have reached first within it, so that every variant is processed exactly once.
+     */
+    private List<VariantPartition> makeVariantPartitions() {
+        final List<SimpleInterval> intervals = new ArrayList<>();
+        if ( hasIntervals() ) {
+            intervals.addAll(intervalsForTraversal);
+        } else {
+            // Use the contigs of the driving variants themselves (from their header, or else their index),
+            // since a reference may not cover every variant
+            final SAMSequenceDictionary dictionary = getSequenceDictionaryForDrivingVariants();
+            if ( dictionary == null ) {
+                throw new UserException("Multi-threaded traversal requires " + drivingVariantFile + " to be indexed. " +
+                                        "Please index it using the bundled tool " + IndexFeatureFile.class.getSimpleName());
+            }
+            for ( final SAMSequenceRecord contig : dictionary.getSequences() ) {
+                final int contigLength = contig.getSequenceLength();
+                intervals.add(new SimpleInterval(contig.getSequenceName(), 1, contigLength > 0 ? contigLength : Integer.MAX_VALUE));
+            }
+        }
+
+        final List<VariantPartition> partitions = new ArrayList<>();
+        SimpleInterval previousInterval = null;
+        for ( final SimpleInterval interval : intervals ) {
+            // Variants starting before this interval that overlap the previous one were processed as part of it
+            final boolean sameContig = previousInterval != null && previousInterval.getContig().equals(interval.getContig());
+            int firstOwnedStart = sameContig ? previousInterval.getEnd() + 1 : 1;
+            // contigs of unknown length are processed as a single partition
+            final long partitionSize = interval.getEnd() == Integer.MAX_VALUE ? Integer.MAX_VALUE : variantPartitionSize;
+            for ( long start = interval.getStart(); start <= interval.getEnd(); start += partitionSize ) {
+                final int end = (int)Math.min(interval.getEnd(), start + partitionSize - 1);
+                partitions.add(new VariantPartition(new SimpleInterval(interval.getContig(), (int)start, end), firstOwnedStart));
+                firstOwnedStart = end + 1;
+            }
+            previousInterval = interval;
+        }
+        return partitions;
+    }
+
+    /**
+     * A partition of the traversal intervals, owning the variants overlapping it that start at or after firstOwnedStart.
+     */
+    private static final class VariantPartition {
+        private final SimpleInterval interval;
+        private final int firstOwnedStart;
+
+        private VariantPartition( final SimpleInterval interval, final int firstOwnedStart ) {
+            this.interval = interval;
+            this.firstOwnedStart = firstOwnedStart;
+        }
+    }
+
+    /**
+     * The per-thread state used to process partitions during multi-threaded traversal: independent handles on the
+     * driving variants, reads, reference and feature inputs, the tool's filters, and the tool's {@link VariantProcessor}.
+     */
+    private final class PartitionWorker implements AutoCloseable {
+        private final FeatureDataSource<VariantContext> workerDrivingVariants = new FeatureDataSource<>(drivingVariantsFeatureInput,
+                FEATURE_CACHE_LOOKAHEAD, VariantContext.class, cloudPrefetchBuffer, cloudIndexPrefetchBuffer, referenceArguments.getReferencePath());
+        private final ReadsDataSource workerReads = createReadsDataSource();
+        private final ReferenceDataSource workerReference = createReferenceDataSource();
+        private final FeatureManager workerFeatures = new FeatureManager(VariantWalker.this, FEATURE_CACHE_LOOKAHEAD, cloudPrefetchBuffer,
+                cloudIndexPrefetchBuffer, referenceArguments.getReferencePath());
+        private final VariantFilter variantFilter = makeVariantFilter();
+        private final CountingReadFilter readFilter = makeReadFilter();
+        private final VariantProcessor processor = makeVariantProcessor();
+
+        private PartitionWorker() {
+            // as in initializeDrivingVariants(), the driving variants are also queryable as Features, without lookahead
+            workerFeatures.addToFeatureSources(0, drivingVariantsFeatureInput, VariantContext.class, cloudPrefetchBuffer, cloudIndexPrefetchBuffer,
+                                               referenceArguments.getReferencePath());
+            workerFeatures.setBackgroundPrefetch(prefetchFeatures);
+        }
+
+        /**
+         * Process all of the variants owned by a partition.
+         *
+         * @return the actions publishing the results for each variant of the partition, in order, to be run on the traversal thread
+         */
+        private List<Runnable> processPartition( final VariantPartition partition ) {
+            workerDrivingVariants.setIntervalsForTraversal(Collections.singletonList(partition.interval));
+            final List<Runnable> results = new ArrayList<>();
+            final Iterator<VariantContext> variantIter = workerDrivingVariants.iterator();
+            while ( variantIter.hasNext() ) {
+                final VariantContext variant = variantIter.next();
+                if ( variant.getStart() < partition.firstOwnedStart || ! variantFilter.test(variant) ) {
+                    continue;
+                }
+                final SimpleInterval variantInterval = new SimpleInterval(variant);
+                final Runnable publishVariantResults = Utils.nonNull(processor.process(variant,
+                        new ReadsContext(workerReads, variantInterval, readFilter),
+                        new ReferenceContext(workerReference, variantInterval),
+                        new FeatureContext(workerFeatures, variantInterval)));
+                results.add(() -> {
+                    publishVariantResults.run();
+                    progressMeter.update(variantInterval);
+                });
+            }
+            return results;
+        }
+
+        @Override
+        public void close() {
+            processor.close();
+            workerDrivingVariants.close();
+            if ( workerReads != null ) {
+                workerReads.close();
+            }
+            if ( workerReference != null ) {
+                workerReference.close();
+            }
+            workerFeatures.close();
+        }
+    }
+
     /**
      * Returns the feature input for the driving variants file.
      */
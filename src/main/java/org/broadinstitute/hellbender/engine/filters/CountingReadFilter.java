@@ -75,6 +75,19 @@ public class CountingReadFilter extends ReadFilter {
         filteredCount = 0;
     }
 
+    /**
+     * Add the counts from another CountingReadFilter to the counts for this filter. The other filter must have
+     * the same structure as this one (as is the case for two filters produced by the same call sequence, for
+     * example one per thread in a multi-threaded traversal), so that counts can be combined level by level.
+     *
+     * @param other filter whose counts should be added to this filter's counts
+     */
+    public void mergeFilteredCounts(final CountingReadFilter other) {
+        Utils.nonNull(other);
+        Utils.validateArg(getClass() == other.getClass(), "Cannot merge counts from filters with different structure");
+        filteredCount += other.filteredCount;
+    }
+
     public String getName() {return delegateFilter.getClass().getSimpleName();}
 
     // Returns a summary line with filter counts organized by level
@@ -148,6 +161,12 @@ public class CountingReadFilter extends ReadFilter {
             return accept;
         }
 
+        @Override
+        public void mergeFilteredCounts(final CountingReadFilter other) {
+            super.mergeFilteredCounts(other);
+            delegateCountingFilter.mergeFilteredCounts(((CountingNegateReadFilter) other).delegateCountingFilter);
+        }
+
         @Override
         public String getName() {
             return "Not " + delegateCountingFilter.getName();
@@ -194,6 +213,13 @@ public class CountingReadFilter extends ReadFilter {
             this.rhs.resetFilteredCount();
         }
 
+        @Override
+        public void mergeFilteredCounts(final CountingReadFilter other) {
+            super.mergeFilteredCounts(other);
+            this.lhs.mergeFilteredCounts(((CountingBinopReadFilter) other).lhs);
+            this.rhs.mergeFilteredCounts(((CountingBinopReadFilter) other).rhs);
+        }
+
         @Override
         public abstract String getName();
     }
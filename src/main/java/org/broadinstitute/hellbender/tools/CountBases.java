@@ -8,6 +8,8 @@ import org.broadinstitute.hellbender.engine.ReadWalker;
 import org.broadinstitute.hellbender.engine.ReferenceContext;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 
+import java.util.concurrent.atomic.LongAdder;
+
 /**
  * Calculate and print to the standard output the overall number of bases in a SAM/BAM/CRAM file
  *
@@ -31,15 +33,21 @@ import org.broadinstitute.hellbender.utils.read.GATKRead;
 )
 public final class CountBases extends ReadWalker {
 
-    private long count = 0;
+    private final LongAdder count = new LongAdder();
+
+    @Override
+    protected boolean supportsMultiThreadedTraversal() { return true; }
+
+    @Override
+    protected boolean requiresOrderedApply() { return false; }
 
     @Override
     public void apply( GATKRead read, ReferenceContext referenceContext, FeatureContext featureContext ) {
-        count += read.getLength();
+        count.add(read.getLength());
     }
 
     @Override
     public Object onTraversalSuccess() {
-        return count;
+        return count.sum();
     }
 }
@@ -91,6 +91,9 @@ public final class PrintReads extends ReadWalker {
     public String output;
     private SAMFileGATKReadWriter outputWriter;
 
+    @Override
+    protected boolean supportsMultiThreadedTraversal() { return true; }
+
     @Override
     public void onTraversalStart() {
         outputWriter = createSAMWriter(IOUtils.getPath(output), true);
@@ -101,6 +101,8 @@ public final class CollectAllelicCounts extends LocusWalker {
     )
     private int minimumBaseQuality = 20;
 
+    private static final int LOCUS_BATCH_SIZE = 1000;
+
     private AllelicCountCollector allelicCountCollector;
 
     @Override
@@ -108,6 +110,16 @@ public final class CollectAllelicCounts extends LocusWalker {
         return true;
     }
 
+    @Override
+    public boolean usePileupColumns() {
+        return true;
+    }
+
+    @Override
+    protected int getLocusBatchSize() {
+        return LOCUS_BATCH_SIZE;
+    }
+
     @Override
     public boolean requiresReference() {
         return true;
@@ -151,4 +163,14 @@ public final class CollectAllelicCounts extends LocusWalker {
         final byte refAsByte = referenceContext.getBase();
         allelicCountCollector.collectAtLocus(Nucleotide.valueOf(refAsByte), alignmentContext.getBasePileup(), alignmentContext.getLocation(), minimumBaseQuality);
     }
+
+    @Override
+    public void applyBatch(List<AlignmentContext> alignmentContexts, ReferenceContext referenceContext, FeatureContext featureContext) {
+        final byte[] refBases = referenceContext.getBases();
+        final int refStart = referenceContext.getWindow().getStart();
+        for (final AlignmentContext alignmentContext : alignmentContexts) {
+            final byte refAsByte = refBases[alignmentContext.getStart() - refStart];
+            allelicCountCollector.collectAtLocus(Nucleotide.valueOf(refAsByte), alignmentContext.getBasePileup(), alignmentContext.getLocation(), minimumBaseQuality);
+        }
+    }
 }
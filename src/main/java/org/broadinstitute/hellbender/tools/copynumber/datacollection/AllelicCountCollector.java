@@ -10,6 +10,7 @@ import org.broadinstitute.hellbender.utils.Nucleotide;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.param.ParamUtils;
+import org.broadinstitute.hellbender.utils.pileup.PileupColumns;
 import org.broadinstitute.hellbender.utils.pileup.ReadPileup;
 
 import java.util.ArrayList;
@@ -59,10 +60,14 @@ public final class AllelicCountCollector {
 
         final Nucleotide.Counter nucleotideCounter = new Nucleotide.Counter();
 
-        Utils.stream(pileup.iterator())
-                .filter(r -> !r.isDeletion())
-                .filter(r -> r.getQual() >= minBaseQuality)
-                .forEach(r -> nucleotideCounter.add(r.getBase()));
+        final PileupColumns columns = pileup.getColumns();
+        final byte[] bases = columns.getBases();
+        final byte[] baseQuals = columns.getBaseQuals();
+        for (int i = 0; i < columns.size(); i++) {
+            if (!columns.isDeletion(i) && baseQuals[i] >= minBaseQuality) {
+                nucleotideCounter.add(bases[i]);
+            }
+        }
 
         final int totalBaseCount = BASES.stream().mapToInt(b -> (int) nucleotideCounter.get(b)).sum();  //only include total ACGT counts (exclude N, etc.)
         final int refReadCount = (int) nucleotideCounter.get(refBase);
@@ -18,6 +18,7 @@ import org.broadinstitute.hellbender.utils.variant.GATKVCFHeaderLines;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 
 /**
  * Variant confidence normalized by unfiltered depth of variant samples
@@ -47,7 +48,7 @@ import java.util.Map;
 public final class QualByDepth extends InfoFieldAnnotation implements StandardAnnotation {
 
     @VisibleForTesting
-    static final double MAX_QD_BEFORE_FIXING = 35;
+    public static final double MAX_QD_BEFORE_FIXING = 35;
 
     @VisibleForTesting
     static final double IDEAL_HIGH_QD = 30;
@@ -106,7 +107,7 @@ public final class QualByDepth extends InfoFieldAnnotation implements StandardAn
         double QD = qual / depth;
 
         // Hack: see note in the fixTooHighQD method below
-        QD = fixTooHighQD(QD);
+        QD = fixTooHighQD(QD, getJitterGenerator(vc));
 
         return Collections.singletonMap(getKeyNames().get(0), String.format("%.2f", QD));
     }
@@ -118,16 +119,34 @@ public final class QualByDepth extends InfoFieldAnnotation implements StandardAn
      * threshold we map it down to the mean high QD value, with some jittering
      *
      * @param QD the raw QD score
+     * @param random generator for the jitter, see {@link #getJitterGenerator}
      * @return a QD value
      */
-    public static double fixTooHighQD(final double QD) {
+    public static double fixTooHighQD(final double QD, final Random random) {
         if ( QD < MAX_QD_BEFORE_FIXING ) {
             return QD;
         } else {
-            return IDEAL_HIGH_QD + Utils.getRandomGenerator().nextGaussian() * JITTER_SIGMA;
+            return IDEAL_HIGH_QD + random.nextGaussian() * JITTER_SIGMA;
         }
     }
 
+    /**
+     * @deprecated draws the jitter from the shared generator, so the result depends on the order in which variants
+     * are annotated: use {@link #fixTooHighQD(double, Random)} with {@link #getJitterGenerator} instead
+     */
+    @Deprecated
+    public static double fixTooHighQD(final double QD) {
+        return fixTooHighQD(QD, Utils.getRandomGenerator());
+    }
+
+    /**
+     * @return a new generator for the jitter of {@link #fixTooHighQD(double, Random)}, seeded from the position of
+     *         the variant, so that the QD of a variant is the same whichever thread annotates it, and in whatever order
+     */
+    public static Random getJitterGenerator(final VariantContext vc) {
+        return Utils.getIndependentRandomGenerator(((long) vc.getContig().hashCode() << 32) | (vc.getStart() & 0xFFFFFFFFL));
+    }
+
     @Override
     public List<String> getKeyNames() { return Collections.singletonList(GATKVCFConstants.QUAL_BY_DEPTH_KEY); }
 }
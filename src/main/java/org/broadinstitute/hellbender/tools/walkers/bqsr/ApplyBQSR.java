@@ -101,6 +101,12 @@ public final class ApplyBQSR extends ReadWalker{
         return new BQSRReadTransformer(getHeaderForReads(), BQSR_RECAL_FILE, bqsrArgs);
     }
 
+    /**
+     * Each traversal thread gets its own BQSR post-transformer, while the reads are written in their original order.
+     */
+    @Override
+    protected boolean supportsMultiThreadedTraversal() { return true; }
+
     @Override
     public void onTraversalStart() {
         outputWriter = createSAMWriter(OUTPUT, true);
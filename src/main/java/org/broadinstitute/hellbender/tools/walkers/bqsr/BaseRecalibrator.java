@@ -19,12 +19,14 @@ import org.broadinstitute.hellbender.utils.recalibration.BaseRecalibrationEngine
 import org.broadinstitute.hellbender.utils.recalibration.QuantizationInfo;
 import org.broadinstitute.hellbender.utils.recalibration.RecalUtils;
 import org.broadinstitute.hellbender.utils.recalibration.RecalibrationArgumentCollection;
+import org.broadinstitute.hellbender.utils.recalibration.RecalibrationTables;
 import picard.cmdline.programgroups.ReadDataManipulationProgramGroup;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -72,6 +74,15 @@ import java.util.List;
  *   --known-sites another/optional/setOfSitesToMask.vcf \
  *   -O recal_data.table
  * </pre>
+ *
+ * <p>
+ * With {@code --threads}, reads are processed concurrently by several worker threads, each accumulating its own
+ * recalibration tables, which are combined before the report is written. Without BAQ, every base counts as zero or
+ * one error, so the sums are exact and the report doesn't depend on the number of threads. With {@code --enable-baq},
+ * errors are fractional, and are summed in an order that depends on how reads were split between the threads: the
+ * error counts of the report (and rarely the empirical qualities derived from them) may then differ in their last
+ * digits between runs.
+ * </p>
  */
 
 @CommandLineProgramProperties(
@@ -115,9 +126,22 @@ public final class BaseRecalibrator extends ReadWalker {
     @Argument(shortName = StandardArgumentDefinitions.OUTPUT_SHORT_NAME, fullName = StandardArgumentDefinitions.OUTPUT_LONG_NAME, doc = "The output recalibration table file to create", optional = false)
     private File recalTableFile = null;
 
+    /**
+     * Engine holding the combined tables of all {@link RecalibrationWorker}s, from which the report is generated
+     */
     private BaseRecalibrationEngine recalibrationEngine;
 
-    private ReferenceDataSource referenceDataSource; // datasource for the reference. We're using a different one from the engine itself to avoid messing with its caches.
+    /**
+     * All workers created so far: a single one when apply() is called on the traversal thread, or one per worker thread
+     * during multi-threaded traversal
+     */
+    private final List<RecalibrationWorker> recalibrationWorkers = Collections.synchronizedList(new ArrayList<>());
+
+    private final ThreadLocal<RecalibrationWorker> threadRecalibrationWorker = ThreadLocal.withInitial(() -> {
+        final RecalibrationWorker worker = new RecalibrationWorker();
+        recalibrationWorkers.add(worker);
+        return worker;
+    });
 
     /**
      * an object that keeps track of the information necessary for quality score quantization
@@ -129,6 +153,12 @@ public final class BaseRecalibrator extends ReadWalker {
         return true;
     }
 
+    @Override
+    protected boolean supportsMultiThreadedTraversal() { return true; }
+
+    @Override
+    protected boolean requiresOrderedApply() { return false; }
+
     /**
      * Parse the -cov arguments and create a list of covariates to be used here
      * Based on the covariates' estimates for initial capacity allocate the data hashmap
@@ -143,7 +173,6 @@ public final class BaseRecalibrator extends ReadWalker {
 
         recalibrationEngine = new BaseRecalibrationEngine(recalArgs, getHeaderForReads());
         recalibrationEngine.logCovariatesUsed();
-        referenceDataSource = ReferenceDataSource.of(referenceArguments.getReferencePath());
     }
 
     @Override
@@ -182,11 +211,22 @@ public final class BaseRecalibrator extends ReadWalker {
      */
     @Override
     public void apply( GATKRead read, ReferenceContext ref, FeatureContext featureContext ) {
-        recalibrationEngine.processRead(read, referenceDataSource, featureContext.getValues(knownSites));
+        final RecalibrationWorker worker = threadRecalibrationWorker.get();
+        worker.engine.processRead(read, worker.referenceDataSource, featureContext.getValues(knownSites));
     }
 
     @Override
     public Object onTraversalSuccess() {
+        long numReadsProcessed = 0L;
+        long numBufferAllocations = 0L;
+        // the combined tables are exact sums of whole error counts, but not of the fractional ones of BAQ, whose
+        // rounding depends on the order in which reads were processed and the tables are combined
+        for ( final RecalibrationWorker worker : recalibrationWorkers ) {
+            RecalibrationTables.inPlaceCombine(recalibrationEngine.getRecalibrationTables(), worker.engine.getRecalibrationTables());
+            numReadsProcessed += worker.engine.getNumReadsProcessed();
+            numBufferAllocations += worker.engine.getNumBufferAllocations();
+        }
+        logger.debug(String.format("Allocated %d per-read buffers for %d reads", numBufferAllocations, numReadsProcessed));
         recalibrationEngine.finalizeData();
 
         logger.info("Calculating quantized quality scores...");
@@ -197,7 +237,12 @@ public final class BaseRecalibrator extends ReadWalker {
         logger.info("...done!");
 
         //logger.info("BaseRecalibrator was able to recalibrate " + result + " reads");
-        return recalibrationEngine.getNumReadsProcessed();
+        return numReadsProcessed;
+    }
+
+    @Override
+    public void closeTool() {
+        recalibrationWorkers.forEach(worker -> worker.referenceDataSource.close());
     }
 
     /**
@@ -217,4 +262,13 @@ public final class BaseRecalibrator extends ReadWalker {
             throw new UserException.CouldNotCreateOutputFile(recalTableFile, e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * The engine (with its own tables and covariate key cache) and reference of a single thread calling apply().
+     * The reference is separate from the one of the engine itself to avoid messing with its caches.
+     */
+    private final class RecalibrationWorker {
+        private final BaseRecalibrationEngine engine = new BaseRecalibrationEngine(recalArgs, getHeaderForReads());
+        private final ReferenceDataSource referenceDataSource = ReferenceDataSource.of(referenceArguments.getReferencePath());
+    }
+}
@@ -292,11 +292,29 @@ public final class VariantFiltration extends VariantWalker {
 
     @Override
     public void apply(final VariantContext variant, final ReadsContext readsContext, final ReferenceContext ref, final FeatureContext featureContext) {
+        writer.add(filterVariant(variant, featureContext));
+    }
+
+    @Override
+    protected boolean supportsMultiThreadedTraversal() { return true; }
+
+    /**
+     * Filtering only evaluates the (thread-safe) compiled JEXL expressions and reads this tool's configuration, so it
+     * is done on the worker threads, leaving just the writing of the filtered variants to the traversal thread.
+     */
+    @Override
+    protected VariantProcessor makeVariantProcessor() {
+        return (variant, readsContext, ref, featureContext) -> {
+            final VariantContext filteredVariant = filterVariant(variant, featureContext);
+            return () -> writer.add(filteredVariant);
+        };
+    }
 
+    private VariantContext filterVariant(final VariantContext variant, final FeatureContext featureContext) {
         final VariantContext vc1 = invalidatePreviousFilters ? (new VariantContextBuilder(variant)).unfiltered().make() : variant;
         final VariantContext vc = isMaskFilterPresent(vc1) ? vc1: addMaskIfCoversVariant(vc1, featureContext);
 
-        filter(vc, featureContext);
+        return filter(vc, featureContext);
     }
 
     /**
@@ -319,7 +337,7 @@ public final class VariantFiltration extends VariantWalker {
         return vc.getFilters() != null && vc.getFilters().contains(maskName);
     }
 
-    private void filter(final VariantContext vc, final FeatureContext featureContext) {
+    private VariantContext filter(final VariantContext vc, final FeatureContext featureContext) {
         final VariantContextBuilder builder = new VariantContextBuilder(vc);
 
         // make new Genotypes based on filters
@@ -347,7 +365,7 @@ public final class VariantFiltration extends VariantWalker {
             builder.filters(filters);
         }
 
-        writer.add(builder.make());
+        return builder.make();
     }
 
     /**
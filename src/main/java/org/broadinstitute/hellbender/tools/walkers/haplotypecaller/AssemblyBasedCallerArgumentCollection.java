@@ -73,6 +73,16 @@ public abstract class AssemblyBasedCallerArgumentCollection extends StandardCall
     @Argument(fullName="bam-writer-type", doc="Which haplotypes should be written to the BAM", optional = true)
     public HaplotypeBAMWriter.WriterType bamWriterType = HaplotypeBAMWriter.WriterType.CALLED_HAPLOTYPES;
 
+    /**
+     * The haplotypes assembled for each region will be stored in this directory, and reused by later runs on the same
+     * reads with the same assembly arguments (e.g. runs that only change the genotyping or annotation arguments)
+     * instead of assembling the region again. Regions are only reused if their reads, reference bases, given alleles
+     * and assembly arguments are identical, so the output is the same as without the cache.
+     */
+    @Advanced
+    @Argument(fullName="assembly-result-cache", doc="Directory in which to cache the haplotypes assembled for each region, for reuse by later runs", optional = true)
+    public String assemblyResultCacheDirectory = null;
+
     // -----------------------------------------------------------------------------------------------
     // arguments for debugging / developing
     // -----------------------------------------------------------------------------------------------
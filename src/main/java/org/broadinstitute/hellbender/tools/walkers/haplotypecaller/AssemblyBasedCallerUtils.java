@@ -179,6 +179,8 @@ public final class AssemblyBasedCallerUtils {
         final ReadThreadingAssembler assemblyEngine = new ReadThreadingAssembler(rtaac.maxNumHaplotypesInPopulation, rtaac.kmerSizes, rtaac.dontIncreaseKmerSizesForCycles, rtaac.allowNonUniqueKmersInRef, rtaac.numPruningSamples);
         assemblyEngine.setErrorCorrectKmers(rtaac.errorCorrectKmers);
         assemblyEngine.setPruneFactor(rtaac.minPruneFactor);
+        assemblyEngine.setGraphImplementation(rtaac.graphImplementation);
+        assemblyEngine.setKmerAssemblyThreads(rtaac.kmerAssemblyThreads);
         assemblyEngine.setDebug(args.debug);
         assemblyEngine.setDebugGraphTransformations(rtaac.debugGraphTransformations);
         assemblyEngine.setRecoverDanglingBranches(!rtaac.doNotRecoverDanglingBranches);
@@ -201,6 +203,12 @@ public final class AssemblyBasedCallerUtils {
                 Optional.empty();
     }
 
+    public static Optional<AssemblyResultCache> createAssemblyResultCache(final AssemblyBasedCallerArgumentCollection args) {
+        return args.assemblyResultCacheDirectory != null ?
+                Optional.of(new AssemblyResultCache(IOUtils.getPath(args.assemblyResultCacheDirectory), args)) :
+                Optional.empty();
+    }
+
     // create the assembly using just high quality reads (eg Q20 or higher).  We may want to use lower
     // quality reads in the PairHMM downstream, so we can't use a ReadFilter
     public static AssemblyRegion assemblyRegionWithWellMappedReads(final AssemblyRegion originalAssemblyRegion,
@@ -240,6 +248,24 @@ public final class AssemblyBasedCallerUtils {
                                                   final ReferenceSequenceFile referenceReader,
                                                   final ReadThreadingAssembler assemblyEngine,
                                                   final SmithWatermanAligner aligner){
+        return assembleReads(region, givenAlleles, argumentCollection, header, sampleList, logger, referenceReader, assemblyEngine, aligner, Optional.empty());
+    }
+
+    /**
+     * Same as {@link #assembleReads(AssemblyRegion, List, AssemblyBasedCallerArgumentCollection, SAMFileHeader, SampleList, Logger, ReferenceSequenceFile, ReadThreadingAssembler, SmithWatermanAligner)},
+     * but reusing the haplotypes stored in {@code assemblyResultCache} when the region was already assembled, and
+     * storing them otherwise.
+     */
+    public static AssemblyResultSet assembleReads(final AssemblyRegion region,
+                                                  final List<VariantContext> givenAlleles,
+                                                  final AssemblyBasedCallerArgumentCollection argumentCollection,
+                                                  final SAMFileHeader header,
+                                                  final SampleList sampleList,
+                                                  final Logger logger,
+                                                  final ReferenceSequenceFile referenceReader,
+                                                  final ReadThreadingAssembler assemblyEngine,
+                                                  final SmithWatermanAligner aligner,
+                                                  final Optional<AssemblyResultCache> assemblyResultCache){
         finalizeRegion(region, argumentCollection.errorCorrectReads, argumentCollection.dontUseSoftClippedBases, (byte)(argumentCollection.minBaseQualityScore - 1), header, sampleList);
         if( argumentCollection.debug) {
             logger.info("Assembling " + region.getSpan() + " with " + region.size() + " reads:    (with overlap region = " + region.getExtendedSpan() + ")");
@@ -249,6 +275,15 @@ public final class AssemblyBasedCallerUtils {
         final SimpleInterval paddedReferenceLoc = getPaddedReferenceLoc(region, REFERENCE_PADDING_FOR_ASSEMBLY, referenceReader);
         final Haplotype referenceHaplotype = createReferenceHaplotype(region, paddedReferenceLoc, referenceReader);
 
+        final String cacheKey = assemblyResultCache.map(cache -> cache.key(region, fullReferenceWithPadding, paddedReferenceLoc, givenAlleles)).orElse(null);
+        if ( cacheKey != null ) {
+            final AssemblyResultSet cachedResultSet = assemblyResultCache.get().get(cacheKey, region, fullReferenceWithPadding, paddedReferenceLoc);
+            if ( cachedResultSet != null ) {
+                cachedResultSet.debugDump(logger);
+                return cachedResultSet;
+            }
+        }
+
         final ReadErrorCorrector readErrorCorrector = argumentCollection.errorCorrectReads ?
                 new ReadErrorCorrector(argumentCollection.assemblerArgs.kmerLengthForReadErrorCorrection,
                         HaplotypeCallerEngine.MIN_TAIL_QUALITY_WITH_ERROR_CORRECTION,
@@ -262,6 +297,9 @@ public final class AssemblyBasedCallerUtils {
                                                                                         paddedReferenceLoc, givenAlleles, readErrorCorrector, header,
                                                                                         aligner);
             assemblyResultSet.debugDump(logger);
+            if ( cacheKey != null ) {
+                assemblyResultCache.get().put(cacheKey, assemblyResultSet);
+            }
             return assemblyResultSet;
         } catch (final Exception e){
             // Capture any exception that might be thrown, and write out the assembly failure BAM if requested
@@ -0,0 +1,328 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller;
+
+import htsjdk.samtools.TextCigarCodec;
+import htsjdk.samtools.util.Locatable;
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.VariantContext;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.engine.AssemblyRegion;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.graphs.SeqGraph;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * On-disk cache of the haplotypes assembled for each assembly region, so that repeated runs over the same reads
+ * (for example with different genotyping or annotation arguments) do not need to assemble the regions again.
+ *
+ * <p>
+ *     Each region is stored in its own file, named after a digest of everything the assembly depends on: the
+ *     assembly arguments, the extended span of the region, the reference bases used for assembly, the alleles given
+ *     in GGA mode and the finalized reads of the region (in order). A region is only reused if all of these match.
+ * </p>
+ *
+ * <p>
+ *     Only the haplotypes and the status and kmer size of each assembly result are cached, not the assembly graphs.
+ *     The assembly results of a cached {@link AssemblyResultSet} therefore have empty graphs, which only carry the
+ *     kmer size of the original graphs.
+ *     Files are written atomically, so several engines can share the same cache directory.
+ * </p>
+ */
+public final class AssemblyResultCache {
+    private static final Logger logger = LogManager.getLogger(AssemblyResultCache.class);
+
+    private static final int MAGIC = 0x48415043;
+    private static final int VERSION = 2;
+    private static final String FILE_EXTENSION = ".haplotypes";
+
+    private final Path directory;
+    private final String argumentsKey;
+
+    private long hits = 0;
+    private long misses = 0;
+
+    /**
+     * Creates a cache in the given directory, creating the directory if necessary.
+     *
+     * @param directory the directory where the assembled haplotypes are stored.
+     * @param args the arguments of the caller; the ones that affect the assembly are part of the cache key.
+     */
+    public AssemblyResultCache(final Path directory, final AssemblyBasedCallerArgumentCollection args) {
+        Utils.nonNull(directory, "the cache directory cannot be null");
+        Utils.nonNull(args, "the arguments cannot be null");
+        this.directory = directory;
+        this.argumentsKey = argumentsKey(args);
+        try {
+            Files.createDirectories(directory);
+        } catch (final IOException e) {
+            throw new UserException.CouldNotCreateOutputFile(directory.toString(), "could not create the assembly result cache directory", e);
+        }
+    }
+
+    /**
+     * Returns the digest identifying the assembly of a region.
+     *
+     * @param region the region, with its reads already finalized for assembly.
+     * @param fullReferenceWithPadding the reference bases used for assembly.
+     * @param paddedReferenceLoc the location of {@code fullReferenceWithPadding}.
+     * @param givenAlleles the alleles to inject into the haplotypes in GGA mode.
+     * @return never {@code null}.
+     */
+    public String key(final AssemblyRegion region, final byte[] fullReferenceWithPadding, final SimpleInterval paddedReferenceLoc,
+                      final List<VariantContext> givenAlleles) {
+        Utils.nonNull(region, "the region cannot be null");
+        Utils.nonNull(fullReferenceWithPadding, "the reference bases cannot be null");
+        Utils.nonNull(paddedReferenceLoc, "the reference location cannot be null");
+        Utils.nonNull(givenAlleles, "the given alleles cannot be null");
+
+        final KeyDigest digest = new KeyDigest();
+        digest.update(argumentsKey);
+        digest.update(region.getExtendedSpan());
+        digest.update(paddedReferenceLoc);
+        digest.update(fullReferenceWithPadding);
+        digest.update(givenAlleles.size());
+        for (final VariantContext vc : givenAlleles) {
+            digest.update(new SimpleInterval(vc));
+            digest.update(vc.getNAlleles());
+            for (final Allele allele : vc.getAlleles()) {
+                digest.update(allele.getDisplayString());
+                digest.update(allele.isReference() ? 1 : 0);
+            }
+        }
+        digest.update(region.size());
+        for (final GATKRead read : region.getReads()) {
+            digest.update(read.getName());
+            digest.update(String.valueOf(read.getReadGroup()));
+            digest.update(read.isUnmapped() ? "*" : read.getContig());
+            digest.update(read.getStart());
+            digest.update(read.getCigar().toString());
+            digest.update(read.getBases());
+            digest.update(read.getBaseQualities());
+        }
+        return digest.hexDigest();
+    }
+
+    /**
+     * Looks up the haplotypes assembled for a region.
+     *
+     * @param key the key of the region, as returned by {@link #key}.
+     * @param region the region, which becomes the region for genotyping of the result.
+     * @param fullReferenceWithPadding the reference bases used for assembly.
+     * @param paddedReferenceLoc the location of {@code fullReferenceWithPadding}.
+     * @return the cached assembly result set, or {@code null} if the region is not in the cache.
+     */
+    public AssemblyResultSet get(final String key, final AssemblyRegion region, final byte[] fullReferenceWithPadding, final SimpleInterval paddedReferenceLoc) {
+        Utils.nonNull(key, "the key cannot be null");
+        final Path file = fileFor(key);
+        try (final DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            final AssemblyResultSet resultSet = read(in);
+            resultSet.setRegionForGenotyping(region);
+            resultSet.setFullReferenceWithPadding(fullReferenceWithPadding);
+            resultSet.setPaddedReferenceLoc(paddedReferenceLoc);
+            hits++;
+            return resultSet;
+        } catch (final NoSuchFileException e) {
+            misses++;
+            return null;
+        } catch (final IOException | RuntimeException e) {
+            // a damaged entry is no worse than a missing one, it will be overwritten once the region is assembled again
+            logger.warn("Ignoring unreadable assembly result cache entry " + file + ": " + e.getMessage());
+            misses++;
+            return null;
+        }
+    }
+
+    /**
+     * Stores the haplotypes assembled for a region.
+     *
+     * @param key the key of the region, as returned by {@link #key}.
+     * @param resultSet the assembly result set of the region.
+     */
+    public void put(final String key, final AssemblyResultSet resultSet) {
+        Utils.nonNull(key, "the key cannot be null");
+        Utils.nonNull(resultSet, "the assembly result set cannot be null");
+        final Path file = fileFor(key);
+        Path tempFile = null;
+        try {
+            tempFile = Files.createTempFile(directory, key, ".tmp");
+            try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                write(out, resultSet);
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (final IOException e) {
+            throw new UserException.CouldNotCreateOutputFile(file.toString(), "could not write the assembly result cache entry", e);
+        } finally {
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (final IOException e) {
+                    logger.warn("Could not delete temporary file " + tempFile, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the number of regions found in the cache so far.
+     */
+    public long getNumberOfHits() {
+        return hits;
+    }
+
+    /**
+     * @return the number of regions not found in the cache so far.
+     */
+    public long getNumberOfMisses() {
+        return misses;
+    }
+
+    /**
+     * Logs the number of regions found in the cache.
+     */
+    public void close() {
+        logger.info(String.format("Reused the assembly of %d of %d regions from the assembly result cache %s", hits, hits + misses, directory));
+    }
+
+    private Path fileFor(final String key) {
+        return directory.resolve(key + FILE_EXTENSION);
+    }
+
+    private static void write(final DataOutputStream out, final AssemblyResultSet resultSet) throws IOException {
+        final List<AssemblyResult> assemblyResults = new ArrayList<>(resultSet.getAssemblyResults());
+        final List<Haplotype> haplotypes = resultSet.getHaplotypeList();
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(assemblyResults.size());
+        for (final AssemblyResult assemblyResult : assemblyResults) {
+            out.writeUTF(assemblyResult.getStatus().name());
+            out.writeInt(assemblyResult.getKmerSize());
+        }
+        out.writeInt(haplotypes.size());
+        for (final Haplotype haplotype : haplotypes) {
+            final byte[] bases = haplotype.getBases();
+            out.writeInt(bases.length);
+            out.write(bases);
+            out.writeBoolean(haplotype.isReference());
+            final Locatable location = haplotype.getGenomeLocation();
+            out.writeUTF(location.getContig());
+            out.writeInt(location.getStart());
+            out.writeInt(location.getEnd());
+            out.writeInt(haplotype.getAlignmentStartHapwrtRef());
+            out.writeUTF(TextCigarCodec.encode(haplotype.getCigar()));
+            out.writeDouble(haplotype.getScore());
+            // the index of the assembly result of the haplotype, or -1 if it has none
+            out.writeInt(assemblyResults.indexOf(resultSet.getAssemblyResult(haplotype)));
+        }
+    }
+
+    private static AssemblyResultSet read(final DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("not an assembly result cache file of version " + VERSION);
+        }
+        final AssemblyResultSet resultSet = new AssemblyResultSet();
+        final int numberOfAssemblyResults = in.readInt();
+        final List<AssemblyResult> assemblyResults = new ArrayList<>(numberOfAssemblyResults);
+        for (int i = 0; i < numberOfAssemblyResults; i++) {
+            final AssemblyResult.Status status = AssemblyResult.Status.valueOf(in.readUTF());
+            final AssemblyResult assemblyResult = new AssemblyResult(status, new SeqGraph(in.readInt()), null);
+            assemblyResults.add(assemblyResult);
+            resultSet.add(assemblyResult);
+        }
+        final int numberOfHaplotypes = in.readInt();
+        for (int i = 0; i < numberOfHaplotypes; i++) {
+            final byte[] bases = new byte[in.readInt()];
+            in.readFully(bases);
+            final boolean isReference = in.readBoolean();
+            final SimpleInterval location = new SimpleInterval(in.readUTF(), in.readInt(), in.readInt());
+            final Haplotype haplotype = new Haplotype(bases, isReference, in.readInt(), TextCigarCodec.decode(in.readUTF()));
+            haplotype.setGenomeLocation(location);
+            haplotype.setScore(in.readDouble());
+            final int assemblyResultIndex = in.readInt();
+            if (assemblyResultIndex < 0) {
+                resultSet.add(haplotype);
+            } else {
+                resultSet.add(haplotype, assemblyResults.get(assemblyResultIndex));
+            }
+        }
+        return resultSet;
+    }
+
+    private static String argumentsKey(final AssemblyBasedCallerArgumentCollection args) {
+        final ReadThreadingAssemblerArgumentCollection assemblerArgs = args.assemblerArgs;
+        // only the arguments that can change the assembled haplotypes, not those that just change how they are computed
+        return String.join("\t",
+                "kmerSizes=" + assemblerArgs.kmerSizes,
+                "dontIncreaseKmerSizesForCycles=" + assemblerArgs.dontIncreaseKmerSizesForCycles,
+                "allowNonUniqueKmersInRef=" + assemblerArgs.allowNonUniqueKmersInRef,
+                "numPruningSamples=" + assemblerArgs.numPruningSamples,
+                "doNotRecoverDanglingBranches=" + assemblerArgs.doNotRecoverDanglingBranches,
+                "minDanglingBranchLength=" + assemblerArgs.minDanglingBranchLength,
+                "maxNumHaplotypesInPopulation=" + assemblerArgs.maxNumHaplotypesInPopulation,
+                "errorCorrectKmers=" + assemblerArgs.errorCorrectKmers,
+                "minPruneFactor=" + assemblerArgs.minPruneFactor,
+                "errorCorrectReads=" + args.errorCorrectReads,
+                "kmerLengthForReadErrorCorrection=" + assemblerArgs.kmerLengthForReadErrorCorrection,
+                "minObservationsForKmerToBeSolid=" + assemblerArgs.minObservationsForKmerToBeSolid,
+                "minBaseQualityScore=" + args.minBaseQualityScore,
+                "smithWatermanImplementation=" + args.smithWatermanImplementation);
+    }
+
+    /**
+     * SHA-256 digest of the fields of a key, with lengths so that different sequences of fields never collide.
+     */
+    private static final class KeyDigest {
+        private final MessageDigest digest;
+
+        KeyDigest() {
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (final NoSuchAlgorithmException e) {
+                throw new GATKException("SHA-256 digest is not available", e);
+            }
+        }
+
+        void update(final int value) {
+            digest.update((byte) (value >>> 24));
+            digest.update((byte) (value >>> 16));
+            digest.update((byte) (value >>> 8));
+            digest.update((byte) value);
+        }
+
+        void update(final byte[] bytes) {
+            update(bytes.length);
+            digest.update(bytes);
+        }
+
+        void update(final String string) {
+            update(string.getBytes(StandardCharsets.UTF_8));
+        }
+
+        void update(final Locatable location) {
+            update(location.getContig());
+            update(location.getStart());
+            update(location.getEnd());
+        }
+
+        String hexDigest() {
+            final StringBuilder result = new StringBuilder();
+            for (final byte b : digest.digest()) {
+                result.append(String.format("%02x", b));
+            }
+            return result.toString();
+        }
+    }
+}
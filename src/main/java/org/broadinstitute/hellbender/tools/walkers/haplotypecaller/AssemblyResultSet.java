@@ -298,7 +298,7 @@ public final class AssemblyResultSet {
      * @throws IllegalStateException if there is an assembly result with the same kmerSize.
      * @return {@code true} iff this addition changed the assembly result set.
      */
-    private boolean add(final AssemblyResult ar) {
+    boolean add(final AssemblyResult ar) {
         Utils.nonNull(ar);
         final int kmerSize = ar.getKmerSize();
         if (assemblyResultByKmerSize.containsKey(kmerSize)) {
@@ -387,6 +387,26 @@ public final class AssemblyResultSet {
         return Arrays.asList(haplotypes.toArray(new Haplotype[haplotypes.size()]));
     }
 
+    /**
+     * Returns the assembly-result that gave rise to a haplotype.
+     *
+     * @param h the haplotype.
+     *
+     * @return {@code null} if {@code h} is not in the set or was not added together with an assembly-result.
+     */
+    AssemblyResult getAssemblyResult(final Haplotype h) {
+        return assemblyResultByHaplotype.get(h);
+    }
+
+    /**
+     * Returns the assembly-results in the set, one per kmerSize, in the order in which they were added.
+     *
+     * @return never {@code null}, an unmodifiable collection.
+     */
+    Collection<AssemblyResult> getAssemblyResults() {
+        return Collections.unmodifiableCollection(assemblyResultByKmerSize.values());
+    }
+
     /**
      * Returns the maximum kmerSize available.
      *
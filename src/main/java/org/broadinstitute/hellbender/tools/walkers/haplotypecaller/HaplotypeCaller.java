@@ -2,11 +2,13 @@ package org.broadinstitute.hellbender.tools.walkers.haplotypecaller;
 
 import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.samtools.reference.ReferenceSequenceFile;
+import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.variantcontext.writer.VariantContextWriter;
 import java.nio.file.Path;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.ArgumentCollection;
 import org.broadinstitute.barclay.argparser.BetaFeature;
+import org.broadinstitute.barclay.argparser.CommandLineException;
 import org.broadinstitute.barclay.argparser.CommandLineProgramProperties;
 import org.broadinstitute.barclay.help.DocumentedFeature;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
@@ -191,8 +193,15 @@ public final class HaplotypeCaller extends AssemblyRegionWalker {
         return hcEngine;
     }
 
+    @Override
+    protected boolean supportsMultiThreadedTraversal() { return true; }
+
     @Override
     public void onTraversalStart() {
+        if ( traversalThreads > 1 && hcArgs.bamOutputPath != null ) {
+            throw new CommandLineException.BadArgumentValue(StandardArgumentDefinitions.THREADS_LONG_NAME, "multi-threaded traversal cannot be used together with a bamout");
+        }
+
         final ReferenceSequenceFile referenceReader = getReferenceReader(referenceArguments);
         hcEngine = new HaplotypeCallerEngine(hcArgs, createOutputBamIndex, createOutputBamMD5, getHeaderForReads(), referenceReader);
 
@@ -218,6 +227,33 @@ public final class HaplotypeCaller extends AssemblyRegionWalker {
         hcEngine.callRegion(region, featureContext).forEach(vcfWriter::add);
     }
 
+    /**
+     * Each worker thread gets its own HaplotypeCallerEngine (and therefore its own reference reader, assembler and
+     * PairHMM), while the calls are always written to the single output writer from the traversal thread.
+     */
+    @Override
+    protected AssemblyRegionProcessor makeAssemblyRegionProcessor() {
+        final HaplotypeCallerEngine workerEngine = new HaplotypeCallerEngine(hcArgs, createOutputBamIndex, createOutputBamMD5, getHeaderForReads(), getReferenceReader(referenceArguments));
+
+        return new AssemblyRegionProcessor() {
+            @Override
+            public AssemblyRegionEvaluator assemblyRegionEvaluator() {
+                return workerEngine;
+            }
+
+            @Override
+            public Runnable process(final AssemblyRegion region, final ReferenceContext referenceContext, final FeatureContext featureContext) {
+                final List<VariantContext> calls = workerEngine.callRegion(region, featureContext);
+                return () -> calls.forEach(vcfWriter::add);
+            }
+
+            @Override
+            public void close() {
+                workerEngine.shutdown();
+            }
+        };
+    }
+
     @Override
     public void closeTool() {
         if ( vcfWriter != null ) {
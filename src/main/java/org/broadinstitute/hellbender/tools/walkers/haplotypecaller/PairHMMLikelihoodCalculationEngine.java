@@ -44,6 +44,11 @@ public final class PairHMMLikelihoodCalculationEngine implements ReadLikelihoodC
 
     private final PairHMM pairHMM;
 
+    /**
+     * Storage for the likelihoods computed for one region, reused for the next region.
+     */
+    private final ReadLikelihoodsArena likelihoodsArena = new ReadLikelihoodsArena();
+
     @VisibleForTesting
     static boolean writeLikelihoodsToFile = false;
 
@@ -177,8 +182,9 @@ public final class PairHMMLikelihoodCalculationEngine implements ReadLikelihoodC
 
         initializePairHMM(haplotypeList, perSampleReadList);
 
-        // Add likelihoods for each sample's reads to our result
-        final ReadLikelihoods<Haplotype> result = new ReadLikelihoods<>(samples, haplotypes, perSampleReadList);
+        // Add likelihoods for each sample's reads to our result, reusing the storage of the previous result
+        likelihoodsArena.reset();
+        final ReadLikelihoods<Haplotype> result = new ReadLikelihoods<>(samples, haplotypes, perSampleReadList, likelihoodsArena);
         final int sampleCount = result.numberOfSamples();
         for (int i = 0; i < sampleCount; i++) {
             computeReadLikelihoods(result.sampleMatrix(i));
@@ -37,7 +37,9 @@ public interface ReadLikelihoodCalculationEngine {
      * @throws IllegalArgumentException if any parameter is {@code null}.
      *
      * @return never {@code null}, and with at least one entry for input sample (keys in {@code perSampleReadList}.
-     *    The value maps can be potentially empty though.
+     *    The value maps can be potentially empty though. Implementations may reuse the storage of the result (and of
+     *    any collection derived from it by marginalization) in their next invocation, so it must not be used after
+     *    this method is called again unless it is {@link ReadLikelihoods#copy copied}.
      */
     public ReadLikelihoods<Haplotype> computeReadLikelihoods(AssemblyResultSet assemblyResultSet, SampleList samples,
                                                              Map<String, List<GATKRead>> perSampleReadList);
@@ -4,6 +4,7 @@ import com.google.common.collect.Lists;
 import org.broadinstitute.barclay.argparser.Advanced;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.Hidden;
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.readthreading.ReadThreadingAssembler;
 
 import java.io.Serializable;
 import java.util.List;
@@ -111,6 +112,26 @@ public final class ReadThreadingAssemblerArgumentCollection implements Serializa
     @Argument(fullName="min-pruning", doc = "Minimum support to not prune paths in the graph", optional = true)
     public int minPruneFactor = 2;
 
+    /**
+     * The PACKED_KMERS implementation threads the reads through a graph of kmers packed into primitive longs, and
+     * converts it into the regular graph only after pruning. It produces the same assemblies as the default
+     * implementation with far fewer allocations, for kmer sizes up to 31.
+     */
+    @Advanced
+    @Argument(fullName="read-threading-graph-implementation", doc = "Implementation of the read threading assembly graph", optional = true)
+    public ReadThreadingAssembler.GraphImplementation graphImplementation = ReadThreadingAssembler.GraphImplementation.JGRAPHT;
+
+    /**
+     * The graphs for the different kmer sizes of an assembly region are independent of each other until they are merged,
+     * so they can be built and pruned concurrently on a thread pool of this size, which is shared by all the regions
+     * assembled by the same engine. When none of the requested kmer sizes produces a usable graph, the increased kmer
+     * sizes are also tried concurrently, and the attempts after the first successful one are discarded. The assembly
+     * results do not depend on the number of threads.
+     */
+    @Advanced
+    @Argument(fullName="kmer-assembly-threads", doc = "Number of threads used to assemble the graphs for different kmer sizes concurrently", optional = true, minValue = 1)
+    public int kmerAssemblyThreads = 1;
+
     @Hidden
     @Argument(fullName="debug-graph-transformations", doc="Write DOT formatted graph files out of the assembler for only this graph size", optional = true)
     public boolean debugGraphTransformations = false;
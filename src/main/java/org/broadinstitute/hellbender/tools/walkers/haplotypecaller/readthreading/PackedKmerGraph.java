@@ -0,0 +1,585 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller.readthreading;
+
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.Kmer;
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.graphs.MultiSampleEdge;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.*;
+
+/**
+ * Read threading graph backed by primitive arrays, which builds the same graph as {@link ReadThreadingGraph} at a
+ * fraction of the allocation and hashing cost.
+ *
+ * <p>
+ *     K-mers of up to {@link #MAX_KMER_SIZE} bases are packed into longs (2 bits per base), vertices are integer ids
+ *     looked up through an open-addressing {@code long -> int} map, and edges (together with their total and per-sample
+ *     multiplicities) are integer ids into flat arrays. Threading the sequences, detecting cycles and pruning low weight
+ *     chains are done on this representation, and only the pruned graph is copied into a {@link ReadThreadingGraph} for
+ *     the remaining (much cheaper) steps of the assembly.
+ * </p>
+ *
+ * <p>
+ *     Vertices and edges are created in the same order and with the same multiplicities as in {@link ReadThreadingGraph},
+ *     so the copied graph is identical to the one {@link ReadThreadingGraph} would have built and pruned itself.
+ * </p>
+ */
+final class PackedKmerGraph {
+
+    /**
+     * Largest kmer size that can be packed into a long.
+     */
+    static final int MAX_KMER_SIZE = 31;
+
+    private static final int NO_VERTEX = -1;
+    private static final int NO_EDGE = -1;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private static final byte[] BASES = {'A', 'C', 'G', 'T'};
+    private static final int[] BASE_CODES = new int[256];
+    static {
+        Arrays.fill(BASE_CODES, -1);
+        for ( int i = 0; i < BASES.length; i++ ) {
+            BASE_CODES[BASES[i]] = i;
+        }
+    }
+
+    private final int kmerSize;
+    private final long kmerMask;
+    private final int numPruningSamples;
+    private final boolean startThreadingOnlyAtExistingVertex;
+
+    private final LongOpenHashSet nonUniqueKmers = new LongOpenHashSet();
+
+    /**
+     * Non-unique kmers that cannot be packed. These can only come from the bases of the reads that are not threaded
+     * into the graph, so they are only kept for {@link #isLowComplexity()} and the copied graph.
+     */
+    private final Set<Kmer> unpackableNonUniqueKmers = new HashSet<>();
+
+    private final Long2IntOpenHashMap uniqueKmers = new Long2IntOpenHashMap();
+
+    private boolean hasRefSource = false;
+    private long refSourceKmer;
+
+    // vertices, indexed by vertex id
+    private int numberOfVertices = 0;
+    private long[] vertexKmers = new long[INITIAL_CAPACITY];
+    private int[] inDegrees = new int[INITIAL_CAPACITY];
+    private int[] firstIncomingEdges = new int[INITIAL_CAPACITY];
+    private boolean[] uniqueWhenBuilt;
+    private boolean[] removedVertices;
+
+    // outgoing edges, indexed by (source vertex id * 4 + code of the target's suffix)
+    private int[] outgoingEdges = new int[INITIAL_CAPACITY * 4];
+
+    // edges, indexed by edge id
+    private int numberOfEdges = 0;
+    private int[] edgeSources = new int[INITIAL_CAPACITY];
+    private int[] edgeTargets = new int[INITIAL_CAPACITY];
+    private boolean[] refEdges = new boolean[INITIAL_CAPACITY];
+    private int[] edgeMultiplicities = new int[INITIAL_CAPACITY];
+    private int[] edgeSingleSampleMultiplicities = new int[INITIAL_CAPACITY];
+    private boolean[] removedEdges;
+
+    // largest single sample multiplicities of each edge (as in MultiSampleEdge), numPruningSamples slots per edge
+    private int[] edgePruningMultiplicities;
+    private int[] edgePruningMultiplicityCounts = new int[INITIAL_CAPACITY];
+
+    private PackedKmerGraph(final int kmerSize, final int numPruningSamples, final boolean startThreadingOnlyAtExistingVertex) {
+        this.kmerSize = kmerSize;
+        this.kmerMask = (1L << (2 * kmerSize)) - 1;
+        this.numPruningSamples = numPruningSamples;
+        this.startThreadingOnlyAtExistingVertex = startThreadingOnlyAtExistingVertex;
+        this.edgePruningMultiplicities = new int[INITIAL_CAPACITY * numPruningSamples];
+        uniqueKmers.defaultReturnValue(NO_VERTEX);
+    }
+
+    /**
+     * @return true if kmers of the given size can be packed by this graph
+     */
+    static boolean supportsKmerSize(final int kmerSize) {
+        return kmerSize > 0 && kmerSize <= MAX_KMER_SIZE;
+    }
+
+    /**
+     * Builds the packed graph for the sequences pending in a {@link ReadThreadingGraph} that has not been built yet.
+     *
+     * @param graph the graph holding the sequences to thread, which is left untouched
+     * @param numPruningSamples the number of samples tracked for the pruning multiplicity of each edge
+     * @return the built graph, or {@code null} if some of the bases to thread cannot be packed (i.e., are not A, C, G or T),
+     *         in which case {@code graph} must be built by itself
+     */
+    static PackedKmerGraph build(final ReadThreadingGraph graph, final int numPruningSamples) {
+        Utils.nonNull(graph, "the graph cannot be null");
+        Utils.validateArg(supportsKmerSize(graph.getKmerSize()), () -> "kmer size " + graph.getKmerSize() + " cannot be packed");
+        Utils.validateArg(numPruningSamples > 0, () -> "numPruningSamples must be > 0 but found: " + numPruningSamples);
+
+        final Map<String, List<ReadThreadingGraph.SequenceForKmers>> pending = graph.getPendingSequences();
+        for ( final List<ReadThreadingGraph.SequenceForKmers> sequencesForSample : pending.values() ) {
+            for ( final ReadThreadingGraph.SequenceForKmers sequenceForKmers : sequencesForSample ) {
+                if ( ! canBePacked(sequenceForKmers.sequence, sequenceForKmers.start, sequenceForKmers.stop) ) {
+                    return null;
+                }
+            }
+        }
+
+        final PackedKmerGraph result = new PackedKmerGraph(graph.getKmerSize(), numPruningSamples, graph.getThreadingStartOnlyAtExistingVertex());
+        result.buildGraph(pending);
+        return result;
+    }
+
+    private static boolean canBePacked(final byte[] bases, final int start, final int stop) {
+        for ( int i = start; i < stop; i++ ) {
+            if ( BASE_CODES[bases[i] & 0xFF] == -1 ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void buildGraph(final Map<String, List<ReadThreadingGraph.SequenceForKmers>> pending) {
+        determineNonUniqueKmers(pending);
+
+        for ( final List<ReadThreadingGraph.SequenceForKmers> sequencesForSample : pending.values() ) {
+            for ( final ReadThreadingGraph.SequenceForKmers sequenceForKmers : sequencesForSample ) {
+                threadSequence(sequenceForKmers);
+            }
+
+            // flush the single sample edge values from the graph
+            for ( int edge = 0; edge < numberOfEdges; edge++ ) {
+                flushSingleSampleMultiplicity(edge);
+            }
+        }
+
+        uniqueWhenBuilt = new boolean[numberOfVertices];
+        for ( int vertex = 0; vertex < numberOfVertices; vertex++ ) {
+            uniqueWhenBuilt[vertex] = uniqueKmers.get(vertexKmers[vertex]) == vertex;
+        }
+    }
+
+    /**
+     * Collects the kmers that appear more than once within any of the sequences, going over the same bases as
+     * {@link ReadThreadingGraph#determineNonUniqueKmers}.
+     */
+    private void determineNonUniqueKmers(final Map<String, List<ReadThreadingGraph.SequenceForKmers>> pending) {
+        final LongOpenHashSet allKmers = new LongOpenHashSet();
+        final Set<Kmer> allUnpackableKmers = new HashSet<>();
+        for ( final List<ReadThreadingGraph.SequenceForKmers> sequencesForSample : pending.values() ) {
+            for ( final ReadThreadingGraph.SequenceForKmers sequenceForKmers : sequencesForSample ) {
+                allKmers.clear();
+                allUnpackableKmers.clear();
+                final byte[] bases = sequenceForKmers.sequence;
+                long kmer = 0;
+                int packedBasesInKmer = 0;
+                for ( int i = 0; i < sequenceForKmers.stop; i++ ) {
+                    final int code = BASE_CODES[bases[i] & 0xFF];
+                    kmer = ((kmer << 2) | (code & 3)) & kmerMask;
+                    packedBasesInKmer = code == -1 ? 0 : Math.min(packedBasesInKmer + 1, kmerSize);
+
+                    final int kmerStart = i - kmerSize + 1;
+                    if ( kmerStart < 0 ) {
+                        continue;
+                    }
+                    if ( packedBasesInKmer == kmerSize ) {
+                        if ( ! allKmers.add(kmer) ) {
+                            nonUniqueKmers.add(kmer);
+                        }
+                    } else {
+                        final Kmer unpackableKmer = new Kmer(bases, kmerStart, kmerSize);
+                        if ( ! allUnpackableKmers.add(unpackableKmer) ) {
+                            unpackableNonUniqueKmers.add(unpackableKmer);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Thread sequence seqForKmers through the current graph, as in {@link ReadThreadingGraph}
+     */
+    private void threadSequence(final ReadThreadingGraph.SequenceForKmers seqForKmers) {
+        final int uniqueStartPos = findStart(seqForKmers);
+        if ( uniqueStartPos == -1 ) {
+            return;
+        }
+
+        final byte[] bases = seqForKmers.sequence;
+        long kmer = packKmer(bases, uniqueStartPos);
+        final int startingVertex = getOrCreateKmerVertex(kmer);
+
+        // increase the counts of all edges incoming into the starting vertex supported by going back in sequence
+        increaseCountsInMatchedKmers(startingVertex, seqForKmers.count);
+
+        // keep track of information about the reference source
+        if ( seqForKmers.isRef ) {
+            if ( hasRefSource ) {
+                throw new IllegalStateException("Found two refSources! prev: " + new String(unpackKmer(refSourceKmer)) + ", new: " + new String(unpackKmer(kmer)));
+            }
+            refSourceKmer = packKmer(bases, seqForKmers.start);
+            hasRefSource = true;
+        }
+
+        // loop over all of the bases in sequence, extending the graph by one base at each point, as appropriate
+        int vertex = startingVertex;
+        for ( int i = uniqueStartPos + 1; i <= seqForKmers.stop - kmerSize; i++ ) {
+            kmer = ((kmer << 2) | BASE_CODES[bases[i + kmerSize - 1]]) & kmerMask;
+            vertex = extendChainByOne(vertex, kmer, seqForKmers.count, seqForKmers.isRef);
+        }
+    }
+
+    private int findStart(final ReadThreadingGraph.SequenceForKmers seqForKmers) {
+        if ( seqForKmers.isRef ) {
+            return 0;
+        }
+
+        final byte[] bases = seqForKmers.sequence;
+        long kmer = seqForKmers.start < seqForKmers.stop - kmerSize ? packKmer(bases, seqForKmers.start) : 0;
+        for ( int i = seqForKmers.start; i < seqForKmers.stop - kmerSize; i++ ) {
+            if ( i > seqForKmers.start ) {
+                kmer = ((kmer << 2) | BASE_CODES[bases[i + kmerSize - 1]]) & kmerMask;
+            }
+            if ( startThreadingOnlyAtExistingVertex ? uniqueKmers.containsKey(kmer) : ! nonUniqueKmers.contains(kmer) ) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Follows the chain of single incoming edges into vertex for as long as it matches the kmer of vertex, increasing
+     * the counts of those edges.
+     */
+    private void increaseCountsInMatchedKmers(final int vertex, final int count) {
+        final long originalKmer = vertexKmers[vertex];
+        int current = vertex;
+        for ( int offset = kmerSize - 2; offset >= 0 && inDegrees[current] == 1; offset-- ) {
+            final int edge = firstIncomingEdges[current];
+            final int previous = edgeSources[edge];
+            final long seqBase = (originalKmer >>> (2 * (kmerSize - 1 - offset))) & 3;
+            if ( (vertexKmers[previous] & 3) != seqBase ) {
+                return;
+            }
+            incMultiplicity(edge, count);
+            current = previous;
+        }
+    }
+
+    private int getOrCreateKmerVertex(final long kmer) {
+        final int vertex = uniqueKmers.get(kmer);
+        return vertex != NO_VERTEX ? vertex : createVertex(kmer);
+    }
+
+    private int createVertex(final long kmer) {
+        if ( numberOfVertices == vertexKmers.length ) {
+            final int capacity = 2 * vertexKmers.length;
+            vertexKmers = Arrays.copyOf(vertexKmers, capacity);
+            inDegrees = Arrays.copyOf(inDegrees, capacity);
+            firstIncomingEdges = Arrays.copyOf(firstIncomingEdges, capacity);
+            outgoingEdges = Arrays.copyOf(outgoingEdges, 4 * capacity);
+        }
+        final int vertex = numberOfVertices++;
+        vertexKmers[vertex] = kmer;
+        inDegrees[vertex] = 0;
+        firstIncomingEdges[vertex] = NO_EDGE;
+        Arrays.fill(outgoingEdges, 4 * vertex, 4 * vertex + 4, NO_EDGE);
+
+        // add the vertex to the unique kmer map, if it is in fact unique
+        if ( ! nonUniqueKmers.contains(kmer) && ! uniqueKmers.containsKey(kmer) ) {
+            uniqueKmers.put(kmer, vertex);
+        }
+        return vertex;
+    }
+
+    private int extendChainByOne(final int prevVertex, final long kmer, final int count, final boolean isRef) {
+        final int outgoingEdge = outgoingEdges[4 * prevVertex + (int) (kmer & 3)];
+        if ( outgoingEdge != NO_EDGE ) {
+            // we've got a match in the chain, so simply increase the count of the edge by 1 and continue
+            incMultiplicity(outgoingEdge, count);
+            return edgeTargets[outgoingEdge];
+        }
+
+        // none of our outgoing edges had our unique suffix base, so we check for an opportunity to merge back in
+        final int uniqueMergeVertex = hasRefSource && kmer == refSourceKmer ? NO_VERTEX : uniqueKmers.get(kmer);
+        if ( isRef && uniqueMergeVertex != NO_VERTEX ) {
+            throw new IllegalStateException("Found a unique vertex to merge into the reference graph " + new String(unpackKmer(vertexKmers[prevVertex])) + " -> " + new String(unpackKmer(kmer)));
+        }
+
+        // either use our unique merge vertex, or create a new one in the chain
+        final int nextVertex = uniqueMergeVertex == NO_VERTEX ? createVertex(kmer) : uniqueMergeVertex;
+        addEdge(prevVertex, nextVertex, isRef, count);
+        return nextVertex;
+    }
+
+    private void addEdge(final int source, final int target, final boolean isRef, final int multiplicity) {
+        if ( numberOfEdges == edgeSources.length ) {
+            final int capacity = 2 * edgeSources.length;
+            edgeSources = Arrays.copyOf(edgeSources, capacity);
+            edgeTargets = Arrays.copyOf(edgeTargets, capacity);
+            refEdges = Arrays.copyOf(refEdges, capacity);
+            edgeMultiplicities = Arrays.copyOf(edgeMultiplicities, capacity);
+            edgeSingleSampleMultiplicities = Arrays.copyOf(edgeSingleSampleMultiplicities, capacity);
+            edgePruningMultiplicities = Arrays.copyOf(edgePruningMultiplicities, capacity * numPruningSamples);
+            edgePruningMultiplicityCounts = Arrays.copyOf(edgePruningMultiplicityCounts, capacity);
+        }
+        final int edge = numberOfEdges++;
+        edgeSources[edge] = source;
+        edgeTargets[edge] = target;
+        refEdges[edge] = isRef;
+        edgeMultiplicities[edge] = multiplicity;
+        edgeSingleSampleMultiplicities[edge] = multiplicity;
+        edgePruningMultiplicities[edge * numPruningSamples] = multiplicity;
+        edgePruningMultiplicityCounts[edge] = 1;
+
+        outgoingEdges[4 * source + (int) (vertexKmers[target] & 3)] = edge;
+        if ( inDegrees[target]++ == 0 ) {
+            firstIncomingEdges[target] = edge;
+        }
+    }
+
+    private void incMultiplicity(final int edge, final int increment) {
+        edgeMultiplicities[edge] += increment;
+        edgeSingleSampleMultiplicities[edge] += increment;
+    }
+
+    /**
+     * Same as {@link MultiSampleEdge#flushSingleSampleMultiplicity()}: keeps the numPruningSamples largest single sample
+     * multiplicities of the edge.
+     */
+    private void flushSingleSampleMultiplicity(final int edge) {
+        final int multiplicity = edgeSingleSampleMultiplicities[edge];
+        final int offset = edge * numPruningSamples;
+        final int count = edgePruningMultiplicityCounts[edge];
+        if ( count < numPruningSamples ) {
+            edgePruningMultiplicities[offset + count] = multiplicity;
+            edgePruningMultiplicityCounts[edge]++;
+        } else {
+            final int lowest = lowestPruningMultiplicityIndex(edge);
+            if ( multiplicity > edgePruningMultiplicities[lowest] ) {
+                edgePruningMultiplicities[lowest] = multiplicity;
+            }
+        }
+        edgeSingleSampleMultiplicities[edge] = 0;
+    }
+
+    private int lowestPruningMultiplicityIndex(final int edge) {
+        final int offset = edge * numPruningSamples;
+        int lowest = offset;
+        for ( int i = offset + 1; i < offset + edgePruningMultiplicityCounts[edge]; i++ ) {
+            if ( edgePruningMultiplicities[i] < edgePruningMultiplicities[lowest] ) {
+                lowest = i;
+            }
+        }
+        return lowest;
+    }
+
+    /**
+     * Same as {@link MultiSampleEdge#getPruningMultiplicity()}
+     */
+    private int getPruningMultiplicity(final int edge) {
+        return edgePruningMultiplicities[lowestPruningMultiplicityIndex(edge)];
+    }
+
+    /**
+     * @return the number of vertices in the graph, including the ones removed by pruning
+     */
+    int getNumberOfVertices() {
+        return numberOfVertices;
+    }
+
+    /**
+     * @return the number of edges in the graph, including the ones removed by pruning
+     */
+    int getNumberOfEdges() {
+        return numberOfEdges;
+    }
+
+    /**
+     * Same as {@link ReadThreadingGraph#isLowComplexity()}
+     */
+    boolean isLowComplexity() {
+        return (nonUniqueKmers.size() + unpackableNonUniqueKmers.size()) * 4 > uniqueKmers.size();
+    }
+
+    /**
+     * Same as {@link ReadThreadingGraph#hasCycles()}, using an iterative depth-first search.
+     */
+    boolean hasCycles() {
+        final byte unvisited = 0, inProgress = 1, done = 2;
+        final byte[] states = new byte[numberOfVertices];
+        final int[] stack = new int[numberOfVertices];
+        final int[] nextBases = new int[numberOfVertices];
+        for ( int root = 0; root < numberOfVertices; root++ ) {
+            if ( states[root] != unvisited ) {
+                continue;
+            }
+            int depth = 0;
+            stack[0] = root;
+            nextBases[0] = 0;
+            states[root] = inProgress;
+            while ( depth >= 0 ) {
+                final int vertex = stack[depth];
+                if ( nextBases[depth] == 4 ) {
+                    states[vertex] = done;
+                    depth--;
+                    continue;
+                }
+                final int edge = outgoingEdges[4 * vertex + nextBases[depth]++];
+                if ( edge == NO_EDGE ) {
+                    continue;
+                }
+                final int target = edgeTargets[edge];
+                if ( states[target] == inProgress ) {
+                    return true;
+                } else if ( states[target] == unvisited ) {
+                    states[target] = inProgress;
+                    depth++;
+                    stack[depth] = target;
+                    nextBases[depth] = 0;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Same as {@link ReadThreadingGraph#pruneLowWeightChains(int)}, including the removal of the vertices left without edges.
+     * Must be called at most once, on a graph without cycles.
+     */
+    void pruneLowWeightChains(final int pruneFactor) {
+        Utils.validateArg( pruneFactor >= 0, "pruneFactor must be >= 0 but got " + pruneFactor);
+        Utils.validate(removedEdges == null, "the graph has already been pruned");
+        removedEdges = new boolean[numberOfEdges];
+        removedVertices = new boolean[numberOfVertices];
+        if ( pruneFactor == 0 ) {
+            return;
+        }
+
+        final int[] outDegrees = new int[numberOfVertices];
+        for ( int edge = 0; edge < numberOfEdges; edge++ ) {
+            outDegrees[edgeSources[edge]]++;
+        }
+
+        // we must keep edges in any linear chain that contains a reference edge or an edge with weight >= pruneFactor
+        final boolean[] keptEdges = new boolean[numberOfEdges];
+        for ( int chainStart = 0; chainStart < numberOfVertices; chainStart++ ) {
+            final int outDegree = outDegrees[chainStart];
+            final int inDegree = inDegrees[chainStart];
+            if ( outDegree > 1 || inDegree > 1 || (inDegree == 0 && outDegree > 0) ) {
+                for ( int base = 0; base < 4; base++ ) {
+                    final int firstEdge = outgoingEdges[4 * chainStart + base];
+                    if ( firstEdge != NO_EDGE && linearChainMustBeKept(chainStart, firstEdge, outDegrees, pruneFactor) ) {
+                        for ( int edge = firstEdge; edge != NO_EDGE; edge = nextEdgeInLinearChain(chainStart, edge, outDegrees) ) {
+                            keptEdges[edge] = true;
+                        }
+                    }
+                }
+            }
+        }
+
+        final int[] degrees = new int[numberOfVertices];
+        for ( int edge = 0; edge < numberOfEdges; edge++ ) {
+            if ( keptEdges[edge] ) {
+                degrees[edgeSources[edge]]++;
+                degrees[edgeTargets[edge]]++;
+            } else {
+                removedEdges[edge] = true;
+            }
+        }
+
+        // remove the vertices left without edges, and their kmers from the unique kmers as ReadThreadingGraph#removeVertex does
+        for ( int vertex = 0; vertex < numberOfVertices; vertex++ ) {
+            if ( degrees[vertex] == 0 ) {
+                removedVertices[vertex] = true;
+                uniqueKmers.remove(vertexKmers[vertex]);
+            }
+        }
+    }
+
+    private boolean linearChainMustBeKept(final int chainStart, final int firstEdge, final int[] outDegrees, final int pruneFactor) {
+        for ( int edge = firstEdge; edge != NO_EDGE; edge = nextEdgeInLinearChain(chainStart, edge, outDegrees) ) {
+            if ( getPruningMultiplicity(edge) >= pruneFactor || refEdges[edge] ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the edge extending the linear chain that ends with edge, or {@link #NO_EDGE} if the chain ends there.
+     *         As the interior vertices of a chain have a single incoming edge, the chain can only loop back to its start.
+     */
+    private int nextEdgeInLinearChain(final int chainStart, final int edge, final int[] outDegrees) {
+        final int last = edgeTargets[edge];
+        if ( outDegrees[last] != 1 || inDegrees[last] > 1 ) {
+            return NO_EDGE;
+        }
+        for ( int base = 0; base < 4; base++ ) {
+            final int nextEdge = outgoingEdges[4 * last + base];
+            if ( nextEdge != NO_EDGE ) {
+                return edgeTargets[nextEdge] == chainStart ? NO_EDGE : nextEdge;
+            }
+        }
+        throw new IllegalStateException("vertex with an out degree of 1 has no outgoing edge");
+    }
+
+    /**
+     * Adds the vertices and edges of this graph that were not pruned to an empty graph holding the sequences this graph
+     * was built from, in the order in which they were created, and marks that graph as built.
+     *
+     * @param graph the graph this graph was built from
+     */
+    void copyInto(final ReadThreadingGraph graph) {
+        Utils.nonNull(graph, "the graph cannot be null");
+        Utils.validateArg(graph.vertexSet().isEmpty(), "the graph must be empty");
+
+        final MultiDeBruijnVertex[] vertices = new MultiDeBruijnVertex[numberOfVertices];
+        final Map<Kmer, MultiDeBruijnVertex> uniqueKmerVertices = new LinkedHashMap<>();
+        for ( int vertex = 0; vertex < numberOfVertices; vertex++ ) {
+            if ( removedVertices == null || ! removedVertices[vertex] ) {
+                final byte[] kmerBases = unpackKmer(vertexKmers[vertex]);
+                vertices[vertex] = new MultiDeBruijnVertex(kmerBases);
+                if ( uniqueWhenBuilt[vertex] ) {
+                    vertices[vertex].setAdditionalInfo(vertices[vertex].getAdditionalInfo() + '+');
+                }
+                if ( uniqueKmers.get(vertexKmers[vertex]) == vertex ) {
+                    uniqueKmerVertices.put(new Kmer(kmerBases), vertices[vertex]);
+                }
+                graph.addVertex(vertices[vertex]);
+            }
+        }
+
+        for ( int edge = 0; edge < numberOfEdges; edge++ ) {
+            if ( removedEdges == null || ! removedEdges[edge] ) {
+                final MultiSampleEdge e = new MultiSampleEdge(refEdges[edge], getPruningMultiplicity(edge), numPruningSamples);
+                e.setMultiplicity(edgeMultiplicities[edge]);
+                graph.addEdge(vertices[edgeSources[edge]], vertices[edgeTargets[edge]], e);
+            }
+        }
+
+        final Set<Kmer> nonUniques = new HashSet<>(unpackableNonUniqueKmers);
+        for ( final long kmer : nonUniqueKmers ) {
+            nonUniques.add(new Kmer(unpackKmer(kmer)));
+        }
+        graph.setBuilt(nonUniques, uniqueKmerVertices, hasRefSource ? new Kmer(unpackKmer(refSourceKmer)) : null);
+    }
+
+    private long packKmer(final byte[] bases, final int start) {
+        long kmer = 0;
+        for ( int i = start; i < start + kmerSize; i++ ) {
+            kmer = (kmer << 2) | BASE_CODES[bases[i]];
+        }
+        return kmer;
+    }
+
+    private byte[] unpackKmer(final long kmer) {
+        final byte[] bases = new byte[kmerSize];
+        for ( int i = kmerSize - 1, shift = 0; i >= 0; i--, shift += 2 ) {
+            bases[i] = BASES[(int) ((kmer >>> shift) & 3)];
+        }
+        return bases;
+    }
+}
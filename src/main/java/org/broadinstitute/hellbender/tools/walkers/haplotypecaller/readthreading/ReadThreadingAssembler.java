@@ -1,6 +1,7 @@
 package org.broadinstitute.hellbender.tools.walkers.haplotypecaller.readthreading;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import htsjdk.samtools.Cigar;
 import htsjdk.samtools.CigarOperator;
 import htsjdk.samtools.SAMFileHeader;
@@ -9,6 +10,7 @@ import htsjdk.variant.variantcontext.VariantContext;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.broadinstitute.hellbender.engine.AssemblyRegion;
+import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.AssemblyResult;
 import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.AssemblyResultSet;
@@ -20,6 +22,7 @@ import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
 import org.broadinstitute.hellbender.utils.param.ParamUtils;
 import org.broadinstitute.hellbender.utils.read.CigarUtils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.ReadUtils;
 import org.broadinstitute.hellbender.utils.smithwaterman.SmithWatermanAligner;
 import org.broadinstitute.hellbender.utils.variant.GATKVariantContextUtils;
 
@@ -27,6 +30,11 @@ import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public final class ReadThreadingAssembler {
     private static final Logger logger = LogManager.getLogger(ReadThreadingAssembler.class);
@@ -66,6 +74,28 @@ public final class ReadThreadingAssembler {
     private File debugGraphOutputPath = null;  //Where to write debug graphs, if unset it defaults to the current working dir
     private File graphOutputPath = null;
 
+    private GraphImplementation graphImplementation = GraphImplementation.JGRAPHT;
+
+    // shared by the graph creation attempts for all kmer sizes; null if they are created on the calling thread
+    private ExecutorService kmerAssemblyExecutor = null;
+
+    /**
+     * Implementations of the graph built for each kmer size, which produce identical assemblies.
+     */
+    public enum GraphImplementation {
+        /**
+         * Build a {@link ReadThreadingGraph} directly.
+         */
+        JGRAPHT,
+
+        /**
+         * Thread the reads and prune the graph with a {@link PackedKmerGraph}, and copy only the pruned graph into a
+         * {@link ReadThreadingGraph}. Falls back to JGRAPHT for kmer sizes above {@link PackedKmerGraph#MAX_KMER_SIZE},
+         * for sequences with bases other than A, C, G and T, and when debugging graph transformations.
+         */
+        PACKED_KMERS
+    }
+
     public ReadThreadingAssembler(final int maxAllowedPathsForReadThreadingAssembler, final List<Integer> kmerSizes, final boolean dontIncreaseKmerSizesForCycles, final boolean allowNonUniqueKmersInRef, final int numPruningSamples) {
         Utils.validateArg( maxAllowedPathsForReadThreadingAssembler >= 1, "numBestHaplotypesPerGraph should be >= 1 but got " + maxAllowedPathsForReadThreadingAssembler);
         this.kmerSizes = kmerSizes;
@@ -385,27 +415,108 @@ public final class ReadThreadingAssembler {
     List<AssemblyResult> assemble(final List<GATKRead> reads, final Haplotype refHaplotype, final List<Haplotype> givenHaplotypes, final SAMFileHeader header, final SmithWatermanAligner aligner) {
         final List<AssemblyResult> results = new LinkedList<>();
 
+        if ( kmerAssemblyExecutor != null ) {
+            prepareReadsForConcurrentAccess(reads, header);
+        }
+
         // first, try using the requested kmer sizes
+        final List<Callable<AssemblyResult>> requestedKmerSizeAttempts = new ArrayList<>(kmerSizes.size());
         for ( final int kmerSize : kmerSizes ) {
-            addResult(results, createGraph(reads, refHaplotype, kmerSize, givenHaplotypes, dontIncreaseKmerSizesForCycles, allowNonUniqueKmersInRef, header, aligner));
+            requestedKmerSizeAttempts.add(() -> createGraph(reads, refHaplotype, kmerSize, givenHaplotypes, dontIncreaseKmerSizesForCycles, allowNonUniqueKmersInRef, header, aligner));
+        }
+        for ( final AssemblyResult result : createGraphs(requestedKmerSizeAttempts, false) ) {
+            addResult(results, result);
         }
 
         // if none of those worked, iterate over larger sizes if allowed to do so
         if ( results.isEmpty() && !dontIncreaseKmerSizesForCycles ) {
+            final List<Callable<AssemblyResult>> increasedKmerSizeAttempts = new ArrayList<>(MAX_KMER_ITERATIONS_TO_ATTEMPT);
             int kmerSize = arrayMaxInt(kmerSizes) + KMER_SIZE_ITERATION_INCREASE;
-            int numIterations = 1;
-            while ( results.isEmpty() && numIterations <= MAX_KMER_ITERATIONS_TO_ATTEMPT ) {
+            for ( int numIterations = 1; numIterations <= MAX_KMER_ITERATIONS_TO_ATTEMPT; numIterations++ ) {
                 // on the last attempt we will allow low complexity graphs
                 final boolean lastAttempt = numIterations == MAX_KMER_ITERATIONS_TO_ATTEMPT;
-                addResult(results, createGraph(reads, refHaplotype, kmerSize, givenHaplotypes, lastAttempt, lastAttempt, header, aligner));
+                final int attemptKmerSize = kmerSize;
+                increasedKmerSizeAttempts.add(() -> createGraph(reads, refHaplotype, attemptKmerSize, givenHaplotypes, lastAttempt, lastAttempt, header, aligner));
                 kmerSize += KMER_SIZE_ITERATION_INCREASE;
-                numIterations++;
+            }
+            for ( final AssemblyResult result : createGraphs(increasedKmerSizeAttempts, true) ) {
+                addResult(results, result);
             }
         }
 
         return results;
     }
 
+    /**
+     * Runs the given graph creation attempts, concurrently if a kmer assembly thread pool was set.
+     *
+     * @param attempts the graph creation attempts, which must be independent of each other
+     * @param stopAtFirstResult if true, the attempts after the first one that returns a non-null result are not needed
+     * @return the (possibly null) results of the attempts in order, up to the first non-null one if stopAtFirstResult is true
+     */
+    private List<AssemblyResult> createGraphs(final List<Callable<AssemblyResult>> attempts, final boolean stopAtFirstResult) {
+        final List<AssemblyResult> results = new ArrayList<>(attempts.size());
+        if ( kmerAssemblyExecutor == null || attempts.size() == 1 ) {
+            for ( final Callable<AssemblyResult> attempt : attempts ) {
+                final AssemblyResult result = runAttempt(attempt);
+                results.add(result);
+                if ( stopAtFirstResult && result != null ) {
+                    break;
+                }
+            }
+            return results;
+        }
+
+        // when we only need the first result, the later attempts are run speculatively and dropped once it is found
+        final List<Future<AssemblyResult>> futures = new ArrayList<>(attempts.size());
+        try {
+            for ( final Callable<AssemblyResult> attempt : attempts ) {
+                futures.add(kmerAssemblyExecutor.submit(attempt));
+            }
+            for ( final Future<AssemblyResult> future : futures ) {
+                final AssemblyResult result = future.get();
+                results.add(result);
+                if ( stopAtFirstResult && result != null ) {
+                    break;
+                }
+            }
+        } catch ( final InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new GATKException("Interrupted while waiting for an assembly graph to be created", e);
+        } catch ( final ExecutionException e ) {
+            if ( e.getCause() instanceof RuntimeException ) {
+                throw (RuntimeException)e.getCause();
+            }
+            throw new GATKException("Error creating an assembly graph", e.getCause());
+        } finally {
+            futures.forEach(future -> future.cancel(false));
+        }
+        return results;
+    }
+
+    private static AssemblyResult runAttempt(final Callable<AssemblyResult> attempt) {
+        try {
+            return attempt.call();
+        } catch ( final RuntimeException e ) {
+            throw e;
+        } catch ( final Exception e ) {
+            throw new GATKException("Error creating an assembly graph", e);
+        }
+    }
+
+    /**
+     * Reads backed by BAM records decode some of their fields lazily, which is not safe to do from several threads at
+     * once, so decode all the fields used by {@link ReadThreadingGraph#addRead} before threading the reads concurrently.
+     */
+    private static void prepareReadsForConcurrentAccess(final List<GATKRead> reads, final SAMFileHeader header) {
+        for ( final GATKRead read : reads ) {
+            read.getName();
+            read.getBasesNoCopy();
+            read.getBaseQualitiesNoCopy();
+            ReadUtils.getSampleName(read, header);
+        }
+    }
+
     private static int arrayMaxInt(final List<Integer> array) {
         return array.stream().mapToInt(Integer::intValue).max().orElseThrow(() -> new IllegalArgumentException("Array size cannot be 0!"));
     }
@@ -461,10 +572,13 @@ public final class ReadThreadingAssembler {
         }
 
         // actually build the read threading graph
-        rtgraph.buildGraphIfNecessary();
+        final PackedKmerGraph packedGraph = usePackedKmerGraph(kmerSize) ? PackedKmerGraph.build(rtgraph, numPruningSamples) : null;
+        if ( packedGraph == null ) {
+            rtgraph.buildGraphIfNecessary();
+        }
 
         // sanity check: make sure there are no cycles in the graph
-        if ( rtgraph.hasCycles() ) {
+        if ( packedGraph != null ? packedGraph.hasCycles() : rtgraph.hasCycles() ) {
             if ( debug ) {
                 logger.info("Not using kmer size of " + kmerSize + " in read threading assembler because it contains a cycle");
             }
@@ -472,23 +586,35 @@ public final class ReadThreadingAssembler {
         }
 
         // sanity check: make sure the graph had enough complexity with the given kmer
-        if ( ! allowLowComplexityGraphs && rtgraph.isLowComplexity() ) {
+        if ( ! allowLowComplexityGraphs && (packedGraph != null ? packedGraph.isLowComplexity() : rtgraph.isLowComplexity()) ) {
             if ( debug ) {
                 logger.info("Not using kmer size of " + kmerSize + " in read threading assembler because it does not produce a graph with enough complexity");
             }
             return null;
         }
 
-        return getAssemblyResult(refHaplotype, kmerSize, rtgraph, aligner);
+        if ( packedGraph != null ) {
+            // only the pruned graph is copied into rtgraph
+            packedGraph.pruneLowWeightChains(pruneFactor);
+            packedGraph.copyInto(rtgraph);
+        }
+
+        return getAssemblyResult(refHaplotype, kmerSize, rtgraph, packedGraph == null, aligner);
     }
 
-    private AssemblyResult getAssemblyResult(final Haplotype refHaplotype, final int kmerSize, final ReadThreadingGraph rtgraph, final SmithWatermanAligner aligner) {
+    private boolean usePackedKmerGraph(final int kmerSize) {
+        return graphImplementation == GraphImplementation.PACKED_KMERS && !debugGraphTransformations && PackedKmerGraph.supportsKmerSize(kmerSize);
+    }
+
+    private AssemblyResult getAssemblyResult(final Haplotype refHaplotype, final int kmerSize, final ReadThreadingGraph rtgraph, final boolean pruneLowWeightChains, final SmithWatermanAligner aligner) {
         printDebugGraphTransform(rtgraph, refHaplotype.getLocation() + "-sequenceGraph." + kmerSize + ".0.0.raw_readthreading_graph.dot");
 
         // prune all of the chains where all edges have multiplicity < pruneFactor.  This must occur
         // before recoverDanglingTails in the graph, so that we don't spend a ton of time recovering
         // tails that we'll ultimately just trim away anyway, as the dangling tail edges have weight of 1
-        rtgraph.pruneLowWeightChains(pruneFactor);
+        if ( pruneLowWeightChains ) {
+            rtgraph.pruneLowWeightChains(pruneFactor);
+        }
 
         // look at all chains in the graph that terminate in a non-ref node (dangling sources and sinks) and see if
         // we can recover them by merging some N bases from the chain back into the reference
@@ -602,6 +728,41 @@ public final class ReadThreadingAssembler {
 
     public boolean isRecoverDanglingBranches() { return recoverDanglingBranches; }
 
+    public GraphImplementation getGraphImplementation() {
+        return graphImplementation;
+    }
+
+    public void setGraphImplementation(final GraphImplementation graphImplementation) {
+        this.graphImplementation = Utils.nonNull(graphImplementation);
+    }
+
+    /**
+     * Sets the number of threads used to create the graphs for the different kmer sizes of each assembly region
+     * concurrently. Graphs are created on the calling thread with 1 thread (the default). With more than one thread,
+     * the aligner passed to {@link #runLocalAssembly} is shared by the concurrent attempts, which relies on
+     * {@link SmithWatermanAligner#align} being thread-safe.
+     *
+     * @param numberOfThreads the size of the thread pool shared by all assemblies of this assembler (must be >= 1)
+     */
+    public void setKmerAssemblyThreads(final int numberOfThreads) {
+        Utils.validateArg(numberOfThreads >= 1, () -> "the number of kmer assembly threads must be >= 1 but got " + numberOfThreads);
+        close();
+        if ( numberOfThreads > 1 ) {
+            kmerAssemblyExecutor = Executors.newFixedThreadPool(numberOfThreads,
+                    new ThreadFactoryBuilder().setNameFormat("kmer-assembly-%d").setDaemon(true).build());
+        }
+    }
+
+    /**
+     * Shuts down the kmer assembly thread pool, if any.
+     */
+    public void close() {
+        if ( kmerAssemblyExecutor != null ) {
+            kmerAssemblyExecutor.shutdownNow();
+            kmerAssemblyExecutor = null;
+        }
+    }
+
     public void setPruneFactor(final int pruneFactor) {
         this.pruneFactor = pruneFactor;
     }
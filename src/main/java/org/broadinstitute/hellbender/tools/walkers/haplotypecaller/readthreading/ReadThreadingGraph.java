@@ -300,6 +300,43 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
         startThreadingOnlyAtExistingVertex = value;
     }
 
+    /**
+     * @return {@code true} if threading will start only at existing vertices in the graph, {@code false} if
+     *  it can start at any unique kmer.
+     */
+    final boolean getThreadingStartOnlyAtExistingVertex() {
+        return startThreadingOnlyAtExistingVertex;
+    }
+
+    /**
+     * @return the sequences added to this graph that have not been threaded yet, by sample name. You cannot modify the result.
+     */
+    Map<String, List<SequenceForKmers>> getPendingSequences() {
+        return Collections.unmodifiableMap(pending);
+    }
+
+    /**
+     * Marks this graph as built from its pending sequences by another graph implementation (see {@link PackedKmerGraph}),
+     * which has already added the resulting vertices and edges to this graph.
+     *
+     * @param nonUniqueKmers the kmers that cannot be used as merge points in the graph
+     * @param uniqueKmers the vertices of the graph for the unique kmers
+     * @param refSource the kmer of the reference source vertex, or {@code null} if no reference sequence was added
+     */
+    void setBuilt(final Set<Kmer> nonUniqueKmers, final Map<Kmer, MultiDeBruijnVertex> uniqueKmers, final Kmer refSource) {
+        Utils.nonNull(nonUniqueKmers);
+        Utils.nonNull(uniqueKmers);
+        if ( alreadyBuilt ) {
+            throw new IllegalStateException("Graph already built");
+        }
+
+        this.nonUniqueKmers = nonUniqueKmers;
+        this.uniqueKmers.putAll(uniqueKmers);
+        this.refSource = refSource;
+        pending.clear();
+        alreadyBuilt = true;
+    }
+
     /**
      * Build the read threaded assembly graph if it hasn't already been constructed from the sequences that have
      * been added to the graph.
@@ -1,10 +1,12 @@
 package org.broadinstitute.hellbender.tools.walkers.mutect;
 
 import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.variantcontext.writer.VariantContextWriter;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.ArgumentCollection;
 import org.broadinstitute.barclay.argparser.BetaFeature;
+import org.broadinstitute.barclay.argparser.CommandLineException;
 import org.broadinstitute.barclay.argparser.CommandLineProgramProperties;
 import org.broadinstitute.barclay.help.DocumentedFeature;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
@@ -16,6 +18,7 @@ import org.broadinstitute.hellbender.utils.downsampling.ReadsDownsampler;
 
 import java.io.File;
 import java.util.List;
+import java.util.Random;
 
 /**
  * <p>Call somatic short variants via local assembly of haplotypes.
@@ -161,15 +164,22 @@ public final class Mutect2 extends AssemblyRegionWalker {
     }
 
     @Override
-    protected ReadsDownsampler createDownsampler() {
-        return new MutectDownsampler(maxReadsPerAlignmentStart, MTAC.maxSuspiciousReadsPerAlignmentStart, MTAC.downsamplingStride);
+    protected ReadsDownsampler createDownsampler(final Random random) {
+        return new MutectDownsampler(maxReadsPerAlignmentStart, MTAC.maxSuspiciousReadsPerAlignmentStart, MTAC.downsamplingStride, random);
     }
 
     @Override
     public AssemblyRegionEvaluator assemblyRegionEvaluator() { return m2Engine; }
 
+    @Override
+    protected boolean supportsMultiThreadedTraversal() { return true; }
+
     @Override
     public void onTraversalStart() {
+        if ( traversalThreads > 1 && MTAC.bamOutputPath != null ) {
+            throw new CommandLineException.BadArgumentValue(StandardArgumentDefinitions.THREADS_LONG_NAME, "multi-threaded traversal cannot be used together with a bamout");
+        }
+
         m2Engine = new Mutect2Engine(MTAC, createOutputBamIndex, createOutputBamMD5, getHeaderForReads(), referenceArguments.getReferenceFileName());
         final SAMSequenceDictionary sequenceDictionary = getHeaderForReads().getSequenceDictionary();
         vcfWriter = createVCFWriter(outputVCF);
@@ -186,6 +196,33 @@ public final class Mutect2 extends AssemblyRegionWalker {
         m2Engine.callRegion(region, referenceContext, featureContext).forEach(vcfWriter::add);
     }
 
+    /**
+     * Each worker thread gets its own Mutect2Engine, while the calls are always written to the single output writer
+     * from the traversal thread.
+     */
+    @Override
+    protected AssemblyRegionProcessor makeAssemblyRegionProcessor() {
+        final Mutect2Engine workerEngine = new Mutect2Engine(MTAC, createOutputBamIndex, createOutputBamMD5, getHeaderForReads(), referenceArguments.getReferenceFileName());
+
+        return new AssemblyRegionProcessor() {
+            @Override
+            public AssemblyRegionEvaluator assemblyRegionEvaluator() {
+                return workerEngine;
+            }
+
+            @Override
+            public Runnable process(final AssemblyRegion region, final ReferenceContext referenceContext, final FeatureContext featureContext) {
+                final List<VariantContext> calls = workerEngine.callRegion(region, referenceContext, featureContext);
+                return () -> calls.forEach(vcfWriter::add);
+            }
+
+            @Override
+            public void close() {
+                workerEngine.shutdown();
+            }
+        };
+    }
+
     @Override
     public void closeTool() {
         if ( vcfWriter != null ) {
@@ -15,6 +15,7 @@ import picard.cmdline.programgroups.VariantEvaluationProgramGroup;
 import org.broadinstitute.hellbender.engine.FeatureContext;
 import org.broadinstitute.hellbender.engine.ReadsContext;
 import org.broadinstitute.hellbender.engine.ReferenceContext;
+import org.broadinstitute.hellbender.engine.VariantProcessor;
 import org.broadinstitute.hellbender.engine.VariantWalker;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.Utils;
@@ -226,13 +227,34 @@ public final class VariantsToTable extends VariantWalker {
     @Override
     public void apply(final VariantContext vc, final ReadsContext readsContext, final ReferenceContext ref, final FeatureContext featureContext) {
         if ( showFiltered || vc.isNotFiltered() ) {
-            nRecords++;
-            final List<List<String>> records = extractFields(vc);
-            if (moltenizeOutput){
-                records.forEach(record -> emitMoltenizedOutput(record));
-            } else {
-                records.forEach(record -> outputStream.println(Utils.join("\t", record)));
+            emitRecords(extractFields(vc));
+        }
+    }
+
+    @Override
+    protected boolean supportsMultiThreadedTraversal() { return true; }
+
+    /**
+     * Fields are extracted on the worker threads, while the records (and their numbering in moltenized output)
+     * are emitted on the traversal thread.
+     */
+    @Override
+    protected VariantProcessor makeVariantProcessor() {
+        return (vc, readsContext, ref, featureContext) -> {
+            if ( ! (showFiltered || vc.isNotFiltered()) ) {
+                return () -> {};
             }
+            final List<List<String>> records = extractFields(vc);
+            return () -> emitRecords(records);
+        };
+    }
+
+    private void emitRecords(final List<List<String>> records) {
+        nRecords++;
+        if (moltenizeOutput){
+            records.forEach(record -> emitMoltenizedOutput(record));
+        } else {
+            records.forEach(record -> outputStream.println(Utils.join("\t", record)));
         }
     }
 
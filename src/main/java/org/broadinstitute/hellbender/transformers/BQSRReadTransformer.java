@@ -7,7 +7,6 @@ import org.broadinstitute.hellbender.exceptions.UserException.MalformedRead;
 import org.broadinstitute.hellbender.tools.ApplyBQSRArgumentCollection;
 import org.broadinstitute.hellbender.utils.QualityUtils;
 import org.broadinstitute.hellbender.utils.Utils;
-import org.broadinstitute.hellbender.utils.collections.NestedIntegerArray;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.read.ReadUtils;
 import org.broadinstitute.hellbender.utils.recalibration.*;
@@ -16,37 +15,24 @@ import org.broadinstitute.hellbender.utils.recalibration.covariates.ReadCovariat
 import org.broadinstitute.hellbender.utils.recalibration.covariates.StandardCovariateList;
 
 import java.io.File;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
-import static org.broadinstitute.hellbender.utils.MathUtils.fastRound;
-import static org.broadinstitute.hellbender.utils.QualityUtils.boundQual;
 import static org.broadinstitute.hellbender.utils.recalibration.RecalDatum.MAX_RECALIBRATED_Q_SCORE;
 
 public final class BQSRReadTransformer implements ReadTransformer {
     private static final long serialVersionUID = 1L;
 
-    private final QuantizationInfo quantizationInfo; // histogram containing the map for qual quantization (calculated after recalibration is done)
-    private final RecalibrationTables recalibrationTables;
     private final StandardCovariateList covariates; // list of all covariates to be used in this calculation
     private final SAMFileHeader header;
     
     private final int preserveQLessThan;
-    private final double globalQScorePrior;
     private final boolean emitOriginalQuals;
 
-    //These fields are created to avoid redoing these calculations for every read
-    private final int totalCovariateCount;
-    private final int specialCovariateCount;
-
-    private static final int BASE_SUBSTITUTION_INDEX = EventType.BASE_SUBSTITUTION.ordinal();
-
-    //Note: varargs allocates a new array every time. We'll pre-allocate one array and reuse it to avoid object allocation for every base of every read.
-    private final RecalDatum[] empiricalQualCovsArgs;
+    // the recalibration tables compiled into dense arrays of precomputed quality shifts, with quantization applied
+    private final RecalibrationLookupTable lookupTable;
     private final boolean useOriginalBaseQualities;
 
-    private byte[] staticQuantizedMapping;
     private final CovariateKeyCache keyCache;
 
     /**
@@ -71,9 +57,7 @@ public final class BQSRReadTransformer implements ReadTransformer {
      */
     private BQSRReadTransformer(final SAMFileHeader header, final RecalibrationTables recalibrationTables, final QuantizationInfo quantizationInfo, final StandardCovariateList covariates, final ApplyBQSRArgumentCollection args) {
         this.header = header;
-        this.recalibrationTables = recalibrationTables;
         this.covariates = covariates;
-        this.quantizationInfo = quantizationInfo;
 
         if (args.quantizationLevels == 0) { // quantizationLevels == 0 means no quantization, preserve the quality scores
             quantizationInfo.noQuantization();
@@ -82,21 +66,23 @@ public final class BQSRReadTransformer implements ReadTransformer {
         }
 
         this.preserveQLessThan = args.PRESERVE_QSCORES_LESS_THAN;
-        this.globalQScorePrior = args.globalQScorePrior;
         this.emitOriginalQuals = args.emitOriginalQuals;
         this.useOriginalBaseQualities = args.useOriginalBaseQualities;
 
         // staticQuantizedQuals is entirely separate from the dynamic binning that quantizationLevels, and
         // staticQuantizedQuals does not make use of quantizationInfo
-        if(args.staticQuantizationQuals != null && !args.staticQuantizationQuals.isEmpty()) {
-            staticQuantizedMapping = constructStaticQuantizedMapping(args.staticQuantizationQuals, args.roundDown);
-        }
+        final byte[] staticQuantizedMapping = args.staticQuantizationQuals != null && !args.staticQuantizationQuals.isEmpty() ?
+                constructStaticQuantizedMapping(args.staticQuantizationQuals, args.roundDown) : null;
 
-        totalCovariateCount = covariates.size();
-        specialCovariateCount = covariates.numberOfSpecialCovariates();
+        // the final quality written to the read only depends on the rounded recalibrated quality, so quantization is folded into the lookup table
+        final List<Byte> quantizedQuals = quantizationInfo.getQuantizedQuals();
+        final byte[] finalQuals = new byte[MAX_RECALIBRATED_Q_SCORE + 1];
+        for (int qual = 0; qual < finalQuals.length; qual++) {
+            final byte quantizedQual = quantizedQuals.get(qual);
+            finalQuals[qual] = staticQuantizedMapping == null ? quantizedQual : staticQuantizedMapping[quantizedQual];
+        }
+        lookupTable = new RecalibrationLookupTable(recalibrationTables, covariates, args.globalQScorePrior, finalQuals);
 
-        //Note: We pre-create the varargs arrays that will be used in the calls. Otherwise we're spending a lot of time allocating those int[] objects
-        empiricalQualCovsArgs = new RecalDatum[totalCovariateCount - specialCovariateCount];
         keyCache = new CovariateKeyCache();//one cache per transformer
     }
 
@@ -127,6 +113,9 @@ public final class BQSRReadTransformer implements ReadTransformer {
      * - The final shift equation is:
      * <p>
      * Qrecal = Qreported + DeltaQ + DeltaQ(pos) + DeltaQ(dinuc) + DeltaQ( ... any other covariate ... )
+     * <p>
+     * All the terms of this equation are precomputed when the transformer is created (see {@link RecalibrationLookupTable}),
+     * so recalibrating a base is a handful of array lookups.
      *
      * @param originalRead the read to recalibrate
      */
@@ -154,18 +143,12 @@ public final class BQSRReadTransformer implements ReadTransformer {
         // the rg key is constant over the whole read, the global deltaQ is too
         final int rgKey = fullReadKeySet[0][0];
 
-        final RecalDatum empiricalQualRG = recalibrationTables.getReadGroupTable().get2Keys(rgKey, BASE_SUBSTITUTION_INDEX);
-
-        if (empiricalQualRG == null) {
+        if (!lookupTable.hasReadGroup(rgKey)) {
             return read;
         }
         final byte[] quals = read.getBaseQualities();
 
         final int readLength = quals.length;
-        final double epsilon = globalQScorePrior > 0.0 ? globalQScorePrior : empiricalQualRG.getEstimatedQReported();
-
-        final NestedIntegerArray<RecalDatum> qualityScoreTable = recalibrationTables.getQualityScoreTable();
-        final List<Byte> quantizedQuals = quantizationInfo.getQuantizedQuals();
 
         //Note: this loop is under very heavy use in applyBQSR. Keep it slim.
         for (int offset = 0; offset < readLength; offset++) { // recalibrate all bases in the read
@@ -174,33 +157,12 @@ public final class BQSRReadTransformer implements ReadTransformer {
             if (quals[offset] < preserveQLessThan) {
                 continue;
             }
-            Arrays.fill(empiricalQualCovsArgs, null);  //clear the array
-            final int[] keySet = fullReadKeySet[offset];
-
-
-            final RecalDatum empiricalQualQS = qualityScoreTable.get3Keys(keySet[0], keySet[1], BASE_SUBSTITUTION_INDEX);
-
-            for (int i = specialCovariateCount; i < totalCovariateCount; i++) {
-                if (keySet[i] >= 0) {
-                    empiricalQualCovsArgs[i - specialCovariateCount] = recalibrationTables.getTable(i).get4Keys(keySet[0], keySet[1], keySet[i], BASE_SUBSTITUTION_INDEX);
-                }
-            }
-            final double recalibratedQualDouble = hierarchicalBayesianQualityEstimate(epsilon, empiricalQualRG, empiricalQualQS, empiricalQualCovsArgs);
-
-            final byte recalibratedQualityScore = quantizedQuals.get(getRecalibratedQual(recalibratedQualDouble));
-
-            // Bin to static quals
-            quals[offset] = staticQuantizedMapping == null ? recalibratedQualityScore : staticQuantizedMapping[recalibratedQualityScore];
+            quals[offset] = lookupTable.getRecalibratedQual(fullReadKeySet[offset]);
         }
         read.setBaseQualities(quals);
         return read;
     }
 
-    // recalibrated quality is bound between 1 and MAX_QUAL
-    private byte getRecalibratedQual(final double recalibratedQualDouble) {
-        return boundQual(fastRound(recalibratedQualDouble), MAX_RECALIBRATED_Q_SCORE);
-    }
-
     public static double hierarchicalBayesianQualityEstimate( final double epsilon,
                                                               final RecalDatum empiricalQualRG,
                                                               final RecalDatum empiricalQualQS,
@@ -61,6 +61,20 @@ public final class Utils {
         randomDataGenerator.reSeed(GATK_RANDOM_SEED);
     }
 
+    /**
+     * Create a new random number generator, independent of the shared generator returned by {@link #getRandomGenerator},
+     * seeded deterministically from the GATK seed and the given index. Different indices give differently seeded
+     * generators, so that units of work that may be processed concurrently (eg., read shards) can each draw from
+     * their own generator, and get the same draws regardless of the order in which they are processed.
+     *
+     * @param index index of the unit of work that will use the generator
+     * @return a new generator, seeded from the GATK seed and the index
+     */
+    public static Random getIndependentRandomGenerator(final long index) {
+        // spread consecutive indices apart, since nearby seeds give correlated first draws from java.util.Random
+        return new Random(GATK_RANDOM_SEED + 0x9E3779B97F4A7C15L * (index + 1));
+    }
+
     private static final int TEXT_WARNING_WIDTH = 68;
     private static final String TEXT_WARNING_PREFIX = "* ";
     private static final String TEXT_WARNING_BORDER = StringUtils.repeat('*', TEXT_WARNING_PREFIX.length() + TEXT_WARNING_WIDTH);
@@ -55,6 +55,15 @@ public final class BAQ implements Serializable {
         RECALCULATE                 // do HMM BAQ calculation on the fly, regardless of whether there's a tag present
     }
 
+    /**
+     * Implementations of the HMM, which differ only in speed (and precision for FLOAT_CACHING)
+     */
+    public enum HMMImplementation {
+        ORIGINAL,                   // allocates new forward and backward matrices for every read
+        CACHING,                    // reuses per-thread matrices stored as structure of arrays, same results as ORIGINAL (the default)
+        FLOAT_CACHING               // same as CACHING in single precision, BAQ qualities may differ slightly from ORIGINAL
+    }
+
     /** these are features that only the walker can override */
     public enum QualityMode {
         ADD_TAG,                    // calculate the BAQ, but write it into the reads as the BAQ tag, leaving QUAL field alone
@@ -64,7 +73,7 @@ public final class BAQ implements Serializable {
 
     public static final String BAQ_TAG = "BQ";
 
-    private static final double[] qual2prob = new double[256];
+    static final double[] qual2prob = new double[256];
     static {
         for (int i = 0; i < 256; ++i)
             qual2prob[i] = Math.pow(10, -i / 10.);
@@ -110,6 +119,19 @@ public final class BAQ implements Serializable {
         return cb;
     }
 
+    private HMMImplementation hmmImplementation = HMMImplementation.CACHING;
+
+    public HMMImplementation getHMMImplementation() {
+        return hmmImplementation;
+    }
+
+    /**
+     * @param hmmImplementation implementation of the HMM used by {@link #hmm_glocal}
+     */
+    public void setHMMImplementation(final HMMImplementation hmmImplementation) {
+        this.hmmImplementation = Utils.nonNull(hmmImplementation);
+    }
+
     /**
      * Use defaults for everything
      */
@@ -139,8 +161,8 @@ public final class BAQ implements Serializable {
         initializeCachedData();
 	}
 
-    private static final double EM = 0.33333333333;
-    private static final double EI = 0.25;
+    static final double EM = 0.33333333333;
+    static final double EI = 0.25;
 
     private final double[][][] EPSILONS = new double[256][256][SAMUtils.MAX_PHRED_SCORE+1];
 
@@ -204,6 +226,11 @@ public final class BAQ implements Serializable {
         //System.out.printf("c->bw = %d, bw = %d, l_ref = %d, l_query = %d\n", cb, bw, l_ref, l_query);
 		bw2 = bw * 2 + 1;
 
+        if ( hmmImplementation != HMMImplementation.ORIGINAL ) {
+            CachingBAQHMM.compute(hmmImplementation == HMMImplementation.FLOAT_CACHING, ref, query, qstart, l_query, _iqual, state, q, bw, cd, ce, minBaseQual);
+            return 0;
+        }
+
         // allocate the forward and backward matrices f[][] and b[][] and the scaling array s[]
 		double[][] f = new double[l_query+1][bw2*3 + 6];
 		double[][] b = new double[l_query+1][bw2*3 + 6];
@@ -0,0 +1,442 @@
+package org.broadinstitute.hellbender.utils.baq;
+
+import java.util.Arrays;
+
+/**
+ * Implementation of the BAQ profile HMM of {@link BAQ#hmm_glocal} that reuses per-thread matrices, for the
+ * {@link BAQ.HMMImplementation#CACHING} and {@link BAQ.HMMImplementation#FLOAT_CACHING} implementations.
+ *
+ * Differences with the original implementation:
+ * -the forward and backward matrices are kept in a thread-local instance and reused for every read, instead of being
+ *  allocated for every read (only the part of the matrices used by the current read is cleared)
+ * -the matrices are stored as structure of arrays: one flat array per state (match, insertion, deletion) instead of
+ *  one array per row with the three states interleaved, so that the match and insertion states of a row, which only
+ *  depend on the previous row, are computed by a simple loop that the JIT can vectorize. The deletion state, which
+ *  depends on the previous cell of the same row, is computed by a separate sequential loop.
+ * -the emission probabilities are looked up in a table built for each row from the query base and quality, indexed by
+ *  the reference base, instead of in a table of all possible (reference base, query base, quality) triplets.
+ *
+ * In double precision, every cell is computed with the same expression as in the original implementation, and the
+ * row sums are accumulated in the same order, so the results are identical. In single precision, the matrices
+ * take half the memory, but the posterior probabilities only have about 7 significant digits, so BAQ qualities can
+ * differ slightly from the double-precision ones, and qualities above about Q60 are not resolved (these are capped
+ * by the base quality anyway).
+ *
+ * Not thread-safe: instances are confined to a thread by {@link #compute}.
+ */
+final class CachingBAQHMM {
+
+    /**
+     * Maximum number of bytes of matrices kept for reuse by each thread, across both precisions. Reads that need
+     * more than this get matrices that are dropped after use, so that one pathological read can't pin a very large
+     * buffer to a thread for its whole lifetime. Typical reads need a few hundred KB at most.
+     */
+    static final long MAX_CACHED_BYTES = 4L << 20;
+
+    /**
+     * Number of matrices of a precision: forward and backward, for each of the match, insertion and deletion states
+     */
+    private static final int NUM_MATRICES = 6;
+
+    private static final ThreadLocal<CachingBAQHMM> THREAD_LOCAL_HMM = ThreadLocal.withInitial(CachingBAQHMM::new);
+
+    /**
+     * Codes of the bases in the emission tables: A, C, G and T (in either case) are 0 to 3, anything else is 4
+     */
+    private static final byte[] BASE_CODES = new byte[256];
+    private static final int OTHER_BASE_CODE = 4;
+    /**
+     * Code of the position past the end of the reference, which has an emission probability of 0
+     */
+    private static final int PAST_REFERENCE_END_CODE = 5;
+    private static final int NUM_CODES = 6;
+
+    static {
+        Arrays.fill(BASE_CODES, (byte) OTHER_BASE_CODE);
+        final String bases = "ACGT";
+        for ( int i = 0; i < bases.length(); i++ ) {
+            BASE_CODES[bases.charAt(i)] = (byte) i;
+            BASE_CODES[Character.toLowerCase(bases.charAt(i))] = (byte) i;
+        }
+    }
+
+    // double-precision matrices, (l_query + 1) rows of width bw2 + 2, one array per state
+    private double[] fM, fI, fD, bM, bI, bD;
+    private double[] scale;
+    private double[] emissions;
+
+    // single-precision matrices
+    private float[] ffM, ffI, ffD, fbM, fbI, fbD;
+    private float[] fscale;
+    private float[] femissions;
+
+    /**
+     * Emission probability of each reference base code for the current row
+     */
+    private final double[] emissionTable = new double[NUM_CODES];
+    private final float[] femissionTable = new float[NUM_CODES];
+
+    /**
+     * Reference bases converted to codes, with an extra {@link #PAST_REFERENCE_END_CODE} at the end
+     */
+    private byte[] refCodes;
+
+    private CachingBAQHMM() {}
+
+    /**
+     * Run the HMM on one read with the matrices of the current thread. Arguments are the same as those of
+     * {@link BAQ#hmm_glocal}, which must have validated them and computed the band width.
+     *
+     * @param useFloat compute in single precision?
+     * @param bw band width for this read
+     * @param cd gap open probability
+     * @param ce gap extension probability
+     * @param minBaseQual minimum base quality (see {@link BAQ#getMinBaseQual()})
+     */
+    static void compute( final boolean useFloat, final byte[] ref, final byte[] query, final int qstart, final int l_query,
+                         final byte[] iqual, final int[] state, final byte[] q,
+                         final int bw, final double cd, final double ce, final byte minBaseQual ) {
+        final long numCells = (long) (l_query + 1) * (bw * 2 + 3);
+        final long matrixBytes = NUM_MATRICES * numCells * (useFloat ? Float.BYTES : Double.BYTES);
+        final CachingBAQHMM hmm = matrixBytes <= MAX_CACHED_BYTES ? THREAD_LOCAL_HMM.get() : new CachingBAQHMM();
+        hmm.limitCachedBytes(useFloat, matrixBytes);
+        hmm.setReference(ref);
+        if ( useFloat ) {
+            hmm.computeFloat(ref.length, query, qstart, l_query, iqual, state, q, bw, cd, ce, minBaseQual);
+        } else {
+            hmm.computeDouble(ref.length, query, qstart, l_query, iqual, state, q, bw, cd, ce, minBaseQual);
+        }
+    }
+
+    /**
+     * Drop the matrices of the other precision if keeping them along with those of this precision, sized for the
+     * current read, would exceed {@link #MAX_CACHED_BYTES}, so that a thread that alternates between the two
+     * implementations stays within the limit as well.
+     */
+    private void limitCachedBytes( final boolean useFloat, final long matrixBytes ) {
+        if ( useFloat ) {
+            final long floatBytes = Math.max(matrixBytes, ffM == null ? 0 : (long) NUM_MATRICES * ffM.length * Float.BYTES);
+            if ( fM != null && floatBytes + (long) NUM_MATRICES * fM.length * Double.BYTES > MAX_CACHED_BYTES ) {
+                fM = fI = fD = bM = bI = bD = null;
+            }
+        } else {
+            final long doubleBytes = Math.max(matrixBytes, fM == null ? 0 : (long) NUM_MATRICES * fM.length * Double.BYTES);
+            if ( ffM != null && doubleBytes + (long) NUM_MATRICES * ffM.length * Float.BYTES > MAX_CACHED_BYTES ) {
+                ffM = ffI = ffD = fbM = fbI = fbD = null;
+            }
+        }
+    }
+
+    private void setReference( final byte[] ref ) {
+        if ( refCodes == null || refCodes.length < ref.length + 1 ) {
+            refCodes = new byte[ref.length + 1];
+        }
+        for ( int k = 0; k < ref.length; k++ ) {
+            refCodes[k] = BASE_CODES[ref[k] & 0xff];
+        }
+        refCodes[ref.length] = PAST_REFERENCE_END_CODE;
+    }
+
+    /**
+     * Fill the emission table for a query base with the same values as {@link BAQ#calcEpsilon}
+     */
+    private void setEmissions( final byte queryBase, final byte qualB, final byte minBaseQual ) {
+        final double qual = BAQ.qual2prob[qualB < minBaseQual ? minBaseQual : qualB];
+        final int queryCode = BASE_CODES[queryBase & 0xff];
+        for ( int code = 0; code < OTHER_BASE_CODE; code++ ) {
+            emissionTable[code] = queryCode == OTHER_BASE_CODE ? 1.0 : (code == queryCode ? 1 - qual : qual * BAQ.EM);
+        }
+        emissionTable[OTHER_BASE_CODE] = 1.0;
+        emissionTable[PAST_REFERENCE_END_CODE] = 0.0;
+    }
+
+    private static int bandOffset( final int bw, final int i ) {
+        final int x = i - bw;
+        return x > 0 ? x : 0;
+    }
+
+    private static byte toBAQQual( final double max, final byte minBaseQual ) {
+        final int k = (int)(-4.343 * Math.log(1. - max) + .499); // = 10*log10(1-max)
+        return (byte)(k > 100? 99 : (k < minBaseQual ? minBaseQual : k));
+    }
+
+    private static double[] ensureCapacity( final double[] array, final int size ) {
+        return array == null || array.length < size ? new double[size] : array;
+    }
+
+    private static float[] ensureCapacity( final float[] array, final int size ) {
+        return array == null || array.length < size ? new float[size] : array;
+    }
+
+    // ---------------------------------------------------------------------------------------------------------------
+    //
+    // Double precision
+    //
+    // Cell (i, k) of a matrix, for reference position k in the band of row i, is at index i * width + k + 1 - x, where
+    // x = max(i - bw, 0) is the offset of the band: this is the index used by the original implementation divided by 3.
+    //
+    // ---------------------------------------------------------------------------------------------------------------
+
+    private void computeDouble( final int l_ref, final byte[] query, final int qstart, final int l_query,
+                                final byte[] iqual, final int[] state, final byte[] q,
+                                final int bw, final double cd, final double ce, final byte minBaseQual ) {
+        final int bw2 = bw * 2 + 1;
+        final int width = bw2 + 2;
+        final int size = (l_query + 1) * width;
+        fM = ensureCapacity(fM, size); fI = ensureCapacity(fI, size); fD = ensureCapacity(fD, size);
+        bM = ensureCapacity(bM, size); bI = ensureCapacity(bI, size); bD = ensureCapacity(bD, size);
+        scale = ensureCapacity(scale, l_query + 2);
+        emissions = ensureCapacity(emissions, width);
+        final double[] fM = this.fM, fI = this.fI, fD = this.fD, bM = this.bM, bI = this.bI, bD = this.bD;
+        final double[] s = scale, e = emissions, eTable = emissionTable;
+        final byte[] refCodes = this.refCodes;
+        Arrays.fill(fM, 0, size, 0.); Arrays.fill(fI, 0, size, 0.); Arrays.fill(fD, 0, size, 0.);
+        Arrays.fill(bM, 0, size, 0.); Arrays.fill(bI, 0, size, 0.); Arrays.fill(bD, 0, size, 0.);
+
+        // initialize transition probabilities
+        final double sM, sI, bMp, bIp;
+        sM = sI = 1. / (2 * l_query + 2);
+        bMp = (1 - cd) / l_ref; bIp = cd / l_ref; // (bM+bI)*l_ref==1
+        final double m0 = (1 - cd - cd) * (1 - sM), m1 = cd * (1 - sM), m2 = cd * (1 - sM);
+        final double m3 = (1 - ce) * (1 - sI), m4 = ce * (1 - sI);
+        final double m6 = 1 - ce, m8 = ce;
+
+        /*** forward ***/
+        // f[0]
+        fM[1] = s[0] = 1.;
+        { // f[1]
+            final int x = bandOffset(bw, 1), beg = 1, end = l_ref < bw + 1? l_ref : bw + 1;
+            final int first = width + beg + 1 - x, last = width + end + 1 - x;
+            setEmissions(query[qstart], iqual[qstart], minBaseQual);
+            double sum = 0.;
+            for ( int u = first, k = beg; u <= last; ++u, ++k ) {
+                fM[u] = eTable[refCodes[k-1]] * bMp; fI[u] = BAQ.EI * bIp;
+                sum += fM[u] + fI[u];
+            }
+            // rescale
+            s[1] = sum;
+            for ( int u = first; u <= last; ++u ) { fM[u] /= sum; fI[u] /= sum; fD[u] /= sum; }
+        }
+
+        // f[2..l_query]
+        for ( int i = 2; i <= l_query; ++i ) {
+            final int x = bandOffset(bw, i), xPrev = bandOffset(bw, i - 1);
+            final int beg = Math.max(1, i - bw), end = Math.min(l_ref, i + bw);
+            final int row = i * width, first = row + beg + 1 - x, last = row + end + 1 - x;
+            final int toPrev = (i - 1) * width + x - xPrev - row; // u + toPrev is the cell of the same k in row i-1
+            setEmissions(query[qstart+i-1], iqual[qstart+i-1], minBaseQual);
+
+            // match and insertion only depend on the previous row
+            for ( int u = first, k = beg; u <= last; ++u, ++k ) {
+                final int v10 = u + toPrev, v11 = v10 - 1;
+                fM[u] = eTable[refCodes[k-1]] * (m0 * fM[v11] + m3 * fI[v11] + m6 * fD[v11]);
+                fI[u] = BAQ.EI * (m1 * fM[v10] + m4 * fI[v10]);
+            }
+            // deletion depends on the previous cell of this row
+            double sum = 0.;
+            for ( int u = first; u <= last; ++u ) {
+                fD[u] = m2 * fM[u-1] + m8 * fD[u-1];
+                sum += fM[u] + fI[u] + fD[u];
+            }
+            // rescale
+            s[i] = sum;
+            final double inv = 1./sum;
+            for ( int u = first; u <= last; ++u ) { fM[u] *= inv; fI[u] *= inv; fD[u] *= inv; }
+        }
+        final int lastRow = l_query * width, lastX = bandOffset(bw, l_query);
+        { // f[l_query+1]
+            double sum = 0.;
+            for ( int k = 1; k <= l_ref; ++k ) {
+                final int slot = k + 1 - lastX;
+                if ( slot < 1 || slot >= bw2 + 1 ) continue;
+                sum += fM[lastRow + slot] * sM + fI[lastRow + slot] * sI;
+            }
+            s[l_query+1] = sum; // the last scaling factor
+        }
+
+        /*** backward ***/
+        // b[l_query] (b[l_query+1][0]=1 and thus \tilde{b}[][]=1/s[l_query+1]; this is where s[l_query+1] comes from)
+        for ( int k = 1; k <= l_ref; ++k ) {
+            final int slot = k + 1 - lastX;
+            if ( slot < 1 || slot >= bw2 + 1 ) continue;
+            bM[lastRow + slot] = sM / s[l_query] / s[l_query+1]; bI[lastRow + slot] = sI / s[l_query] / s[l_query+1];
+        }
+        // b[l_query-1..1]
+        for ( int i = l_query - 1; i >= 1; --i ) {
+            final int x = bandOffset(bw, i), xNext = bandOffset(bw, i + 1);
+            final int beg = Math.max(1, i - bw), end = Math.min(l_ref, i + bw);
+            final int row = i * width, first = row + beg + 1 - x, last = row + end + 1 - x;
+            final int toNext = (i + 1) * width + x - xNext - row; // u + toNext is the cell of the same k in row i+1
+            final double y = (i > 1)? 1. : 0.;
+            setEmissions(query[qstart+i], iqual[qstart+i], minBaseQual);
+
+            // deletion depends on the next cell of this row
+            for ( int u = last, k = end; u >= first; --u, --k ) {
+                final double ek = eTable[refCodes[k]] * bM[u + toNext + 1]; // bM[v11] is folded into e
+                e[u - first] = ek;
+                bD[u] = (ek * m6 + m8 * bD[u+1]) * y;
+            }
+            // match and insertion only depend on the next row and on the deletions of this row
+            for ( int u = first; u <= last; ++u ) {
+                final double ek = e[u - first];
+                final int v10 = u + toNext;
+                bM[u] = ek * m0 + BAQ.EI * m1 * bI[v10] + m2 * bD[u+1];
+                bI[u] = ek * m3 + BAQ.EI * m4 * bI[v10];
+            }
+            // rescale
+            final double inv = 1./s[i];
+            for ( int u = first; u <= last; ++u ) { bM[u] *= inv; bI[u] *= inv; bD[u] *= inv; }
+        }
+
+        /*** MAP ***/
+        for ( int i = 1; i <= l_query; ++i ) {
+            final int x = bandOffset(bw, i);
+            final int beg = Math.max(1, i - bw), end = Math.min(l_ref, i + bw);
+            final int row = i * width;
+            double sum = 0., max = 0.;
+            int max_k = -1;
+            for ( int k = beg; k <= end; ++k ) {
+                final int u = row + k + 1 - x;
+                double z;
+                sum += (z = fM[u] * bM[u]); if (z > max) { max = z; max_k = (k-1)<<2 | 0; }
+                sum += (z = fI[u] * bI[u]); if (z > max) { max = z; max_k = (k-1)<<2 | 1; }
+            }
+            max /= sum;
+            if ( state != null ) state[qstart+i-1] = max_k;
+            if ( q != null ) q[qstart+i-1] = toBAQQual(max, minBaseQual);
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------------------------
+    //
+    // Single precision: same as the double-precision version, with float matrices
+    //
+    // ---------------------------------------------------------------------------------------------------------------
+
+    private void computeFloat( final int l_ref, final byte[] query, final int qstart, final int l_query,
+                               final byte[] iqual, final int[] state, final byte[] q,
+                               final int bw, final double cd, final double ce, final byte minBaseQual ) {
+        final int bw2 = bw * 2 + 1;
+        final int width = bw2 + 2;
+        final int size = (l_query + 1) * width;
+        ffM = ensureCapacity(ffM, size); ffI = ensureCapacity(ffI, size); ffD = ensureCapacity(ffD, size);
+        fbM = ensureCapacity(fbM, size); fbI = ensureCapacity(fbI, size); fbD = ensureCapacity(fbD, size);
+        fscale = ensureCapacity(fscale, l_query + 2);
+        femissions = ensureCapacity(femissions, width);
+        final float[] fM = ffM, fI = ffI, fD = ffD, bM = fbM, bI = fbI, bD = fbD;
+        final float[] s = fscale, e = femissions, eTable = femissionTable;
+        final byte[] refCodes = this.refCodes;
+        Arrays.fill(fM, 0, size, 0.f); Arrays.fill(fI, 0, size, 0.f); Arrays.fill(fD, 0, size, 0.f);
+        Arrays.fill(bM, 0, size, 0.f); Arrays.fill(bI, 0, size, 0.f); Arrays.fill(bD, 0, size, 0.f);
+
+        // initialize transition probabilities, computed in double precision as in the original implementation
+        final double sMd = 1. / (2 * l_query + 2), sId = sMd;
+        final float sM = (float) sMd, sI = (float) sId;
+        final float bMp = (float)((1 - cd) / l_ref), bIp = (float)(cd / l_ref);
+        final float m0 = (float)((1 - cd - cd) * (1 - sMd)), m1 = (float)(cd * (1 - sMd)), m2 = m1;
+        final float m3 = (float)((1 - ce) * (1 - sId)), m4 = (float)(ce * (1 - sId));
+        final float m6 = (float)(1 - ce), m8 = (float) ce;
+        final float EI = (float) BAQ.EI;
+
+        /*** forward ***/
+        fM[1] = s[0] = 1.f;
+        { // f[1]
+            final int x = bandOffset(bw, 1), beg = 1, end = l_ref < bw + 1? l_ref : bw + 1;
+            final int first = width + beg + 1 - x, last = width + end + 1 - x;
+            setFloatEmissions(query[qstart], iqual[qstart], minBaseQual);
+            float sum = 0.f;
+            for ( int u = first, k = beg; u <= last; ++u, ++k ) {
+                fM[u] = eTable[refCodes[k-1]] * bMp; fI[u] = EI * bIp;
+                sum += fM[u] + fI[u];
+            }
+            s[1] = sum;
+            for ( int u = first; u <= last; ++u ) { fM[u] /= sum; fI[u] /= sum; fD[u] /= sum; }
+        }
+
+        // f[2..l_query]
+        for ( int i = 2; i <= l_query; ++i ) {
+            final int x = bandOffset(bw, i), xPrev = bandOffset(bw, i - 1);
+            final int beg = Math.max(1, i - bw), end = Math.min(l_ref, i + bw);
+            final int row = i * width, first = row + beg + 1 - x, last = row + end + 1 - x;
+            final int toPrev = (i - 1) * width + x - xPrev - row;
+            setFloatEmissions(query[qstart+i-1], iqual[qstart+i-1], minBaseQual);
+
+            for ( int u = first, k = beg; u <= last; ++u, ++k ) {
+                final int v10 = u + toPrev, v11 = v10 - 1;
+                fM[u] = eTable[refCodes[k-1]] * (m0 * fM[v11] + m3 * fI[v11] + m6 * fD[v11]);
+                fI[u] = EI * (m1 * fM[v10] + m4 * fI[v10]);
+            }
+            float sum = 0.f;
+            for ( int u = first; u <= last; ++u ) {
+                fD[u] = m2 * fM[u-1] + m8 * fD[u-1];
+                sum += fM[u] + fI[u] + fD[u];
+            }
+            s[i] = sum;
+            final float inv = 1.f/sum;
+            for ( int u = first; u <= last; ++u ) { fM[u] *= inv; fI[u] *= inv; fD[u] *= inv; }
+        }
+        final int lastRow = l_query * width, lastX = bandOffset(bw, l_query);
+        { // f[l_query+1]
+            float sum = 0.f;
+            for ( int k = 1; k <= l_ref; ++k ) {
+                final int slot = k + 1 - lastX;
+                if ( slot < 1 || slot >= bw2 + 1 ) continue;
+                sum += fM[lastRow + slot] * sM + fI[lastRow + slot] * sI;
+            }
+            s[l_query+1] = sum;
+        }
+
+        /*** backward ***/
+        for ( int k = 1; k <= l_ref; ++k ) {
+            final int slot = k + 1 - lastX;
+            if ( slot < 1 || slot >= bw2 + 1 ) continue;
+            bM[lastRow + slot] = sM / s[l_query] / s[l_query+1]; bI[lastRow + slot] = sI / s[l_query] / s[l_query+1];
+        }
+        for ( int i = l_query - 1; i >= 1; --i ) {
+            final int x = bandOffset(bw, i), xNext = bandOffset(bw, i + 1);
+            final int beg = Math.max(1, i - bw), end = Math.min(l_ref, i + bw);
+            final int row = i * width, first = row + beg + 1 - x, last = row + end + 1 - x;
+            final int toNext = (i + 1) * width + x - xNext - row;
+            final float y = (i > 1)? 1.f : 0.f;
+            setFloatEmissions(query[qstart+i], iqual[qstart+i], minBaseQual);
+
+            for ( int u = last, k = end; u >= first; --u, --k ) {
+                final float ek = eTable[refCodes[k]] * bM[u + toNext + 1];
+                e[u - first] = ek;
+                bD[u] = (ek * m6 + m8 * bD[u+1]) * y;
+            }
+            for ( int u = first; u <= last; ++u ) {
+                final float ek = e[u - first];
+                final int v10 = u + toNext;
+                bM[u] = ek * m0 + EI * m1 * bI[v10] + m2 * bD[u+1];
+                bI[u] = ek * m3 + EI * m4 * bI[v10];
+            }
+            final float inv = 1.f/s[i];
+            for ( int u = first; u <= last; ++u ) { bM[u] *= inv; bI[u] *= inv; bD[u] *= inv; }
+        }
+
+        /*** MAP ***/
+        for ( int i = 1; i <= l_query; ++i ) {
+            final int x = bandOffset(bw, i);
+            final int beg = Math.max(1, i - bw), end = Math.min(l_ref, i + bw);
+            final int row = i * width;
+            float sum = 0.f, max = 0.f;
+            int max_k = -1;
+            for ( int k = beg; k <= end; ++k ) {
+                final int u = row + k + 1 - x;
+                float z;
+                sum += (z = fM[u] * bM[u]); if (z > max) { max = z; max_k = (k-1)<<2 | 0; }
+                sum += (z = fI[u] * bI[u]); if (z > max) { max = z; max_k = (k-1)<<2 | 1; }
+            }
+            if ( state != null ) state[qstart+i-1] = max_k;
+            if ( q != null ) q[qstart+i-1] = toBAQQual((double) max / sum, minBaseQual);
+        }
+    }
+
+    private void setFloatEmissions( final byte queryBase, final byte qualB, final byte minBaseQual ) {
+        setEmissions(queryBase, qualB, minBaseQual);
+        for ( int code = 0; code < NUM_CODES; code++ ) {
+            femissionTable[code] = (float) emissionTable[code];
+        }
+    }
+}
@@ -8,6 +8,7 @@ import org.broadinstitute.hellbender.utils.read.ReadUtils;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 
 /**
@@ -35,10 +36,23 @@ public final class PositionalDownsampler extends ReadsDownsampler {
      * @param header SAMFileHeader to use to determine contig ordering. Non-null.
      */
     public PositionalDownsampler( final int targetCoverage, final SAMFileHeader header ) {
+        this(targetCoverage, header, Utils.getRandomGenerator());
+    }
+
+    /**
+     * Construct a PositionalDownsampler that draws from the given random number generator rather than from the
+     * shared generator returned by {@link Utils#getRandomGenerator}
+     *
+     * @param targetCoverage Maximum number of reads that may share any given alignment start position. Must be > 0
+     * @param header SAMFileHeader to use to determine contig ordering. Non-null.
+     * @param random source of the random draws used to choose the reads to keep. Non-null.
+     */
+    public PositionalDownsampler( final int targetCoverage, final SAMFileHeader header, final Random random ) {
         Utils.validateArg(targetCoverage > 0, "targetCoverage must be > 0");
         Utils.nonNull(header);
+        Utils.nonNull(random);
 
-        this.reservoir = new ReservoirDownsampler(targetCoverage);
+        this.reservoir = new ReservoirDownsampler(targetCoverage, false, random);
         this.finalizedReads = new ArrayList<>();
         this.header = header;
         clearItems();
@@ -7,6 +7,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Random;
 
 /**
  * Reservoir Downsampler: Selects n reads out of a stream whose size is not known in advance, with
@@ -51,6 +52,10 @@ public final class ReservoirDownsampler extends ReadsDownsampler {
      */
     private int totalReadsSeen;
 
+    /**
+     * Source of the random draws used to choose the reads to keep
+     */
+    private final Random random;
 
     /**
      * Construct a ReservoirDownsampler
@@ -65,12 +70,25 @@ public final class ReservoirDownsampler extends ReadsDownsampler {
      *                           elements.
      */
     public ReservoirDownsampler(final int targetSampleSize, final boolean expectFewOverflows ) {
+        this(targetSampleSize, expectFewOverflows, Utils.getRandomGenerator());
+    }
+
+    /**
+     * Construct a ReservoirDownsampler that draws from the given random number generator rather than from the
+     * shared generator returned by {@link Utils#getRandomGenerator}
+     *
+     * @param targetSampleSize Size of the reservoir used by this downsampler.
+     * @param expectFewOverflows see {@link #ReservoirDownsampler(int, boolean)}
+     * @param random source of the random draws used to choose the reads to keep. Non-null.
+     */
+    public ReservoirDownsampler(final int targetSampleSize, final boolean expectFewOverflows, final Random random ) {
         if ( targetSampleSize <= 0 ) {
             throw new IllegalArgumentException("Cannot do reservoir downsampling with a sample size <= 0");
         }
 
         this.targetSampleSize = targetSampleSize;
         this.expectFewOverflows = expectFewOverflows;
+        this.random = Utils.nonNull(random);
         clearItems();
         resetStats();
     }
@@ -100,7 +118,7 @@ public final class ReservoirDownsampler extends ReadsDownsampler {
                 isLinkedList = false;
             }
 
-            final int randomSlot = Utils.getRandomGenerator().nextInt(totalReadsSeen);
+            final int randomSlot = random.nextInt(totalReadsSeen);
             if ( randomSlot < targetSampleSize ) {
                 reservoir.set(randomSlot, newRead);
             }
@@ -44,9 +44,18 @@ public final class ReadLikelihoods<A extends Allele> implements SampleList, Alle
      * <p>
      *     valuesBySampleIndex[s][a][r] == lnLk(R_r | A_a) where R_r comes from Sample s.
      * </p>
+     * <p>
+     *     The per-allele arrays may be longer than the number of reads in the sample, so the read count must always
+     *     be taken from {@link #readsBySampleIndex}.
+     * </p>
      */
     private final double[][][] valuesBySampleIndex;
 
+    /**
+     * Where the per-allele likelihood arrays are taken from, or {@code null} if they are allocated on the heap.
+     */
+    private final ReadLikelihoodsArena arena;
+
     /**
      * Sample list
      */
@@ -106,16 +115,46 @@ public final class ReadLikelihoods<A extends Allele> implements SampleList, Alle
      * or {@code reads} is {@code null},
      *  or if they contain null values.
      */
-    @SuppressWarnings({"rawtypes", "unchecked"})
     public ReadLikelihoods(final SampleList samples,
                            final AlleleList<A> alleles,
                            final Map<String, List<GATKRead>> reads) {
+        this(samples, alleles, reads, null);
+    }
+
+    /**
+     * Constructs a new read-likelihood collection whose likelihoods are stored in arrays taken from an arena.
+     *
+     * <p>
+     *     The initial likelihoods for all allele-read combinations are
+     *     0.
+     * </p>
+     *
+     * <p>
+     *     The new collection, and any collection derived from it by {@link #marginalize}, is only valid until
+     *     {@link ReadLikelihoodsArena#reset} is called on the arena.
+     * </p>
+     *
+     * @param samples all supported samples in the collection.
+     * @param alleles all supported alleles in the collection.
+     * @param reads reads stratified per sample.
+     * @param arena where the likelihood arrays are taken from, or {@code null} to allocate them on the heap.
+     *
+     * @throws IllegalArgumentException if any of {@code allele}, {@code samples}
+     * or {@code reads} is {@code null},
+     *  or if they contain null values.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public ReadLikelihoods(final SampleList samples,
+                           final AlleleList<A> alleles,
+                           final Map<String, List<GATKRead>> reads,
+                           final ReadLikelihoodsArena arena) {
         Utils.nonNull(alleles, "allele list cannot be null");
         Utils.nonNull(samples, "sample list cannot be null");
         Utils.nonNull(reads, "read map cannot be null");
 
         this.samples = samples;
         this.alleles = alleles;
+        this.arena = arena;
 
         final int sampleCount = samples.numberOfSamples();
         final int alleleCount = alleles.numberOfAlleles();
@@ -139,9 +178,11 @@ public final class ReadLikelihoods<A extends Allele> implements SampleList, Alle
                             final SampleList samples,
                             final GATKRead[][] readsBySampleIndex,
                             final Object2IntMap<GATKRead>[] readIndex,
-                            final double[][][] values) {
+                            final double[][][] values,
+                            final ReadLikelihoodsArena arena) {
         this.samples = samples;
         this.alleles = alleles;
+        this.arena = arena;
         this.readsBySampleIndex = readsBySampleIndex;
         this.valuesBySampleIndex = values;
         this.readIndexBySampleIndex = readIndex;
@@ -171,12 +212,23 @@ public final class ReadLikelihoods<A extends Allele> implements SampleList, Alle
                 : reads.toArray(new GATKRead[reads.size()]);
         final int sampleReadCount = readsBySampleIndex[sampleIndex].length;
 
-        final double[][] sampleValues = new double[alleleCount][sampleReadCount];
+        final double[][] sampleValues = new double[alleleCount][];
+        for (int a = 0; a < alleleCount; a++) {
+            sampleValues[a] = newLikelihoodArray(sampleReadCount);
+        }
         valuesBySampleIndex[sampleIndex] = sampleValues;
     }
 
+    // Returns an array of likelihoods with at least the requested length, all set to 0 up to that length.
+    private double[] newLikelihoodArray(final int length) {
+        return arena == null ? new double[length] : arena.allocate(length);
+    }
+
     /**
      * Create an independent copy of this read-likelihoods collection
+     *
+     * <p>The copy is always allocated on the heap, so it remains valid even if this collection is backed by
+     * an arena that is later reset.</p>
      */
     public ReadLikelihoods<A> copy() {
 
@@ -192,7 +244,7 @@ public final class ReadLikelihoods<A extends Allele> implements SampleList, Alle
         for (int s = 0; s < sampleCount; s++) {
             newReadsBySampleIndex[s] = readsBySampleIndex[s].clone();
             for (int a = 0; a < alleleCount; a++) {
-                newLikelihoodValues[s][a] = valuesBySampleIndex[s][a].clone();
+                newLikelihoodValues[s][a] = Arrays.copyOf(valuesBySampleIndex[s][a], newReadsBySampleIndex[s].length);
             }
         }
 
@@ -202,7 +254,8 @@ public final class ReadLikelihoods<A extends Allele> implements SampleList, Alle
                 samples,
                 newReadsBySampleIndex,
                 newReadIndexBySampleIndex,
-                newLikelihoodValues);
+                newLikelihoodValues,
+                null);
     }
 
 
@@ -533,9 +586,9 @@ public final class ReadLikelihoods<A extends Allele> implements SampleList, Alle
             final int sampleReadCount = readsBySampleIndex[s].length;
             final double[][] newValuesBySampleIndex = Arrays.copyOf(valuesBySampleIndex[s], newAlleleCount);
             for (int a = oldAlleleCount; a < newAlleleCount; a++) {
-                newValuesBySampleIndex[a] = new double[sampleReadCount];
+                newValuesBySampleIndex[a] = newLikelihoodArray(sampleReadCount);
                 if (defaultLikelihood != 0.0) {
-                    Arrays.fill(newValuesBySampleIndex[a], defaultLikelihood);
+                    Arrays.fill(newValuesBySampleIndex[a], 0, sampleReadCount, defaultLikelihood);
                 }
             }
             valuesBySampleIndex[s] = newValuesBySampleIndex;
@@ -585,7 +638,7 @@ public final class ReadLikelihoods<A extends Allele> implements SampleList, Alle
                 new IndexedAlleleList(newAlleles),
                 samples,
                 newReadsBySampleIndex,
-                newReadIndexBySampleIndex, newLikelihoodValues);
+                newReadIndexBySampleIndex, newLikelihoodValues, arena);
     }
 
 
@@ -649,7 +702,7 @@ public final class ReadLikelihoods<A extends Allele> implements SampleList, Alle
         // Finally we create the new read-likelihood
         return new ReadLikelihoods<>(new IndexedAlleleList<>(newAlleles), samples,
                 newReadsBySampleIndex,
-                newReadIndexBySampleIndex, newLikelihoodValues);
+                newReadIndexBySampleIndex, newLikelihoodValues, arena);
     }
 
     private int[][] overlappingReadIndicesBySampleIndex(final Locatable overlap) {
@@ -708,10 +761,11 @@ public final class ReadLikelihoods<A extends Allele> implements SampleList, Alle
             final double[][] oldSampleValues = valuesBySampleIndex[s];
             final int[] sampleReadToKeep = readsToKeep == null || readsToKeep[s].length == sampleReadCount ? null : readsToKeep[s];
             final int newSampleReadCount = sampleReadToKeep == null ? sampleReadCount : sampleReadToKeep.length;
-            final double[][] newSampleValues = result[s] = new double[newAlleleCount][newSampleReadCount];
+            final double[][] newSampleValues = result[s] = new double[newAlleleCount][];
             // We initiate all likelihoods to -Inf.
             for (int a = 0; a < newAlleleCount; a++) {
-                Arrays.fill(newSampleValues[a], Double.NEGATIVE_INFINITY);
+                newSampleValues[a] = newLikelihoodArray(newSampleReadCount);
+                Arrays.fill(newSampleValues[a], 0, newSampleReadCount, Double.NEGATIVE_INFINITY);
             }
             // For each old allele and read we update the new table keeping the maximum likelihood.
             for (int r = 0; r < newSampleReadCount; r++) {
@@ -836,13 +890,13 @@ public final class ReadLikelihoods<A extends Allele> implements SampleList, Alle
         final double[][] sampleValues = valuesBySampleIndex[sampleIndex];
         final int alleleCount = alleles.numberOfAlleles();
         for (int a = 0; a < alleleCount; a++) {
-            sampleValues[a] = Arrays.copyOf(sampleValues[a], newSampleReadCount);
-        }
-        if (initialLikelihood != 0.0) // the default array new value.
-        {
-            for (int a = 0; a < alleleCount; a++) {
-                Arrays.fill(sampleValues[a], sampleReadCount, newSampleReadCount, initialLikelihood);
+            if (sampleValues[a].length < newSampleReadCount) {
+                final double[] newAlleleValues = newLikelihoodArray(newSampleReadCount);
+                System.arraycopy(sampleValues[a], 0, newAlleleValues, 0, sampleReadCount);
+                sampleValues[a] = newAlleleValues;
             }
+            // arrays may have room to spare with stale values beyond the old read count
+            Arrays.fill(sampleValues[a], sampleReadCount, newSampleReadCount, initialLikelihood);
         }
     }
 
@@ -922,7 +976,7 @@ public final class ReadLikelihoods<A extends Allele> implements SampleList, Alle
         final Median medianCalculator = new Median();
         for (int s = 0; s < samples.numberOfSamples(); s++) {
             final double[][] sampleValues = valuesBySampleIndex[s];
-            final int readCount = sampleValues[0].length;
+            final int readCount = readsBySampleIndex[s].length;
             for (int r = 0; r < readCount; r++) {
                 final BestAllele bestAllele = searchBestAllele(s, r, true);
                 int numberOfQualifiedAlleleLikelihoods = 0;
@@ -1214,13 +1268,7 @@ public final class ReadLikelihoods<A extends Allele> implements SampleList, Alle
         Utils.skimArray(oldSampleReads,firstDeleted, newSampleReads, firstDeleted, removeIndex, firstDeleted);
 
         // Then we skim out the likelihoods of the removed reads.
-        final double[][] oldSampleValues = valuesBySampleIndex[sampleIndex];
-        final double[][] newSampleValues = new double[alleleCount][newSampleReadCount];
-        for (int a = 0; a < alleleCount; a++) {
-            System.arraycopy(oldSampleValues[a], 0, newSampleValues[a], 0, firstDeleted);
-            Utils.skimArray(oldSampleValues[a], firstDeleted, newSampleValues[a], firstDeleted, removeIndex, firstDeleted);
-        }
-        valuesBySampleIndex[sampleIndex] = newSampleValues;
+        skimLikelihoods(valuesBySampleIndex[sampleIndex], alleleCount, sampleReadCount, removeIndex, firstDeleted);
         readsBySampleIndex[sampleIndex] = newSampleReads;
         readListBySampleIndex[sampleIndex] = null; // reset the unmodifiable list.
     }
@@ -1272,18 +1320,27 @@ public final class ReadLikelihoods<A extends Allele> implements SampleList, Alle
         }
 
         // Then we skim out the likelihoods of the removed reads.
-        final double[][] oldSampleValues = valuesBySampleIndex[sampleIndex];
-        final double[][] newSampleValues = new double[alleleCount][newSampleReadCount];
-        for (int a = 0; a < alleleCount; a++) {
-            System.arraycopy(oldSampleValues[a],0,newSampleValues[a],0,firstDeleted);
-            Utils.skimArray(oldSampleValues[a], firstDeleted, newSampleValues[a], firstDeleted, removeIndex, firstDeleted);
-        }
-        valuesBySampleIndex[sampleIndex] = newSampleValues;
+        skimLikelihoods(valuesBySampleIndex[sampleIndex], alleleCount, sampleReadCount, removeIndex, firstDeleted);
         readsBySampleIndex[sampleIndex] = newSampleReads;
         readListBySampleIndex[sampleIndex] = null; // reset the unmodifiable list.
     }
 
 
+    // Skims out the likelihoods of removed reads in place, so that the likelihoods of the remaining reads are packed at the
+    // beginning of each allele's array in the same order.
+    private static void skimLikelihoods(final double[][] sampleValues, final int alleleCount, final int sampleReadCount,
+                                        final boolean[] removeIndex, final int firstDeleted) {
+        for (int a = 0; a < alleleCount; a++) {
+            final double[] alleleValues = sampleValues[a];
+            int nextIndex = firstDeleted;
+            for (int r = firstDeleted; r < sampleReadCount; r++) {
+                if (!removeIndex[r]) {
+                    alleleValues[nextIndex++] = alleleValues[r];
+                }
+            }
+        }
+    }
+
     private Object2IntMap<GATKRead> readIndexBySampleIndex(final int sampleIndex) {
         if (readIndexBySampleIndex[sampleIndex] == null) {
             final GATKRead[] sampleReads = readsBySampleIndex[sampleIndex];
@@ -1320,14 +1377,14 @@ public final class ReadLikelihoods<A extends Allele> implements SampleList, Alle
         @Override
         public void set(final int alleleIndex, final int readIndex, final double value) {
             Utils.validIndex(alleleIndex, valuesBySampleIndex[sampleIndex].length);
-            Utils.validIndex(readIndex, valuesBySampleIndex[sampleIndex][alleleIndex].length);
+            Utils.validIndex(readIndex, readsBySampleIndex[sampleIndex].length);
             valuesBySampleIndex[sampleIndex][alleleIndex][readIndex] = value;
         }
 
         @Override
         public double get(final int alleleIndex, final int readIndex) {
             Utils.validIndex(alleleIndex, valuesBySampleIndex[sampleIndex].length);
-            Utils.validIndex(readIndex, valuesBySampleIndex[sampleIndex][alleleIndex].length);
+            Utils.validIndex(readIndex, readsBySampleIndex[sampleIndex].length);
             return valuesBySampleIndex[sampleIndex][alleleIndex][readIndex];
         }
 
@@ -0,0 +1,75 @@
+package org.broadinstitute.hellbender.utils.genotyper;
+
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reusable backing store for the likelihood arrays of {@link ReadLikelihoods} collections.
+ *
+ * <p>
+ *     A {@link ReadLikelihoods} created with an arena takes its per-allele likelihood arrays from the arena, and so do
+ *     the collections derived from it by {@link ReadLikelihoods#marginalize} and the arrays added by
+ *     {@link ReadLikelihoods#addMissingAlleles}. {@link #reset} makes all those arrays available again, so that
+ *     callers that process one region at a time allocate close to nothing once the arena has grown to fit the
+ *     largest region seen.
+ * </p>
+ *
+ * <p>
+ *     After {@link #reset} is called, every read-likelihoods collection backed by this arena is invalid and must no
+ *     longer be used. Collections that need to outlive the arena should be {@link ReadLikelihoods#copy copied}.
+ *     This class is not thread-safe.
+ * </p>
+ */
+public final class ReadLikelihoodsArena {
+
+    private final List<double[]> arrays = new ArrayList<>();
+
+    private int nextArrayIndex = 0;
+
+    /**
+     * Returns an array from this arena with at least the requested length, its first {@code length} positions set to 0.
+     *
+     * @param length the minimum length of the array.
+     * @return never {@code null}.
+     */
+    double[] allocate(final int length) {
+        Utils.validateArg(length >= 0, "length cannot be negative");
+        if (nextArrayIndex == arrays.size()) {
+            arrays.add(new double[capacityFor(length)]);
+        } else if (arrays.get(nextArrayIndex).length < length) {
+            arrays.set(nextArrayIndex, new double[capacityFor(length)]);
+        } else {
+            Arrays.fill(arrays.get(nextArrayIndex), 0, length, 0.0);
+        }
+        return arrays.get(nextArrayIndex++);
+    }
+
+    // leave some room for growth so that regions with a few more reads than the previous ones can reuse the arrays
+    private static int capacityFor(final int length) {
+        return length + (length >> 2);
+    }
+
+    /**
+     * Makes all arrays handed out by this arena available again, invalidating all read-likelihoods collections backed by it.
+     */
+    public void reset() {
+        nextArrayIndex = 0;
+    }
+
+    /**
+     * @return the number of arrays currently handed out by this arena.
+     */
+    public int numberOfArraysInUse() {
+        return nextArrayIndex;
+    }
+
+    /**
+     * @return the number of arrays owned by this arena, either in use or available.
+     */
+    public int numberOfArrays() {
+        return arrays.size();
+    }
+}
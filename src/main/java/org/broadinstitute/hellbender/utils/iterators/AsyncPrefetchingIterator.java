@@ -0,0 +1,162 @@
+package org.broadinstitute.hellbender.utils.iterators;
+
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * An iterator that runs a nested iterator on a dedicated background thread, buffering up to a fixed number of
+ * elements ahead of the consumer in a bounded queue. This lets the (potentially expensive) production of elements
+ * overlap with the consumer's processing of the elements already produced.
+ *
+ * The nested iterator is both created and consumed on the background thread, so it does not need to be thread-safe,
+ * but it must not share non-thread-safe resources with the consumer. Any exception thrown by the nested iterator is
+ * rethrown to the consumer from {@link #hasNext} once all elements produced before the failure have been returned.
+ *
+ * Consumers that stop iterating before the nested iterator is exhausted must call {@link #close} to stop the
+ * background thread. As in {@link ReadAheadSAMRecordIterator}, closing never interrupts the background thread, since
+ * interrupting a thread blocked on a file channel closes the channel, which may be shared with the consumer. Instead,
+ * {@link #close} waits for the background thread to finish the element it is producing and stop, so that the
+ * consumer can safely close any resources used by the nested iterator once {@link #close} returns.
+ */
+public final class AsyncPrefetchingIterator<T> implements Iterator<T>, AutoCloseable {
+
+    private static final Object END_OF_DATA = new Object();
+
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+    private final BlockingQueue<Object> queue;
+    private final Thread producerThread;
+    private volatile boolean closed = false;
+    private Object nextElement = null;
+    private boolean exhausted = false;
+
+    /**
+     * Start producing elements in the background.
+     *
+     * @param nestedIteratorSupplier creates the iterator to run on the background thread (may not be null)
+     * @param maxPrefetchedElements maximum number of elements to buffer ahead of the consumer (must be >= 1)
+     * @param threadName name of the background thread, for logging and debugging purposes (may not be null)
+     */
+    public AsyncPrefetchingIterator(final Supplier<? extends Iterator<? extends T>> nestedIteratorSupplier, final int maxPrefetchedElements, final String threadName) {
+        Utils.nonNull(nestedIteratorSupplier);
+        Utils.validateArg(maxPrefetchedElements >= 1, "maxPrefetchedElements must be >= 1");
+        Utils.nonNull(threadName);
+
+        this.queue = new ArrayBlockingQueue<>(maxPrefetchedElements);
+        this.producerThread = new Thread(() -> produce(nestedIteratorSupplier), threadName);
+        this.producerThread.setDaemon(true);
+        this.producerThread.start();
+    }
+
+    private void produce(final Supplier<? extends Iterator<? extends T>> nestedIteratorSupplier) {
+        Object lastElement = END_OF_DATA;
+        try {
+            final Iterator<? extends T> nestedIterator = nestedIteratorSupplier.get();
+            while ( ! closed && nestedIterator.hasNext() ) {
+                if ( ! offer(Utils.nonNull(nestedIterator.next(), "AsyncPrefetchingIterator does not support null elements")) ) {
+                    return; // closed by the consumer: nobody is listening any more
+                }
+            }
+        } catch ( final Throwable t ) {
+            lastElement = new ProducerFailure(t);
+        }
+        offer(lastElement);
+    }
+
+    /**
+     * Hand an element over to the consumer, giving up if the consumer closes this iterator in the meantime.
+     *
+     * @return true if the element was queued, false if this iterator was closed
+     */
+    private boolean offer(final Object element) {
+        try {
+            while ( ! closed ) {
+                if ( queue.offer(element, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS) ) {
+                    return true;
+                }
+            }
+        } catch ( final InterruptedException e ) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if ( exhausted ) {
+            return false;
+        }
+        if ( nextElement == null ) {
+            try {
+                nextElement = queue.take();
+            } catch ( final InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                throw new GATKException("Interrupted while waiting for the next element from " + producerThread.getName(), e);
+            }
+        }
+        if ( nextElement == END_OF_DATA ) {
+            exhausted = true;
+            return false;
+        }
+        if ( nextElement instanceof ProducerFailure ) {
+            exhausted = true;
+            final Throwable cause = ((ProducerFailure)nextElement).cause;
+            if ( cause instanceof RuntimeException ) {
+                throw (RuntimeException)cause;
+            }
+            if ( cause instanceof Error ) {
+                throw (Error)cause;
+            }
+            throw new GATKException("Error producing elements in " + producerThread.getName(), cause);
+        }
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T next() {
+        if ( ! hasNext() ) {
+            throw new NoSuchElementException("next() called when there were no more elements");
+        }
+        final T toReturn = (T)nextElement;
+        nextElement = null;
+        return toReturn;
+    }
+
+    /**
+     * Stop the background thread (if it is still running), discard any elements that have not been consumed, and
+     * wait for the background thread to exit.
+     */
+    @Override
+    public void close() {
+        if ( closed ) {
+            return;
+        }
+        closed = true;
+        exhausted = true;
+        nextElement = null;
+        queue.clear();
+
+        try {
+            producerThread.join();
+        } catch ( final InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new GATKException("Interrupted while waiting for " + producerThread.getName() + " to stop", e);
+        }
+    }
+
+    private static final class ProducerFailure {
+        private final Throwable cause;
+
+        private ProducerFailure(final Throwable cause) {
+            this.cause = cause;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package org.broadinstitute.hellbender.utils.iterators;
+
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SAMTag;
+import htsjdk.samtools.util.CloseableIterator;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wraps an iterator over the records of a single SAM/BAM/CRAM input, pulling records from it on a dedicated
+ * background thread so that decompression and decoding of the input overlap with the consumer's processing of the
+ * records already read. Records are fully decoded on the background thread (htsjdk decodes the variable-length fields
+ * of BAM records lazily, on first access), and handed over to the consumer in batches to keep synchronization cheap.
+ *
+ * Unlike {@link AsyncPrefetchingIterator}, closing this iterator never interrupts the background thread: interrupting
+ * a thread blocked on a file channel closes the channel, which would leave the underlying reader unusable. Instead,
+ * {@link #close} waits for the background thread to stop, and then closes the wrapped iterator, so that the reader can
+ * be used for subsequent iterations.
+ *
+ * Consumers that stop iterating before the wrapped iterator is exhausted must call {@link #close} to stop the
+ * background thread.
+ */
+public final class ReadAheadSAMRecordIterator implements CloseableIterator<SAMRecord> {
+
+    /**
+     * Number of records handed over to the consumer at a time.
+     */
+    static final int BATCH_SIZE = 128;
+
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+    private static final List<SAMRecord> END_OF_DATA = new ArrayList<>(0);
+
+    private final CloseableIterator<SAMRecord> wrappedIterator;
+    private final BlockingQueue<List<SAMRecord>> queue;
+    private final Thread producerThread;
+    private volatile boolean closed = false;
+    private volatile Throwable producerFailure = null;
+    private Iterator<SAMRecord> currentBatch = Collections.emptyIterator();
+    private boolean exhausted = false;
+
+    /**
+     * Start reading records in the background.
+     *
+     * @param wrappedIterator iterator over the records of a single input (may not be null). Must not be used by the
+     *                        caller once wrapped.
+     * @param maxRecordsAhead approximate maximum number of records to buffer ahead of the consumer (must be >= 1)
+     * @param threadName name of the background thread, for logging and debugging purposes (may not be null)
+     */
+    public ReadAheadSAMRecordIterator(final CloseableIterator<SAMRecord> wrappedIterator, final int maxRecordsAhead, final String threadName) {
+        Utils.nonNull(wrappedIterator);
+        Utils.validateArg(maxRecordsAhead >= 1, "maxRecordsAhead must be >= 1");
+        Utils.nonNull(threadName);
+
+        this.wrappedIterator = wrappedIterator;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, maxRecordsAhead / BATCH_SIZE));
+        this.producerThread = new Thread(this::produce, threadName);
+        this.producerThread.setDaemon(true);
+        this.producerThread.start();
+    }
+
+    private void produce() {
+        List<SAMRecord> batch = new ArrayList<>(BATCH_SIZE);
+        try {
+            while ( ! closed ) {
+                while ( batch.size() < BATCH_SIZE && wrappedIterator.hasNext() ) {
+                    batch.add(decode(wrappedIterator.next()));
+                }
+                if ( batch.isEmpty() || ! offer(batch) ) {
+                    break;
+                }
+                batch = new ArrayList<>(BATCH_SIZE);
+            }
+        } catch ( final Throwable t ) {
+            // hand over the records read before the failure first
+            if ( ! batch.isEmpty() ) {
+                offer(batch);
+            }
+            producerFailure = t;
+        }
+        offer(END_OF_DATA);
+    }
+
+    /**
+     * Hand a batch over to the consumer, giving up if the consumer closes this iterator in the meantime.
+     *
+     * @return true if the batch was queued, false if this iterator was closed
+     */
+    private boolean offer(final List<SAMRecord> batch) {
+        try {
+            while ( ! closed ) {
+                if ( queue.offer(batch, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS) ) {
+                    return true;
+                }
+            }
+        } catch ( final InterruptedException e ) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    /**
+     * Decode the lazily-decoded fields of a record on the current thread. A single attribute lookup decodes all of
+     * the record's tags.
+     */
+    private static SAMRecord decode(final SAMRecord record) {
+        record.getReadName();
+        record.getCigar();
+        record.getReadBases();
+        record.getBaseQualities();
+        record.getAttribute(SAMTag.RG.name());
+        return record;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while ( ! currentBatch.hasNext() ) {
+            if ( exhausted ) {
+                return false;
+            }
+
+            final List<SAMRecord> batch;
+            try {
+                batch = queue.take();
+            } catch ( final InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                throw new GATKException("Interrupted while waiting for records from " + producerThread.getName(), e);
+            }
+
+            if ( batch == END_OF_DATA ) {
+                exhausted = true;
+                final Throwable cause = producerFailure;
+                if ( cause instanceof RuntimeException ) {
+                    throw (RuntimeException)cause;
+                }
+                if ( cause instanceof Error ) {
+                    throw (Error)cause;
+                }
+                if ( cause != null ) {
+                    throw new GATKException("Error reading records in " + producerThread.getName(), cause);
+                }
+                return false;
+            }
+            currentBatch = batch.iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public SAMRecord next() {
+        if ( ! hasNext() ) {
+            throw new NoSuchElementException("next() called when there were no more records");
+        }
+        return currentBatch.next();
+    }
+
+    /**
+     * Stop the background thread (if it is still running), discard any records that have not been consumed, and close
+     * the wrapped iterator.
+     */
+    @Override
+    public void close() {
+        if ( closed ) {
+            return;
+        }
+        closed = true;
+        exhausted = true;
+        currentBatch = Collections.emptyIterator();
+        queue.clear();
+
+        try {
+            producerThread.join();
+        } catch ( final InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new GATKException("Interrupted while waiting for " + producerThread.getName() + " to stop", e);
+        }
+        wrappedIterator.close();
+    }
+}
@@ -30,6 +30,7 @@ public class AlignmentContextIteratorBuilder {
     private boolean isKeepUniqueReadListInLibs;
     private boolean isIncludeDeletions;
     private boolean isIncludeNs;
+    private boolean isBuildPileupColumns;
     private LIBSDownsamplingInfo downsamplingInfo;
 
     public boolean isEmitEmptyLoci() {
@@ -64,6 +65,14 @@ public class AlignmentContextIteratorBuilder {
         isIncludeNs = includeNs;
     }
 
+    public boolean isBuildPileupColumns() {
+        return isBuildPileupColumns;
+    }
+
+    public void setBuildPileupColumns(boolean buildPileupColumns) {
+        isBuildPileupColumns = buildPileupColumns;
+    }
+
     public LIBSDownsamplingInfo getDownsamplingInfo() {
         return downsamplingInfo;
     }
@@ -77,6 +86,7 @@ public class AlignmentContextIteratorBuilder {
         isKeepUniqueReadListInLibs = false;
         isIncludeDeletions = true;
         isIncludeNs = false;
+        isBuildPileupColumns = false;
         downsamplingInfo = LocusIteratorByState.NO_DOWNSAMPLING;
     }
 
@@ -95,7 +105,7 @@ public class AlignmentContextIteratorBuilder {
         Utils.nonNull(readIterator, "Read iterator cannot be null");
         final boolean isDefinitelyReference = (dictionary != null) && isReference ;
         return createAlignmentContextIterator(intervalsForTraversal, header, readIterator, dictionary, downsamplingInfo,
-                isDefinitelyReference, isEmitEmptyLoci, isKeepUniqueReadListInLibs, isIncludeDeletions, isIncludeNs);
+                isDefinitelyReference, isEmitEmptyLoci, isKeepUniqueReadListInLibs, isIncludeDeletions, isIncludeNs, isBuildPileupColumns);
     }
 
     /**
@@ -114,6 +124,7 @@ public class AlignmentContextIteratorBuilder {
      *                                       available via the transferReadsFromAllPreviousPileups interface (this parameter is specific to {@link LocusIteratorByState})
      * @param isIncludeDeletions include reads with deletion on the loci in question
      * @param isIncludeNs include reads with N on the loci in question
+     * @param isBuildPileupColumns build the columnar view of each pileup along with its elements (this parameter is specific to {@link LocusIteratorByState})
      * @return iterator that produces AlignmentContexts ready for consumption (e.g. by a {@link org.broadinstitute.hellbender.engine.LocusWalker})
      */
     private static Iterator<AlignmentContext> createAlignmentContextIterator(final List<SimpleInterval> intervalsForTraversal,
@@ -125,7 +136,8 @@ public class AlignmentContextIteratorBuilder {
                                                                                boolean emitEmptyLoci,
                                                                                boolean isKeepUniqueReadListInLibs,
                                                                                boolean isIncludeDeletions,
-                                                                               boolean isIncludeNs) {
+                                                                               boolean isIncludeNs,
+                                                                               boolean isBuildPileupColumns) {
 
         // get the samples from the read groups
         final Set<String> samples = header.getReadGroups().stream()
@@ -134,6 +146,7 @@ public class AlignmentContextIteratorBuilder {
 
         // get the LIBS
         final LocusIteratorByState libs = new LocusIteratorByState(readIterator, downsamplingInfo, isKeepUniqueReadListInLibs, samples, header, isIncludeDeletions, isIncludeNs);
+        libs.setBuildPileupColumns(isBuildPileupColumns);
 
         List<SimpleInterval> finalIntervals = intervalsForTraversal;
         validateEmitEmptyLociParameters(emitEmptyLoci, dictionary, intervalsForTraversal, isReference);
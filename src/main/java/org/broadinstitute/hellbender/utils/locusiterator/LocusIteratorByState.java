@@ -10,6 +10,7 @@ import org.broadinstitute.hellbender.engine.AlignmentContext;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.downsampling.DownsamplingMethod;
+import org.broadinstitute.hellbender.utils.pileup.PileupColumns;
 import org.broadinstitute.hellbender.utils.pileup.PileupElement;
 import org.broadinstitute.hellbender.utils.pileup.ReadPileup;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
@@ -78,6 +79,11 @@ public final class LocusIteratorByState implements Iterator<AlignmentContext> {
      */
     private final boolean includeReadsWithNsAtLoci;
 
+    /**
+     * Should we build the columnar view of each pileup (see {@link PileupColumns}) along with its elements?
+     */
+    private boolean buildPileupColumns = false;
+
     /**
      * The next alignment context.  A non-null value means that a
      * context is waiting from hasNext() for sending off to the next next() call.  A null
@@ -226,6 +232,16 @@ public final class LocusIteratorByState implements Iterator<AlignmentContext> {
         this.readStates = new ReadStateManager(samIterator, this.samples, downsamplingInfo, keepUniqueReadListInLIBS, header);
     }
 
+    /**
+     * Build the columnar view of each pileup (see {@link ReadPileup#getColumns()}) as the pileup is built, for
+     * consumers that will use it at (nearly) every locus. Otherwise, the columns are built on request.
+     *
+     * @param buildPileupColumns true to build the columns of each pileup along with its elements
+     */
+    public void setBuildPileupColumns(final boolean buildPileupColumns) {
+        this.buildPileupColumns = buildPileupColumns;
+    }
+
     /**
      * Get the current location (i.e., the bp of the center of the pileup) of the pileup, or null if not anywhere yet
      *
@@ -321,6 +337,7 @@ public final class LocusIteratorByState implements Iterator<AlignmentContext> {
             // when we construct the final ReadPileup below. This optimization speeds up the
             // HaplotypeCaller by quite a bit!
             final List<PileupElement> allPileupElements = new ArrayList<>(100);
+            final PileupColumns.Builder columnsBuilder = buildPileupColumns ? new PileupColumns.Builder(100) : null;
 
             for (final Map.Entry<String, PerSampleReadStateManager> sampleStatePair : readStates) {
                 final PerSampleReadStateManager readState = sampleStatePair.getValue();
@@ -341,14 +358,21 @@ public final class LocusIteratorByState implements Iterator<AlignmentContext> {
                             continue;
                         }
 
-                        allPileupElements.add(state.makePileupElement());
+                        final PileupElement element = state.makePileupElement();
+                        allPileupElements.add(element);
+                        if (columnsBuilder != null) {
+                            columnsBuilder.add(element);
+                        }
                     }
                 }
             }
 
             readStates.updateReadStates(); // critical - must be called after we get the current state offsets and location
             if (!allPileupElements.isEmpty()) { // if we got reads with non-D/N over the current position, we are done
-                nextAlignmentContext = new AlignmentContext(location, new ReadPileup(location, allPileupElements));
+                final ReadPileup pileup = columnsBuilder != null ?
+                        new ReadPileup(location, allPileupElements, columnsBuilder.build()) :
+                        new ReadPileup(location, allPileupElements);
+                nextAlignmentContext = new AlignmentContext(location, pileup);
             }
         }
     }
@@ -0,0 +1,252 @@
+package org.broadinstitute.hellbender.utils.pairhmm;
+
+import org.broadinstitute.hellbender.utils.QualityUtils;
+
+import static org.broadinstitute.hellbender.utils.pairhmm.PairHMMModel.*;
+
+/**
+ * Single-precision version of {@link LoglessPairHMM}, which halves the memory traffic of the matrices.
+ *
+ * As in the native AVX implementation, each read x haplotype likelihood is first computed in single precision, and
+ * recomputed with the double-precision {@link LoglessPairHMM} if the single-precision result is too small to be
+ * trusted (which happens for long reads that match the haplotype poorly, as single-precision values underflow).
+ *
+ * In validation mode, every likelihood is also computed with the {@link Log10PairHMM} EXACT implementation, and the
+ * likelihoods that differ by more than {@link #VALIDATION_TOLERANCE} are reported. This is meant for assessing the
+ * accuracy of the single-precision implementation, and is much slower than any other implementation.
+ */
+public final class FloatLoglessPairHMM extends LoglessPairHMM {
+    static final float FLOAT_INITIAL_CONDITION = (float)Math.pow(2, 120);
+    static final double FLOAT_INITIAL_CONDITION_LOG10 = Math.log10(FLOAT_INITIAL_CONDITION);
+
+    /**
+     * Single-precision sums of the final row below this value are recomputed in double precision.
+     * This is the same threshold as in the native AVX implementation.
+     */
+    static final float MIN_ACCEPTED = 1e-28f;
+
+    /**
+     * Maximum difference (in log10 units) with the EXACT implementation that is not reported in validation mode.
+     */
+    public static final double VALIDATION_TOLERANCE = 1e-3;
+
+    private static final int MAX_REPORTED_VALIDATION_FAILURES = 10;
+
+    private float[][] floatTransition = null;
+    private float[][] floatPrior = null;
+    private float[][] floatMatchMatrix = null;
+    private float[][] floatInsertionMatrix = null;
+    private float[][] floatDeletionMatrix = null;
+
+    // state of the single-precision matrices, tracked separately because the double-precision fallback does not update them
+    private boolean floatConstantsAreInitialized = false;
+    private boolean floatMatricesAreCurrent = false;
+    private int floatHaplotypeLength = -1;
+
+    private final Log10PairHMM validationHMM;
+
+    private long numberOfLikelihoods = 0;
+    private long numberOfDoublePrecisionLikelihoods = 0;
+    private long numberOfValidationFailures = 0;
+    private double maxValidationDifference = 0.0;
+
+    /**
+     * Create an uninitialized single-precision PairHMM
+     *
+     * @param validate should every likelihood be compared to the one computed by the EXACT implementation?
+     */
+    public FloatLoglessPairHMM(final boolean validate) {
+        this.validationHMM = validate ? new Log10PairHMM(true) : null;
+    }
+
+    @Override
+    public void doNotUseTristateCorrection() {
+        super.doNotUseTristateCorrection();
+        if (validationHMM != null) {
+            validationHMM.doNotUseTristateCorrection();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void initialize( final int readMaxLength, final int haplotypeMaxLength ) {
+        super.initialize(readMaxLength, haplotypeMaxLength);
+
+        floatMatchMatrix = new float[paddedMaxReadLength][paddedMaxHaplotypeLength];
+        floatInsertionMatrix = new float[paddedMaxReadLength][paddedMaxHaplotypeLength];
+        floatDeletionMatrix = new float[paddedMaxReadLength][paddedMaxHaplotypeLength];
+        floatPrior = new float[paddedMaxReadLength][paddedMaxHaplotypeLength];
+        floatTransition = new float[paddedMaxReadLength][TRANS_PROB_ARRAY_LENGTH];
+
+        floatConstantsAreInitialized = false;
+        floatMatricesAreCurrent = false;
+        floatHaplotypeLength = -1;
+
+        if (validationHMM != null) {
+            validationHMM.initialize(readMaxLength, haplotypeMaxLength);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double subComputeReadLikelihoodGivenHaplotypeLog10( final byte[] haplotypeBases,
+                                                               final byte[] readBases,
+                                                               final byte[] readQuals,
+                                                               final byte[] insertionGOP,
+                                                               final byte[] deletionGOP,
+                                                               final byte[] overallGCP,
+                                                               final int hapStartIndex,
+                                                               final boolean recacheReadValues,
+                                                               final int nextHapStartIndex) {
+        numberOfLikelihoods++;
+        // columns before hapStartIndex can only be reused if they were computed in single precision for this read
+        final int floatHapStartIndex = floatMatricesAreCurrent && !recacheReadValues ? hapStartIndex : 0;
+        final float finalSumProbabilities = computeFloatFinalSumProbabilities(haplotypeBases, readBases, readQuals,
+                insertionGOP, deletionGOP, overallGCP, floatHapStartIndex, recacheReadValues);
+
+        final double result;
+        if (finalSumProbabilities < MIN_ACCEPTED) {
+            numberOfDoublePrecisionLikelihoods++;
+            floatMatricesAreCurrent = false;
+            // the double-precision matrices were not kept up to date, so recompute everything from scratch
+            previousHaplotypeBases = null;
+            result = super.subComputeReadLikelihoodGivenHaplotypeLog10(haplotypeBases, readBases, readQuals,
+                    insertionGOP, deletionGOP, overallGCP, 0, true, nextHapStartIndex);
+        } else {
+            floatMatricesAreCurrent = true;
+            result = Math.log10(finalSumProbabilities) - FLOAT_INITIAL_CONDITION_LOG10;
+        }
+
+        if (validationHMM != null) {
+            validate(result, haplotypeBases, readBases, readQuals, insertionGOP, deletionGOP, overallGCP);
+        }
+        return result;
+    }
+
+    private float computeFloatFinalSumProbabilities( final byte[] haplotypeBases,
+                                                     final byte[] readBases,
+                                                     final byte[] readQuals,
+                                                     final byte[] insertionGOP,
+                                                     final byte[] deletionGOP,
+                                                     final byte[] overallGCP,
+                                                     final int hapStartIndex,
+                                                     final boolean recacheReadValues) {
+        if (floatHaplotypeLength != haplotypeBases.length) {
+            final float initialValue = FLOAT_INITIAL_CONDITION / haplotypeBases.length;
+            // set the initial value (free deletions in the beginning) for the first row in the deletion matrix
+            for( int j = 0; j < paddedHaplotypeLength; j++ ) {
+                floatDeletionMatrix[0][j] = initialValue;
+            }
+            floatHaplotypeLength = haplotypeBases.length;
+        }
+
+        if ( ! floatConstantsAreInitialized || recacheReadValues ) {
+            initializeFloatProbabilities(insertionGOP, deletionGOP, overallGCP);
+            floatConstantsAreInitialized = true;
+        }
+
+        initializeFloatPriors(haplotypeBases, readBases, readQuals, hapStartIndex);
+
+        for (int i = 1; i < paddedReadLength; i++) {
+            final float[] transitionI = floatTransition[i];
+            // +1 here is because hapStartIndex is 0-based, but our matrices are 1 based
+            for (int j = hapStartIndex+1; j < paddedHaplotypeLength; j++) {
+                floatMatchMatrix[i][j] = floatPrior[i][j] * ( floatMatchMatrix[i - 1][j - 1] * transitionI[matchToMatch] +
+                        floatInsertionMatrix[i - 1][j - 1] * transitionI[indelToMatch] +
+                        floatDeletionMatrix[i - 1][j - 1] * transitionI[indelToMatch] );
+                floatInsertionMatrix[i][j] = floatMatchMatrix[i - 1][j] * transitionI[matchToInsertion] + floatInsertionMatrix[i - 1][j] * transitionI[insertionToInsertion];
+                floatDeletionMatrix[i][j] = floatMatchMatrix[i][j - 1] * transitionI[matchToDeletion] + floatDeletionMatrix[i][j - 1] * transitionI[deletionToDeletion];
+            }
+        }
+
+        final int endI = paddedReadLength - 1;
+        float finalSumProbabilities = 0.0f;
+        for (int j = 1; j < paddedHaplotypeLength; j++) {
+            finalSumProbabilities += floatMatchMatrix[endI][j] + floatInsertionMatrix[endI][j];
+        }
+        return finalSumProbabilities;
+    }
+
+    private void initializeFloatPriors(final byte[] haplotypeBases, final byte[] readBases, final byte[] readQuals, final int startIndex) {
+        for (int i = 0; i < readBases.length; i++) {
+            final byte x = readBases[i];
+            final byte qual = readQuals[i];
+            final float matchPrior = (float) QualityUtils.qualToProb(qual);
+            final float mismatchPrior = (float) (QualityUtils.qualToErrorProb(qual) / (doNotUseTristateCorrection ? 1.0 : TRISTATE_CORRECTION));
+            for (int j = startIndex; j < haplotypeBases.length; j++) {
+                final byte y = haplotypeBases[j];
+                floatPrior[i+1][j+1] = x == y || x == (byte) 'N' || y == (byte) 'N' ? matchPrior : mismatchPrior;
+            }
+        }
+    }
+
+    private void initializeFloatProbabilities(final byte[] insertionGOP, final byte[] deletionGOP, final byte[] overallGCP) {
+        initializeProbabilities(transition, insertionGOP, deletionGOP, overallGCP);
+        for (int i = 1; i <= insertionGOP.length; i++) {
+            for (int k = 0; k < TRANS_PROB_ARRAY_LENGTH; k++) {
+                floatTransition[i][k] = (float) transition[i][k];
+            }
+        }
+    }
+
+    private void validate(final double result, final byte[] haplotypeBases, final byte[] readBases, final byte[] readQuals,
+                          final byte[] insertionGOP, final byte[] deletionGOP, final byte[] overallGCP) {
+        final double exactResult = validationHMM.computeReadLikelihoodGivenHaplotypeLog10(haplotypeBases, readBases,
+                readQuals, insertionGOP, deletionGOP, overallGCP, true, null);
+        final double difference = Math.abs(result - exactResult);
+        maxValidationDifference = Math.max(maxValidationDifference, difference);
+        if (difference > VALIDATION_TOLERANCE) {
+            if (numberOfValidationFailures < MAX_REPORTED_VALIDATION_FAILURES) {
+                logger.warn(String.format("Single-precision PairHMM likelihood %f differs from the EXACT likelihood %f for haplotype %s and read %s",
+                        result, exactResult, new String(haplotypeBases), new String(readBases)));
+            }
+            numberOfValidationFailures++;
+        }
+    }
+
+    /**
+     * @return the number of likelihoods computed so far
+     */
+    public long getNumberOfLikelihoods() {
+        return numberOfLikelihoods;
+    }
+
+    /**
+     * @return the number of likelihoods computed so far that had to be recomputed in double precision
+     */
+    public long getNumberOfDoublePrecisionLikelihoods() {
+        return numberOfDoublePrecisionLikelihoods;
+    }
+
+    /**
+     * @return in validation mode, the number of likelihoods computed so far that differ from the EXACT likelihoods
+     *         by more than {@link #VALIDATION_TOLERANCE}. Always 0 when not in validation mode.
+     */
+    public long getNumberOfValidationFailures() {
+        return numberOfValidationFailures;
+    }
+
+    /**
+     * @return in validation mode, the maximum difference with the EXACT likelihoods seen so far (in log10 units).
+     *         Always 0 when not in validation mode.
+     */
+    public double getMaxValidationDifference() {
+        return maxValidationDifference;
+    }
+
+    @Override
+    public void close() {
+        if (numberOfLikelihoods > 0) {
+            logger.info(String.format("Recomputed %d of %d PairHMM likelihoods in double precision", numberOfDoublePrecisionLikelihoods, numberOfLikelihoods));
+        }
+        if (validationHMM != null) {
+            logger.info(String.format("%d of %d PairHMM likelihoods differed from the EXACT likelihoods by more than %s (maximum difference %g)",
+                    numberOfValidationFailures, numberOfLikelihoods, VALIDATION_TOLERANCE, maxValidationDifference));
+        }
+        super.close();
+    }
+}
@@ -51,6 +51,30 @@ public abstract class PairHMM implements Closeable{
             logger.info("Using the non-hardware-accelerated Java LOGLESS_CACHING PairHMM implementation");
             return hmm;
         }),
+        /* Single-precision version of LOGLESS_CACHING, recomputing likelihoods in double precision when the single-precision result underflows */
+        FLOAT_LOGLESS_CACHING(args -> {
+            final FloatLoglessPairHMM hmm = new FloatLoglessPairHMM(false);
+            logger.info("Using the non-hardware-accelerated Java single-precision FLOAT_LOGLESS_CACHING PairHMM implementation");
+            return hmm;
+        }),
+        /* FLOAT_LOGLESS_CACHING that also computes every likelihood with EXACT and reports the differences. Only meant to be used for validating FLOAT_LOGLESS_CACHING */
+        FLOAT_LOGLESS_CACHING_VALIDATION(args -> {
+            final FloatLoglessPairHMM hmm = new FloatLoglessPairHMM(true);
+            logger.info("Using the non-hardware-accelerated Java single-precision FLOAT_LOGLESS_CACHING PairHMM implementation, validated against the EXACT implementation");
+            return hmm;
+        }),
+        /* LOGLESS_CACHING evaluating the haplotypes in trie order, so that matrix columns for prefixes shared between haplotypes are computed only once per read. Gives the same results as LOGLESS_CACHING */
+        TRIE_LOGLESS_CACHING(args -> {
+            final TrieLoglessPairHMM hmm = new TrieLoglessPairHMM();
+            logger.info("Using the non-hardware-accelerated Java TRIE_LOGLESS_CACHING PairHMM implementation");
+            return hmm;
+        }),
+        /* LOGLESS_CACHING with the reads of each sample split across a pool of Java threads, sized by the native PairHMM thread count. Gives the same results as LOGLESS_CACHING */
+        PARALLEL_LOGLESS_CACHING(args -> {
+            final ParallelLoglessPairHMM hmm = new ParallelLoglessPairHMM(args.maxNumberOfThreads);
+            logger.info("Using the non-hardware-accelerated Java LOGLESS_CACHING PairHMM implementation with " + hmm.getNumberOfThreads() + " threads");
+            return hmm;
+        }),
         /* Optimized AVX implementation of LOGLESS_CACHING called through JNI. Throws if AVX is not available */
         AVX_LOGLESS_CACHING(args -> {
             // Constructor will throw a UserException if AVX is not available
@@ -177,7 +201,7 @@ public abstract class PairHMM implements Closeable{
         initialize(readMaxLength, haplotypeMaxLength);
     }
 
-    private static int findMaxAlleleLength(final List<? extends Allele> alleles) {
+    static int findMaxAlleleLength(final List<? extends Allele> alleles) {
         int max = 0;
         for (final Allele allele : alleles) {
             final int alleleLength = allele.length();
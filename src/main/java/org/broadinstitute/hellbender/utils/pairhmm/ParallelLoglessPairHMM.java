@@ -0,0 +1,157 @@
+package org.broadinstitute.hellbender.utils.pairhmm;
+
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.genotyper.LikelihoodMatrix;
+import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.ReadUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Multi-threaded version of {@link LoglessPairHMM} for machines without the hardware support needed by the native
+ * implementations.
+ *
+ * {@link #computeLog10Likelihoods} splits the reads into ranges that are evaluated against all haplotypes on a
+ * dedicated {@link ForkJoinPool}. Each pool thread uses its own {@link LoglessPairHMM}, and the likelihood of a read
+ * does not depend on which thread computed it or on the reads that thread computed before, so the results are
+ * identical to those of {@link LoglessPairHMM} regardless of the number of threads.
+ */
+public final class ParallelLoglessPairHMM extends LoglessPairHMM {
+
+    /**
+     * Read ranges are split until they hold no more than this many read x haplotype pairs, to amortize the
+     * task overhead over a reasonable amount of work.
+     */
+    static final int MAX_PAIRS_PER_TASK = 16;
+
+    private final ForkJoinPool pool;
+
+    // Each pool thread gets its own HMM, as the HMM matrices are overwritten for every read x haplotype pair
+    private final ThreadLocal<LoglessPairHMM> threadLocalHMM = ThreadLocal.withInitial(LoglessPairHMM::new);
+
+    /**
+     * @param numberOfThreads number of threads used to compute the likelihoods of each {@link LikelihoodMatrix} (must be >= 1)
+     */
+    public ParallelLoglessPairHMM(final int numberOfThreads) {
+        Utils.validateArg(numberOfThreads >= 1, () -> "numberOfThreads must be >= 1 but got " + numberOfThreads);
+        this.pool = new ForkJoinPool(numberOfThreads, pool -> {
+            final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("pair-hmm-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+    }
+
+    /**
+     * @return the number of threads used to compute likelihoods
+     */
+    public int getNumberOfThreads() {
+        return pool.getParallelism();
+    }
+
+    @Override
+    public void computeLog10Likelihoods(final LikelihoodMatrix<Haplotype> logLikelihoods,
+                                       final List<GATKRead> processedReads,
+                                       final Map<GATKRead, byte[]> gcp) {
+        if (processedReads.isEmpty()) {
+            return;
+        }
+        if (doProfiling) {
+            startTime = System.nanoTime();
+        }
+
+        final List<Haplotype> alleles = logLikelihoods.alleles();
+        mLogLikelihoodArray = new double[processedReads.size() * alleles.size()];
+        pool.invoke(new ReadRangeTask(logLikelihoods, processedReads, gcp, findMaxReadLength(processedReads),
+                findMaxAlleleLength(alleles), 0, processedReads.size()));
+
+        if (doProfiling) {
+            threadLocalPairHMMComputeTimeDiff = (System.nanoTime() - startTime);
+            pairHMMComputeTime += threadLocalPairHMMComputeTimeDiff;
+        }
+    }
+
+    /**
+     * Shuts down the thread pool, in addition to the work done by {@link PairHMM#close}.
+     */
+    @Override
+    public void close() {
+        pool.shutdownNow();
+        super.close();
+    }
+
+    /**
+     * Computes the likelihoods of a contiguous range of reads against all haplotypes, splitting the range in halves
+     * while it holds more than {@link #MAX_PAIRS_PER_TASK} read x haplotype pairs.
+     */
+    private final class ReadRangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final LikelihoodMatrix<Haplotype> logLikelihoods;
+        private final List<GATKRead> processedReads;
+        private final Map<GATKRead, byte[]> gcp;
+        private final int readMaxLength;
+        private final int haplotypeMaxLength;
+        private final int fromReadIndex;
+        private final int toReadIndex;
+
+        private ReadRangeTask(final LikelihoodMatrix<Haplotype> logLikelihoods, final List<GATKRead> processedReads,
+                              final Map<GATKRead, byte[]> gcp, final int readMaxLength, final int haplotypeMaxLength,
+                              final int fromReadIndex, final int toReadIndex) {
+            this.logLikelihoods = logLikelihoods;
+            this.processedReads = processedReads;
+            this.gcp = gcp;
+            this.readMaxLength = readMaxLength;
+            this.haplotypeMaxLength = haplotypeMaxLength;
+            this.fromReadIndex = fromReadIndex;
+            this.toReadIndex = toReadIndex;
+        }
+
+        @Override
+        protected void compute() {
+            final int readCount = toReadIndex - fromReadIndex;
+            if (readCount == 1 || readCount * logLikelihoods.alleles().size() <= MAX_PAIRS_PER_TASK) {
+                computeReadRange();
+            } else {
+                final int midReadIndex = fromReadIndex + readCount / 2;
+                invokeAll(new ReadRangeTask(logLikelihoods, processedReads, gcp, readMaxLength, haplotypeMaxLength, fromReadIndex, midReadIndex),
+                          new ReadRangeTask(logLikelihoods, processedReads, gcp, readMaxLength, haplotypeMaxLength, midReadIndex, toReadIndex));
+            }
+        }
+
+        private void computeReadRange() {
+            final LoglessPairHMM hmm = threadLocalHMM.get();
+            if (doNotUseTristateCorrection) {
+                hmm.doNotUseTristateCorrection();
+            }
+            // (re)initialize this thread's pairHMM only if necessary
+            if (!hmm.initialized || readMaxLength > hmm.maxReadLength || haplotypeMaxLength > hmm.maxHaplotypeLength) {
+                hmm.initialize(readMaxLength, haplotypeMaxLength);
+            }
+
+            final List<Haplotype> alleles = logLikelihoods.alleles();
+            final int alleleCount = alleles.size();
+            for (int readIndex = fromReadIndex; readIndex < toReadIndex; readIndex++) {
+                final GATKRead read = processedReads.get(readIndex);
+                final byte[] readBases = read.getBases();
+                final byte[] readQuals = read.getBaseQualities();
+                final byte[] readInsQuals = ReadUtils.getBaseInsertionQualities(read);
+                final byte[] readDelQuals = ReadUtils.getBaseDeletionQualities(read);
+                final byte[] overallGCP = gcp.get(read);
+
+                for (int a = 0; a < alleleCount; a++) {
+                    final byte[] alleleBases = alleles.get(a).getBases();
+                    final byte[] nextAlleleBases = a == alleleCount - 1 ? null : alleles.get(a + 1).getBases();
+                    final double lk = hmm.computeReadLikelihoodGivenHaplotypeLog10(alleleBases,
+                            readBases, readQuals, readInsQuals, readDelQuals, overallGCP, true, nextAlleleBases);
+                    logLikelihoods.set(a, readIndex, lk);
+                    mLogLikelihoodArray[readIndex * alleleCount + a] = lk;
+                }
+            }
+        }
+    }
+}
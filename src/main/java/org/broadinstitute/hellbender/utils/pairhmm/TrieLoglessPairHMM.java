@@ -0,0 +1,141 @@
+package org.broadinstitute.hellbender.utils.pairhmm;
+
+import org.broadinstitute.hellbender.utils.genotyper.LikelihoodMatrix;
+import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.ReadUtils;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Version of {@link LoglessPairHMM} that maximizes the reuse of matrix columns between haplotypes that share a prefix.
+ *
+ * {@link #computeLog10Likelihoods} evaluates each read against the haplotypes in trie order (grouped by length, and
+ * sorted lexicographically within each group), so that consecutive haplotypes share the longest possible prefix. The
+ * matrix columns for a shared prefix are identical for both haplotypes, so only the columns after the first differing
+ * base are recomputed. Haplotypes of different lengths never share columns, because the initial conditions depend on
+ * the haplotype length.
+ *
+ * Every computed cell goes through exactly the same arithmetic as in {@link LoglessPairHMM}, so the likelihoods are
+ * identical to those of {@link LoglessPairHMM}.
+ */
+public final class TrieLoglessPairHMM extends LoglessPairHMM {
+
+    private long cellsComputed = 0;
+    private long cellsSkipped = 0;
+
+    @Override
+    public void computeLog10Likelihoods(final LikelihoodMatrix<Haplotype> logLikelihoods,
+                                       final List<GATKRead> processedReads,
+                                       final Map<GATKRead, byte[]> gcp) {
+        if (processedReads.isEmpty()) {
+            return;
+        }
+        if (doProfiling) {
+            startTime = System.nanoTime();
+        }
+        // (re)initialize the pairHMM only if necessary
+        final List<Haplotype> alleles = logLikelihoods.alleles();
+        final int readMaxLength = findMaxReadLength(processedReads);
+        final int haplotypeMaxLength = findMaxAlleleLength(alleles);
+        if (!initialized || readMaxLength > maxReadLength || haplotypeMaxLength > maxHaplotypeLength) {
+            initialize(readMaxLength, haplotypeMaxLength);
+        }
+
+        final int alleleCount = alleles.size();
+        final byte[][] alleleBases = alleles.stream().map(Haplotype::getBases).toArray(byte[][]::new);
+        final int[] trieOrder = trieOrder(alleleBases);
+        final int[] sharedPrefixLengths = sharedPrefixLengths(alleleBases, trieOrder);
+
+        mLogLikelihoodArray = new double[processedReads.size() * alleleCount];
+        int readIndex = 0;
+        for (final GATKRead read : processedReads) {
+            final byte[] readBases = read.getBases();
+            final byte[] readQuals = read.getBaseQualities();
+            final byte[] readInsQuals = ReadUtils.getBaseInsertionQualities(read);
+            final byte[] readDelQuals = ReadUtils.getBaseDeletionQualities(read);
+            final byte[] overallGCP = gcp.get(read);
+
+            for (int i = 0; i < alleleCount; i++) {
+                final int a = trieOrder[i];
+                final boolean isFirstHaplotype = i == 0;
+                // the columns for the prefix shared with the previous haplotype are still in the matrices
+                final int startIndex = isFirstHaplotype ? 0 : sharedPrefixLengths[i];
+                hapStartIndex = startIndex;
+                final double lk = computeReadLikelihoodGivenHaplotypeLog10(alleleBases[a],
+                        readBases, readQuals, readInsQuals, readDelQuals, overallGCP, isFirstHaplotype, null);
+                logLikelihoods.set(a, readIndex, lk);
+                mLogLikelihoodArray[readIndex * alleleCount + a] = lk;
+
+                cellsSkipped += (long) readBases.length * startIndex;
+                cellsComputed += (long) readBases.length * (alleleBases[a].length - startIndex);
+            }
+            readIndex++;
+        }
+        if (doProfiling) {
+            threadLocalPairHMMComputeTimeDiff = (System.nanoTime() - startTime);
+            pairHMMComputeTime += threadLocalPairHMMComputeTimeDiff;
+        }
+    }
+
+    /**
+     * @return the indices of the given haplotypes sorted by length, and lexicographically within haplotypes of the same length
+     */
+    static int[] trieOrder(final byte[][] haplotypeBases) {
+        final Comparator<Integer> byLength = Comparator.comparingInt(i -> haplotypeBases[i].length);
+        return IntStream.range(0, haplotypeBases.length).boxed()
+                .sorted(byLength.thenComparing((i, j) -> compareBases(haplotypeBases[i], haplotypeBases[j])))
+                .mapToInt(Integer::intValue).toArray();
+    }
+
+    private static int compareBases(final byte[] bases1, final byte[] bases2) {
+        for (int i = 0; i < bases1.length && i < bases2.length; i++) {
+            if (bases1[i] != bases2[i]) {
+                return Byte.compare(bases1[i], bases2[i]);
+            }
+        }
+        return Integer.compare(bases1.length, bases2.length);
+    }
+
+    /**
+     * @return for each haplotype in {@code order}, the length of the prefix it shares with the preceding haplotype,
+     *         or 0 if it is the first haplotype or has a different length than the preceding haplotype
+     */
+    private static int[] sharedPrefixLengths(final byte[][] haplotypeBases, final int[] order) {
+        final int[] result = new int[order.length];
+        for (int i = 1; i < order.length; i++) {
+            final byte[] previous = haplotypeBases[order[i - 1]];
+            final byte[] current = haplotypeBases[order[i]];
+            result[i] = previous.length != current.length || current.length == 0 ? 0 : findFirstPositionWhereHaplotypesDiffer(previous, current);
+        }
+        return result;
+    }
+
+    /**
+     * @return the number of read x haplotype matrix cells computed so far by {@link #computeLog10Likelihoods}
+     */
+    public long getNumberOfCellsComputed() {
+        return cellsComputed;
+    }
+
+    /**
+     * @return the number of read x haplotype matrix cells that {@link #computeLog10Likelihoods} did not need to compute
+     *         so far, because they belonged to a prefix shared with the previous haplotype
+     */
+    public long getNumberOfCellsSkipped() {
+        return cellsSkipped;
+    }
+
+    @Override
+    public void close() {
+        final long totalCells = cellsComputed + cellsSkipped;
+        if (totalCells > 0) {
+            logger.info(String.format("Skipped %d of %d PairHMM cells (%.2f%%) by reusing shared haplotype prefixes",
+                    cellsSkipped, totalCells, 100.0 * cellsSkipped / totalCells));
+        }
+        super.close();
+    }
+}
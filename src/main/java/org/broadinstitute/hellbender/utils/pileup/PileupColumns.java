@@ -0,0 +1,218 @@
+package org.broadinstitute.hellbender.utils.pileup;
+
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Columnar view of a {@link ReadPileup}: the bases, base qualities, mapping qualities, read offsets and flags of the
+ * elements of the pileup, each in a primitive array indexed by the position of the element in the pileup.
+ *
+ * Code that only needs these values (for example, to count bases passing a quality threshold) can loop over the
+ * arrays instead of calling into each {@link PileupElement} and its read.
+ *
+ * The values are captured when the columns are built: changes made to the reads afterwards (for example, by
+ * {@link ReadPileup#fixOverlaps()}) are not reflected. The arrays returned by the getters are the backing arrays of
+ * this object, and must not be modified.
+ */
+public final class PileupColumns {
+
+    /** Flag set for elements that are deletions. */
+    public static final byte DELETION = 1;
+
+    /** Flag set for elements whose read is on the reverse strand. */
+    public static final byte REVERSE_STRAND = 1 << 1;
+
+    /** Flag set for elements immediately before the start of a deletion. */
+    public static final byte BEFORE_DELETION = 1 << 2;
+
+    /** Flag set for elements immediately before an insertion. */
+    public static final byte BEFORE_INSERTION = 1 << 3;
+
+    private static final PileupColumns EMPTY = new Builder(0).build();
+
+    private final List<GATKRead> reads;
+    private final byte[] bases;
+    private final byte[] baseQuals;
+    private final int[] mappingQuals;
+    private final int[] offsets;
+    private final byte[] flags;
+
+    private PileupColumns(final List<GATKRead> reads, final byte[] bases, final byte[] baseQuals,
+                          final int[] mappingQuals, final int[] offsets, final byte[] flags) {
+        this.reads = reads;
+        this.bases = bases;
+        this.baseQuals = baseQuals;
+        this.mappingQuals = mappingQuals;
+        this.offsets = offsets;
+        this.flags = flags;
+    }
+
+    /**
+     * Build the columns of the given pileup elements.
+     */
+    public static PileupColumns of(final List<PileupElement> elements) {
+        Utils.nonNull(elements);
+        if (elements.isEmpty()) {
+            return EMPTY;
+        }
+        final Builder builder = new Builder(elements.size());
+        for (final PileupElement element : elements) {
+            builder.add(element);
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return the number of elements in the pileup
+     */
+    public int size() {
+        return bases.length;
+    }
+
+    /**
+     * @return the read of the i-th element
+     */
+    public GATKRead getRead(final int i) {
+        return reads.get(i);
+    }
+
+    /**
+     * @return the bases of the elements, with {@link PileupElement#DELETION_BASE} for deletions
+     */
+    public byte[] getBases() {
+        return bases;
+    }
+
+    /**
+     * @return the base qualities of the elements, with {@link PileupElement#DELETION_QUAL} for deletions
+     */
+    public byte[] getBaseQuals() {
+        return baseQuals;
+    }
+
+    /**
+     * @return the mapping qualities of the reads of the elements
+     */
+    public int[] getMappingQuals() {
+        return mappingQuals;
+    }
+
+    /**
+     * @return the offsets of the elements into their reads
+     */
+    public int[] getOffsets() {
+        return offsets;
+    }
+
+    /**
+     * @return the flags of the elements, as a combination of {@link #DELETION}, {@link #REVERSE_STRAND},
+     * {@link #BEFORE_DELETION} and {@link #BEFORE_INSERTION}
+     */
+    public byte[] getFlags() {
+        return flags;
+    }
+
+    /**
+     * @return true if the i-th element is a deletion
+     */
+    public boolean isDeletion(final int i) {
+        return (flags[i] & DELETION) != 0;
+    }
+
+    /**
+     * @return true if the read of the i-th element is on the reverse strand
+     */
+    public boolean isReverseStrand(final int i) {
+        return (flags[i] & REVERSE_STRAND) != 0;
+    }
+
+    /**
+     * Accumulates the columns of a pileup one element at a time, as the pileup is built.
+     */
+    public static final class Builder {
+        private final List<GATKRead> reads;
+        private byte[] bases;
+        private byte[] baseQuals;
+        private int[] mappingQuals;
+        private int[] offsets;
+        private byte[] flags;
+        private int size = 0;
+
+        /**
+         * @param expectedSize expected number of elements in the pileup (the builder grows as needed beyond it)
+         */
+        public Builder(final int expectedSize) {
+            Utils.validateArg(expectedSize >= 0, "expectedSize must be >= 0");
+            reads = new ArrayList<>(expectedSize);
+            bases = new byte[expectedSize];
+            baseQuals = new byte[expectedSize];
+            mappingQuals = new int[expectedSize];
+            offsets = new int[expectedSize];
+            flags = new byte[expectedSize];
+        }
+
+        /**
+         * Append an element to the columns.
+         */
+        public Builder add(final PileupElement element) {
+            Utils.nonNull(element);
+            if (size == bases.length) {
+                grow();
+            }
+
+            final GATKRead read = element.getRead();
+            final boolean isDeletion = element.isDeletion();
+            final int offset = element.getOffset();
+            byte elementFlags = 0;
+            if (isDeletion) {
+                elementFlags |= DELETION;
+            }
+            if (read.isReverseStrand()) {
+                elementFlags |= REVERSE_STRAND;
+            }
+            if (element.isBeforeDeletionStart()) {
+                elementFlags |= BEFORE_DELETION;
+            }
+            if (element.isBeforeInsertion()) {
+                elementFlags |= BEFORE_INSERTION;
+            }
+
+            reads.add(read);
+            bases[size] = isDeletion ? PileupElement.DELETION_BASE : read.getBase(offset);
+            baseQuals[size] = isDeletion ? PileupElement.DELETION_QUAL : read.getBaseQuality(offset);
+            mappingQuals[size] = read.getMappingQuality();
+            offsets[size] = offset;
+            flags[size] = elementFlags;
+            size++;
+            return this;
+        }
+
+        private void grow() {
+            final int newCapacity = Math.max(16, 2 * bases.length);
+            bases = Arrays.copyOf(bases, newCapacity);
+            baseQuals = Arrays.copyOf(baseQuals, newCapacity);
+            mappingQuals = Arrays.copyOf(mappingQuals, newCapacity);
+            offsets = Arrays.copyOf(offsets, newCapacity);
+            flags = Arrays.copyOf(flags, newCapacity);
+        }
+
+        /**
+         * @return the columns of the elements added so far. The builder must not be used afterwards.
+         */
+        public PileupColumns build() {
+            if (size != bases.length) {
+                bases = Arrays.copyOf(bases, size);
+                baseQuals = Arrays.copyOf(baseQuals, size);
+                mappingQuals = Arrays.copyOf(mappingQuals, size);
+                offsets = Arrays.copyOf(offsets, size);
+                flags = Arrays.copyOf(flags, size);
+            }
+            return new PileupColumns(Collections.unmodifiableList(reads), bases, baseQuals, mappingQuals, offsets, flags);
+        }
+    }
+}
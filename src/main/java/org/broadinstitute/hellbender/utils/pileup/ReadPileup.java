@@ -28,6 +28,9 @@ public class ReadPileup implements Iterable<PileupElement> {
     private final Locatable loc;
     private final List<PileupElement> pileupElements;
 
+    /** Columnar view of the pileup elements; null until built (on request) or if invalidated by {@link #fixOverlaps()}. */
+    private PileupColumns columns;
+
     /** Constant used by samtools to downgrade a quality for overlapping reads that disagrees in their base. */
     public static final double SAMTOOLS_OVERLAP_LOW_CONFIDENCE = 0.8;
 
@@ -41,6 +44,17 @@ public class ReadPileup implements Iterable<PileupElement> {
         this.pileupElements = pileup;
     }
 
+    /**
+     * Create a new pileup at loc, with the given elements and their already built columns.
+     * Note: This constructor keeps an alias to the given list.
+     */
+    public ReadPileup(final Locatable loc, final List<PileupElement> pileup, final PileupColumns columns) {
+        this(loc, pileup);
+        Utils.nonNull(columns);
+        Utils.validateArg(columns.size() == pileup.size(), "columns and pileup elements have different sizes");
+        this.columns = columns;
+    }
+
     /**
      * Create a new pileup at loc, using an stratified pileup
      * Note: the current implementation of ReadPileup does not efficiently retrieve the stratified pileup
@@ -293,6 +307,8 @@ public class ReadPileup implements Iterable<PileupElement> {
      * Note: Resulting qualities higher than {@link QualityUtils#MAX_SAM_QUAL_SCORE} are capped.
      */
     public void fixOverlaps() {
+        // the qualities in the columns are about to become stale
+        columns = null;
         final FragmentCollection<PileupElement> fragments = FragmentCollection.create(this);
         fragments.getOverlappingPairs().stream()
                 .forEach(
@@ -473,12 +489,23 @@ public class ReadPileup implements Iterable<PileupElement> {
         return getElementStream().mapToInt(map).toArray();
     }
 
+    /**
+     * Returns the columnar view of this pileup, building it on first use if it was not provided on construction.
+     * Preferable to iterating over the elements for code that only needs their bases, qualities, offsets or flags.
+     */
+    public PileupColumns getColumns() {
+        if (columns == null) {
+            columns = PileupColumns.of(pileupElements);
+        }
+        return columns;
+    }
+
     /**
      * Returns an array of the bases in this pileup.
      * Note: this call costs O(n) and allocates fresh array each time
      */
     public byte[] getBases() {
-        return toByteArray(extractIntArray(pe -> pe.getBase()));
+        return columns != null ? columns.getBases().clone() : toByteArray(extractIntArray(pe -> pe.getBase()));
     }
 
     /**
@@ -486,7 +513,7 @@ public class ReadPileup implements Iterable<PileupElement> {
      * Note: this call costs O(n) and allocates fresh array each time
      */
     public byte[] getBaseQuals() {
-        return toByteArray(extractIntArray(pe -> pe.getQual()));
+        return columns != null ? columns.getBaseQuals().clone() : toByteArray(extractIntArray(pe -> pe.getQual()));
     }
 
     //Converts array of ints to array of bytes by hard casting (loses precision if ints are large).
@@ -502,7 +529,7 @@ public class ReadPileup implements Iterable<PileupElement> {
      * Get an array of the mapping qualities.
      */
     public int[] getMappingQuals() {
-        return extractIntArray(pe -> pe.getMappingQual());
+        return columns != null ? columns.getMappingQuals().clone() : extractIntArray(pe -> pe.getMappingQual());
     }
 
     private String getQualsString() {
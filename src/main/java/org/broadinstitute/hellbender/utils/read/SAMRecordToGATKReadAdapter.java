@@ -20,6 +20,11 @@ import java.util.Objects;
  * This adapter wraps a {@link SAMRecord} without making a copy, so construction is cheap,
  * but care must be exercised if the underlying read has been exposed somewhere before
  * wrapping.
+ *
+ * Records read from a BAM file are {@link BAMRecord}s, which keep the raw bytes of the record and decode the name,
+ * cigar, bases, qualities and tags separately, on first access. This adapter takes care not to access more of the
+ * record than each method needs, so that reads rejected by a filter that only looks at the fixed-size fields of the
+ * record (flags, position, mapping quality, length) are never fully decoded.
  */
 public class SAMRecordToGATKReadAdapter implements GATKRead, Serializable {
     private static final long serialVersionUID = 1L;
@@ -266,10 +271,14 @@ public class SAMRecordToGATKReadAdapter implements GATKRead, Serializable {
         return bases[i];
     }
 
+    /**
+     * For records read from a BAM, the length is known from the fixed-size part of the record, so this does not
+     * require the bases to be decoded (this is what lets filters such as the WellformedReadFilter check
+     * read lengths without unpacking the bases of every read).
+     */
     @Override
     public int getLength() {
-        final byte[] bases = samRecord.getReadBases();
-        return bases == null ? 0 : bases.length;
+        return samRecord.getReadLength();
     }
 
     @Override
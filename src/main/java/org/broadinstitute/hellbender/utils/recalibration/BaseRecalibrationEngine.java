@@ -12,6 +12,7 @@ import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.transformers.ReadTransformer;
 import org.broadinstitute.hellbender.utils.BaseUtils;
+import org.broadinstitute.hellbender.utils.LRUCache;
 import org.broadinstitute.hellbender.utils.MathUtils;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
@@ -35,6 +36,13 @@ public final class BaseRecalibrationEngine implements Serializable {
     protected static final Logger logger = LogManager.getLogger(BaseRecalibrationEngine.class);
     private final CovariateKeyCache keyCache;
 
+    /**
+     * Reusable per-read arrays of the engine itself, by read length (the covariates' arrays are in keyCache)
+     */
+    private static final int READ_BUFFERS_CACHE_SIZE = 500;
+    private final LRUCache<Integer, ReadBuffers> readBuffersCache = new LRUCache<>(READ_BUFFERS_CACHE_SIZE);
+    private long numReadBuffersAllocations = 0L;
+
     /*
      * Every call to EventType.values() (or any enum type) creates a new array instance but they are all equal (ie contain identical elements).
      * This is very expensive and wasteful when this array is created billions of times as in the case of BQSR.
@@ -85,6 +93,7 @@ public final class BaseRecalibrationEngine implements Serializable {
 
         if (recalArgs.enableBAQ) {
             baq = new BAQ(recalArgs.BAQGOP); // setup the BAQ object with the provided gap open penalty
+            baq.setHMMImplementation(recalArgs.baqHMMImplementation);
         } else {
             baq = null;
         }
@@ -121,23 +130,28 @@ public final class BaseRecalibrationEngine implements Serializable {
 
         RecalUtils.parsePlatformForRead(read, readsHeader, recalArgs);
 
-        int[] isSNP = new int[read.getLength()];
-        int[] isInsertion = new int[isSNP.length];
-        int[] isDeletion = new int[isSNP.length];
+        //Note: the per-read arrays are reused across reads of the same length, to avoid allocating them for every read
+        final ReadBuffers buffers = getReadBuffers(read.getLength());
+        final int[] isSNP = buffers.isSNP;
+        final int[] isInsertion = buffers.isInsertion;
+        final int[] isDeletion = buffers.isDeletion;
+        Arrays.fill(isSNP, 0);
+        Arrays.fill(isInsertion, 0);
+        Arrays.fill(isDeletion, 0);
 
         //Note: this function modifies the isSNP, isInsertion and isDeletion arguments so it can't be skipped, BAQ or no BAQ
         final int nErrors = calculateIsSNPOrIndel(read, refDS, isSNP, isInsertion, isDeletion);
 
         // note for efficiency reasons we don't compute the BAQ array unless we actually have
         // some error to marginalize over.  For ILMN data ~85% of reads have no error
-        final byte[] baqArray = (nErrors == 0 || !recalArgs.enableBAQ) ? flatBAQArray(read) : calculateBAQArray(read, refDS);
+        final byte[] baqArray = (nErrors == 0 || !recalArgs.enableBAQ) ? buffers.flatBAQ : calculateBAQArray(read, refDS);
 
         if( baqArray != null ) { // some reads just can't be BAQ'ed
             final ReadCovariates covariates = RecalUtils.computeCovariates(read, readsHeader, this.covariates, true, keyCache);
-            final boolean[] skip = calculateSkipArray(read, knownSites); // skip known sites of variation as well as low quality and non-regular bases
-            final double[] snpErrors = calculateFractionalErrorArray(isSNP, baqArray);
-            final double[] insertionErrors = calculateFractionalErrorArray(isInsertion, baqArray);
-            final double[] deletionErrors = calculateFractionalErrorArray(isDeletion, baqArray);
+            final boolean[] skip = calculateSkipArray(read, knownSites, buffers); // skip known sites of variation as well as low quality and non-regular bases
+            final double[] snpErrors = calculateFractionalErrorArray(isSNP, baqArray, buffers.snpErrors);
+            final double[] insertionErrors = calculateFractionalErrorArray(isInsertion, baqArray, buffers.insertionErrors);
+            final double[] deletionErrors = calculateFractionalErrorArray(isDeletion, baqArray, buffers.deletionErrors);
 
             // aggregate all of the info into our info object, and update the data
             final ReadRecalibrationInfo info = new ReadRecalibrationInfo(read, covariates, skip, snpErrors, insertionErrors, deletionErrors);
@@ -235,6 +249,55 @@ public final class BaseRecalibrationEngine implements Serializable {
         return numReadsProcessed;
     }
 
+    /**
+     * @return the number of per-read arrays this engine had to allocate because no array for the length of the read
+     *         was cached yet. This should stop increasing once all read lengths have been seen.
+     */
+    public long getNumBufferAllocations() {
+        return numReadBuffersAllocations + keyCache.getNumAllocations();
+    }
+
+    /**
+     * The arrays needed to process a read of a given length, reused for every read of that length.
+     * Only {@link #flatBAQ} holds data between reads, and it is never modified.
+     */
+    private static final class ReadBuffers {
+        private static final int NUM_ARRAYS = 9;
+
+        private final int[] isSNP;
+        private final int[] isInsertion;
+        private final int[] isDeletion;
+        private final boolean[] skip;
+        private final boolean[] knownSites;
+        private final double[] snpErrors;
+        private final double[] insertionErrors;
+        private final double[] deletionErrors;
+        private final byte[] flatBAQ;
+
+        private ReadBuffers(final int readLength) {
+            isSNP = new int[readLength];
+            isInsertion = new int[readLength];
+            isDeletion = new int[readLength];
+            skip = new boolean[readLength];
+            knownSites = new boolean[readLength];
+            snpErrors = new double[readLength];
+            insertionErrors = new double[readLength];
+            deletionErrors = new double[readLength];
+            flatBAQ = new byte[readLength];
+            Arrays.fill(flatBAQ, NO_BAQ_UNCERTAINTY); // a BAQ array that indicates no alignment uncertainty
+        }
+    }
+
+    private ReadBuffers getReadBuffers(final int readLength) {
+        ReadBuffers buffers = readBuffersCache.get(readLength);
+        if ( buffers == null ) {
+            buffers = new ReadBuffers(readLength);
+            readBuffersCache.put(readLength, buffers);
+            numReadBuffersAllocations += ReadBuffers.NUM_ARRAYS;
+        }
+        return buffers;
+    }
+
     /**
      * Update the recalibration statistics using the information in recalInfo
      * @param recalInfo data structure holding information about the recalibration values for a single read
@@ -244,7 +307,6 @@ public final class BaseRecalibrationEngine implements Serializable {
 
         final GATKRead read = recalInfo.getRead();
         final ReadCovariates readCovariates = recalInfo.getCovariatesValues();
-        final NestedIntegerArray<RecalDatum> qualityScoreTable = recalTables.getQualityScoreTable();
 
         final int nCovariates = covariates.size();
         final int nSpecialCovariates = covariates.numberOfSpecialCovariates();
@@ -261,12 +323,12 @@ public final class BaseRecalibrationEngine implements Serializable {
                     final int key0 = keys[0];
                     final int key1 = keys[1];
 
-                    RecalUtils.incrementDatumOrPutIfNecessary3keys(qualityScoreTable, qual, isError, key0, key1, eventIndex);
+                    recalTables.incrementQualityScoreTable(qual, isError, key0, key1, eventIndex);
 
                     for (int i = nSpecialCovariates; i < nCovariates; i++) {
                         final int keyi = keys[i];
                         if (keyi >= 0) {
-                            RecalUtils.incrementDatumOrPutIfNecessary4keys(recalTables.getTable(i), qual, isError, key0, key1, keyi, eventIndex);
+                            recalTables.incrementTable(i, qual, isError, key0, key1, keyi, eventIndex);
                         }
                     }
                 }
@@ -316,10 +378,10 @@ public final class BaseRecalibrationEngine implements Serializable {
         return read;
     }
 
-    private boolean[] calculateSkipArray( final GATKRead read, final Iterable<? extends Locatable> knownSites ) {
+    private boolean[] calculateSkipArray( final GATKRead read, final Iterable<? extends Locatable> knownSites, final ReadBuffers buffers ) {
         final int readLength = read.getLength();
-        final boolean[] skip = new boolean[readLength];
-        final boolean[] knownSitesArray = calculateKnownSites(read, knownSites);
+        final boolean[] skip = buffers.skip;
+        final boolean[] knownSitesArray = calculateKnownSites(read, knownSites, buffers.knownSites);
         for(int i = 0; i < readLength; i++ ) {
             skip[i] = !BaseUtils.isRegularBase(read.getBase(i)) || read.getBaseQuality(i) < recalArgs.PRESERVE_QSCORES_LESS_THAN || knownSitesArray[i];
         }
@@ -327,8 +389,16 @@ public final class BaseRecalibrationEngine implements Serializable {
     }
 
     protected boolean[] calculateKnownSites( final GATKRead read, final Iterable<? extends Locatable> knownSites ) {
+        return calculateKnownSites(read, knownSites, new boolean[read.getLength()]);
+    }
+
+    /**
+     * Version of {@link #calculateKnownSites(GATKRead, Iterable)} that stores its results in the given array,
+     * of the length of the read, rather than allocating one.
+     */
+    private static boolean[] calculateKnownSites( final GATKRead read, final Iterable<? extends Locatable> knownSites, final boolean[] knownSitesArray ) {
         final int readLength = read.getLength();
-        final boolean[] knownSitesArray = new boolean[readLength];//initializes to all false
+        Arrays.fill(knownSitesArray, false);
         final Cigar cigar = read.getCigar();
         final int softStart = read.getSoftStart();
         final int softEnd = read.getSoftEnd();
@@ -430,13 +500,20 @@ public final class BaseRecalibrationEngine implements Serializable {
     }
 
     public static double[] calculateFractionalErrorArray( final int[] errorArray, final byte[] baqArray ) {
+        return calculateFractionalErrorArray(errorArray, baqArray, new double[baqArray.length]);
+    }
+
+    /**
+     * Version of {@link #calculateFractionalErrorArray(int[], byte[])} that stores its results in the given array,
+     * of the same length as the other two, rather than allocating one. Every element of the array is overwritten.
+     */
+    public static double[] calculateFractionalErrorArray( final int[] errorArray, final byte[] baqArray, final double[] fractionalErrors ) {
         if ( errorArray.length != baqArray.length ) {
             throw new GATKException("Array length mismatch detected. Malformed read?");
         }
 
         final int BLOCK_START_UNSET = -1;
 
-        final double[] fractionalErrors = new double[baqArray.length];
         boolean inBlock = false;
         int blockStartIndex = BLOCK_START_UNSET;
         int i;
@@ -476,18 +553,6 @@ public final class BaseRecalibrationEngine implements Serializable {
         }
     }
 
-    /**
-     * Create a BAQ style array that indicates no alignment uncertainty
-     * @param read the read for which we want a BAQ array
-     * @return a BAQ-style non-null byte[] counting NO_BAQ_UNCERTAINTY values
-     * // TODO -- could be optimized avoiding this function entirely by using this inline if the calculation code above
-     */
-    protected static byte[] flatBAQArray(final GATKRead read) {
-        final byte[] baq = new byte[read.getLength()];
-        Arrays.fill(baq, NO_BAQ_UNCERTAINTY);
-        return baq;
-    }
-
     /**
      * Compute an actual BAQ array for read, based on its quals and the reference sequence
      * @param read the read to BAQ
@@ -0,0 +1,175 @@
+package org.broadinstitute.hellbender.utils.recalibration;
+
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.collections.NestedIntegerArray;
+
+import java.io.Serializable;
+
+/**
+ * Dense accumulator for the counts of one read group x quality x covariate x event table of {@link RecalibrationTables}.
+ *
+ * Instead of one {@link RecalDatum} per populated cell in a tree of arrays, the number of observations and of
+ * mismatches are kept in flat primitive arrays, so that updating a cell is index arithmetic and combining two
+ * accumulators is an element-wise array addition. There is one block of cells per (read group, quality) pair,
+ * allocated the first time that pair is incremented, so that the memory used is proportional to the qualities
+ * actually present in the data rather than to all possible qualities. Within a block, the cell of a (covariate, event)
+ * pair is at offset covariate * eventDimension + event.
+ *
+ * Counts are transferred to the {@link NestedIntegerArray} of the corresponding table by {@link #flushInto}, which
+ * creates a {@link RecalDatum} for each populated cell. Mismatches are accumulated in the same scaled units and in the
+ * same order as {@link RecalDatum#increment(long, double)}, so that flushed values are identical to those obtained by
+ * incrementing RecalDatums directly.
+ *
+ * Not thread-safe.
+ */
+final class FlatRecalDatumTable implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final int numReadGroups;
+    private final int qualDimension;
+    private final int covariateDimension;
+    private final int eventDimension;
+
+    /**
+     * Number of cells in each (read group, quality) block
+     */
+    private final int blockSize;
+
+    /**
+     * Indexed by readGroup * qualDimension + qual, null for blocks that were never incremented
+     */
+    private final long[][] numObservations;
+    private final double[][] numScaledMismatches;
+
+    /**
+     * Reported quality of the first observation in each block, used for the RecalDatums created by {@link #flushInto}
+     */
+    private final byte[] reportedQuals;
+
+    /**
+     * @param numReadGroups size of the read group dimension
+     * @param qualDimension size of the quality dimension
+     * @param covariateDimension size of the covariate dimension (1 for the quality score table, which has none)
+     * @param eventDimension size of the event dimension
+     */
+    FlatRecalDatumTable( final int numReadGroups, final int qualDimension, final int covariateDimension, final int eventDimension ) {
+        Utils.validateArg(numReadGroups > 0 && qualDimension > 0 && covariateDimension > 0 && eventDimension > 0, "dimensions must be > 0");
+        this.numReadGroups = numReadGroups;
+        this.qualDimension = qualDimension;
+        this.covariateDimension = covariateDimension;
+        this.eventDimension = eventDimension;
+        this.blockSize = covariateDimension * eventDimension;
+        this.numObservations = new long[numReadGroups * qualDimension][];
+        this.numScaledMismatches = new double[numReadGroups * qualDimension][];
+        this.reportedQuals = new byte[numReadGroups * qualDimension];
+    }
+
+    /**
+     * Add one observation to a cell of a table without a covariate dimension (ie., the quality score table).
+     */
+    void increment( final byte reportedQual, final double isError, final int readGroup, final int qual, final int event ) {
+        increment(reportedQual, isError, readGroup, qual, 0, event);
+    }
+
+    /**
+     * Add one observation to a cell.
+     *
+     * @param reportedQual reported quality of the observation
+     * @param isError error fraction of the observation (see {@link RecalDatum#increment(long, double)})
+     */
+    void increment( final byte reportedQual, final double isError, final int readGroup, final int qual, final int covariate, final int event ) {
+        if ( readGroup >= numReadGroups || qual >= qualDimension || covariate >= covariateDimension || event >= eventDimension ) {
+            throw new IllegalArgumentException(String.format("Keys (%d, %d, %d, %d) are too large for table dimensions (%d, %d, %d, %d)",
+                    readGroup, qual, covariate, event, numReadGroups, qualDimension, covariateDimension, eventDimension));
+        }
+        final int block = readGroup * qualDimension + qual;
+        if ( numObservations[block] == null ) {
+            numObservations[block] = new long[blockSize];
+            numScaledMismatches[block] = new double[blockSize];
+            reportedQuals[block] = reportedQual;
+        }
+        final int cell = covariate * eventDimension + event;
+        numObservations[block][cell]++;
+        numScaledMismatches[block][cell] += isError * RecalDatum.MULTIPLIER;
+    }
+
+    /**
+     * @return true if no cell has been incremented since construction or the last {@link #flushInto}
+     */
+    boolean isEmpty() {
+        for ( final long[] block : numObservations ) {
+            if ( block != null ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Add the counts of another accumulator with the same dimensions into this one.
+     */
+    void combine( final FlatRecalDatumTable other ) {
+        Utils.validateArg(numReadGroups == other.numReadGroups && qualDimension == other.qualDimension &&
+                covariateDimension == other.covariateDimension && eventDimension == other.eventDimension,
+                "Attempting to combine FlatRecalDatumTables with different dimensions");
+
+        for ( int block = 0; block < numObservations.length; block++ ) {
+            if ( other.numObservations[block] == null ) {
+                continue;
+            }
+            if ( numObservations[block] == null ) {
+                numObservations[block] = other.numObservations[block].clone();
+                numScaledMismatches[block] = other.numScaledMismatches[block].clone();
+                reportedQuals[block] = other.reportedQuals[block];
+                continue;
+            }
+            final long[] myObservations = numObservations[block];
+            final long[] otherObservations = other.numObservations[block];
+            final double[] myMismatches = numScaledMismatches[block];
+            final double[] otherMismatches = other.numScaledMismatches[block];
+            for ( int cell = 0; cell < blockSize; cell++ ) {
+                myObservations[cell] += otherObservations[cell];
+                myMismatches[cell] += otherMismatches[cell];
+            }
+        }
+    }
+
+    /**
+     * Add the counts of every populated cell to the corresponding RecalDatum of the given table, creating it if
+     * necessary, and reset this accumulator to empty.
+     *
+     * @param table table with dimensions (read group, quality, event) if this accumulator has a covariate dimension
+     *              of 1, or (read group, quality, covariate, event) otherwise
+     */
+    void flushInto( final NestedIntegerArray<RecalDatum> table ) {
+        final boolean hasCovariateDimension = table.getDimensions().length == 4;
+        for ( int block = 0; block < numObservations.length; block++ ) {
+            final long[] observations = numObservations[block];
+            if ( observations == null ) {
+                continue;
+            }
+            final double[] mismatches = numScaledMismatches[block];
+            final int readGroup = block / qualDimension;
+            final int qual = block % qualDimension;
+            for ( int cell = 0; cell < blockSize; cell++ ) {
+                if ( observations[cell] == 0 ) {
+                    continue;
+                }
+                final int covariate = cell / eventDimension;
+                final int event = cell % eventDimension;
+                RecalDatum datum = hasCovariateDimension ? table.get4Keys(readGroup, qual, covariate, event) : table.get3Keys(readGroup, qual, event);
+                if ( datum == null ) {
+                    datum = new RecalDatum(0L, 0.0, reportedQuals[block]);
+                    if ( hasCovariateDimension ) {
+                        table.put(datum, readGroup, qual, covariate, event);
+                    } else {
+                        table.put(datum, readGroup, qual, event);
+                    }
+                }
+                datum.incrementScaled(observations[cell], mismatches[cell]);
+            }
+            numObservations[block] = null;
+            numScaledMismatches[block] = null;
+        }
+    }
+}
@@ -16,7 +16,7 @@ public final class RecalDatum implements Serializable {
     public static final byte MAX_RECALIBRATED_Q_SCORE = SAMUtils.MAX_PHRED_SCORE;
     private static final double UNINITIALIZED = -1.0;
     private static final long serialVersionUID = 1L;
-    private static final double MULTIPLIER = 100000.0;  //See discussion in numMismatches about what the multiplier is.
+    static final double MULTIPLIER = 100000.0;  //See discussion in numMismatches about what the multiplier is.
 
     /**
      * estimated reported quality score based on combined data's individual q-reporteds and number of observations
@@ -216,6 +216,16 @@ public final class RecalDatum implements Serializable {
         empiricalQuality = UNINITIALIZED;
     }
 
+    /**
+     * Increment by counts accumulated outside of this datum, with mismatches already multiplied by MULTIPLIER
+     * (see {@link FlatRecalDatumTable}), so that they don't go through another rounding.
+     */
+    final void incrementScaled(final long incObservations, final double incScaledMismatches) {
+        numObservations += incObservations;
+        numMismatches += incScaledMismatches;
+        empiricalQuality = UNINITIALIZED;
+    }
+
     public final void increment(final boolean isError) {
         increment(1, isError ? 1.0 : 0.0);
     }
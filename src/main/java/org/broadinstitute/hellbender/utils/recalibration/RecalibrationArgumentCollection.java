@@ -103,6 +103,10 @@ public final class RecalibrationArgumentCollection implements Serializable {
     @Argument(fullName = "enable-baq", doc = "do BAQ correction")
     public boolean enableBAQ = false;
 
+    @Hidden
+    @Argument(fullName = "baq-hmm-implementation", doc = "implementation of the BAQ HMM (with --enable-baq)", optional = true)
+    public BAQ.HMMImplementation baqHMMImplementation = BAQ.HMMImplementation.CACHING;
+
     @Hidden
     @Argument(fullName = "compute-indel-bqsr-tables", shortName = "indels", doc = "compute indel BQSR tables")
     public boolean computeIndelBQSRTables = false;
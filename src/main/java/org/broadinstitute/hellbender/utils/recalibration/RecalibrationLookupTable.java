@@ -0,0 +1,161 @@
+package org.broadinstitute.hellbender.utils.recalibration;
+
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.collections.NestedIntegerArray;
+import org.broadinstitute.hellbender.utils.recalibration.covariates.StandardCovariateList;
+
+import java.io.Serializable;
+import java.util.List;
+
+import static org.broadinstitute.hellbender.utils.MathUtils.fastRound;
+import static org.broadinstitute.hellbender.utils.QualityUtils.boundQual;
+import static org.broadinstitute.hellbender.utils.recalibration.RecalDatum.MAX_RECALIBRATED_Q_SCORE;
+
+/**
+ * Recalibration tables compiled into dense primitive arrays, for applying base substitution recalibration.
+ *
+ * The hierarchical Bayesian estimate of a recalibrated quality (see
+ * {@link org.broadinstitute.hellbender.transformers.BQSRReadTransformer#hierarchicalBayesianQualityEstimate}) is
+ *
+ *     Qrecal = conditionalPrior(rg, qual) + sum over covariates of delta(rg, qual, covariate key)
+ *
+ * where each term only depends on the RecalDatums of the corresponding cell. All these terms are computed once, when
+ * the lookup table is built, so that recalibrating a base takes one array lookup per term, and one more lookup in a
+ * table mapping the rounded recalibrated quality to the final (quantized) quality. The deltas of each additional
+ * covariate are stored in one dense block per (read group, quality) pair that has data for that covariate.
+ *
+ * The terms are computed with the same expressions and summed in the same order as the hierarchical estimate,
+ * so the recalibrated qualities are identical to those obtained by evaluating it for every base.
+ */
+public final class RecalibrationLookupTable implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final int BASE_SUBSTITUTION_INDEX = EventType.BASE_SUBSTITUTION.ordinal();
+
+    private final int qualDimension;
+
+    /**
+     * Index of the first additional covariate in the key sets
+     */
+    private final int specialCovariateCount;
+
+    /**
+     * Indexed by read group and quality, null for read groups without data. Each row has one extra entry at index
+     * qualDimension, the prior of qualities that are too large to have data in the tables.
+     */
+    private final double[][] conditionalPriors;
+
+    /**
+     * Indexed by additional covariate, read group, quality and covariate key, null for (read group, quality) pairs
+     * without data for that covariate
+     */
+    private final double[][][][] covariateDeltas;
+
+    /**
+     * Maps the rounded recalibrated quality to the quality written to the read
+     */
+    private final byte[] finalQuals;
+
+    /**
+     * @param recalibrationTables recalibration tables output from BQSR
+     * @param covariates standard covariate set used to create the tables
+     * @param globalQScorePrior prior for the global quality of each read group, or a value <= 0.0 to use the
+     *                          reported quality of the read group instead
+     * @param finalQuals table mapping a rounded recalibrated quality, from 0 to {@link RecalDatum#MAX_RECALIBRATED_Q_SCORE},
+     *                   to the quality written to the read (ie., after quantization)
+     */
+    public RecalibrationLookupTable(final RecalibrationTables recalibrationTables, final StandardCovariateList covariates,
+                                    final double globalQScorePrior, final byte[] finalQuals) {
+        Utils.nonNull(recalibrationTables);
+        Utils.nonNull(covariates);
+        Utils.nonNull(finalQuals);
+        Utils.validateArg(finalQuals.length > MAX_RECALIBRATED_Q_SCORE, "finalQuals must have an entry for every recalibrated quality");
+
+        final NestedIntegerArray<RecalDatum> readGroupTable = recalibrationTables.getReadGroupTable();
+        final NestedIntegerArray<RecalDatum> qualityScoreTable = recalibrationTables.getQualityScoreTable();
+        final int numReadGroups = readGroupTable.getDimensions()[0];
+        this.qualDimension = qualityScoreTable.getDimensions()[1];
+        this.specialCovariateCount = covariates.numberOfSpecialCovariates();
+        this.finalQuals = finalQuals.clone();
+
+        this.conditionalPriors = new double[numReadGroups][];
+        for ( int rg = 0; rg < numReadGroups; rg++ ) {
+            final RecalDatum empiricalQualRG = readGroupTable.get2Keys(rg, BASE_SUBSTITUTION_INDEX);
+            if ( empiricalQualRG == null ) {
+                continue;
+            }
+            final double epsilon = globalQScorePrior > 0.0 ? globalQScorePrior : empiricalQualRG.getEstimatedQReported();
+            final double globalDeltaQ = empiricalQualRG.getEmpiricalQuality(epsilon) - epsilon;
+
+            conditionalPriors[rg] = new double[qualDimension + 1];
+            for ( int qual = 0; qual <= qualDimension; qual++ ) {
+                final RecalDatum empiricalQualQS = qualityScoreTable.get3Keys(rg, qual, BASE_SUBSTITUTION_INDEX);
+                final double deltaQReported = empiricalQualQS == null ? 0.0 : empiricalQualQS.getEmpiricalQuality(globalDeltaQ + epsilon) - (globalDeltaQ + epsilon);
+                conditionalPriors[rg][qual] = deltaQReported + globalDeltaQ + epsilon;
+            }
+        }
+
+        final int numAdditionalCovariates = covariates.size() - specialCovariateCount;
+        this.covariateDeltas = new double[numAdditionalCovariates][numReadGroups][][];
+        for ( int i = 0; i < numAdditionalCovariates; i++ ) {
+            final NestedIntegerArray<RecalDatum> table = recalibrationTables.getTable(i + specialCovariateCount);
+            final int covariateDimension = table.getDimensions()[2];
+            final List<NestedIntegerArray.Leaf<RecalDatum>> leaves = table.getAllLeaves();
+            for ( final NestedIntegerArray.Leaf<RecalDatum> leaf : leaves ) {
+                final int rg = leaf.keys[0];
+                final int qual = leaf.keys[1];
+                final int covariateKey = leaf.keys[2];
+                if ( leaf.keys[3] != BASE_SUBSTITUTION_INDEX || rg >= numReadGroups || conditionalPriors[rg] == null ) {
+                    continue;
+                }
+                if ( covariateDeltas[i][rg] == null ) {
+                    covariateDeltas[i][rg] = new double[qualDimension][];
+                }
+                if ( covariateDeltas[i][rg][qual] == null ) {
+                    covariateDeltas[i][rg][qual] = new double[covariateDimension];
+                }
+                final double conditionalPrior2 = conditionalPriors[rg][qual];
+                covariateDeltas[i][rg][qual][covariateKey] = leaf.value.getEmpiricalQuality(conditionalPrior2) - conditionalPrior2;
+            }
+        }
+    }
+
+    /**
+     * @return true if the tables have base substitution data for the given read group. Reads from read groups
+     *         without data must not be recalibrated.
+     */
+    public boolean hasReadGroup( final int readGroupKey ) {
+        return readGroupKey < conditionalPriors.length && conditionalPriors[readGroupKey] != null;
+    }
+
+    /**
+     * Compute the final recalibrated quality of a base.
+     *
+     * @param keySet base substitution keys of the base, as computed by the covariates (read group key first,
+     *               then quality key, then the keys of the additional covariates)
+     * @return the recalibrated, quantized quality of the base
+     */
+    public byte getRecalibratedQual( final int[] keySet ) {
+        final int rg = keySet[0];
+        final int qual = keySet[1];
+        if ( qual >= qualDimension ) {
+            return finalQuals[boundQual(fastRound(conditionalPriors[rg][qualDimension]), MAX_RECALIBRATED_Q_SCORE)];
+        }
+        final double conditionalPrior2 = conditionalPriors[rg][qual];
+
+        double deltaQCovariates = 0.0;
+        for ( int i = 0; i < covariateDeltas.length; i++ ) {
+            final int covariateKey = keySet[i + specialCovariateCount];
+            final double[][] readGroupDeltas = covariateDeltas[i][rg];
+            if ( covariateKey < 0 || readGroupDeltas == null ) {
+                continue;
+            }
+            final double[] deltas = readGroupDeltas[qual];
+            if ( deltas != null && covariateKey < deltas.length ) {
+                deltaQCovariates += deltas[covariateKey];
+            }
+        }
+
+        return finalQuals[boundQual(fastRound(conditionalPrior2 + deltaQCovariates), MAX_RECALIBRATED_Q_SCORE)];
+    }
+}
@@ -14,6 +14,10 @@ import java.util.Map;
 
 /**
  * Utility class to facilitate base quality score recalibration.
+ *
+ * Observations added through {@link #incrementQualityScoreTable} and {@link #incrementTable} are accumulated in dense
+ * {@link FlatRecalDatumTable}s, and only transferred to the {@link NestedIntegerArray}s of RecalDatums the next time a
+ * table is accessed, so that the hot loop of BQSR doesn't allocate or chase pointers.
  */
 public final class RecalibrationTables implements Serializable, Iterable<NestedIntegerArray<RecalDatum>> {
     private static final long serialVersionUID = 1L;
@@ -34,6 +38,9 @@ public final class RecalibrationTables implements Serializable, Iterable<NestedI
     private final Map<Covariate, NestedIntegerArray<RecalDatum>> covariateToTable;
     private final Map<NestedIntegerArray<RecalDatum>, Covariate> tableToCovariate;
 
+    //Observations not yet transferred to allTables, indexed like allTables (null for the read group table, which is derived from the others)
+    private final FlatRecalDatumTable[] pendingCounts;
+    private boolean hasPendingCounts = false;
 
 
     public RecalibrationTables(final StandardCovariateList covariates) {
@@ -69,9 +76,54 @@ public final class RecalibrationTables implements Serializable, Iterable<NestedI
             covariateToTable.put(cov, table);
             tableToCovariate.put(table, cov);
         }
+
+        this.pendingCounts = new FlatRecalDatumTable[allTables.size()];
+        pendingCounts[1] = new FlatRecalDatumTable(numReadGroups, qualDimension, 1, eventDimension);
+        for ( int i = 2; i < allTables.size(); i++ ) {
+            pendingCounts[i] = new FlatRecalDatumTable(numReadGroups, qualDimension, allTables.get(i).getDimensions()[2], eventDimension);
+        }
+    }
+
+    /**
+     * Add one observation to the quality score table.
+     *
+     * @param qual reported quality of the observation
+     * @param isError error fraction of the observation
+     */
+    public void incrementQualityScoreTable(final byte qual, final double isError, final int readGroupKey, final int qualKey, final int eventIndex) {
+        pendingCounts[1].increment(qual, isError, readGroupKey, qualKey, eventIndex);
+        hasPendingCounts = true;
+    }
+
+    /**
+     * Add one observation to the additional covariate table at the given index (see {@link #getTable}).
+     *
+     * @param qual reported quality of the observation
+     * @param isError error fraction of the observation
+     */
+    public void incrementTable(final int tableIndex, final byte qual, final double isError, final int readGroupKey, final int qualKey, final int covariateKey, final int eventIndex) {
+        Utils.validIndex(tableIndex, allTables.size());
+        Utils.validateArg(tableIndex >= 2, "the read group and quality score tables can't be incremented with a covariate key");
+        pendingCounts[tableIndex].increment(qual, isError, readGroupKey, qualKey, covariateKey, eventIndex);
+        hasPendingCounts = true;
+    }
+
+    /**
+     * Transfer all observations accumulated by {@link #incrementQualityScoreTable} and {@link #incrementTable}
+     * to the corresponding tables of RecalDatums.
+     */
+    private void flushPendingCounts() {
+        if ( ! hasPendingCounts ) {
+            return;
+        }
+        for ( int i = 1; i < pendingCounts.length; i++ ) {
+            pendingCounts[i].flushInto(allTables.get(i));
+        }
+        hasPendingCounts = false;
     }
 
     public NestedIntegerArray<RecalDatum> getTableForCovariate(Covariate cov) {
+        flushPendingCounts();
         return covariateToTable.get(cov);
     }
 
@@ -96,10 +148,12 @@ public final class RecalibrationTables implements Serializable, Iterable<NestedI
     }
 
     public NestedIntegerArray<RecalDatum> getReadGroupTable() {
+        flushPendingCounts();
         return readGroupTable;
     }
 
     public NestedIntegerArray<RecalDatum> getQualityScoreTable() {
+        flushPendingCounts();
         return qualityScoreTable;
     }
 
@@ -109,6 +163,7 @@ public final class RecalibrationTables implements Serializable, Iterable<NestedI
 
     @Override
     public Iterator<NestedIntegerArray<RecalDatum>> iterator() {
+        flushPendingCounts();
         return allTables.iterator();
     }
 
@@ -116,6 +171,7 @@ public final class RecalibrationTables implements Serializable, Iterable<NestedI
      * @return true if all the tables contain no RecalDatums
      */
     public boolean isEmpty() {
+        flushPendingCounts();
         for( final NestedIntegerArray<RecalDatum> table : allTables ) {
             if( !table.getAllValues().isEmpty() ) { return false; }
         }
@@ -132,7 +188,8 @@ public final class RecalibrationTables implements Serializable, Iterable<NestedI
     }
 
     /**
-     * Merge all of the tables from toMerge into into this set of tables
+     * Merge all of the tables from toMerge into into this set of tables, including any observations of toMerge
+     * not yet transferred to its tables
      */
     public RecalibrationTables combine(final RecalibrationTables toMerge) {
         if ( numTables() != toMerge.numTables() )
@@ -144,6 +201,14 @@ public final class RecalibrationTables implements Serializable, Iterable<NestedI
             RecalUtils.combineTables(myTable, otherTable);
         }
 
+        // observations that neither side has transferred to its RecalDatums yet are combined by adding arrays
+        if ( toMerge.hasPendingCounts ) {
+            for ( int i = 1; i < numTables(); i++ ) {
+                pendingCounts[i].combine(toMerge.pendingCounts[i]);
+            }
+            hasPendingCounts = true;
+        }
+
         return this;
     }
 
@@ -180,10 +245,12 @@ public final class RecalibrationTables implements Serializable, Iterable<NestedI
 
     //XXX this should not be accessible by index
     public NestedIntegerArray<RecalDatum> getTable(int index) {
+        flushPendingCounts();
         return allTables.get(index);
     }
 
     public List<NestedIntegerArray<RecalDatum>> getAdditionalTables() {
+        flushPendingCounts();
         return additionalTables;
     }
 }
@@ -2,8 +2,6 @@ package org.broadinstitute.hellbender.utils.recalibration.covariates;
 
 import com.google.common.annotations.VisibleForTesting;
 import htsjdk.samtools.SAMFileHeader;
-import it.unimi.dsi.fastutil.ints.IntArrayList;
-import it.unimi.dsi.fastutil.ints.IntList;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.broadinstitute.barclay.argparser.CommandLineException;
@@ -59,15 +57,15 @@ public final class ContextCovariate implements Covariate {
     public void recordValues(final GATKRead read, final SAMFileHeader header, final ReadCovariates values, final boolean recordIndelValues) {
 
         final int originalReadLength = read.getLength();
+        final CovariateKeyCache scratch = values.getKeysCache();
 
         // store the original bases and then write Ns over low quality ones
-        final byte[] strandedClippedBases = getStrandedClippedBytes(read, lowQualTail);  //Note: this makes a copy of the read
+        //Note: we're using buffers from the cache rather than copying the read, because allocation came up on profiling
+        final byte[] strandedClippedBases = scratch.getContextBases(originalReadLength);
+        final int readLengthAfterClipping = fillStrandedClippedBases(read, lowQualTail, strandedClippedBases);
 
-        //Note: we're using a non-standard library here because boxing came up on profiling as taking 20% of time in applyBQSR.
-        //IntList avoids boxing
-        final IntList mismatchKeys = contextWith(strandedClippedBases, mismatchesContextSize, mismatchesKeyMask);
-
-        final int readLengthAfterClipping = strandedClippedBases.length;
+        final int[] mismatchKeys = scratch.getMismatchContextKeys(originalReadLength);
+        contextWith(strandedClippedBases, readLengthAfterClipping, mismatchesContextSize, mismatchesKeyMask, mismatchKeys);
 
         // this is necessary to ensure that we don't keep historical data in the ReadCovariates values
         // since the context covariate may not span the entire set of values in read covariates
@@ -84,16 +82,17 @@ public final class ContextCovariate implements Covariate {
 
         //Note: duplicated the loop to avoid checking recordIndelValues on each iteration
         if (recordIndelValues) {
-            final IntList indelKeys = contextWith(strandedClippedBases, indelsContextSize, indelsKeyMask);
+            final int[] indelKeys = scratch.getIndelContextKeys(originalReadLength);
+            contextWith(strandedClippedBases, readLengthAfterClipping, indelsContextSize, indelsKeyMask, indelKeys);
             for (int i = 0; i < readLengthAfterClipping; i++) {
                 final int readOffset = getStrandedOffset(negativeStrand, i, readLengthAfterClipping);
-                final int indelKey = indelKeys.getInt(i);
-                values.addCovariate(mismatchKeys.getInt(i), indelKey, indelKey, readOffset);
+                final int indelKey = indelKeys[i];
+                values.addCovariate(mismatchKeys[i], indelKey, indelKey, readOffset);
             }
         } else {
             for (int i = 0; i < readLengthAfterClipping; i++) {
                 final int readOffset = getStrandedOffset(negativeStrand, i, readLengthAfterClipping);
-                values.addCovariate(mismatchKeys.getInt(i), 0, 0, readOffset);
+                values.addCovariate(mismatchKeys[i], 0, 0, readOffset);
             }
         }
     }
@@ -130,6 +129,42 @@ public final class ContextCovariate implements Covariate {
         }
     }
 
+    /**
+     * Allocation-free version of {@link #getStrandedClippedBytes}: writes the bases of the read into the given buffer,
+     * with Ns over its low quality ends, reverse-complemented for negative-strand reads.
+     * @param read the read
+     * @param lowQTail every base quality lower than or equal to this in the tail of the read will be replaced with N.
+     * @param bases buffer of at least the length of the read
+     * @return the number of bases written to the buffer: the length of the read, or 0 if the entire read is low quality
+     *         (in which case {@link #getStrandedClippedBytes} returns the bases of an empty read).
+     */
+    @VisibleForTesting
+    static int fillStrandedClippedBases(final GATKRead read, final byte lowQTail, final byte[] bases) {
+        final int readLength = read.getLength();
+        int leftClipIndex = 0;
+        int rightClipIndex = readLength - 1;
+        while (rightClipIndex >= 0 && read.getBaseQuality(rightClipIndex) <= lowQTail) {
+            rightClipIndex--;
+        }
+        while (leftClipIndex < readLength && read.getBaseQuality(leftClipIndex) <= lowQTail) {
+            leftClipIndex++;
+        }
+        if (leftClipIndex > rightClipIndex) {
+            return 0;
+        }
+
+        final boolean negativeStrand = read.isReverseStrand();
+        for (int i = 0; i < readLength; i++) {
+            final byte base = i < leftClipIndex || i > rightClipIndex ? (byte)'N' : read.getBase(i);
+            if (negativeStrand) {
+                bases[readLength - 1 - i] = BaseUtils.simpleComplement(base);
+            } else {
+                bases[i] = base;
+            }
+        }
+        return readLength;
+    }
+
     @Override
     public String formatKey(final int key) {
         if (key == -1) // this can only happen in test routines because we do not propagate null keys to the csv file
@@ -157,30 +192,30 @@ public final class ContextCovariate implements Covariate {
      * calculates the context of a base independent of the covariate mode (mismatch, insertion or deletion)
      *
      * @param bases       the bases in the read to build the context from
+     * @param readLength  the number of bases in the read (the bases array may be longer)
      * @param contextSize context size to use building the context
      * @param mask        mask for pulling out just the context bits
+     * @param keys        buffer of at least readLength keys in which to store the context of each base
      */
-    private static IntList contextWith(final byte[] bases, final int contextSize, final int mask) {
+    private static void contextWith(final byte[] bases, final int readLength, final int contextSize, final int mask, final int[] keys) {
 
-        final int readLength = bases.length;
-
-        //Note: we use a specialized collection to avoid the cost of boxing and unboxing that otherwise comes up on the profiler.
-        final IntList keys = new IntArrayList(readLength);
+        //Note: we fill a reusable array to avoid the cost of allocating (or boxing and unboxing) that otherwise comes up on the profiler.
+        int numKeys = 0;
 
         // the first contextSize-1 bases will not have enough previous context
         for (int i = 1; i < contextSize && i <= readLength; i++) {
-            keys.add(-1);
+            keys[numKeys++] = -1;
         }
 
         if (readLength < contextSize) {
-            return keys;
+            return;
         }
 
         final int newBaseOffset = 2 * (contextSize - 1) + LENGTH_BITS;
 
         // get (and add) the key for the context starting at the first base
         int currentKey = keyFromContext(bases, 0, contextSize);
-        keys.add(currentKey);
+        keys[numKeys++] = currentKey;
 
         // if the first key was -1 then there was an N in the context; figure out how many more consecutive contexts it affects
         int currentNPenalty = 0;
@@ -209,14 +244,12 @@ public final class ContextCovariate implements Covariate {
             }
 
             if (currentNPenalty == 0) {
-                keys.add(currentKey);
+                keys[numKeys++] = currentKey;
             } else {
                 currentNPenalty--;
-                keys.add(-1);
+                keys[numKeys++] = -1;
             }
         }
-
-        return keys;
     }
 
     public static int keyFromContext(final String dna) {
@@ -7,6 +7,10 @@ import org.broadinstitute.hellbender.utils.Utils;
  * Use an LRU cache to keep cache of keys (int[][][]) arrays for each read length we've seen.
  * The cache allows us to avoid the expense of recreating these arrays for every read.  The LRU
  * keeps the total number of cached arrays to less than LRU_CACHE_SIZE.
+ *
+ * The same is done for the scratch buffers used by the covariates themselves (see {@link ContextCovariate}),
+ * so that computing the covariates of a read doesn't allocate once every read length has been seen.
+ * One cache must be used per thread, since the cached arrays are overwritten for every read.
  */
 public final class CovariateKeyCache {
 
@@ -17,6 +21,15 @@ public final class CovariateKeyCache {
 
     private final LRUCache<Integer, int[][][]> keysCache = new LRUCache<>(LRU_CACHE_SIZE);
 
+    private final LRUCache<Integer, byte[]> contextBasesCache = new LRUCache<>(LRU_CACHE_SIZE);
+    private final LRUCache<Integer, int[]> mismatchContextKeysCache = new LRUCache<>(LRU_CACHE_SIZE);
+    private final LRUCache<Integer, int[]> indelContextKeysCache = new LRUCache<>(LRU_CACHE_SIZE);
+
+    /**
+     * Number of arrays allocated because they were not in any of our caches
+     */
+    private long numAllocations = 0;
+
     /**
      * Get the cached value for the given readlength or null is no value is cached.
      */
@@ -30,6 +43,51 @@ public final class CovariateKeyCache {
     public void put(final int readLength, final int[][][] keys) {
         Utils.nonNull(keys);
         keysCache.put(readLength, keys);
+        numAllocations++;
+    }
+
+    /**
+     * Get a scratch buffer for the stranded, clipped bases of a read of the given length.
+     */
+    public byte[] getContextBases(final int readLength) {
+        byte[] bases = contextBasesCache.get(readLength);
+        if ( bases == null ) {
+            bases = new byte[readLength];
+            contextBasesCache.put(readLength, bases);
+            numAllocations++;
+        }
+        return bases;
+    }
+
+    /**
+     * Get a scratch buffer for the mismatch context keys of a read of the given length.
+     */
+    public int[] getMismatchContextKeys(final int readLength) {
+        return getIntBuffer(mismatchContextKeysCache, readLength);
+    }
+
+    /**
+     * Get a scratch buffer for the indel context keys of a read of the given length.
+     */
+    public int[] getIndelContextKeys(final int readLength) {
+        return getIntBuffer(indelContextKeysCache, readLength);
+    }
+
+    private int[] getIntBuffer(final LRUCache<Integer, int[]> cache, final int readLength) {
+        int[] buffer = cache.get(readLength);
+        if ( buffer == null ) {
+            buffer = new int[readLength];
+            cache.put(readLength, buffer);
+            numAllocations++;
+        }
+        return buffer;
+    }
+
+    /**
+     * Returns the number of arrays this cache had to allocate (ie., the number of cache misses).
+     */
+    public long getNumAllocations() {
+        return numAllocations;
     }
 
     /**
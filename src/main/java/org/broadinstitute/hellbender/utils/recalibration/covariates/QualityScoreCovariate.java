@@ -19,13 +19,15 @@ public final class QualityScoreCovariate implements Covariate {
     @Override
     public void recordValues(final GATKRead read, final SAMFileHeader header, final ReadCovariates values, final boolean recordIndelValues) {
         final int baseQualityCount = read.getBaseQualityCount();
-        final byte[] baseInsertionQualities = recordIndelValues ? ReadUtils.getBaseInsertionQualities(read) : null;
-        final byte[] baseDeletionQualities = recordIndelValues ? ReadUtils.getBaseDeletionQualities(read) : null;
-
         //note: duplicate the loop to avoid checking recordIndelValues on every iteration
         if (recordIndelValues) {
+            //note: reads without indel quals get the default qual directly, rather than from a newly allocated array of defaults
+            final byte[] baseInsertionQualities = ReadUtils.getExistingBaseInsertionQualities(read);
+            final byte[] baseDeletionQualities = ReadUtils.getExistingBaseDeletionQualities(read);
             for (int i = 0; i < baseQualityCount; i++) {
-                values.addCovariate(read.getBaseQuality(i), baseInsertionQualities[i], baseDeletionQualities[i], i);
+                final byte insertionQual = baseInsertionQualities == null ? ReadUtils.DEFAULT_INSERTION_DELETION_QUAL : baseInsertionQualities[i];
+                final byte deletionQual = baseDeletionQualities == null ? ReadUtils.DEFAULT_INSERTION_DELETION_QUAL : baseDeletionQualities[i];
+                values.addCovariate(read.getBaseQuality(i), insertionQual, deletionQual, i);
             }
         } else {
             for (int i = 0; i < baseQualityCount; i++) {
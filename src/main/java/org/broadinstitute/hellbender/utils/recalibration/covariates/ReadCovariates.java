@@ -21,6 +21,11 @@ public final class ReadCovariates {
      */
     private int currentCovariateIndex = 0;
 
+    /**
+     * The cache our keys came from, which also holds the scratch buffers of the covariates
+     */
+    private final CovariateKeyCache keysCache;
+
     /**
      * Use an LRU cache to keep cache of keys (int[][][]) arrays for each read length we've seen.
      * The cache allows us to avoid the expense of recreating these arrays for every read.  The LRU
@@ -28,6 +33,7 @@ public final class ReadCovariates {
      */
     public ReadCovariates(final int readLength, final int numberOfCovariates, final CovariateKeyCache keysCache) {
         Utils.nonNull(keysCache);
+        this.keysCache = keysCache;
         final int[][][] cachedKeys = keysCache.get(readLength);
         if ( cachedKeys == null ) {
             if ( logger.isDebugEnabled() ) logger.debug("Keys cache miss for length " + readLength + " cache size " + keysCache.size());
@@ -38,6 +44,13 @@ public final class ReadCovariates {
         }
     }
 
+    /**
+     * @return the cache our keys came from, whose scratch buffers covariates may use while recording their values
+     */
+    public CovariateKeyCache getKeysCache() {
+        return keysCache;
+    }
+
     public void setCovariateIndex(final int index) {
         currentCovariateIndex = index;
     }
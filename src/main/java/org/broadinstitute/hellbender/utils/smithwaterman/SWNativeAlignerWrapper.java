@@ -13,13 +13,16 @@ import org.broadinstitute.hellbender.utils.read.AlignmentUtils;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * A wrapper that converts instances of {@link SWAlignerNativeBinding} into a {@link SmithWatermanAligner}
+ *
+ * {@link #align} may be called concurrently, as long as the wrapped binding supports it.
  */
 public final class SWNativeAlignerWrapper implements SmithWatermanAligner {
     private final SWAlignerNativeBinding aligner;
-    private long totalComputeTime = 0;
+    private final LongAdder totalComputeTime = new LongAdder();
 
     public SWNativeAlignerWrapper(final SWAlignerNativeBinding aligner) {
         this.aligner = aligner;
@@ -54,7 +57,7 @@ public final class SWNativeAlignerWrapper implements SmithWatermanAligner {
             alignmentResult =  new SWNativeResultWrapper(alignment);
         }
 
-        totalComputeTime += System.nanoTime() - startTime;
+        totalComputeTime.add(System.nanoTime() - startTime);
         return alignmentResult;
     }
 
@@ -63,7 +66,7 @@ public final class SWNativeAlignerWrapper implements SmithWatermanAligner {
      */
     @Override
     public void close() {
-        logger.info(String.format("Total compute time in native Smith-Waterman : %.2f sec", totalComputeTime * 1e-9));
+        logger.info(String.format("Total compute time in native Smith-Waterman : %.2f sec", totalComputeTime.sum() * 1e-9));
         aligner.close();
     }
 
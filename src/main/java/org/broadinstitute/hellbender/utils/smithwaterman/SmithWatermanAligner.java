@@ -21,6 +21,9 @@ public interface SmithWatermanAligner extends Closeable {
     /**
      *  perform a Smith-Waterman alignment of alt against ref
      *
+     *  Implementations must be safe to call concurrently from several threads, since a single aligner may be shared
+     *  by concurrent callers (eg., the graphs for the different kmer sizes of ReadThreadingAssembler).
+     *
      * @param ref bases to align to, values must be the byte equivalent of uppercase chars
      * @param alt bases to align against ref, values must be the byte equivalent of uppercase chars
      * @param parameters a set of weights to use when performing the alignment
@@ -12,6 +12,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Pairwise discrete smith-waterman alignment implemented in pure java
@@ -20,10 +21,14 @@ import java.util.List;
  * ****                    IMPORTANT NOTE:                             ****
  * ****  This class assumes that all bytes come from UPPERCASED chars! ****
  * ************************************************************************
+ *
+ * The singleton is shared by all callers, including concurrent ones (eg., the kmer size attempts of
+ * ReadThreadingAssembler), so {@link #align} must remain thread-safe: it keeps no state between calls other than the
+ * total compute time, which is accumulated in a {@link LongAdder}.
  */
 public final class SmithWatermanJavaAligner implements SmithWatermanAligner {
     private static final SmithWatermanJavaAligner ALIGNER = new SmithWatermanJavaAligner();
-    private long totalComputeTime = 0;
+    private final LongAdder totalComputeTime = new LongAdder();
 
     /**
      * return the stateless singleton instance of SmithWatermanJavaAligner
@@ -91,7 +96,7 @@ public final class SmithWatermanJavaAligner implements SmithWatermanAligner {
             alignmentResult = calculateCigar(sw, btrack, overhangStrategy); // length of the segment (continuous matches, insertions or deletions)
         }
 
-        totalComputeTime += System.nanoTime() - startTime;
+        totalComputeTime.add(System.nanoTime() - startTime);
         return alignmentResult;
     }
 
@@ -388,6 +393,6 @@ public final class SmithWatermanJavaAligner implements SmithWatermanAligner {
 
     @Override
     public void close() {
-        logger.info(String.format("Total compute time in java Smith-Waterman : %.2f sec", totalComputeTime * 1e-9));
+        logger.info(String.format("Total compute time in java Smith-Waterman : %.2f sec", totalComputeTime.sum() * 1e-9));
     }
 }
@@ -96,6 +96,15 @@ public final class GATKVariantContextUtils {
         return vcWriterBuilder.build();
     }
 
+    /**
+     * @param outputFile a variant output file
+     * @return true if the extension of outputFile is that of a VCF or block-compressed VCF file
+     */
+    public static boolean isVCFOrBlockCompressedVCF(final File outputFile) {
+        final VariantContextWriterBuilder.OutputType outputType = getVariantFileTypeFromExtension(outputFile);
+        return outputType == VariantContextWriterBuilder.OutputType.VCF || outputType == VariantContextWriterBuilder.OutputType.BLOCK_COMPRESSED_VCF;
+    }
+
     // Determine the variant file type from the file extension. Htsjdk has similar code, when
     // https://github.com/broadinstitute/gatk/issues/2128 is fixed we should eliminate this code
     // and use the htsjdk method.
@@ -0,0 +1,415 @@
+package org.broadinstitute.hellbender.utils.variant.writers;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import htsjdk.samtools.util.BlockCompressedStreamConstants;
+import htsjdk.samtools.util.Md5CalculatingOutputStream;
+import htsjdk.samtools.util.zip.DeflaterFactory;
+import htsjdk.tribble.AbstractFeatureReader;
+import htsjdk.tribble.index.DynamicIndexCreator;
+import htsjdk.tribble.index.IndexCreator;
+import htsjdk.tribble.index.IndexFactory;
+import htsjdk.tribble.index.tabix.TabixFormat;
+import htsjdk.tribble.index.tabix.TabixIndexCreator;
+import htsjdk.variant.variantcontext.GenotypesContext;
+import htsjdk.variant.variantcontext.LazyGenotypesContext;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import htsjdk.variant.variantcontext.writer.Options;
+import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+import htsjdk.variant.vcf.VCFConstants;
+import htsjdk.variant.vcf.VCFEncoder;
+import htsjdk.variant.vcf.VCFHeader;
+import htsjdk.variant.vcf.VCFHeaderLine;
+import htsjdk.variant.vcf.VCFHeaderVersion;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Writes VCF or block-compressed VCF files, encoding records (and, for block-compressed output, compressing
+ * them) on a pool of worker threads, so that the thread adding the records only has to hand them over.
+ *
+ * Records are handed to the workers in batches of {@link #BATCH_SIZE}, and the encoded batches are written out
+ * in the order in which the records were added. The output is the same as the output of htsjdk's VCF writer, except
+ * that each batch of a block-compressed file starts a new BGZF block. The index (a tribble index for VCF files, or a
+ * tabix index for block-compressed VCF files) is built on the fly, as the batches are written out.
+ *
+ * As with htsjdk's asynchronous writer, records are encoded after {@link #add} returns, so records must not be
+ * modified (or their genotypes decoded) by the caller once added.
+ */
+public final class ParallelVCFWriter implements VariantContextWriter {
+
+    /**
+     * Number of records handed to a worker thread at a time.
+     */
+    @VisibleForTesting
+    static final int BATCH_SIZE = 1_000;
+
+    private static final String VERSION_LINE =
+            VCFHeader.METADATA_INDICATOR + VCFHeaderVersion.VCF4_2.getFormatString() + "=" + VCFHeaderVersion.VCF4_2.getVersionString();
+
+    private final File outFile;
+    private final SAMSequenceDictionary refDict;
+    private final boolean blockCompressed;
+    private final boolean doNotWriteGenotypes;
+    private final boolean allowMissingFieldsInHeader;
+    private final boolean writeFullFormatField;
+    private final int compressionLevel;
+    private final DeflaterFactory deflaterFactory;
+    private final IndexCreator indexer;
+    private final OutputStream outputStream;
+    private final ExecutorService encoderPool;
+
+    /**
+     * Encoded batches not yet written out, oldest first. Their number is bounded, to bound memory usage when the
+     * workers fall behind.
+     */
+    private final Deque<Future<EncodedBatch>> pendingBatches = new ArrayDeque<>();
+    private final int maxPendingBatches;
+
+    private VCFHeader header = null;
+    private List<VariantContext> currentBatch = new ArrayList<>(BATCH_SIZE);
+    private long bytesWritten = 0;
+    private boolean outputHasBeenWritten = false;
+    private boolean closed = false;
+
+    /**
+     * True once writing the output has failed, whether writing to the file or encoding a batch, so that the output is
+     * incomplete. Reported by {@link #checkError}.
+     */
+    private boolean hasError = false;
+
+    /**
+     * @param outFile output file. Its extension determines whether it's block-compressed. May not be null.
+     * @param refDict sequence dictionary to store in the index. May be null.
+     * @param numThreads number of threads encoding (and compressing) records. Must be >= 1.
+     * @param createMD5 if true, also write an MD5 digest of the output, in outFile.md5
+     * @param options writer options. {@link Options#FORCE_BCF} is not supported, and {@link Options#USE_ASYNC_IO} is ignored.
+     */
+    public ParallelVCFWriter(final File outFile, final SAMSequenceDictionary refDict, final int numThreads,
+                             final boolean createMD5, final Options... options) {
+        Utils.nonNull(outFile);
+        Utils.validateArg(numThreads >= 1, "numThreads must be >= 1");
+        final Set<Options> optionSet = options.length > 0 ? EnumSet.copyOf(Arrays.asList(options)) : EnumSet.noneOf(Options.class);
+        Utils.validateArg(! optionSet.contains(Options.FORCE_BCF), "BCF output is not supported");
+
+        this.outFile = outFile;
+        this.refDict = refDict;
+        this.blockCompressed = AbstractFeatureReader.hasBlockCompressedExtension(outFile.getPath());
+        this.doNotWriteGenotypes = optionSet.contains(Options.DO_NOT_WRITE_GENOTYPES);
+        this.allowMissingFieldsInHeader = optionSet.contains(Options.ALLOW_MISSING_FIELDS_IN_HEADER);
+        this.writeFullFormatField = optionSet.contains(Options.WRITE_FULL_FORMAT_FIELD);
+
+        // capture the defaults of the calling thread, as they may have been set by the tool
+        this.compressionLevel = BlockCompressedOutputStream.getDefaultCompressionLevel();
+        this.deflaterFactory = BlockCompressedOutputStream.getDefaultDeflaterFactory();
+
+        if ( optionSet.contains(Options.INDEX_ON_THE_FLY) ) {
+            this.indexer = blockCompressed ? new TabixIndexCreator(refDict, TabixFormat.VCF)
+                                           : new DynamicIndexCreator(outFile, IndexFactory.IndexBalanceApproach.FOR_SEEK_TIME);
+        } else {
+            this.indexer = null;
+        }
+
+        try {
+            final OutputStream fileStream = new FileOutputStream(outFile);
+            this.outputStream = new BufferedOutputStream(createMD5 ? new Md5CalculatingOutputStream(fileStream, new File(outFile.getAbsolutePath() + ".md5")) : fileStream);
+        } catch ( IOException e ) {
+            throw new UserException.CouldNotCreateOutputFile(outFile, "Could not open VCF file for writing", e);
+        }
+
+        this.encoderPool = Executors.newFixedThreadPool(numThreads, new ThreadFactoryBuilder().setNameFormat("vcf-writer-%d").setDaemon(true).build());
+        this.maxPendingBatches = 2 * numThreads;
+    }
+
+    @Override
+    public void writeHeader( final VCFHeader header ) {
+        checkNotClosed();
+        setHeader(header);
+        writeBatch(encode(encodeHeader(this.header), new ArrayList<>(0), new ArrayList<>(0)));
+        outputHasBeenWritten = true;
+    }
+
+    @Override
+    public void setHeader( final VCFHeader header ) {
+        Utils.nonNull(header);
+        if ( outputHasBeenWritten ) {
+            throw new IllegalStateException("The header cannot be modified after the header or variants have been written to the output stream.");
+        }
+        this.header = doNotWriteGenotypes ? new VCFHeader(header.getMetaDataInSortedOrder()) : header;
+    }
+
+    @Override
+    public void add( final VariantContext vc ) {
+        Utils.nonNull(vc);
+        checkNotClosed();
+        if ( header == null ) {
+            throw new IllegalStateException("The VCF Header must be written before records can be added: " + outFile);
+        }
+
+        final VariantContext toWrite = doNotWriteGenotypes ? new VariantContextBuilder(vc).noGenotypes().make() : vc;
+
+        // Genotypes that are still in their original VCF text are written as they are, but any other
+        // lazily-decoded genotypes must be decoded here, as the codecs decoding them are not thread-safe
+        final GenotypesContext genotypes = toWrite.getGenotypes();
+        if ( genotypes.isLazyWithData() && ! (((LazyGenotypesContext)genotypes).getUnparsedGenotypeData() instanceof String) ) {
+            ((LazyGenotypesContext)genotypes).decode();
+        }
+
+        currentBatch.add(toWrite);
+        outputHasBeenWritten = true;
+        if ( currentBatch.size() == BATCH_SIZE ) {
+            submitCurrentBatch();
+        }
+    }
+
+    /**
+     * @return true if writing the output has failed (the failure itself was thrown by the failing call), so that
+     *         the output is incomplete
+     */
+    @Override
+    public boolean checkError() {
+        return hasError;
+    }
+
+    /**
+     * Write out all records added so far, the index (if requested) and the MD5 digest (if requested), and stop the
+     * worker threads. The output file (and the MD5 digest) is closed even if writing it out fails.
+     */
+    @Override
+    public void close() {
+        if ( closed ) {
+            return;
+        }
+        closed = true;
+
+        boolean outputStreamClosed = false;
+        try {
+            if ( ! currentBatch.isEmpty() ) {
+                submitCurrentBatch();
+            }
+            while ( ! pendingBatches.isEmpty() ) {
+                writeBatch(awaitOldestBatch());
+            }
+
+            if ( blockCompressed ) {
+                outputStream.write(BlockCompressedStreamConstants.EMPTY_GZIP_BLOCK);
+            }
+            // BufferedOutputStream closes the file even if flushing it fails, so it's not closed again below
+            outputStreamClosed = true;
+            outputStream.close();
+
+            if ( indexer != null ) {
+                if ( refDict != null ) {
+                    indexer.setIndexSequenceDictionary(refDict);
+                }
+                indexer.finalizeIndex(getPosition(0)).writeBasedOnFeatureFile(outFile);
+            }
+        } catch ( IOException e ) {
+            hasError = true;
+            throw new UserException.CouldNotCreateOutputFile(outFile, "Could not finish writing VCF file", e);
+        } finally {
+            encoderPool.shutdownNow();
+            if ( ! outputStreamClosed ) {
+                closeAfterFailure();
+            }
+        }
+    }
+
+    /**
+     * Close the output after a failure, which is already being thrown, so that neither the file nor the MD5 digest
+     * is left open. A failure to close is only recorded, so as not to mask the original one.
+     */
+    private void closeAfterFailure() {
+        hasError = true;
+        try {
+            outputStream.close();
+        } catch ( IOException e ) {
+            // the original failure is being thrown
+        }
+    }
+
+    private void checkNotClosed() {
+        if ( closed ) {
+            throw new IllegalStateException("Cannot write to " + outFile + " after the writer has been closed");
+        }
+    }
+
+    private void submitCurrentBatch() {
+        final List<VariantContext> batch = currentBatch;
+        final VCFHeader batchHeader = header;
+        currentBatch = new ArrayList<>(BATCH_SIZE);
+        pendingBatches.add(encoderPool.submit(() -> encodeBatch(batch, batchHeader)));
+
+        // write out every batch that is already done, and wait for the oldest one if too many are pending
+        while ( ! pendingBatches.isEmpty() && (pendingBatches.size() > maxPendingBatches || pendingBatches.peekFirst().isDone()) ) {
+            writeBatch(awaitOldestBatch());
+        }
+    }
+
+    private EncodedBatch awaitOldestBatch() {
+        try {
+            return pendingBatches.removeFirst().get();
+        } catch ( InterruptedException e ) {
+            hasError = true;
+            Thread.currentThread().interrupt();
+            throw new GATKException("Interrupted while writing " + outFile, e);
+        } catch ( ExecutionException e ) {
+            hasError = true;
+            if ( e.getCause() instanceof RuntimeException ) {
+                throw (RuntimeException)e.getCause();
+            }
+            throw new GATKException("Error encoding records for " + outFile, e.getCause());
+        }
+    }
+
+    /**
+     * Write out an encoded batch, and index its records. Must be called in the order in which batches were submitted.
+     */
+    private void writeBatch( final EncodedBatch batch ) {
+        if ( indexer != null ) {
+            for ( int i = 0; i < batch.records.size(); i++ ) {
+                indexer.addFeature(batch.records.get(i), getPosition(batch.recordPositions[i]));
+            }
+        }
+
+        try {
+            outputStream.write(batch.bytes, 0, batch.length);
+        } catch ( IOException e ) {
+            hasError = true;
+            throw new UserException.CouldNotCreateOutputFile(outFile, "Could not write VCF file", e);
+        }
+        bytesWritten += batch.length;
+    }
+
+    /**
+     * @param positionInBatch position in the batch about to be written out, relative to its start
+     * @return the position in the output file (the virtual file pointer, for block-compressed files)
+     */
+    private long getPosition( final long positionInBatch ) {
+        // As each batch starts a new BGZF block, the virtual file pointers within a batch need only be
+        // offset by the address of its first block
+        return blockCompressed ? (bytesWritten << 16) + positionInBatch : bytesWritten + positionInBatch;
+    }
+
+    /**
+     * Encode (and compress) a batch of records. Called on the worker threads, with an encoder of their own.
+     */
+    private EncodedBatch encodeBatch( final List<VariantContext> records, final VCFHeader batchHeader ) {
+        final VCFEncoder encoder = new VCFEncoder(batchHeader, allowMissingFieldsInHeader, writeFullFormatField);
+        final List<byte[]> lines = new ArrayList<>(records.size());
+        for ( final VariantContext vc : records ) {
+            lines.add((encoder.encode(vc) + "\n").getBytes(VCFEncoder.VCF_CHARSET));
+        }
+        return encode(null, lines, records);
+    }
+
+    /**
+     * Concatenate (and compress, for block-compressed output) the given header (may be null) and lines, the
+     * encodings of the given records, recording the position of each line relative to the start of the output.
+     */
+    private EncodedBatch encode( final byte[] headerBytes, final List<byte[]> lines, final List<VariantContext> records ) {
+        final long[] linePositions = new long[lines.size()];
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(blockCompressed ? 16_384 : 65_536);
+        try {
+            if ( ! blockCompressed ) {
+                if ( headerBytes != null ) {
+                    bytes.write(headerBytes);
+                }
+                for ( int i = 0; i < lines.size(); i++ ) {
+                    linePositions[i] = bytes.size();
+                    bytes.write(lines.get(i));
+                }
+                return new EncodedBatch(records, bytes.toByteArray(), bytes.size(), linePositions);
+            }
+
+            final BlockCompressedOutputStream bgzfStream = new BlockCompressedOutputStream(bytes, (File)null, compressionLevel, deflaterFactory);
+            if ( headerBytes != null ) {
+                bgzfStream.write(headerBytes);
+            }
+            for ( int i = 0; i < lines.size(); i++ ) {
+                linePositions[i] = bgzfStream.getFilePointer();
+                bgzfStream.write(lines.get(i));
+            }
+            bgzfStream.close();
+        } catch ( IOException e ) {
+            throw new GATKException("Error encoding records for " + outFile, e);
+        }
+
+        // closing the stream ends it with an empty block, which must only be written at the end of the file
+        final int length = bytes.size() - BlockCompressedStreamConstants.EMPTY_GZIP_BLOCK.length;
+        final byte[] compressed = bytes.toByteArray();
+        if ( ! Arrays.equals(Arrays.copyOfRange(compressed, length, compressed.length), BlockCompressedStreamConstants.EMPTY_GZIP_BLOCK) ) {
+            throw new GATKException("BUG: block-compressed batch does not end with an empty block");
+        }
+        return new EncodedBatch(records, compressed, length, linePositions);
+    }
+
+    private static byte[] encodeHeader( final VCFHeader header ) {
+        final StringBuilder builder = new StringBuilder();
+        builder.append(VERSION_LINE).append('\n');
+        for ( final VCFHeaderLine line : header.getMetaDataInSortedOrder() ) {
+            if ( VCFHeaderVersion.isFormatString(line.getKey()) ) {
+                continue;
+            }
+            builder.append(VCFHeader.METADATA_INDICATOR).append(line.toString()).append('\n');
+        }
+
+        builder.append(VCFHeader.HEADER_INDICATOR);
+        boolean isFirst = true;
+        for ( final VCFHeader.HEADER_FIELDS field : header.getHeaderFields() ) {
+            if ( ! isFirst ) {
+                builder.append(VCFConstants.FIELD_SEPARATOR);
+            }
+            isFirst = false;
+            builder.append(field.toString());
+        }
+        if ( header.hasGenotypingData() ) {
+            builder.append(VCFConstants.FIELD_SEPARATOR).append("FORMAT");
+            for ( final String sample : header.getGenotypeSamples() ) {
+                builder.append(VCFConstants.FIELD_SEPARATOR).append(sample);
+            }
+        }
+        builder.append('\n');
+        return builder.toString().getBytes(VCFEncoder.VCF_CHARSET);
+    }
+
+    /**
+     * A batch of records, and their encoding: the first length bytes of bytes, with the positions of the records
+     * relative to their start.
+     */
+    private static final class EncodedBatch {
+        private final List<VariantContext> records;
+        private final byte[] bytes;
+        private final int length;
+        private final long[] recordPositions;
+
+        private EncodedBatch( final List<VariantContext> records, final byte[] bytes, final int length, final long[] recordPositions ) {
+            this.records = records;
+            this.bytes = bytes;
+            this.length = length;
+            this.recordPositions = recordPositions;
+        }
+    }
+}
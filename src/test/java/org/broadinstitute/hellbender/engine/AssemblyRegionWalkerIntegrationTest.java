@@ -0,0 +1,179 @@
+package org.broadinstitute.hellbender.engine;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMReadGroupRecord;
+import org.broadinstitute.barclay.argparser.CommandLineProgramProperties;
+import org.broadinstitute.hellbender.CommandLineProgramTest;
+import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
+import org.broadinstitute.hellbender.cmdline.TestProgramGroup;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.activityprofile.ActivityProfileState;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.ReadUtils;
+import org.broadinstitute.hellbender.utils.read.SAMFileGATKReadWriter;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public final class AssemblyRegionWalkerIntegrationTest extends CommandLineProgramTest {
+
+    private static final int NUM_CONTIGS = 4;
+    private static final int CONTIG_LENGTH = 16000;
+    private static final int READS_PER_ALIGNMENT_START = 10;
+    private static final String READ_GROUP_ID = "rg";
+
+    @CommandLineProgramProperties(
+            summary = "TestMultiThreadedAssemblyRegionWalker",
+            oneLineSummary = "TestMultiThreadedAssemblyRegionWalker",
+            programGroup = TestProgramGroup.class
+    )
+    private static final class TestMultiThreadedAssemblyRegionWalker extends AssemblyRegionWalker {
+        private final List<String> processedRegions = new ArrayList<>();
+
+        @Override
+        protected int defaultMinAssemblyRegionSize() { return 50; }
+
+        @Override
+        protected int defaultMaxAssemblyRegionSize() { return 300; }
+
+        @Override
+        protected int defaultAssemblyRegionPadding() { return 100; }
+
+        @Override
+        protected int defaultMaxReadsPerAlignmentStart() { return 50; }
+
+        @Override
+        protected double defaultActiveProbThreshold() { return 0.002; }
+
+        @Override
+        protected int defaultMaxProbPropagationDistance() { return 50; }
+
+        @Override
+        protected boolean includeReadsWithDeletionsInIsActivePileups() { return true; }
+
+        @Override
+        protected boolean supportsMultiThreadedTraversal() { return true; }
+
+        @Override
+        public AssemblyRegionEvaluator assemblyRegionEvaluator() {
+            // alternate active and inactive stretches, so that each shard has several regions
+            return (locusPileup, referenceContext, featureContext) ->
+                    new ActivityProfileState(referenceContext.getInterval(), locusPileup.getLocation().getStart() % 1000 < 200 ? 1.0 : 0.0);
+        }
+
+        @Override
+        public void apply( AssemblyRegion region, ReferenceContext referenceContext, FeatureContext featureContext ) {
+            processedRegions.add(describe(region));
+        }
+
+        @Override
+        protected AssemblyRegionProcessor makeAssemblyRegionProcessor() {
+            final AssemblyRegionEvaluator evaluator = assemblyRegionEvaluator();
+            return new AssemblyRegionProcessor() {
+                @Override
+                public AssemblyRegionEvaluator assemblyRegionEvaluator() { return evaluator; }
+
+                @Override
+                public Runnable process( AssemblyRegion region, ReferenceContext referenceContext, FeatureContext featureContext ) {
+                    final String processedRegion = describe(region);
+                    return () -> processedRegions.add(processedRegion);
+                }
+            };
+        }
+
+        private static String describe( final AssemblyRegion region ) {
+            return region.getSpan() + " " + region.isActive() + " " +
+                    region.getReads().stream().map(GATKRead::getName).collect(Collectors.joining(","));
+        }
+    }
+
+    /**
+     * Write a BAM with stacks of reads at regularly spaced alignment starts on every contig of hg19mini.fasta
+     */
+    private static File writeStackedReadsBam() {
+        final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeader(NUM_CONTIGS, 1, CONTIG_LENGTH);
+        final SAMReadGroupRecord readGroup = new SAMReadGroupRecord(READ_GROUP_ID);
+        readGroup.setSample("sample");
+        header.addReadGroup(readGroup);
+
+        final File bam = createTempFile("stackedReads", ".bam");
+        final byte[] bases = Utils.repeatChars('A', 50);
+        final byte[] quals = Utils.repeatBytes((byte)30, 50);
+        try ( final SAMFileGATKReadWriter writer = new SAMFileGATKReadWriter(ReadUtils.createCommonSAMWriter(bam, null, header, true, true, false)) ) {
+            for ( int contig = 1; contig <= NUM_CONTIGS; ++contig ) {
+                for ( int start = 100; start < 5000; start += 20 ) {
+                    for ( int i = 0; i < READS_PER_ALIGNMENT_START; ++i ) {
+                        final GATKRead read = ArtificialReadUtils.createArtificialRead(header, contig + "_" + start + "_" + i, Integer.toString(contig), start, bases, quals);
+                        read.setReadGroup(READ_GROUP_ID);
+                        read.setMappingQuality(60);
+                        writer.addRead(read);
+                    }
+                }
+            }
+        }
+        return bam;
+    }
+
+    @DataProvider(name = "MultiThreadedTraversalData")
+    public Object[][] getMultiThreadedTraversalData() {
+        return new Object[][] {
+                { 2, 0 },
+                { 4, 0 },
+                { 4, 3 }
+        };
+    }
+
+    /*
+     * Test that downsampling keeps the same reads whether read shards are processed sequentially or concurrently, by
+     * downsampling to a single read per alignment start. Draws from the shared generator in between the two runs must
+     * not matter either.
+     */
+    @Test(dataProvider = "MultiThreadedTraversalData")
+    public void testMultiThreadedTraversalMatchesSingleThreadedWithDownsampling( final int threads, final int pipelineQueueSize ) throws Exception {
+        final File bam = writeStackedReadsBam();
+        final List<String> args = new ArrayList<>(Arrays.asList(
+                "-I", bam.getAbsolutePath(),
+                "-R", hg19MiniReference,
+                "--" + AssemblyRegionWalker.MAX_STARTS_LONG_NAME, "1"));
+
+        Utils.resetRandomGenerator();
+        final TestMultiThreadedAssemblyRegionWalker singleThreadedTool = new TestMultiThreadedAssemblyRegionWalker();
+        singleThreadedTool.instanceMain(args.toArray(new String[0]));
+
+        Utils.getRandomGenerator().nextInt();
+        final TestMultiThreadedAssemblyRegionWalker multiThreadedTool = new TestMultiThreadedAssemblyRegionWalker();
+        args.addAll(Arrays.asList(
+                "--" + StandardArgumentDefinitions.THREADS_LONG_NAME, Integer.toString(threads),
+                "--" + AssemblyRegionWalker.PIPELINE_QUEUE_SIZE_LONG_NAME, Integer.toString(pipelineQueueSize)));
+        multiThreadedTool.instanceMain(args.toArray(new String[0]));
+
+        Assert.assertTrue(singleThreadedTool.processedRegions.size() > NUM_CONTIGS);
+        Assert.assertEquals(multiThreadedTool.processedRegions, singleThreadedTool.processedRegions);
+    }
+
+    @Test
+    public void testDownsamplingTriggers() throws Exception {
+        final File bam = writeStackedReadsBam();
+        final TestMultiThreadedAssemblyRegionWalker tool = new TestMultiThreadedAssemblyRegionWalker();
+        tool.instanceMain(new String[] {
+                "-I", bam.getAbsolutePath(),
+                "-R", hg19MiniReference,
+                "-L", "1:1000-1100",
+                "--" + AssemblyRegionWalker.MAX_STARTS_LONG_NAME, "1"
+        });
+
+        // every alignment start is reduced to one read
+        for ( final String region : tool.processedRegions ) {
+            final String[] readNames = region.split(" ")[2].split(",");
+            Assert.assertEquals(Arrays.stream(readNames).map(name -> name.substring(0, name.lastIndexOf('_'))).distinct().count(), readNames.length, region);
+        }
+        Assert.assertFalse(tool.processedRegions.isEmpty());
+    }
+}
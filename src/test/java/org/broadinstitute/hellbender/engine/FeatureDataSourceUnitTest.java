@@ -384,6 +384,95 @@ public final class FeatureDataSourceUnitTest extends GATKBaseTest {
         }
     }
 
+    /**
+     * Tests correctness of queries with background prefetch enabled, with lookaheads smaller and larger than the
+     * distance between queries.
+     */
+    @Test(dataProvider = "SingleDataSourceMultipleQueriesTestData")
+    public void testBackgroundPrefetchQueries( final List<Pair<SimpleInterval, List<String>>> testQueries ) {
+        for ( final int queryLookahead : new int[] { 1, 10, 100, FeatureDataSource.DEFAULT_QUERY_LOOKAHEAD_BASES } ) {
+            try (final FeatureDataSource<VariantContext> featureSource = new FeatureDataSource<>(QUERY_TEST_VCF, null, queryLookahead)) {
+                featureSource.setBackgroundPrefetch(true);
+
+                for ( Pair<SimpleInterval, List<String>> testQuery : testQueries ) {
+                    final List<VariantContext> queryResults = featureSource.queryAndPrefetch(testQuery.getLeft());
+                    checkVariantQueryResults(queryResults, testQuery.getRight(), testQuery.getLeft());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testBackgroundPrefetchCounters() {
+        try (final FeatureDataSource<VariantContext> expectedSource = new FeatureDataSource<>(QUERY_TEST_VCF, null, 100);
+             final FeatureDataSource<VariantContext> featureSource = new FeatureDataSource<>(QUERY_TEST_VCF, null, 100)) {
+            featureSource.setBackgroundPrefetch(true);
+
+            // walk along contig 1 in small steps, so that most cache misses can be served by a prefetch
+            for ( int start = 1; start <= 1200; start += 10 ) {
+                final SimpleInterval queryInterval = new SimpleInterval("1", start, start + 9);
+                Assert.assertEquals(getVariantIDs(featureSource.queryAndPrefetch(queryInterval)), getVariantIDs(expectedSource.queryAndPrefetch(queryInterval)),
+                        "Wrong records returned for query on interval " + queryInterval);
+            }
+            final int numServedByPrefetch = featureSource.getNumPrefetchHits() + featureSource.getNumPrefetchStalls();
+            Assert.assertTrue(numServedByPrefetch > 0, "No cache miss was served by a prefetch");
+            Assert.assertEquals(featureSource.getNumPrefetchMisses(), 1, "Only the first query should have missed");
+
+            // a contig switch can't be anticipated
+            final SimpleInterval otherContigInterval = new SimpleInterval("2", 200, 700);
+            checkVariantQueryResults(featureSource.queryAndPrefetch(otherContigInterval), Arrays.asList("o", "p", "q", "r", "s"), otherContigInterval);
+            Assert.assertEquals(featureSource.getNumPrefetchMisses(), 2);
+            Assert.assertEquals(featureSource.getNumPrefetchHits() + featureSource.getNumPrefetchStalls(), numServedByPrefetch);
+
+            // enabling prefetch again keeps the current prefetcher, and its counters
+            featureSource.setBackgroundPrefetch(true);
+            Assert.assertEquals(featureSource.getNumPrefetchMisses(), 2);
+            Assert.assertEquals(featureSource.getNumPrefetchHits() + featureSource.getNumPrefetchStalls(), numServedByPrefetch);
+
+            // disabling prefetch resets the counters
+            featureSource.setBackgroundPrefetch(false);
+            Assert.assertEquals(featureSource.getNumPrefetchHits() + featureSource.getNumPrefetchStalls() + featureSource.getNumPrefetchMisses(), 0);
+        }
+    }
+
+    @Test
+    public void testBackgroundPrefetchWithContigCache() {
+        try (final FeatureDataSource<VariantContext> featureSource = new FeatureDataSource<>(QUERY_TEST_VCF, null, 100)) {
+            final SimpleInterval queryInterval = new SimpleInterval("1", 200, 203);
+
+            // enabling the contig cache closes the prefetcher, and resets its counters
+            featureSource.setBackgroundPrefetch(true);
+            checkVariantQueryResults(featureSource.queryAndPrefetch(queryInterval), Arrays.asList("b", "c", "d"), queryInterval);
+            Assert.assertEquals(featureSource.getNumPrefetchMisses(), 1);
+            featureSource.setMaxCachedContigs(1);
+            Assert.assertEquals(featureSource.getNumPrefetchMisses(), 0);
+
+            // prefetch can't be enabled while whole contigs are cached, nor is it reopened once they no longer are
+            featureSource.setBackgroundPrefetch(true);
+            featureSource.setMaxCachedContigs(0);
+            checkVariantQueryResults(featureSource.queryAndPrefetch(queryInterval), Arrays.asList("b", "c", "d"), queryInterval);
+            Assert.assertEquals(featureSource.getNumPrefetchMisses(), 0, "Prefetch should not have been enabled with the contig cache");
+
+            featureSource.setBackgroundPrefetch(true);
+            checkVariantQueryResults(featureSource.queryAndPrefetch(new SimpleInterval("2", 200, 700)), Arrays.asList("o", "p", "q", "r", "s"), new SimpleInterval("2", 200, 700));
+            Assert.assertEquals(featureSource.getNumPrefetchMisses(), 1);
+        }
+    }
+
+    @Test
+    public void testBackgroundPrefetchWithoutLookahead() {
+        try (final FeatureDataSource<VariantContext> featureSource = new FeatureDataSource<>(QUERY_TEST_VCF, null, 0)) {
+            featureSource.setBackgroundPrefetch(true);
+            final SimpleInterval queryInterval = new SimpleInterval("1", 200, 203);
+            checkVariantQueryResults(featureSource.queryAndPrefetch(queryInterval), Arrays.asList("b", "c", "d"), queryInterval);
+            Assert.assertEquals(featureSource.getNumPrefetchMisses(), 0, "Prefetch should be disabled without a query lookahead");
+        }
+    }
+
+    private static List<String> getVariantIDs( final List<VariantContext> variants ) {
+        return variants.stream().map(VariantContext::getID).collect(Collectors.toList());
+    }
+
     @DataProvider(name = "GVCFQueryTestData")
     public Object[][] getGVCFQueryTestData() {
 
@@ -412,6 +501,96 @@ public final class FeatureDataSourceUnitTest extends GATKBaseTest {
         }
     }
 
+    @DataProvider(name = "ContigCacheQueryOrderTestData")
+    @SuppressWarnings("unchecked")
+    public Object[][] getContigCacheQueryOrderTestData() {
+        final List<Pair<SimpleInterval, List<String>>> queries = new ArrayList<>();
+        for ( Object[] queryTest : getIndependentFeatureQueryTestData() ) {
+            queries.add(Pair.of((SimpleInterval)queryTest[0], (List<String>)queryTest[1]));
+        }
+
+        final List<Pair<SimpleInterval, List<String>>> decreasingQueries = new ArrayList<>(queries);
+        Collections.reverse(decreasingQueries);
+        final List<Pair<SimpleInterval, List<String>>> randomQueries = new ArrayList<>(queries);
+        Collections.shuffle(randomQueries, new Random(42));
+
+        // Query list + max cached contigs
+        return new Object[][] {
+                { queries, 1 },
+                { decreasingQueries, 1 },
+                { randomQueries, 1 },
+                { randomQueries, 2 },
+                { randomQueries, 10 }
+        };
+    }
+
+    /**
+     * Tests correctness of queries in any order when whole contigs are cached, with more contigs in the queries
+     * than we can cache at once, and with all contigs fitting in the cache.
+     */
+    @Test(dataProvider = "ContigCacheQueryOrderTestData")
+    public void testContigCacheQueries( final List<Pair<SimpleInterval, List<String>>> testQueries, final int maxCachedContigs ) {
+        try (final FeatureDataSource<VariantContext> featureSource = new FeatureDataSource<>(QUERY_TEST_VCF)) {
+            featureSource.setMaxCachedContigs(maxCachedContigs);
+
+            for ( Pair<SimpleInterval, List<String>> testQuery : testQueries ) {
+                final List<VariantContext> queryResults = featureSource.queryAndPrefetch(testQuery.getLeft());
+                checkVariantQueryResults(queryResults, testQuery.getRight(), testQuery.getLeft());
+            }
+        }
+    }
+
+    @Test(dataProvider = "GVCFQueryTestData")
+    public void testContigCacheQueryGVCF( final SimpleInterval queryInterval, final List<String> expectedVariantIDs ) {
+        try ( FeatureDataSource<VariantContext> featureSource = new FeatureDataSource<>(QUERY_TEST_GVCF) ) {
+            featureSource.setMaxCachedContigs(1);
+            final List<VariantContext> queryResults = featureSource.queryAndPrefetch(queryInterval);
+            checkVariantQueryResults(queryResults, expectedVariantIDs, queryInterval);
+        }
+    }
+
+    @Test
+    public void testContigCacheEnabledByAttribute() {
+        final FeatureInput<VariantContext> featureInput = new FeatureInput<>(QUERY_TEST_VCF.getAbsolutePath(), "contigCached",
+                Collections.singletonMap(FeatureDataSource.MAX_CACHED_CONTIGS_ATTRIBUTE, "2"));
+        try (final FeatureDataSource<VariantContext> featureSource = new FeatureDataSource<>(featureInput, FeatureDataSource.DEFAULT_QUERY_LOOKAHEAD_BASES, null)) {
+            // queries with decreasing start positions
+            final SimpleInterval laterInterval = new SimpleInterval("1", 1075, 1176);
+            checkVariantQueryResults(featureSource.queryAndPrefetch(laterInterval), Arrays.asList("l", "m", "n"), laterInterval);
+            final SimpleInterval earlierInterval = new SimpleInterval("1", 200, 203);
+            checkVariantQueryResults(featureSource.queryAndPrefetch(earlierInterval), Arrays.asList("b", "c", "d"), earlierInterval);
+        }
+    }
+
+    @Test
+    public void testContigCacheOnTabixIndexedInput() {
+        final File tabixIndexedVCF = new File(publicTestDir + "org/broadinstitute/hellbender/tools/IndexFeatureFile/4featuresHG38Header.vcf.gz");
+        try (final FeatureDataSource<VariantContext> defaultSource = new FeatureDataSource<>(tabixIndexedVCF);
+             final FeatureDataSource<VariantContext> contigCachedSource = new FeatureDataSource<>(tabixIndexedVCF)) {
+            contigCachedSource.setMaxCachedContigs(1);
+
+            for ( final String contig : Arrays.asList("chr6", "chr1", "chr6") ) {
+                final SimpleInterval wholeContig = new SimpleInterval(contig, 1, 300000000);
+                final List<Integer> expectedStarts = defaultSource.queryAndPrefetch(wholeContig).stream().map(VariantContext::getStart).collect(Collectors.toList());
+                final List<Integer> actualStarts = contigCachedSource.queryAndPrefetch(wholeContig).stream().map(VariantContext::getStart).collect(Collectors.toList());
+                Assert.assertEquals(actualStarts, expectedStarts, "Wrong records returned for query on interval " + wholeContig);
+            }
+            Assert.assertEquals(contigCachedSource.queryAndPrefetch(new SimpleInterval("chr6", 33414233, 33442919)).size(), 2);
+        }
+    }
+
+    @DataProvider(name = "InvalidMaxCachedContigs")
+    public Object[][] getInvalidMaxCachedContigs() {
+        return new Object[][] { { "-1" }, { "two" }, { "" } };
+    }
+
+    @Test(dataProvider = "InvalidMaxCachedContigs", expectedExceptions = UserException.BadInput.class)
+    public void testInvalidMaxCachedContigsAttribute( final String maxCachedContigs ) {
+        final FeatureInput<VariantContext> featureInput = new FeatureInput<>(QUERY_TEST_VCF.getAbsolutePath(), "contigCached",
+                Collections.singletonMap(FeatureDataSource.MAX_CACHED_CONTIGS_ATTRIBUTE, maxCachedContigs));
+        new FeatureDataSource<>(featureInput, FeatureDataSource.DEFAULT_QUERY_LOOKAHEAD_BASES, null);
+    }
+
     /**************************************************
      * Direct testing on the FeatureCache inner class
      **************************************************/
@@ -676,4 +855,39 @@ public final class FeatureDataSourceUnitTest extends GATKBaseTest {
      * End of direct testing on the FeatureCache inner class
      *********************************************************/
 
+    @Test
+    public void testContigCacheEviction() {
+        final ContigFeatureCache<ArtificialTestFeature> cache = new ContigFeatureCache<>(2);
+        final List<ArtificialTestFeature> contig1Features = Arrays.asList(new ArtificialTestFeature("1", 50, 150), new ArtificialTestFeature("1", 1, 100));
+        final List<ArtificialTestFeature> contig2Features = Arrays.asList(new ArtificialTestFeature("2", 1, 100));
+        final List<ArtificialTestFeature> contig3Features = Collections.emptyList();
+
+        Assert.assertFalse(cache.cacheHit(new SimpleInterval("1", 1, 10)), "Unexpected cache hit");
+        cache.fill(contig1Features.iterator(), "1");
+        Assert.assertFalse(cache.cacheHit(new SimpleInterval("2", 1, 10)), "Unexpected cache hit");
+        cache.fill(contig2Features.iterator(), "2");
+
+        // Features are sorted by start position, regardless of fill order
+        Assert.assertTrue(cache.cacheHit(new SimpleInterval("1", 1000, 2000)), "Unexpected cache miss");
+        Assert.assertEquals(cache.getOverlapping(new SimpleInterval("1", 60, 70)), Arrays.asList(contig1Features.get(1), contig1Features.get(0)));
+        Assert.assertEquals(cache.getCachedContigs(), Arrays.asList("2", "1"));
+
+        // Contig 2 is now the least-recently queried, so it is evicted to make room for contig 3
+        Assert.assertFalse(cache.cacheHit(new SimpleInterval("3", 1, 10)), "Unexpected cache hit");
+        cache.fill(contig3Features.iterator(), "3");
+        Assert.assertEquals(cache.getCachedContigs(), Arrays.asList("1", "3"));
+        Assert.assertTrue(cache.getOverlapping(new SimpleInterval("3", 1, 10)).isEmpty(), "Should get back empty List for contig without Features");
+        Assert.assertFalse(cache.cacheHit(new SimpleInterval("2", 1, 10)), "Unexpected cache hit");
+
+        Assert.assertEquals(cache.getNumCacheHits(), 1);
+        Assert.assertEquals(cache.getNumCacheMisses(), 4);
+    }
+
+    @Test(expectedExceptions = GATKException.class)
+    public void testContigCacheRetrievalFromUncachedContig() {
+        final ContigFeatureCache<ArtificialTestFeature> cache = new ContigFeatureCache<>(1);
+        cache.fill(Collections.<ArtificialTestFeature>emptyIterator(), "1");
+        cache.getOverlapping(new SimpleInterval("2", 1, 10));
+    }
+
 }
@@ -6,11 +6,14 @@ import org.broadinstitute.hellbender.cmdline.TestProgramGroup;
 import org.broadinstitute.hellbender.engine.filters.CountingReadFilter;
 import org.broadinstitute.hellbender.engine.filters.ReadFilter;
 import org.broadinstitute.hellbender.transformers.ReadTransformer;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * @author Daniel Gomez-Sanchez (magicDGS)
@@ -133,4 +136,64 @@ public class LocusWalkerUnitTest extends CommandLineProgramTest {
         Assert.assertEquals(tool.totalApplyCalls, 10);
     }
 
-}
\ No newline at end of file
+    private static class TestLocusBatchTool extends LocusWalker {
+        private final int locusBatchSize;
+        public final List<String> visitedLoci = new ArrayList<>();
+        public int totalApplyBatchCalls = 0;
+
+        private TestLocusBatchTool(final int locusBatchSize) {
+            this.locusBatchSize = locusBatchSize;
+        }
+
+        @Override
+        public boolean emitEmptyLoci() {
+            return true;
+        }
+
+        @Override
+        protected int getLocusBatchSize() {
+            return locusBatchSize;
+        }
+
+        @Override
+        public void apply(AlignmentContext alignmentContext, ReferenceContext referenceContext, FeatureContext featureContext) {
+            visitedLoci.add(alignmentContext.getLocation() + " " + (char) referenceContext.getBase() + " " + alignmentContext.size());
+        }
+
+        @Override
+        public void applyBatch(List<AlignmentContext> alignmentContexts, ReferenceContext referenceContext, FeatureContext featureContext) {
+            totalApplyBatchCalls++;
+            final AlignmentContext first = alignmentContexts.get(0);
+            final AlignmentContext last = alignmentContexts.get(alignmentContexts.size() - 1);
+            Assert.assertEquals(referenceContext.getInterval(), new SimpleInterval(first.getContig(), first.getStart(), last.getEnd()));
+            Assert.assertTrue(referenceContext.getInterval().size() <= locusBatchSize);
+            final byte[] refBases = referenceContext.getBases();
+            for (final AlignmentContext alignmentContext : alignmentContexts) {
+                final byte refBase = refBases[alignmentContext.getStart() - referenceContext.getInterval().getStart()];
+                visitedLoci.add(alignmentContext.getLocation() + " " + (char) refBase + " " + alignmentContext.size());
+            }
+        }
+    }
+
+    @Test
+    public void testLocusBatches() {
+        final String[] args = {
+                "-I", getTestDataDir()+ "/print_reads.sorted.bam",
+                "-R", getTestDataDir()+ "/print_reads.fasta",
+                "-L", "chr7:21-30",
+                "-L", "chr7:36-40"
+        };
+
+        final TestLocusBatchTool singleLocusTool = new TestLocusBatchTool(1);
+        singleLocusTool.instanceMain(args);
+        Assert.assertEquals(singleLocusTool.totalApplyBatchCalls, 0);
+        Assert.assertEquals(singleLocusTool.visitedLoci.size(), 15);
+
+        // batches of 4 bases: 21-24, 25-28, 29-30, 36-39 and 40
+        final TestLocusBatchTool batchTool = new TestLocusBatchTool(4);
+        batchTool.instanceMain(args);
+        Assert.assertEquals(batchTool.totalApplyBatchCalls, 5);
+        Assert.assertEquals(batchTool.visitedLoci, singleLocusTool.visitedLoci);
+    }
+
+}
@@ -0,0 +1,151 @@
+package org.broadinstitute.hellbender.engine;
+
+import com.google.common.jimfs.Configuration;
+import com.google.common.jimfs.Jimfs;
+import htsjdk.samtools.SAMException;
+import htsjdk.samtools.SAMSequenceRecord;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.io.IOUtils;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public final class MemoryMappedReferenceSourceUnitTest extends GATKBaseTest {
+
+    private static final Path TEST_REFERENCE = IOUtils.getPath(hg19MiniReference);
+
+    @DataProvider(name = "ReferenceIntervalDataProvider")
+    public Object[][] getReferenceIntervals() {
+        return new Object[][] {
+                { new SimpleInterval("1", 1, 3), "NNN" },
+                { new SimpleInterval("1", 11041, 11045), "GCAAA" },
+                { new SimpleInterval("1", 11210, 11220), "CGGTGCTGTGC" },
+                { new SimpleInterval("2", 9995, 10005), "NNNNNNCGTAT" },
+                { new SimpleInterval("2", 10001, 10080), "CGTATCCCACACACCACACCCACACACCACACCCACACACACCCACACCCACACCCACACACACCACACCCACACACCAC" },
+                { new SimpleInterval("2", 10005, 10084), "TCCCACACACCACACCCACACACCACACCCACACACACCCACACCCACACCCACACACACCACACCCACACACCACACCC" },
+                { new SimpleInterval("2", 15995, 16000), "TGTCAG" }
+        };
+    }
+
+    @Test(dataProvider = "ReferenceIntervalDataProvider")
+    public void testQueryAndPrefetch( final SimpleInterval interval, final String expectedBases ) {
+        try (ReferenceDataSource reference = new MemoryMappedReferenceSource(TEST_REFERENCE)) {
+            Assert.assertEquals(new String(reference.queryAndPrefetch(interval).getBases()), expectedBases,
+                    "Wrong bases returned from queryAndPrefetch() for interval " + interval);
+        }
+    }
+
+    @DataProvider(name = "ReferencesAndRegionSizes")
+    public Object[][] getReferencesAndRegionSizes() {
+        final List<Object[]> tests = new ArrayList<>();
+        for ( final String fasta : new String[] { hg19MiniReference, publicTestDir + "iupacFASTA.fasta", publicTestDir + "exampleFASTA.fasta" } ) {
+            // regions of a single line, of a few lines, of a partial line (rounded up to one line), and of whole contigs
+            for ( final long maxRegionBytes : new long[] { 1, 81, 300, Integer.MAX_VALUE } ) {
+                tests.add(new Object[] { fasta, maxRegionBytes });
+            }
+        }
+        return tests.toArray(new Object[][]{});
+    }
+
+    @Test(dataProvider = "ReferencesAndRegionSizes")
+    public void testMatchesReferenceFileSource( final String fasta, final long maxRegionBytes ) {
+        final Path fastaPath = IOUtils.getPath(fasta);
+        try (ReferenceDataSource expectedReference = new ReferenceFileSource(fastaPath);
+             ReferenceDataSource reference = new MemoryMappedReferenceSource(fastaPath, maxRegionBytes)) {
+            Assert.assertEquals(reference.getSequenceDictionary(), expectedReference.getSequenceDictionary());
+
+            for ( final SimpleInterval interval : randomIntervals(expectedReference, new Random(13), 200) ) {
+                Assert.assertEquals(reference.queryAndPrefetch(interval).getBases(), expectedReference.queryAndPrefetch(interval).getBases(),
+                        "Wrong bases returned from queryAndPrefetch() for interval " + interval);
+            }
+
+            // whole contigs
+            for ( final SAMSequenceRecord contig : expectedReference.getSequenceDictionary().getSequences() ) {
+                final SimpleInterval interval = new SimpleInterval(contig.getSequenceName(), 1, contig.getSequenceLength());
+                Assert.assertEquals(reference.queryAndPrefetch(interval).getBases(), expectedReference.queryAndPrefetch(interval).getBases());
+            }
+        }
+    }
+
+    @Test
+    public void testConcurrentQueries() throws InterruptedException, ExecutionException {
+        final int numThreads = 4;
+        final MemoryMappedReferenceSource reference = new MemoryMappedReferenceSource(TEST_REFERENCE, 1000);
+        final ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try (ReferenceDataSource expectedReference = new ReferenceFileSource(TEST_REFERENCE)) {
+            final List<SimpleInterval> intervals = randomIntervals(expectedReference, new Random(13), 2000);
+            final List<byte[]> expectedBases = new ArrayList<>(intervals.size());
+            for ( final SimpleInterval interval : intervals ) {
+                expectedBases.add(expectedReference.queryAndPrefetch(interval).getBases());
+            }
+
+            final List<Future<?>> futures = new ArrayList<>();
+            for ( int thread = 0; thread < numThreads; thread++ ) {
+                final int firstInterval = thread;
+                futures.add(executor.submit(() -> {
+                    for ( int i = firstInterval; i < intervals.size(); i++ ) {
+                        Assert.assertEquals(reference.queryAndPrefetch(intervals.get(i)).getBases(), expectedBases.get(i));
+                    }
+                }));
+            }
+            for ( final Future<?> future : futures ) {
+                future.get();
+            }
+        }
+        finally {
+            executor.shutdownNow();
+            reference.close();
+        }
+    }
+
+    @Test(expectedExceptions = UserException.MissingContigInSequenceDictionary.class)
+    public void testMissingContig() {
+        new MemoryMappedReferenceSource(TEST_REFERENCE).queryAndPrefetch("nonexistent", 1, 10);
+    }
+
+    @Test(expectedExceptions = SAMException.class)
+    public void testQueryPastEndOfContig() {
+        new MemoryMappedReferenceSource(TEST_REFERENCE).queryAndPrefetch("1", 15995, 16001);
+    }
+
+    @Test(expectedExceptions = UserException.MissingReferenceFaiFile.class)
+    public void testReferenceWithMissingFaiFile() {
+        new MemoryMappedReferenceSource(IOUtils.getPath(publicTestDir + "fastaWithoutFai.fasta"));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNonLocalReference() throws IOException {
+        try (FileSystem jimfs = Jimfs.newFileSystem(Configuration.unix())) {
+            final Path refPath = jimfs.getPath("reference.fasta");
+            Files.createFile(refPath);
+
+            new MemoryMappedReferenceSource(refPath);
+        }
+    }
+
+    private static List<SimpleInterval> randomIntervals( final ReferenceDataSource reference, final Random random, final int numIntervals ) {
+        final List<SAMSequenceRecord> contigs = reference.getSequenceDictionary().getSequences();
+        final List<SimpleInterval> intervals = new ArrayList<>(numIntervals);
+        for ( int i = 0; i < numIntervals; i++ ) {
+            final SAMSequenceRecord contig = contigs.get(random.nextInt(contigs.size()));
+            final int start = 1 + random.nextInt(contig.getSequenceLength());
+            final int end = Math.min(contig.getSequenceLength(), start + random.nextInt(300));
+            intervals.add(new SimpleInterval(contig.getSequenceName(), start, end));
+        }
+        return intervals;
+    }
+}
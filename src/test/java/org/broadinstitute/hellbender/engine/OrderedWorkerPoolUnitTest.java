@@ -0,0 +1,126 @@
+package org.broadinstitute.hellbender.engine;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class OrderedWorkerPoolUnitTest extends GATKBaseTest {
+
+    private static final class TestWorker implements AutoCloseable {
+        private final AtomicBoolean inUse = new AtomicBoolean(false);
+        private volatile boolean closed = false;
+        private volatile boolean closedWhileInUse = false;
+
+        private int process( final int input ) {
+            Assert.assertTrue(inUse.compareAndSet(false, true), "worker used by two tasks at once");
+            try {
+                Thread.sleep(input % 3);
+            } catch ( final InterruptedException e ) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inUse.set(false);
+            }
+            return input * 2;
+        }
+
+        @Override
+        public void close() {
+            closedWhileInUse = inUse.get();
+            closed = true;
+        }
+    }
+
+    @DataProvider(name = "poolData")
+    public Object[][] poolData() {
+        return new Object[][] {
+                {1, 1, 0},
+                {1, 1, 10},
+                {2, 4, 100},
+                {4, 4, 100},
+                {4, 8, 1000}
+        };
+    }
+
+    @Test(dataProvider = "poolData")
+    public void testResultsAreConsumedInOrder( final int numThreads, final int maxTasksInFlight, final int numInputs ) {
+        final List<Integer> results = new ArrayList<>();
+        final List<TestWorker> workers;
+        try ( final OrderedWorkerPool<TestWorker> pool = new OrderedWorkerPool<>(numThreads, maxTasksInFlight, TestWorker::new, "test-worker-%d") ) {
+            workers = pool.getWorkers();
+            Assert.assertEquals(workers.size(), numThreads);
+            pool.process(IntStream.range(0, numInputs).iterator(), TestWorker::process, results::add, "test task");
+        }
+
+        Assert.assertEquals(results, IntStream.range(0, numInputs).map(i -> i * 2).boxed().collect(Collectors.toList()));
+        for ( final TestWorker worker : workers ) {
+            Assert.assertTrue(worker.closed);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testTaskExceptionIsRethrown() {
+        try ( final OrderedWorkerPool<TestWorker> pool = new OrderedWorkerPool<>(2, 2, TestWorker::new, "test-worker-%d") ) {
+            pool.process(IntStream.range(0, 10).iterator(), (worker, input) -> {
+                if ( input == 5 ) {
+                    throw new IllegalStateException("failed task");
+                }
+                return input;
+            }, result -> {}, "test task");
+        }
+    }
+
+    @Test
+    public void testCloseWaitsForRunningTasks() throws Exception {
+        final CountDownLatch slowTaskStarted = new CountDownLatch(1);
+        final AtomicInteger slowTasksFinished = new AtomicInteger(0);
+        final List<TestWorker> workers = new ArrayList<>();
+        try ( final OrderedWorkerPool<TestWorker> pool = new OrderedWorkerPool<>(2, 2, TestWorker::new, "test-worker-%d") ) {
+            workers.addAll(pool.getWorkers());
+            // the first task fails once the second one is running, so the pool is closed while the second one,
+            // which ignores interrupts, still uses its worker
+            pool.process(IntStream.range(0, 2).iterator(), (worker, input) -> {
+                if ( input == 0 ) {
+                    try {
+                        slowTaskStarted.await();
+                    } catch ( final InterruptedException e ) {
+                        Thread.currentThread().interrupt();
+                    }
+                    throw new IllegalStateException("failed task");
+                }
+                worker.inUse.set(true);
+                slowTaskStarted.countDown();
+                final long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(200);
+                while ( System.nanoTime() < end ) {
+                    try {
+                        Thread.sleep(10);
+                    } catch ( final InterruptedException e ) {
+                        // keep going, as a task that doesn't respond to interrupts would
+                    }
+                }
+                worker.inUse.set(false);
+                slowTasksFinished.incrementAndGet();
+                return input;
+            }, result -> {}, "test task");
+            Assert.fail("the failure of the first task should have been rethrown");
+        } catch ( final IllegalStateException e ) {
+            Assert.assertEquals(e.getMessage(), "failed task");
+        }
+
+        Assert.assertEquals(slowTasksFinished.get(), 1);
+        Assert.assertEquals(workers.size(), 2);
+        for ( final TestWorker worker : workers ) {
+            Assert.assertTrue(worker.closed);
+            Assert.assertFalse(worker.closedWhileInUse);
+        }
+    }
+}
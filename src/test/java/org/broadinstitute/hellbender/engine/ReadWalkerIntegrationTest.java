@@ -1,6 +1,8 @@
 package org.broadinstitute.hellbender.engine;
 
+import org.broadinstitute.barclay.argparser.CommandLineException;
 import org.broadinstitute.hellbender.CommandLineProgramTest;
+import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.tools.examples.ExampleReadWalkerWithReference;
 import org.broadinstitute.hellbender.utils.test.IntegrationTestSpec;
@@ -47,4 +49,13 @@ public class ReadWalkerIntegrationTest extends CommandLineProgramTest {
         };
         runCommandLine(args);
     }
+
+    @Test(expectedExceptions = CommandLineException.BadArgumentValue.class)
+    public void testMultiThreadedTraversalNotSupported() throws IOException {
+        final String[] args = new String[] {
+                "-I", publicTestDir + "org/broadinstitute/hellbender/engine/reads_data_source_test1.bam",
+                "--" + StandardArgumentDefinitions.THREADS_LONG_NAME, "2"
+        };
+        runCommandLine(args);
+    }
 }
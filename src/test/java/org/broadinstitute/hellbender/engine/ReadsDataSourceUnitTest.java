@@ -303,6 +303,40 @@ public final class ReadsDataSourceUnitTest extends GATKBaseTest {
         }
     }
 
+    @Test(dataProvider = "MultipleFilesTraversalWithIntervalsData")
+    public void testMultipleFilesTraversalWithIntervalsAndReadAhead( final List<Path> samFiles, final List<SimpleInterval> intervals, final List<String> expectedReadNames ) {
+        try (ReadsDataSource readsSource = new ReadsDataSource(samFiles)) {
+            readsSource.setTraversalBounds(intervals);
+            readsSource.setReadAhead(1);
+
+            final List<String> readNames = new ArrayList<>();
+            for (GATKRead read : readsSource) {
+                readNames.add(read.getName());
+            }
+            Assert.assertEquals(readNames, expectedReadNames, "Wrong reads returned in traversal by intervals with read-ahead of " + samFiles);
+        }
+    }
+
+    @Test(dataProvider = "MultipleFilesCompleteTraversalData")
+    public void testMultipleFilesCompleteTraversalWithReadAhead( final List<Path> samFiles, final List<String> expectedReadNames ) {
+        try (ReadsDataSource readsSource = new ReadsDataSource(samFiles)) {
+            readsSource.setReadAhead(1000);
+
+            // Abandon a first traversal part-way through, to make sure the readers can be iterated over again
+            final Iterator<GATKRead> abandonedTraversal = readsSource.iterator();
+            abandonedTraversal.next();
+
+            final List<String> readNames = new ArrayList<>();
+            for (GATKRead read : readsSource) {
+                readNames.add(read.getName());
+            }
+            Assert.assertEquals(readNames, expectedReadNames, "Wrong reads returned in complete traversal with read-ahead of " + samFiles);
+
+            // Queries are unaffected by read-ahead, and must still work once a traversal with read-ahead is done
+            Assert.assertTrue(readsSource.query(new SimpleInterval("1", 1, 16000)).hasNext());
+        }
+    }
+
     @DataProvider(name = "MultipleFilesQueryByIntervalData")
     public Object[][] getMultipleFilesQueryByIntervalData() {
         // Files, with a single query interval, and expected read names in the expected order
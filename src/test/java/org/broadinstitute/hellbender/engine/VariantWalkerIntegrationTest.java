@@ -1,13 +1,17 @@
 package org.broadinstitute.hellbender.engine;
 
 import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.tribble.index.IndexFactory;
 import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFCodec;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.CommandLineArgumentParser;
+import org.broadinstitute.barclay.argparser.CommandLineException;
 import org.broadinstitute.barclay.argparser.CommandLineParser;
 import org.broadinstitute.barclay.argparser.CommandLineProgramProperties;
 import org.broadinstitute.hellbender.CommandLineProgramTest;
 import org.broadinstitute.hellbender.cmdline.ReadFilterArgumentDefinitions;
+import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.cmdline.TestProgramGroup;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.tools.examples.ExampleVariantWalker;
@@ -15,10 +19,13 @@ import org.broadinstitute.hellbender.utils.io.IOUtils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.test.ArgumentsBuilder;
 import org.testng.Assert;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 import java.io.File;
+import java.io.PrintWriter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 
@@ -157,4 +164,128 @@ public final class VariantWalkerIntegrationTest extends CommandLineProgramTest {
         tool.instanceMain(args);
     }
 
+    @CommandLineProgramProperties(
+            summary = "TestMultiThreadedVariantWalker",
+            oneLineSummary = "TestMultiThreadedVariantWalker",
+            programGroup = TestProgramGroup.class
+    )
+    private static final class TestMultiThreadedVariantWalker extends VariantWalker {
+        private final List<String> processedVariants = new ArrayList<>();
+
+        private TestMultiThreadedVariantWalker( final int partitionSize ) {
+            variantPartitionSize = partitionSize;
+        }
+
+        @Override
+        protected boolean supportsMultiThreadedTraversal() { return true; }
+
+        @Override
+        public void apply( VariantContext variant, ReadsContext readsContext, ReferenceContext referenceContext, FeatureContext featureContext ) {
+            processedVariants.add(variant.getContig() + ":" + variant.getStart() + "-" + variant.getEnd());
+        }
+
+        @Override
+        protected VariantProcessor makeVariantProcessor() {
+            return (variant, readsContext, referenceContext, featureContext) -> {
+                final String processedVariant = variant.getContig() + ":" + variant.getStart() + "-" + variant.getEnd();
+                return () -> processedVariants.add(processedVariant);
+            };
+        }
+    }
+
+    @DataProvider(name = "MultiThreadedTraversalData")
+    public Object[][] getMultiThreadedTraversalData() {
+        final String gvcf = toolsTestDir + "walkers/GenotypeGVCFs/combine.single.sample.pipeline.3.vcf";
+        final String multiContigVcf = publicTestDir + "org/broadinstitute/hellbender/engine/feature_data_source_test_withSequenceDict.vcf";
+        final List<Object[]> tests = new ArrayList<>();
+        // without intervals, the whole genome is partitioned
+        for ( final int partitionSize : new int[] { 100_000, VariantWalker.VARIANT_PARTITION_SIZE } ) {
+            tests.add(new Object[] { gvcf, partitionSize, new String[0] });
+            tests.add(new Object[] { multiContigVcf, partitionSize, new String[0] });
+        }
+        for ( final int partitionSize : new int[] { 1, 37, 1000, VariantWalker.VARIANT_PARTITION_SIZE } ) {
+            // reference blocks spanning partition and interval boundaries
+            tests.add(new Object[] { gvcf, partitionSize, new String[] { "-L", "20:10000100-10000300", "-L", "20:10000301-10000500", "-L", "20:10500000-10501000" } });
+            tests.add(new Object[] { gvcf, partitionSize, new String[] { "-L", "20:10000100-10000300", "-L", "20:10000301-10000500", "-L", "20:10500000-10501000",
+                                                                         "--interval-merging-rule", "OVERLAPPING_ONLY" } });
+            tests.add(new Object[] { multiContigVcf, partitionSize, new String[] { "-L", "1:1-2000", "-L", "3:100-300", "-L", "4:1-1000" } });
+        }
+        tests.add(new Object[] { gvcf, 1000, new String[] { "-L", "20:10000000-11000000" } });
+        return tests.toArray(new Object[][]{});
+    }
+
+    @Test(dataProvider = "MultiThreadedTraversalData")
+    public void testMultiThreadedTraversalMatchesSingleThreaded( final String vcf, final int partitionSize, final String[] intervalArgs ) throws Exception {
+        final TestMultiThreadedVariantWalker singleThreadedTool = new TestMultiThreadedVariantWalker(partitionSize);
+        final List<String> args = new ArrayList<>(Arrays.asList("--variant", new File(vcf).getCanonicalPath()));
+        args.addAll(Arrays.asList(intervalArgs));
+        singleThreadedTool.instanceMain(args.toArray(new String[0]));
+
+        final TestMultiThreadedVariantWalker multiThreadedTool = new TestMultiThreadedVariantWalker(partitionSize);
+        args.addAll(Arrays.asList("--" + StandardArgumentDefinitions.THREADS_LONG_NAME, "4"));
+        multiThreadedTool.instanceMain(args.toArray(new String[0]));
+
+        Assert.assertFalse(singleThreadedTool.processedVariants.isEmpty());
+        Assert.assertEquals(multiThreadedTool.processedVariants, singleThreadedTool.processedVariants);
+    }
+
+    /*
+     * Test that variants on contigs missing from the sequence dictionary of the driving variants are not dropped when
+     * partitions are made from the dictionary.
+     */
+    @Test
+    public void testMultiThreadedTraversalWithUndeclaredContig() throws Exception {
+        final File vcf = createTempFile("undeclaredContig", ".vcf");
+        try ( final PrintWriter writer = new PrintWriter(vcf) ) {
+            writer.println("##fileformat=VCFv4.2");
+            writer.println("##contig=<ID=1,length=16000>");
+            writer.println("##contig=<ID=3,length=16000>");
+            writer.println("#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO");
+            for ( final String contig : new String[] { "1", "2", "3" } ) {
+                for ( int start = 100; start < 16000; start += 1000 ) {
+                    writer.println(contig + "\t" + start + "\t.\tA\tC\t.\t.\t.");
+                }
+            }
+        }
+        IndexFactory.createDynamicIndex(vcf, new VCFCodec()).writeBasedOnFeatureFile(vcf);
+
+        final TestMultiThreadedVariantWalker singleThreadedTool = new TestMultiThreadedVariantWalker(1000);
+        final List<String> args = new ArrayList<>(Arrays.asList("--variant", vcf.getAbsolutePath()));
+        singleThreadedTool.instanceMain(args.toArray(new String[0]));
+
+        final TestMultiThreadedVariantWalker multiThreadedTool = new TestMultiThreadedVariantWalker(1000);
+        args.addAll(Arrays.asList("--" + StandardArgumentDefinitions.THREADS_LONG_NAME, "4"));
+        multiThreadedTool.instanceMain(args.toArray(new String[0]));
+
+        Assert.assertEquals(singleThreadedTool.processedVariants.size(), 48);
+        Assert.assertEquals(multiThreadedTool.processedVariants, singleThreadedTool.processedVariants);
+    }
+
+    @Test(expectedExceptions = CommandLineException.BadArgumentValue.class)
+    public void testMultiThreadedTraversalNotSupported() throws Exception {
+        final File vcfFile = new File(publicTestDir + "org/broadinstitute/hellbender/engine/feature_data_source_test_withSequenceDict.vcf");
+        new TestGATKToolWithFeatures().instanceMain(new String[] {
+                "--variant", vcfFile.getCanonicalPath(),
+                "--" + TestGATKToolWithFeatures.HAS_BACKING_READ_SOURCE_LONG_NAME, "false",
+                "--" + StandardArgumentDefinitions.THREADS_LONG_NAME, "2"
+        });
+    }
+
+    @Test(expectedExceptions = UserException.class)
+    public void testMultiThreadedTraversalRequiresIndex() throws Exception {
+        final File vcfFile = new File(getTestDataDir(), "count_variants_withSequenceDict_noIndex.vcf");
+        new TestMultiThreadedVariantWalker(VariantWalker.VARIANT_PARTITION_SIZE).instanceMain(new String[] {
+                "--variant", vcfFile.getCanonicalPath(),
+                "--" + StandardArgumentDefinitions.THREADS_LONG_NAME, "2"
+        });
+    }
+
+    @Test(expectedExceptions = CommandLineException.BadArgumentValue.class)
+    public void testInvalidNumberOfThreads() throws Exception {
+        final File vcfFile = new File(publicTestDir + "org/broadinstitute/hellbender/engine/feature_data_source_test_withSequenceDict.vcf");
+        new TestMultiThreadedVariantWalker(VariantWalker.VARIANT_PARTITION_SIZE).instanceMain(new String[] {
+                "--variant", vcfFile.getCanonicalPath(),
+                "--" + StandardArgumentDefinitions.THREADS_LONG_NAME, "0"
+        });
+    }
 }
@@ -258,6 +258,30 @@ public final class CountingReadFilterUnitTest {
         Assert.assertEquals(isEgon.getFilteredCount(), 0);
     }
 
+    @Test
+    public void testMergeFilteredCounts() {
+        final CountingReadFilter firstFilter = new CountingReadFilter(startOk).and(new CountingReadFilter(endOk).negate());
+        final CountingReadFilter secondFilter = new CountingReadFilter(startOk).and(new CountingReadFilter(endOk).negate());
+
+        Arrays.asList(goodRead, startBad).stream().filter(firstFilter).count(); // force the stream to be consumed
+        Arrays.asList(goodRead, endBad, bothBad).stream().filter(secondFilter).count();
+
+        firstFilter.mergeFilteredCounts(secondFilter);
+
+        final CountingReadFilter.CountingAndReadFilter mergedFilter = (CountingReadFilter.CountingAndReadFilter) firstFilter;
+        Assert.assertEquals(mergedFilter.getFilteredCount(), 4L);
+        Assert.assertEquals(mergedFilter.lhs.getFilteredCount(), 2L);
+        Assert.assertEquals(mergedFilter.rhs.getFilteredCount(), 2L);
+
+        // the filter we merged from is unchanged
+        Assert.assertEquals(secondFilter.getFilteredCount(), 2L);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testMergeFilteredCountsWithDifferentStructure() {
+        new CountingReadFilter(startOk).mergeFilteredCounts(new CountingReadFilter(startOk).and(new CountingReadFilter(endOk)));
+    }
+
     @Test
     public void testFromListNull() {
         CountingReadFilter rf = CountingReadFilter.fromList(null, ArtificialReadUtils.createArtificialSamHeader(1, 1, 10));
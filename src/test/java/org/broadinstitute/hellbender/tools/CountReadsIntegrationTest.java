@@ -70,6 +70,11 @@ public final class CountReadsIntegrationTest extends CommandLineProgramTest {
         countReads(interval_args, "count_reads_sorted.cram", "count_reads.fasta", count);
     }
 
+    @Test(dataProvider = "intervals")
+    public void testCountBAMReadsWithIntervalsMultiThreaded(final String interval_args, final long count) throws Exception {
+        countReads(interval_args + " --" + StandardArgumentDefinitions.THREADS_LONG_NAME + " 3", "count_reads_sorted.bam", null, count);
+    }
+
     private void countReads(final String interval_args, final String fileName, final String referenceName, final long count) {
         final File ORIG_BAM = new File(getTestDataDir(), fileName);
         final ArgumentsBuilder args = new ArgumentsBuilder();
@@ -166,10 +166,11 @@ public class QualByDepthUnitTest extends GATKBaseTest {
 
         final double lowError = -QualByDepth.MAX_QD_BEFORE_FIXING - 10;
 
-        final VariantContext vc = new VariantContextBuilder("test", "20", 10, 10, AC).log10PError(lowError).genotypes(Arrays.asList(gAC)).make();
-
-        final double[] qds = new double[100000];
+        // enough variants that the fixed draws at their positions average out well within the tolerance
+        final double[] qds = new double[1000000];
         for (int i = 0; i < qds.length; i++) {
+            // the jitter is seeded from the position of the variant
+            final VariantContext vc = new VariantContextBuilder("test", "20", 10 + i, 10 + i, AC).log10PError(lowError).genotypes(Arrays.asList(gAC)).make();
             final Map<String, Object> annotatedMap = new QualByDepth().annotate(null, vc, null);
             final String QD = (String)annotatedMap.get(GATKVCFConstants.QUAL_BY_DEPTH_KEY);
             final double qdVal = Double.valueOf(QD);
@@ -179,6 +180,26 @@ public class QualByDepthUnitTest extends GATKBaseTest {
         Assert.assertEquals(StatUtils.mean(qds), QualByDepth.IDEAL_HIGH_QD, 0.02);
     }
 
+    @Test
+    public void testVeryHighQDIsDeterministicPerVariant(){
+        final Allele A = Allele.create("A", true);
+        final Allele C = Allele.create("C");
+
+        final List<Allele> AC = Arrays.asList(A, C);
+        final Genotype gAC = new GenotypeBuilder("1", AC).DP(10).AD(new int[]{5, 5}).make();
+
+        final double lowError = -QualByDepth.MAX_QD_BEFORE_FIXING - 10;
+
+        final VariantContext vc1 = new VariantContextBuilder("test", "20", 10, 10, AC).log10PError(lowError).genotypes(Arrays.asList(gAC)).make();
+        final VariantContext vc2 = new VariantContextBuilder("test", "20", 11, 11, AC).log10PError(lowError).genotypes(Arrays.asList(gAC)).make();
+
+        final Object qd1 = new QualByDepth().annotate(null, vc1, null).get(GATKVCFConstants.QUAL_BY_DEPTH_KEY);
+        // annotating another variant in between must not change the QD of the first one
+        new QualByDepth().annotate(null, vc2, null);
+        Assert.assertEquals(new QualByDepth().annotate(null, vc1, null).get(GATKVCFConstants.QUAL_BY_DEPTH_KEY), qd1);
+        Assert.assertNotEquals(new QualByDepth().annotate(null, vc2, null).get(GATKVCFConstants.QUAL_BY_DEPTH_KEY), qd1);
+    }
+
     @Test
     public void testAnnotate_AS() throws Exception {
 
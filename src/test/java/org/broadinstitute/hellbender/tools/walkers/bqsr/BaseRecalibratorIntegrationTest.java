@@ -106,6 +106,24 @@ public final class BaseRecalibratorIntegrationTest extends CommandLineProgramTes
         spec.executeTest("testBQSR-" + params.args, this);
     }
 
+    @DataProvider(name = "BQSRTestMultiThreaded")
+    public Object[][] createBQSRTestDataMultiThreaded() {
+        // the tables combined from all threads must give the same report as a single thread
+        return Arrays.stream(createBQSRTestData())
+                .map(params -> (BQSRTest)params[0])
+                .map(test -> new Object[]{ new BQSRTest(test.reference, test.bam, test.knownSites,
+                        test.args + " --" + StandardArgumentDefinitions.THREADS_LONG_NAME + " 4", test.expectedFileName) })
+                .toArray(Object[][]::new);
+    }
+
+    @Test(dataProvider = "BQSRTestMultiThreaded")
+    public void testBQSRMultiThreaded(BQSRTest params) throws IOException {
+        IntegrationTestSpec spec = new IntegrationTestSpec(
+                params.getCommandLine(),
+                Arrays.asList(params.expectedFileName));
+        spec.executeTest("testBQSRMultiThreaded-" + params.args, this);
+    }
+
     @Test(description = "This is to test https://github.com/broadinstitute/hellbender/issues/322")
     public void testPlottingWorkflow() throws IOException {
         final String resourceDir = getTestDataDir() + "/" + "BQSR" + "/";
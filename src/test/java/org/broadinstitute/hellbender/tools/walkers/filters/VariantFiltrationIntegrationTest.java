@@ -56,6 +56,17 @@ public final class VariantFiltrationIntegrationTest extends CommandLineProgramTe
         spec.executeTest("testMask", this);
     }
 
+    @Test
+    public void testMaskWithFeaturePrefetch() throws IOException {
+        final IntegrationTestSpec spec = new IntegrationTestSpec(
+                baseTestString("vcfexample2.vcf", " -mask-name foo --" + VariantFiltration.MASK_EXTENSION_LONG_NAME + " 10 --mask VCF:" + getToolTestDataDir() + "vcfMask.vcf" +
+                        " --" + StandardArgumentDefinitions.PREFETCH_FEATURES_LONG_NAME + " true"),
+                Arrays.asList(getToolTestDataDir() + "expected/" + "testVariantFiltration_testMask3.vcf")
+        );
+
+        spec.executeTest("testMaskWithFeaturePrefetch", this);
+    }
+
     @Test
     public void testMaskReversed() throws IOException {
         final IntegrationTestSpec spec = new IntegrationTestSpec(
@@ -66,6 +77,26 @@ public final class VariantFiltrationIntegrationTest extends CommandLineProgramTe
         spec.executeTest("testMaskReversed", this);
     }
 
+    @DataProvider(name = "multiThreaded")
+    public Object[][] multiThreaded() {
+        return new String[][]{
+                {"vcfexample2.vcf", " -cluster-window-size 10 ", "testVariantFiltration_testClusteredSnps.vcf"},
+                {"vcfexample2.vcf", " -filter 'DoC < 20 || FisherStrand > 20.0' -filter-name foo ", "testVariantFiltration_testFilter1.vcf"},
+                {"vcfexample2.vcf", " -mask-name foo --mask VCF:" + getToolTestDataDir() + "vcfMask.vcf", "testVariantFiltration_testMask2.vcf"},
+                {"twoDeletions.vcf", " -filter 'QUAL < 100' -filter-name foo ", "testVariantFiltration_testDeletions.vcf"},
+        };
+    }
+
+    @Test(dataProvider = "multiThreaded")
+    public void testMultiThreaded(final String vcf, final String options, final String expected) throws IOException {
+        final IntegrationTestSpec spec = new IntegrationTestSpec(
+                baseTestString(vcf, options + " --" + StandardArgumentDefinitions.THREADS_LONG_NAME + " 2"),
+                Arrays.asList(getToolTestDataDir() + "expected/" + expected)
+        );
+
+        spec.executeTest("testMultiThreaded", this);
+    }
+
     @Test
     public void testIllegalFilterName() throws IOException {
         final IntegrationTestSpec spec = new IntegrationTestSpec(
@@ -0,0 +1,157 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.TextCigarCodec;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.engine.AssemblyRegion;
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.graphs.SeqGraph;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public final class AssemblyResultCacheUnitTest extends GATKBaseTest {
+    private static final byte[] REFERENCE = "ACGTACGTTTGACCATGACA".getBytes();
+
+    private SAMFileHeader header;
+
+    @BeforeClass
+    public void init() {
+        header = ArtificialReadUtils.createArtificialSamHeader(1, 1, 1000000);
+    }
+
+    @Test
+    public void testStoreAndReuseHaplotypes() {
+        final AssemblyResultCache cache = new AssemblyResultCache(createTempDir("assemblyResultCache").toPath(), new HaplotypeCallerArgumentCollection());
+        final AssemblyRegion region = newRegion("ACGTACGTTT");
+        final SimpleInterval paddedReferenceLoc = new SimpleInterval("1", 91, 110);
+        final String key = cache.key(region, REFERENCE, paddedReferenceLoc, Collections.emptyList());
+
+        Assert.assertNull(cache.get(key, region, REFERENCE, paddedReferenceLoc));
+        final AssemblyResultSet expected = newResultSet(region);
+        cache.put(key, expected);
+        final AssemblyResultSet actual = cache.get(key, region, REFERENCE, paddedReferenceLoc);
+        Assert.assertNotNull(actual);
+        Assert.assertEquals(cache.getNumberOfHits(), 1);
+        Assert.assertEquals(cache.getNumberOfMisses(), 1);
+
+        Assert.assertSame(actual.getRegionForGenotyping(), region);
+        Assert.assertSame(actual.getFullReferenceWithPadding(), REFERENCE);
+        Assert.assertEquals(actual.getPaddedReferenceLoc(), paddedReferenceLoc);
+        Assert.assertEquals(actual.isVariationPresent(), expected.isVariationPresent());
+        Assert.assertEquals(actual.getMinimumKmerSize(), expected.getMinimumKmerSize());
+        Assert.assertEquals(actual.getMaximumKmerSize(), expected.getMaximumKmerSize());
+        Assert.assertEquals(actual.getReferenceHaplotype(), expected.getReferenceHaplotype());
+        Assert.assertEquals(actual.hasMultipleKmerSizes(), expected.hasMultipleKmerSizes());
+
+        // every assembly result is restored, including those that gave rise to no haplotype
+        final List<AssemblyResult> actualAssemblyResults = new ArrayList<>(actual.getAssemblyResults());
+        final List<AssemblyResult> expectedAssemblyResults = new ArrayList<>(expected.getAssemblyResults());
+        Assert.assertEquals(actualAssemblyResults.size(), expectedAssemblyResults.size());
+        for (int i = 0; i < expectedAssemblyResults.size(); i++) {
+            Assert.assertEquals(actualAssemblyResults.get(i).getStatus(), expectedAssemblyResults.get(i).getStatus());
+            Assert.assertEquals(actualAssemblyResults.get(i).getKmerSize(), expectedAssemblyResults.get(i).getKmerSize());
+        }
+
+        final List<Haplotype> actualHaplotypes = actual.getHaplotypeList();
+        final List<Haplotype> expectedHaplotypes = expected.getHaplotypeList();
+        Assert.assertEquals(actualHaplotypes, expectedHaplotypes);
+        for (int i = 0; i < expectedHaplotypes.size(); i++) {
+            final Haplotype actualHaplotype = actualHaplotypes.get(i);
+            final Haplotype expectedHaplotype = expectedHaplotypes.get(i);
+            Assert.assertEquals(actualHaplotype.isReference(), expectedHaplotype.isReference());
+            Assert.assertEquals(new SimpleInterval(actualHaplotype.getGenomeLocation()), new SimpleInterval(expectedHaplotype.getGenomeLocation()));
+            Assert.assertEquals(actualHaplotype.getCigar(), expectedHaplotype.getCigar());
+            Assert.assertEquals(actualHaplotype.getAlignmentStartHapwrtRef(), expectedHaplotype.getAlignmentStartHapwrtRef());
+            Assert.assertEquals(actualHaplotype.getScore(), expectedHaplotype.getScore());
+            final AssemblyResult expectedAssemblyResult = expected.getAssemblyResult(expectedHaplotype);
+            if (expectedAssemblyResult == null) {
+                Assert.assertNull(actual.getAssemblyResult(actualHaplotype));
+            } else {
+                Assert.assertEquals(actual.getAssemblyResult(actualHaplotype).getKmerSize(), expectedAssemblyResult.getKmerSize());
+                Assert.assertEquals(actual.getAssemblyResult(actualHaplotype).getStatus(), expectedAssemblyResult.getStatus());
+            }
+        }
+
+        // trimming keeps the haplotypes that came from an assembly apart from the others
+        final AssemblyRegion trimmedRegion = new AssemblyRegion(new SimpleInterval("1", 100, 104), 0, header);
+        Assert.assertEquals(actual.trimTo(trimmedRegion).isVariationPresent(), expected.trimTo(trimmedRegion).isVariationPresent());
+    }
+
+    @Test
+    public void testKeyDependsOnInputs() {
+        final HaplotypeCallerArgumentCollection args = new HaplotypeCallerArgumentCollection();
+        final AssemblyResultCache cache = new AssemblyResultCache(createTempDir("assemblyResultCache").toPath(), args);
+        final SimpleInterval paddedReferenceLoc = new SimpleInterval("1", 91, 110);
+        final String key = cache.key(newRegion("ACGTACGTTT"), REFERENCE, paddedReferenceLoc, Collections.emptyList());
+
+        Assert.assertEquals(cache.key(newRegion("ACGTACGTTT"), REFERENCE, paddedReferenceLoc, Collections.emptyList()), key);
+        Assert.assertNotEquals(cache.key(newRegion("ACGTACCTTT"), REFERENCE, paddedReferenceLoc, Collections.emptyList()), key);
+        final byte[] otherReference = REFERENCE.clone();
+        otherReference[0] = 'T';
+        Assert.assertNotEquals(cache.key(newRegion("ACGTACGTTT"), otherReference, paddedReferenceLoc, Collections.emptyList()), key);
+
+        args.assemblerArgs.minPruneFactor++;
+        final AssemblyResultCache otherCache = new AssemblyResultCache(createTempDir("assemblyResultCache").toPath(), args);
+        Assert.assertNotEquals(otherCache.key(newRegion("ACGTACGTTT"), REFERENCE, paddedReferenceLoc, Collections.emptyList()), key);
+    }
+
+    @Test
+    public void testUnreadableEntryIsAMiss() throws IOException {
+        final Path directory = createTempDir("assemblyResultCache").toPath();
+        final AssemblyResultCache cache = new AssemblyResultCache(directory, new HaplotypeCallerArgumentCollection());
+        final AssemblyRegion region = newRegion("ACGTACGTTT");
+        final SimpleInterval paddedReferenceLoc = new SimpleInterval("1", 91, 110);
+        final String key = cache.key(region, REFERENCE, paddedReferenceLoc, Collections.emptyList());
+        cache.put(key, newResultSet(region));
+
+        final Path entry = directory.resolve(key + ".haplotypes");
+        Assert.assertTrue(Files.exists(entry));
+        final byte[] content = Files.readAllBytes(entry);
+        Files.write(entry, Arrays.copyOf(content, content.length / 2));
+        Assert.assertNull(cache.get(key, region, REFERENCE, paddedReferenceLoc));
+        Assert.assertEquals(cache.getNumberOfMisses(), 1);
+    }
+
+    private AssemblyRegion newRegion(final String readBases) {
+        final AssemblyRegion region = new AssemblyRegion(new SimpleInterval("1", 96, 105), 0, header);
+        final GATKRead read = ArtificialReadUtils.createArtificialRead(header, "read", 0, 96, readBases.getBytes(),
+                Utils.dupBytes((byte) 30, readBases.length()), readBases.length() + "M");
+        region.add(read);
+        return region;
+    }
+
+    private static AssemblyResultSet newResultSet(final AssemblyRegion region) {
+        final SimpleInterval span = region.getExtendedSpan();
+        final AssemblyResultSet resultSet = new AssemblyResultSet();
+        final Haplotype ref = new Haplotype("ACGTACGTTT".getBytes(), true, 5, TextCigarCodec.decode("10M"));
+        ref.setGenomeLocation(span);
+        resultSet.add(ref);
+
+        final AssemblyResult assemblyResult10 = new AssemblyResult(AssemblyResult.Status.ASSEMBLED_SOME_VARIATION, new SeqGraph(10), null);
+        final AssemblyResult assemblyResult25 = new AssemblyResult(AssemblyResult.Status.ASSEMBLED_SOME_VARIATION, new SeqGraph(25), null);
+        final Haplotype snp = new Haplotype("ACGTACCTTT".getBytes(), false, 5, TextCigarCodec.decode("10M"));
+        snp.setGenomeLocation(span);
+        snp.setScore(-1.5);
+        resultSet.add(snp, assemblyResult10);
+        resultSet.add(ref, assemblyResult10);
+        final Haplotype deletion = new Haplotype("ACGTATTT".getBytes(), false, 5, TextCigarCodec.decode("5M2D3M"));
+        deletion.setGenomeLocation(span);
+        deletion.setScore(-3.25);
+        resultSet.add(deletion, assemblyResult25);
+        resultSet.add(new AssemblyResult(AssemblyResult.Status.JUST_ASSEMBLED_REFERENCE, new SeqGraph(35), null));
+        return resultSet;
+    }
+}
@@ -1,16 +1,27 @@
 package org.broadinstitute.hellbender.tools.walkers.haplotypecaller;
 
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMReadGroupRecord;
 import htsjdk.samtools.SamFiles;
 import htsjdk.tribble.Tribble;
 import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFConstants;
 import org.broadinstitute.barclay.argparser.CommandLineException;
 import org.broadinstitute.hellbender.CommandLineProgramTest;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
+import org.broadinstitute.hellbender.engine.AssemblyRegionWalker;
 import org.broadinstitute.hellbender.engine.FeatureDataSource;
 import org.broadinstitute.hellbender.engine.ReadsDataSource;
+import org.broadinstitute.hellbender.engine.ReferenceFileSource;
 import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.tools.walkers.annotator.QualByDepth;
+import org.broadinstitute.hellbender.utils.BaseUtils;
 import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.io.IOUtils;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.ReadUtils;
+import org.broadinstitute.hellbender.utils.read.SAMFileGATKReadWriter;
 import org.broadinstitute.hellbender.utils.test.ArgumentsBuilder;
 import org.broadinstitute.hellbender.utils.test.IntegrationTestSpec;
 import org.testng.Assert;
@@ -307,6 +318,159 @@ public class HaplotypeCallerIntegrationTest extends CommandLineProgramTest {
         IntegrationTestSpec.assertEqualTextFiles(output, expected);
     }
 
+    @DataProvider(name="multiThreadedTraversalModes")
+    public Object[][] getMultiThreadedTraversalModes() {
+        return new Object[][] {
+                {".vcf", "NONE", 2, 0},
+                {".g.vcf", "GVCF", 2, 0},
+                {".vcf", "NONE", 1, 5},
+                {".g.vcf", "GVCF", 1, 5},
+                {".vcf", "NONE", 2, 5}
+        };
+    }
+
+    /*
+     * Test that processing several read shards (one per contig) concurrently, and/or finding assembly regions on
+     * a background thread, produces exactly the same output as a single-threaded traversal
+     */
+    @Test(dataProvider="multiThreadedTraversalModes")
+    public void testMultiThreadedTraversalMatchesSingleThreaded(final String extension, final String referenceConfidenceMode,
+                                                               final int threads, final int pipelineQueueSize) throws Exception {
+        final File singleThreadedOutput = createTempFile("testMultiThreadedTraversalMatchesSingleThreaded.singleThreaded", extension);
+        final File multiThreadedOutput = createTempFile("testMultiThreadedTraversalMatchesSingleThreaded.multiThreaded", extension);
+
+        for ( final File output : Arrays.asList(singleThreadedOutput, multiThreadedOutput) ) {
+            Utils.resetRandomGenerator();
+
+            final String[] args = {
+                    "-I", NA12878_20_21_WGS_bam,
+                    "-R", b37_reference_20_21,
+                    "-L", "20:10000000-10020000",
+                    "-L", "21:10000000-10020000",
+                    "-O", output.getAbsolutePath(),
+                    "-pairHMM", "AVX_LOGLESS_CACHING",
+                    "-ERC", referenceConfidenceMode,
+                    "--" + StandardArgumentDefinitions.THREADS_LONG_NAME, output == singleThreadedOutput ? "1" : Integer.toString(threads),
+                    "--" + AssemblyRegionWalker.PIPELINE_QUEUE_SIZE_LONG_NAME, output == singleThreadedOutput ? "0" : Integer.toString(pipelineQueueSize),
+                    "--" + StandardArgumentDefinitions.ADD_OUTPUT_VCF_COMMANDLINE, "false"
+            };
+
+            runCommandLine(args);
+        }
+
+        IntegrationTestSpec.assertEqualTextFiles(multiThreadedOutput, singleThreadedOutput);
+    }
+
+    /*
+     * Test that downsampling keeps the same reads whether read shards are processed sequentially or concurrently,
+     * by downsampling to a single read per alignment start
+     */
+    @Test
+    public void testMultiThreadedTraversalMatchesSingleThreadedWithDownsampling() throws Exception {
+        final File singleThreadedOutput = createTempFile("testMultiThreadedTraversalMatchesSingleThreadedWithDownsampling.singleThreaded", ".vcf");
+        final File multiThreadedOutput = createTempFile("testMultiThreadedTraversalMatchesSingleThreadedWithDownsampling.multiThreaded", ".vcf");
+
+        for ( final File output : Arrays.asList(singleThreadedOutput, multiThreadedOutput) ) {
+            Utils.resetRandomGenerator();
+
+            final String[] args = {
+                    "-I", NA12878_20_21_WGS_bam,
+                    "-R", b37_reference_20_21,
+                    "-L", "20:10000000-10020000",
+                    "-L", "21:10000000-10020000",
+                    "-O", output.getAbsolutePath(),
+                    "-pairHMM", "AVX_LOGLESS_CACHING",
+                    "--" + AssemblyRegionWalker.MAX_STARTS_LONG_NAME, "1",
+                    "--" + StandardArgumentDefinitions.THREADS_LONG_NAME, output == singleThreadedOutput ? "1" : "2",
+                    "--" + StandardArgumentDefinitions.ADD_OUTPUT_VCF_COMMANDLINE, "false"
+            };
+
+            runCommandLine(args);
+        }
+
+        IntegrationTestSpec.assertEqualTextFiles(multiThreadedOutput, singleThreadedOutput);
+    }
+
+    /*
+     * Test that the jitter added to too-high QDs doesn't depend on which thread annotates a variant, using clusters of
+     * hom-var SNPs on every contig, whose QUAL is well above QualByDepth.MAX_QD_BEFORE_FIXING times their depth
+     */
+    @Test
+    public void testMultiThreadedTraversalMatchesSingleThreadedWithTooHighQD() throws Exception {
+        final File bam = writeHomVarSNPClustersBam();
+        final File singleThreadedOutput = createTempFile("testMultiThreadedTraversalMatchesSingleThreadedWithTooHighQD.singleThreaded", ".vcf");
+        final File multiThreadedOutput = createTempFile("testMultiThreadedTraversalMatchesSingleThreadedWithTooHighQD.multiThreaded", ".vcf");
+
+        for ( final File output : Arrays.asList(singleThreadedOutput, multiThreadedOutput) ) {
+            Utils.resetRandomGenerator();
+
+            final String[] args = {
+                    "-I", bam.getAbsolutePath(),
+                    "-R", hg19MiniReference,
+                    "-O", output.getAbsolutePath(),
+                    "--" + StandardArgumentDefinitions.THREADS_LONG_NAME, output == singleThreadedOutput ? "1" : "4",
+                    "--" + StandardArgumentDefinitions.ADD_OUTPUT_VCF_COMMANDLINE, "false"
+            };
+
+            runCommandLine(args);
+        }
+
+        try ( final FeatureDataSource<VariantContext> singleThreadedSource = new FeatureDataSource<>(singleThreadedOutput) ) {
+            final List<VariantContext> variants = StreamSupport.stream(singleThreadedSource.spliterator(), false).collect(Collectors.toList());
+            Assert.assertTrue(variants.stream().anyMatch(vc -> vc.getPhredScaledQual() / vc.getAttributeAsInt(VCFConstants.DEPTH_KEY, Integer.MAX_VALUE) > QualByDepth.MAX_QD_BEFORE_FIXING),
+                    "the test data should produce a too-high QD");
+        }
+        IntegrationTestSpec.assertEqualTextFiles(multiThreadedOutput, singleThreadedOutput);
+    }
+
+    private static File writeHomVarSNPClustersBam() {
+        final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeader(4, 1, 16000);
+        final SAMReadGroupRecord readGroup = new SAMReadGroupRecord("rg");
+        readGroup.setSample("sample");
+        header.addReadGroup(readGroup);
+
+        final int readLength = 100;
+        final int readsPerCluster = 30;
+        final File bam = createTempFile("homVarSNPClusters", ".bam");
+        try ( final ReferenceFileSource reference = new ReferenceFileSource(IOUtils.getPath(hg19MiniReference));
+              final SAMFileGATKReadWriter writer = new SAMFileGATKReadWriter(ReadUtils.createCommonSAMWriter(bam, null, header, true, true, false)) ) {
+            for ( int contig = 1; contig <= 4; ++contig ) {
+                for ( int cluster = 1000; cluster < 15000; cluster += 2000 ) {
+                    for ( int i = 0; i < readsPerCluster; ++i ) {
+                        final int start = cluster - readLength + 20 + i * 2;
+                        final byte[] bases = reference.queryAndPrefetch(Integer.toString(contig), start, start + readLength - 1).getBases();
+                        // three SNPs within a few bases of each other end up on the same haplotype
+                        for ( int snp = cluster; snp <= cluster + 10; snp += 5 ) {
+                            bases[snp - start] = BaseUtils.baseIndexToSimpleBase((BaseUtils.simpleBaseToBaseIndex(bases[snp - start]) + 1) % 4);
+                        }
+                        final GATKRead read = ArtificialReadUtils.createArtificialRead(header, contig + "_" + cluster + "_" + i, Integer.toString(contig), start, bases, Utils.repeatBytes((byte)40, readLength));
+                        read.setReadGroup(readGroup.getReadGroupId());
+                        read.setMappingQuality(60);
+                        writer.addRead(read);
+                    }
+                }
+            }
+        }
+        return bam;
+    }
+
+    @Test(expectedExceptions = CommandLineException.BadArgumentValue.class)
+    public void testMultiThreadedTraversalNotAllowedWithBamout() throws IOException {
+        final File output = createTempFile("testMultiThreadedTraversalNotAllowedWithBamout", ".vcf");
+        final File bamOutput = createTempFile("testMultiThreadedTraversalNotAllowedWithBamout", ".bam");
+
+        final String[] args = {
+                "-I", NA12878_20_21_WGS_bam,
+                "-R", b37_reference_20_21,
+                "-L", "20:10000000-10010000",
+                "-O", output.getAbsolutePath(),
+                "-bamout", bamOutput.getAbsolutePath(),
+                "--" + StandardArgumentDefinitions.THREADS_LONG_NAME, "2"
+        };
+
+        runCommandLine(args);
+    }
+
     @Test(expectedExceptions = CommandLineException.BadArgumentValue.class)
     public void testGenotypeGivenAllelesModeNotAllowedInGVCFMode() throws IOException {
         Utils.resetRandomGenerator();
@@ -0,0 +1,198 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller.readthreading;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMReadGroupRecord;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.Kmer;
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.graphs.MultiSampleEdge;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+public final class PackedKmerGraphUnitTest extends GATKBaseTest {
+
+    private static final byte[] BASES = {'A', 'C', 'G', 'T'};
+
+    @DataProvider(name = "graphData")
+    public Object[][] graphData() {
+        return new Object[][] {
+                // kmerSize, numberOfSamples, numPruningSamples, pruneFactor, startThreadingOnlyAtExistingVertex
+                {10, 1, 1, 2, false},
+                {10, 3, 2, 2, false},
+                {10, 3, 1, 0, false},
+                {25, 1, 1, 2, false},
+                {25, 2, 2, 3, true},
+                {31, 3, 3, 2, false},
+                {31, 1, 1, 1, true},
+                {5, 2, 1, 2, false}
+        };
+    }
+
+    @Test(dataProvider = "graphData")
+    public void testPackedKmerGraphMatchesReadThreadingGraph(final int kmerSize, final int numberOfSamples, final int numPruningSamples,
+                                                              final int pruneFactor, final boolean startThreadingOnlyAtExistingVertex) {
+        final Random random = new Random(kmerSize * 31 + numberOfSamples * 7 + pruneFactor);
+        final byte[] ref = randomRefWithRepeat(random, 300);
+        final byte[] alt = ref.clone();
+        alt[150] = alt[150] == 'A' ? (byte) 'C' : (byte) 'A';
+        final SAMFileHeader header = headerWithSamples(numberOfSamples);
+        final List<GATKRead> reads = simulateReads(random, header, numberOfSamples, ref, alt);
+
+        final ReadThreadingGraph expected = newGraph(kmerSize, numPruningSamples, startThreadingOnlyAtExistingVertex, ref, reads, header);
+        final ReadThreadingGraph actual = newGraph(kmerSize, numPruningSamples, startThreadingOnlyAtExistingVertex, ref, reads, header);
+
+        expected.buildGraphIfNecessary();
+        final PackedKmerGraph packedGraph = PackedKmerGraph.build(actual, numPruningSamples);
+        Assert.assertNotNull(packedGraph);
+        Assert.assertEquals(packedGraph.hasCycles(), expected.hasCycles());
+        Assert.assertEquals(packedGraph.isLowComplexity(), expected.isLowComplexity());
+
+        if ( ! expected.hasCycles() ) {
+            expected.pruneLowWeightChains(pruneFactor);
+            packedGraph.pruneLowWeightChains(pruneFactor);
+        }
+        packedGraph.copyInto(actual);
+        assertSameGraph(actual, expected);
+    }
+
+    @Test
+    public void testGraphWithCycles() {
+        final ReadThreadingGraph expected = new ReadThreadingGraph(3);
+        final ReadThreadingGraph actual = new ReadThreadingGraph(3);
+        for ( final ReadThreadingGraph graph : Arrays.asList(expected, actual) ) {
+            graph.addSequence("ref", "TACGTTCGA".getBytes(), true);
+            graph.addSequence("read", "GTTCGACGT".getBytes(), false);
+        }
+        expected.buildGraphIfNecessary();
+        final PackedKmerGraph packedGraph = PackedKmerGraph.build(actual, 1);
+        Assert.assertTrue(expected.hasCycles());
+        Assert.assertTrue(packedGraph.hasCycles());
+        packedGraph.copyInto(actual);
+        assertSameGraph(actual, expected);
+    }
+
+    @Test
+    public void testUnpackableBasesAreNotThreaded() {
+        final ReadThreadingGraph graph = new ReadThreadingGraph(3);
+        graph.addSequence("ref", "ACGTNCGA".getBytes(), true);
+        Assert.assertNull(PackedKmerGraph.build(graph, 1));
+
+        // the Ns left out of the threaded part of the reads do not prevent packing
+        final ReadThreadingGraph readGraph = new ReadThreadingGraph(3, false, (byte) 10, 1);
+        readGraph.addSequence("ref", "ACGTACGGA".getBytes(), true);
+        final byte[] bases = "ACGNACGNACGTACGGA".getBytes();
+        readGraph.addRead(ArtificialReadUtils.createArtificialRead(bases, Utils.dupBytes((byte) 30, bases.length), bases.length + "M"), ArtificialReadUtils.createArtificialSamHeader());
+        final PackedKmerGraph packedGraph = PackedKmerGraph.build(readGraph, 1);
+        Assert.assertNotNull(packedGraph);
+        packedGraph.copyInto(readGraph);
+        final Set<String> nonUniques = new HashSet<>();
+        for ( final Kmer kmer : readGraph.getNonUniqueKmers() ) {
+            nonUniques.add(new String(kmer.bases()));
+        }
+        Assert.assertEquals(nonUniques, new HashSet<>(Arrays.asList("ACG", "CGN", "GNA", "NAC")));
+    }
+
+    @Test
+    public void testSupportsKmerSize() {
+        Assert.assertFalse(PackedKmerGraph.supportsKmerSize(0));
+        Assert.assertTrue(PackedKmerGraph.supportsKmerSize(1));
+        Assert.assertTrue(PackedKmerGraph.supportsKmerSize(PackedKmerGraph.MAX_KMER_SIZE));
+        Assert.assertFalse(PackedKmerGraph.supportsKmerSize(PackedKmerGraph.MAX_KMER_SIZE + 1));
+    }
+
+    private static ReadThreadingGraph newGraph(final int kmerSize, final int numPruningSamples, final boolean startThreadingOnlyAtExistingVertex,
+                                               final byte[] ref, final List<GATKRead> reads, final SAMFileHeader header) {
+        final ReadThreadingGraph graph = new ReadThreadingGraph(kmerSize, false, (byte) 10, numPruningSamples);
+        graph.setThreadingStartOnlyAtExistingVertex(startThreadingOnlyAtExistingVertex);
+        graph.addSequence("ref", ref, true);
+        reads.forEach(read -> graph.addRead(read, header));
+        return graph;
+    }
+
+    private static void assertSameGraph(final ReadThreadingGraph actual, final ReadThreadingGraph expected) {
+        final List<MultiDeBruijnVertex> actualVertices = new ArrayList<>(actual.vertexSet());
+        final List<MultiDeBruijnVertex> expectedVertices = new ArrayList<>(expected.vertexSet());
+        Assert.assertEquals(actualVertices.size(), expectedVertices.size());
+        for ( int i = 0; i < expectedVertices.size(); i++ ) {
+            Assert.assertEquals(actualVertices.get(i).getSequenceString(), expectedVertices.get(i).getSequenceString());
+            Assert.assertEquals(actualVertices.get(i).getAdditionalInfo(), expectedVertices.get(i).getAdditionalInfo());
+            final Kmer kmer = new Kmer(expectedVertices.get(i).getSequence());
+            Assert.assertEquals(actualVertices.indexOf(actual.findKmer(kmer)), expectedVertices.indexOf(expected.findKmer(kmer)));
+        }
+
+        final List<MultiSampleEdge> actualEdges = new ArrayList<>(actual.edgeSet());
+        final List<MultiSampleEdge> expectedEdges = new ArrayList<>(expected.edgeSet());
+        Assert.assertEquals(actualEdges.size(), expectedEdges.size());
+        for ( int i = 0; i < expectedEdges.size(); i++ ) {
+            final MultiSampleEdge actualEdge = actualEdges.get(i);
+            final MultiSampleEdge expectedEdge = expectedEdges.get(i);
+            Assert.assertEquals(actualVertices.indexOf(actual.getEdgeSource(actualEdge)), expectedVertices.indexOf(expected.getEdgeSource(expectedEdge)));
+            Assert.assertEquals(actualVertices.indexOf(actual.getEdgeTarget(actualEdge)), expectedVertices.indexOf(expected.getEdgeTarget(expectedEdge)));
+            Assert.assertEquals(actualEdge.isRef(), expectedEdge.isRef());
+            Assert.assertEquals(actualEdge.getMultiplicity(), expectedEdge.getMultiplicity());
+            Assert.assertEquals(actualEdge.getPruningMultiplicity(), expectedEdge.getPruningMultiplicity());
+        }
+        for ( final MultiDeBruijnVertex vertex : expectedVertices ) {
+            final int index = expectedVertices.indexOf(vertex);
+            Assert.assertEquals(new ArrayList<>(actual.outgoingEdgesOf(actualVertices.get(index))).stream().map(actualEdges::indexOf).toArray(),
+                    new ArrayList<>(expected.outgoingEdgesOf(vertex)).stream().map(expectedEdges::indexOf).toArray());
+        }
+        Assert.assertEquals(actual.getNonUniqueKmers(), expected.getNonUniqueKmers());
+        Assert.assertEquals(actual.isLowComplexity(), expected.isLowComplexity());
+    }
+
+    private static byte[] randomRefWithRepeat(final Random random, final int length) {
+        final byte[] ref = new byte[length];
+        for ( int i = 0; i < length; i++ ) {
+            ref[i] = BASES[random.nextInt(BASES.length)];
+        }
+        // a short repeat, so that some kmers are non-unique in the reference
+        System.arraycopy(ref, 40, ref, 200, 12);
+        return ref;
+    }
+
+    private static SAMFileHeader headerWithSamples(final int numberOfSamples) {
+        final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeader();
+        final List<SAMReadGroupRecord> readGroups = new ArrayList<>();
+        for ( int i = 0; i < numberOfSamples; i++ ) {
+            final SAMReadGroupRecord readGroup = new SAMReadGroupRecord("rg" + i);
+            readGroup.setSample("sample" + i);
+            readGroups.add(readGroup);
+        }
+        header.setReadGroups(readGroups);
+        return header;
+    }
+
+    private static List<GATKRead> simulateReads(final Random random, final SAMFileHeader header, final int numberOfSamples,
+                                                final byte[] ref, final byte[] alt) {
+        final int readLength = 80;
+        final List<GATKRead> reads = new ArrayList<>();
+        for ( int sample = 0; sample < numberOfSamples; sample++ ) {
+            for ( int i = 0; i < 60; i++ ) {
+                final byte[] haplotype = random.nextBoolean() ? ref : alt;
+                final int start = random.nextInt(haplotype.length - readLength);
+                final byte[] bases = Arrays.copyOfRange(haplotype, start, start + readLength);
+                final byte[] quals = Utils.dupBytes((byte) 30, readLength);
+                for ( int j = 0; j < readLength; j++ ) {
+                    final double p = random.nextDouble();
+                    if ( p < 0.01 ) {
+                        bases[j] = BASES[random.nextInt(BASES.length)];
+                    } else if ( p < 0.015 ) {
+                        bases[j] = 'N';
+                    } else if ( p < 0.02 ) {
+                        quals[j] = 5;
+                    }
+                }
+                final GATKRead read = ArtificialReadUtils.createArtificialRead(header, "read" + sample + '_' + i, 0, start + 1, bases, quals, readLength + "M");
+                read.setReadGroup("rg" + sample);
+                reads.add(read);
+            }
+        }
+        return reads;
+    }
+}
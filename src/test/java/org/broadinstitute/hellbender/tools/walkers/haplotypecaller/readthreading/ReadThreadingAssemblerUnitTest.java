@@ -116,6 +116,12 @@ public final class ReadThreadingAssemblerUnitTest extends GATKBaseTest {
         testAssemblyWithVariant(assembler, refBases, loc, nReadsToUse, vcb.make());
     }
 
+    @Test(dataProvider = "AssembleIntervalsWithVariantData")
+    public void testAssembleRefAndSNPWithPackedKmerGraph(final ReadThreadingAssembler assembler, final SimpleInterval loc, final int nReadsToUse, final int variantSite) {
+        assembler.setGraphImplementation(ReadThreadingAssembler.GraphImplementation.PACKED_KMERS);
+        testAssembleRefAndSNP(assembler, loc, nReadsToUse, variantSite);
+    }
+
     @Test(dataProvider = "AssembleIntervalsWithVariantData")
     public void testAssembleRefAndDeletion(final ReadThreadingAssembler assembler, final SimpleInterval loc, final int nReadsToUse, final int variantSite) {
         final byte[] refBases = seq.getSubsequenceAt(loc.getContig(), loc.getStart(), loc.getEnd()).getBases();
@@ -138,6 +144,46 @@ public final class ReadThreadingAssemblerUnitTest extends GATKBaseTest {
         }
     }
 
+    @DataProvider(name = "KmerAssemblyThreadsData")
+    public Object[][] makeKmerAssemblyThreadsData() {
+        return new Object[][]{
+                {Arrays.asList(10, 25), true, true},
+                {Arrays.asList(10, 15, 20, 25, 30), false, false},
+                // the reference has non-unique 3-mers, so the increased kmer sizes are tried
+                {Arrays.asList(3), false, false}
+        };
+    }
+
+    @Test(dataProvider = "KmerAssemblyThreadsData")
+    public void testKmerAssemblyThreads(final List<Integer> kmerSizes, final boolean dontIncreaseKmerSizesForCycles, final boolean allowNonUniqueKmersInRef) {
+        final SimpleInterval loc = new SimpleInterval("1", 100000, 100100);
+        final byte[] refBases = seq.getSubsequenceAt(loc.getContig(), loc.getStart(), loc.getEnd()).getBases();
+        final byte[] altBases = refBases.clone();
+        altBases[50] = altBases[50] == 'A' ? (byte) 'C' : (byte) 'A';
+
+        final List<GATKRead> reads = new LinkedList<>();
+        for ( int i = 0; i < 10; i++ ) {
+            final byte[] bases = (i % 2 == 0 ? altBases : refBases).clone();
+            reads.add(ArtificialReadUtils.createArtificialRead(header, loc.getContig(), loc.getContig(), loc.getStart(), bases, Utils.dupBytes((byte) 30, bases.length), bases.length + "M"));
+        }
+
+        final ReadThreadingAssembler sequentialAssembler = new ReadThreadingAssembler(128, kmerSizes, dontIncreaseKmerSizesForCycles, allowNonUniqueKmersInRef, 1);
+        final ReadThreadingAssembler parallelAssembler = new ReadThreadingAssembler(128, kmerSizes, dontIncreaseKmerSizesForCycles, allowNonUniqueKmersInRef, 1);
+        parallelAssembler.setKmerAssemblyThreads(3);
+        try {
+            final List<Haplotype> expected = assemble(sequentialAssembler, refBases, loc, reads);
+            Assert.assertEquals(expected, Arrays.asList(new Haplotype(refBases, true), new Haplotype(altBases, false)));
+            Assert.assertEquals(assemble(parallelAssembler, refBases, loc, reads), expected);
+        } finally {
+            parallelAssembler.close();
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidKmerAssemblyThreads() {
+        new ReadThreadingAssembler().setKmerAssemblyThreads(0);
+    }
+
     private void testAssemblyWithVariant(final ReadThreadingAssembler assembler, final byte[] refBases, final SimpleInterval loc, final int nReadsToUse, final VariantContext site) {
         final String preRef = new String(refBases).substring(0, site.getStart());
         final String postRef = new String(refBases).substring(site.getEnd() + 1, refBases.length);
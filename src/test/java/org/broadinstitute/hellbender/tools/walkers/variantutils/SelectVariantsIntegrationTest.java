@@ -81,6 +81,20 @@ public class SelectVariantsIntegrationTest extends CommandLineProgramTest {
         spec.executeTest("testComplexSelection--" + testFile, this);
     }
 
+    @Test
+    public void testComplexSelectionWithVCFWriterThreads()  throws IOException {
+        final String testFile = getToolTestDataDir() + "vcfexample2.vcf";
+        final String samplesFile = getToolTestDataDir() + "samples.args";
+
+        final IntegrationTestSpec spec = new IntegrationTestSpec(
+                baseTestString(" -sn NA11894 -se 'NA069*' -sn " + samplesFile + " -select 'RMSMAPQ < 170.0'"
+                        + " --" + StandardArgumentDefinitions.VCF_WRITER_THREADS_LONG_NAME + " 2", testFile),
+                Collections.singletonList(getToolTestDataDir() + "expected/" + "testSelectVariants_ComplexSelection.vcf")
+        );
+
+        spec.executeTest("testComplexSelectionWithVCFWriterThreads--" + testFile, this);
+    }
+
     @Test
     public void testComplexSelectionWithNonExistingSamples()  throws IOException {
         final String testFile = getToolTestDataDir() + "vcfexample2.vcf";
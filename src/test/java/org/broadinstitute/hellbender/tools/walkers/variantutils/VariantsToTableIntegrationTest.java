@@ -1,6 +1,7 @@
 package org.broadinstitute.hellbender.tools.walkers.variantutils;
 
 import org.broadinstitute.hellbender.CommandLineProgramTest;
+import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.test.IntegrationTestSpec;
 import org.testng.annotations.Test;
@@ -87,6 +88,14 @@ public final class VariantsToTableIntegrationTest extends CommandLineProgramTest
         spec.executeTest("testComplexVariantsToTable", this);
     }
 
+    @Test
+    public void testComplexVariantsToTableMultiThreaded() throws IOException {
+        final IntegrationTestSpec spec = new IntegrationTestSpec(
+                variantsToTableCmd(" --" + StandardArgumentDefinitions.THREADS_LONG_NAME + " 4"),
+                Arrays.asList(getToolTestDataDir() + "expected.soap_gatk_annotated.noChr_lines.table"));
+        spec.executeTest("testComplexVariantsToTableMultiThreaded", this);
+    }
+
     @Test
     public void testMultiAllelicOneRecord() throws IOException {
         final IntegrationTestSpec spec = new IntegrationTestSpec(
@@ -166,6 +175,18 @@ public final class VariantsToTableIntegrationTest extends CommandLineProgramTest
         spec.executeTest("testMoltenOutput", this);
     }
 
+    @Test
+    public void testMultiThreadedMoltenOutput() throws IOException {
+        final IntegrationTestSpec spec = new IntegrationTestSpec(
+                        " --variant " + getToolTestDataDir() + "vcfexample2.vcf" +
+                        " -F CHROM -F POS -F ID -F REF -F ALT -F QUAL -F FILTER" +
+                        " --moltenize" +
+                        " --" + StandardArgumentDefinitions.THREADS_LONG_NAME + " 2" +
+                        " -O %s",
+                Arrays.asList(getToolTestDataDir() + "expected.vcfexample2.moltenize.table"));
+        spec.executeTest("testMultiThreadedMoltenOutput", this);
+    }
+
     @Test
     public void testMoltenOutputWithGenotypeFields() throws IOException {
         final IntegrationTestSpec spec = new IntegrationTestSpec(
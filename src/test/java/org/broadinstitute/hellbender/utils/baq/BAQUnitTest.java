@@ -23,7 +23,9 @@ import org.testng.annotations.Test;
 import java.io.File;
 import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
 public final class BAQUnitTest extends GATKBaseTest {
 
@@ -218,6 +220,97 @@ public final class BAQUnitTest extends GATKBaseTest {
 
     }
 
+    @DataProvider(name = "bandWidths")
+    public Object[][] bandWidths() {
+        // the largest band width needs more than CachingBAQHMM.MAX_CACHED_BYTES of double-precision matrices for long reads
+        return new Object[][] {{0}, {1}, {BAQ.DEFAULT_BANDWIDTH}, {20}, {200}};
+    }
+
+    /**
+     * Run the implementations on the same random reads, in decreasing and increasing order of length so that reused
+     * matrices still hold the values of longer reads, and check that CACHING gives the same results as ORIGINAL, and
+     * FLOAT_CACHING close results.
+     */
+    @Test(dataProvider = "bandWidths")
+    public void testHMMImplementationsAgree(final int bandWidth) {
+        final Random random = new Random(bandWidth);
+        final BAQ original = new BAQ(1.0e-3, 0.1, bandWidth, (byte) 4);
+        original.setHMMImplementation(BAQ.HMMImplementation.ORIGINAL);
+        final BAQ caching = new BAQ(1.0e-3, 0.1, bandWidth, (byte) 4);
+        Assert.assertEquals(caching.getHMMImplementation(), BAQ.HMMImplementation.CACHING);
+        final BAQ floatCaching = new BAQ(1.0e-3, 0.1, bandWidth, (byte) 4);
+        floatCaching.setHMMImplementation(BAQ.HMMImplementation.FLOAT_CACHING);
+
+        final List<Integer> lengths = new ArrayList<>();
+        for (int length = 300; length >= 1; length = length * 2 / 3) {
+            lengths.add(length);
+        }
+        for (int length = 2; length <= 300; length = length * 3 / 2 + 1) {
+            lengths.add(length);
+        }
+
+        for (final int readLength : lengths) {
+            final byte[] ref = randomBases(random, readLength + random.nextInt(2 * bandWidth + 2) + 1);
+            final byte[] read = mutate(random, Arrays.copyOfRange(ref, 0, readLength), readLength);
+            final byte[] quals = new byte[read.length];
+            for (int i = 0; i < quals.length; i++) {
+                quals[i] = (byte) (2 + random.nextInt(40));
+            }
+            final int qstart = read.length > 2 ? random.nextInt(2) : 0;
+            final int queryLength = read.length - qstart;
+
+            final int[] expectedState = new int[read.length];
+            final byte[] expectedQuals = new byte[read.length];
+            original.hmm_glocal(ref, read, qstart, queryLength, quals, expectedState, expectedQuals);
+
+            final int[] state = new int[read.length];
+            final byte[] baqQuals = new byte[read.length];
+            caching.hmm_glocal(ref, read, qstart, queryLength, quals, state, baqQuals);
+            Assert.assertEquals(state, expectedState, "states differ for read of length " + read.length);
+            Assert.assertEquals(baqQuals, expectedQuals, "BAQ qualities differ for read of length " + read.length);
+
+            final int[] floatState = new int[read.length];
+            final byte[] floatQuals = new byte[read.length];
+            floatCaching.hmm_glocal(ref, read, qstart, queryLength, quals, floatState, floatQuals);
+            Assert.assertEquals(floatState, expectedState, "single-precision states differ for read of length " + read.length);
+            for (int i = qstart; i < read.length; i++) {
+                // single-precision posteriors can't resolve high qualities, which are capped by the base quality anyway
+                if (expectedQuals[i] < 60) {
+                    Assert.assertEquals(floatQuals[i], expectedQuals[i], 1.0, "single-precision BAQ quality is too far from double-precision one");
+                }
+            }
+        }
+    }
+
+    private static byte[] randomBases(final Random random, final int length) {
+        final byte[] bases = new byte[length];
+        final byte[] alphabet = "ACGTACGTACGTACGTacgtN".getBytes();
+        for (int i = 0; i < length; i++) {
+            bases[i] = alphabet[random.nextInt(alphabet.length)];
+        }
+        return bases;
+    }
+
+    /**
+     * @return the bases with random substitutions and single-base indels, of the given length
+     */
+    private static byte[] mutate(final Random random, final byte[] bases, final int length) {
+        final byte[] mutated = new byte[length];
+        for (int i = 0, j = 0; i < length; i++) {
+            final int event = random.nextInt(50);
+            if (event == 0 && j < bases.length - 1) {
+                j++; // deletion
+            }
+            if (event == 1) {
+                mutated[i] = (byte) 'A'; // insertion
+                continue;
+            }
+            mutated[i] = event == 2 ? (byte) 'C' : bases[Math.min(j, bases.length - 1)];
+            j++;
+        }
+        return mutated;
+    }
+
     private static void printQuals(PrintStream out, String prefix, byte[] quals, boolean asInt) {
         out.print(prefix);
         for (int i = 0; i < quals.length; i++) {
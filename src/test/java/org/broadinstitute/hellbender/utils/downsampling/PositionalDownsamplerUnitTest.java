@@ -150,6 +150,27 @@ public class PositionalDownsamplerUnitTest extends GATKBaseTest {
         Assert.assertTrue(downsampler.hasFinalizedItems());
     }
 
+    @Test
+    public void testPositionalDownsamplerWithOwnRandomGenerator() {
+        final List<GATKRead> reads = createStackOfMappedReads(100, "1", 1);
+        for ( int i = 0; i < reads.size(); ++i ) {
+            reads.get(i).setName("read" + i);
+        }
+
+        final List<List<GATKRead>> downsampledReads = new ArrayList<>();
+        for ( int run = 0; run < 2; ++run ) {
+            final ReadsDownsampler downsampler = new PositionalDownsampler(10, header, Utils.getIndependentRandomGenerator(3));
+            // draws from the shared generator in between runs must not affect the generator owned by the downsampler
+            Utils.getRandomGenerator().nextInt();
+            downsampler.submit(reads);
+            downsampler.signalEndOfInput();
+            downsampledReads.add(downsampler.consumeFinalizedItems());
+        }
+
+        Assert.assertEquals(downsampledReads.get(0).size(), 10);
+        Assert.assertEquals(downsampledReads.get(1), downsampledReads.get(0));
+    }
+
     @Test(expectedExceptions = IllegalArgumentException.class)
     public void testPositionalDownsamplerZeroTargetCoverage() {
         final PositionalDownsampler downsampler = new PositionalDownsampler(0, header);
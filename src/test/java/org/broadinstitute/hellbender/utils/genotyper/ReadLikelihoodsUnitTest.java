@@ -247,6 +247,66 @@ public final class ReadLikelihoodsUnitTest {
         }
     }
 
+    @Test(dataProvider = "marginalizationDataSets")
+    public void testArenaBackedLikelihoods(final String[] samples, final Allele[] alleles, final Map<String,List<GATKRead>> reads, final Map<Allele,List<Allele>> newToOldAlleleMapping) {
+        final ReadLikelihoodsArena arena = new ReadLikelihoodsArena();
+
+        // leave stale values in the arena arrays
+        final ReadLikelihoods<Allele> stale = new ReadLikelihoods<>(new IndexedSampleList(samples), new IndexedAlleleList<>(alleles), reads, arena);
+        fillWithRandomLikelihoods(samples, alleles, stale);
+        final int numberOfArrays = arena.numberOfArrays();
+        arena.reset();
+        Assert.assertEquals(arena.numberOfArraysInUse(), 0);
+
+        final ReadLikelihoods<Allele> onHeap = new ReadLikelihoods<>(new IndexedSampleList(samples), new IndexedAlleleList<>(alleles), reads);
+        final ReadLikelihoods<Allele> inArena = new ReadLikelihoods<>(new IndexedSampleList(samples), new IndexedAlleleList<>(alleles), reads, arena);
+        Assert.assertEquals(arena.numberOfArrays(), numberOfArrays, "arena arrays should be reused");
+        assertSameLikelihoods(inArena, onHeap);
+
+        final double[][][] likelihoods = fillWithRandomLikelihoods(samples, alleles, onHeap);
+        for (int s = 0; s < samples.length; s++) {
+            for (int a = 0; a < alleles.length; a++) {
+                for (int r = 0; r < likelihoods[s][a].length; r++) {
+                    inArena.sampleMatrix(s).set(a, r, likelihoods[s][a][r]);
+                }
+            }
+        }
+        assertSameLikelihoods(inArena, onHeap);
+
+        final SimpleInterval evenReadOverlap = new SimpleInterval(SAM_HEADER.getSequenceDictionary().getSequences().get(0).getSequenceName(), EVEN_READ_START, EVEN_READ_START);
+        onHeap.filterToOnlyOverlappingUnclippedReads(evenReadOverlap);
+        inArena.filterToOnlyOverlappingUnclippedReads(evenReadOverlap);
+        assertSameLikelihoods(inArena, onHeap);
+
+        final List<Allele> missingAlleles = Collections.singletonList(Allele.create("ACCCCCAAAATTTAAAGGG".getBytes(), false));
+        onHeap.addMissingAlleles(missingAlleles, -12345.6);
+        inArena.addMissingAlleles(missingAlleles, -12345.6);
+        assertSameLikelihoods(inArena, onHeap);
+
+        assertSameLikelihoods(inArena.marginalize(newToOldAlleleMapping), onHeap.marginalize(newToOldAlleleMapping));
+
+        // copies are independent from the arena
+        final ReadLikelihoods<Allele> copy = inArena.copy();
+        arena.reset();
+        fillWithRandomLikelihoods(samples, alleles, new ReadLikelihoods<>(new IndexedSampleList(samples), new IndexedAlleleList<>(alleles), reads, arena));
+        assertSameLikelihoods(copy, onHeap);
+    }
+
+    private static void assertSameLikelihoods(final ReadLikelihoods<Allele> actual, final ReadLikelihoods<Allele> expected) {
+        Assert.assertEquals(actual.alleles(), expected.alleles());
+        Assert.assertEquals(actual.numberOfSamples(), expected.numberOfSamples());
+        for (int s = 0; s < expected.numberOfSamples(); s++) {
+            Assert.assertEquals(actual.sampleReads(s), expected.sampleReads(s));
+            final LikelihoodMatrix<Allele> actualMatrix = actual.sampleMatrix(s);
+            final LikelihoodMatrix<Allele> expectedMatrix = expected.sampleMatrix(s);
+            for (int a = 0; a < expected.numberOfAlleles(); a++) {
+                for (int r = 0; r < expected.sampleReadCount(s); r++) {
+                    Assert.assertEquals(actualMatrix.get(a, r), expectedMatrix.get(a, r));
+                }
+            }
+        }
+    }
+
     @Test(dataProvider = "dataSets")
     public void testNormalizeBestToZero(final String[] samples, final Allele[] alleles, final Map<String,List<GATKRead>> reads) {
         final ReadLikelihoods<Allele> original = new ReadLikelihoods<>(new IndexedSampleList(samples), new IndexedAlleleList<>(alleles), reads);
@@ -0,0 +1,170 @@
+package org.broadinstitute.hellbender.utils.iterators;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class AsyncPrefetchingIteratorUnitTest extends GATKBaseTest {
+
+    @DataProvider(name = "prefetchingData")
+    public Object[][] prefetchingData() {
+        return new Object[][] {
+                {0, 1},
+                {1, 1},
+                {10, 1},
+                {10, 3},
+                {1000, 5},
+                {1000, 2000}
+        };
+    }
+
+    @Test(dataProvider = "prefetchingData")
+    public void testElementsAreReturnedInOrder(final int numElements, final int maxPrefetchedElements) {
+        final List<Integer> elements = IntStream.range(0, numElements).boxed().collect(Collectors.toList());
+
+        try ( final AsyncPrefetchingIterator<Integer> iter = new AsyncPrefetchingIterator<>(elements::iterator, maxPrefetchedElements, "test-prefetcher") ) {
+            Assert.assertEquals(Utils.stream(iter).collect(Collectors.toList()), elements);
+            Assert.assertFalse(iter.hasNext());
+        }
+    }
+
+    @Test
+    public void testNestedIteratorIsCreatedOnBackgroundThread() {
+        final Thread consumerThread = Thread.currentThread();
+        final List<Thread> producerThreads = new ArrayList<>();
+
+        try ( final AsyncPrefetchingIterator<Integer> iter = new AsyncPrefetchingIterator<>(() -> {
+                producerThreads.add(Thread.currentThread());
+                return Collections.singletonList(1).iterator();
+            }, 1, "test-prefetcher") ) {
+            Assert.assertEquals(iter.next().intValue(), 1);
+        }
+
+        Assert.assertEquals(producerThreads.size(), 1);
+        Assert.assertNotSame(producerThreads.get(0), consumerThread);
+    }
+
+    @Test
+    public void testFailureIsRethrownAfterPrecedingElements() {
+        final Iterator<Integer> failingIterator = new Iterator<Integer>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Integer next() {
+                if ( next == 3 ) {
+                    throw new UserException.BadInput("bad element");
+                }
+                return next++;
+            }
+        };
+
+        try ( final AsyncPrefetchingIterator<Integer> iter = new AsyncPrefetchingIterator<>(() -> failingIterator, 2, "test-prefetcher") ) {
+            for ( int i = 0; i < 3; ++i ) {
+                Assert.assertEquals(iter.next().intValue(), i);
+            }
+            Assert.assertThrows(UserException.BadInput.class, iter::hasNext);
+        }
+    }
+
+    @Test
+    public void testCloseStopsProducer() throws InterruptedException {
+        final Iterator<Integer> infiniteIterator = new Iterator<Integer>() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Integer next() {
+                return 1;
+            }
+        };
+
+        final AsyncPrefetchingIterator<Integer> iter = new AsyncPrefetchingIterator<>(() -> infiniteIterator, 5, "test-prefetcher");
+        Assert.assertEquals(iter.next().intValue(), 1);
+        iter.close();
+        Assert.assertFalse(iter.hasNext());
+    }
+
+    @Test
+    public void testCloseWaitsForProducer() throws InterruptedException {
+        final AtomicBoolean producing = new AtomicBoolean(false);
+        final AtomicBoolean resourceClosed = new AtomicBoolean(false);
+        final AtomicBoolean usedAfterClose = new AtomicBoolean(false);
+        final AtomicBoolean producerInterrupted = new AtomicBoolean(false);
+        final CountDownLatch slowElementStarted = new CountDownLatch(1);
+
+        // each element takes a while to produce, and uses a resource that the consumer closes after close() returns
+        final Iterator<Integer> slowIterator = new Iterator<Integer>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Integer next() {
+                producing.set(true);
+                if ( next == 3 ) {
+                    slowElementStarted.countDown();
+                }
+                try {
+                    Thread.sleep(next >= 3 ? 200 : 1);
+                } catch ( final InterruptedException e ) {
+                    producerInterrupted.set(true);
+                }
+                if ( resourceClosed.get() ) {
+                    usedAfterClose.set(true);
+                }
+                producing.set(false);
+                return next++;
+            }
+        };
+
+        final AsyncPrefetchingIterator<Integer> iter = new AsyncPrefetchingIterator<>(() -> slowIterator, 1, "test-prefetcher");
+        Assert.assertEquals(iter.next().intValue(), 0);
+        Assert.assertEquals(iter.next().intValue(), 1);
+        slowElementStarted.await();
+
+        iter.close();
+        Assert.assertFalse(producing.get(), "close() returned while an element was still being produced");
+        resourceClosed.set(true);
+        Thread.sleep(300);
+
+        Assert.assertFalse(usedAfterClose.get());
+        Assert.assertFalse(producerInterrupted.get());
+        Assert.assertFalse(iter.hasNext());
+        iter.close();
+    }
+
+    @Test(expectedExceptions = NoSuchElementException.class)
+    public void testNextOnExhaustedIterator() {
+        try ( final AsyncPrefetchingIterator<Integer> iter = new AsyncPrefetchingIterator<>(Collections::emptyIterator, 1, "test-prefetcher") ) {
+            iter.next();
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidQueueSize() {
+        new AsyncPrefetchingIterator<>(Collections::emptyIterator, 0, "test-prefetcher");
+    }
+}
@@ -0,0 +1,145 @@
+package org.broadinstitute.hellbender.utils.iterators;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.util.CloseableIterator;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+
+public class ReadAheadSAMRecordIteratorUnitTest extends GATKBaseTest {
+
+    /**
+     * A CloseableIterator over a list of records, that can fail after a given number of records and records the
+     * threads it was used from.
+     */
+    private static final class TestRecordIterator implements CloseableIterator<SAMRecord> {
+        private final Iterator<SAMRecord> records;
+        private final int failAfter;
+        private final List<Thread> callingThreads = new ArrayList<>();
+        private int returned = 0;
+        private boolean closed = false;
+
+        private TestRecordIterator(final List<SAMRecord> records, final int failAfter) {
+            this.records = records.iterator();
+            this.failAfter = failAfter;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return returned >= failAfter || records.hasNext();
+        }
+
+        @Override
+        public SAMRecord next() {
+            if ( returned++ >= failAfter ) {
+                throw new UserException("failed after " + failAfter + " records");
+            }
+            synchronized (callingThreads) {
+                callingThreads.add(Thread.currentThread());
+            }
+            return records.next();
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    private static List<SAMRecord> makeRecords(final int numRecords) {
+        final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeader();
+        final List<SAMRecord> records = new ArrayList<>(numRecords);
+        for ( int i = 0; i < numRecords; ++i ) {
+            records.add(ArtificialReadUtils.createArtificialSAMRecord(header, "read" + i, 0, i + 1, 10));
+        }
+        return records;
+    }
+
+    @DataProvider(name = "readAheadData")
+    public Object[][] readAheadData() {
+        return new Object[][] {
+                {0, 1},
+                {1, 1},
+                {10, 1},
+                {ReadAheadSAMRecordIterator.BATCH_SIZE, 1},
+                {ReadAheadSAMRecordIterator.BATCH_SIZE + 1, ReadAheadSAMRecordIterator.BATCH_SIZE},
+                {1000, 300},
+                {1000, 5000}
+        };
+    }
+
+    @Test(dataProvider = "readAheadData")
+    public void testRecordsAreReturnedInOrder(final int numRecords, final int maxRecordsAhead) {
+        final List<SAMRecord> records = makeRecords(numRecords);
+        final TestRecordIterator wrapped = new TestRecordIterator(records, Integer.MAX_VALUE);
+
+        try ( final ReadAheadSAMRecordIterator iter = new ReadAheadSAMRecordIterator(wrapped, maxRecordsAhead, "test-read-ahead") ) {
+            final List<SAMRecord> actual = Utils.stream(iter).collect(Collectors.toList());
+            Assert.assertEquals(actual.size(), records.size());
+            for ( int i = 0; i < records.size(); ++i ) {
+                Assert.assertSame(actual.get(i), records.get(i));
+            }
+            Assert.assertFalse(iter.hasNext());
+        }
+
+        Assert.assertTrue(wrapped.closed);
+        Assert.assertFalse(wrapped.callingThreads.contains(Thread.currentThread()), "records should be read on the background thread");
+    }
+
+    @Test
+    public void testFailureIsRethrownAfterPrecedingRecords() {
+        final List<SAMRecord> records = makeRecords(300);
+        final int failAfter = 200;
+
+        final ReadAheadSAMRecordIterator iter = new ReadAheadSAMRecordIterator(new TestRecordIterator(records, failAfter), 10, "test-read-ahead");
+        for ( int i = 0; i < failAfter; ++i ) {
+            Assert.assertSame(iter.next(), records.get(i));
+        }
+        Assert.assertThrows(UserException.class, iter::hasNext);
+        Assert.assertFalse(iter.hasNext());
+        iter.close();
+    }
+
+    @Test
+    public void testCloseBeforeExhaustion() {
+        final List<SAMRecord> records = makeRecords(10000);
+        final TestRecordIterator wrapped = new TestRecordIterator(records, Integer.MAX_VALUE);
+
+        final ReadAheadSAMRecordIterator iter = new ReadAheadSAMRecordIterator(wrapped, 1, "test-read-ahead");
+        Assert.assertSame(iter.next(), records.get(0));
+        iter.close();
+
+        // the wrapped iterator must only be closed once the background thread is done with it
+        Assert.assertTrue(wrapped.closed);
+        final int readByBackgroundThread = wrapped.callingThreads.size();
+        Assert.assertTrue(readByBackgroundThread < records.size());
+        Assert.assertFalse(iter.hasNext());
+        Assert.assertEquals(wrapped.callingThreads.size(), readByBackgroundThread);
+
+        // closing twice is harmless
+        iter.close();
+    }
+
+    @Test(expectedExceptions = NoSuchElementException.class)
+    public void testNextWhenExhausted() {
+        try ( final ReadAheadSAMRecordIterator iter = new ReadAheadSAMRecordIterator(new TestRecordIterator(makeRecords(0), Integer.MAX_VALUE), 1, "test-read-ahead") ) {
+            iter.next();
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidMaxRecordsAhead() {
+        new ReadAheadSAMRecordIterator(new TestRecordIterator(makeRecords(1), Integer.MAX_VALUE), 0, "test-read-ahead");
+    }
+}
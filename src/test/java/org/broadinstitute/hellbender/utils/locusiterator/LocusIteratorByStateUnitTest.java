@@ -9,6 +9,7 @@ import org.broadinstitute.hellbender.utils.QualityUtils;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.downsampling.DownsampleType;
 import org.broadinstitute.hellbender.utils.downsampling.DownsamplingMethod;
+import org.broadinstitute.hellbender.utils.pileup.PileupColumns;
 import org.broadinstitute.hellbender.utils.pileup.PileupElement;
 import org.broadinstitute.hellbender.utils.pileup.ReadPileup;
 import org.broadinstitute.hellbender.utils.read.ArtificialBAMBuilder;
@@ -19,6 +20,7 @@ import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 import java.util.*;
+import java.util.stream.Collectors;
 
 public final class LocusIteratorByStateUnitTest extends LocusIteratorByStateBaseTest {
 
@@ -775,4 +777,43 @@ public final class LocusIteratorByStateUnitTest extends LocusIteratorByStateBase
         final int nExpectedPileups = nReadContainingPileups;
         Assert.assertEquals(nPileups, nExpectedPileups, "\"Wrong number of pileups seen for " + read + " with " + nClipsOnLeft + " clipped bases.");
     }
+
+    @Test
+    public void testPileupColumns() {
+        final List<GATKRead> reads = new ArrayList<>();
+        reads.add(ArtificialReadUtils.createArtificialRead(header, "read1", 0, 1, Utils.dupBytes((byte) 'A', 6), new byte[]{10, 11, 12, 13, 14, 15}, "3M2D3M"));
+        reads.add(ArtificialReadUtils.createArtificialRead(header, "read2", 0, 1, Utils.dupBytes((byte) 'C', 7), new byte[]{20, 21, 22, 23, 24, 25, 26}, "2M1I4M"));
+        final GATKRead reverseRead = ArtificialReadUtils.createArtificialRead(header, "read3", 0, 2, Utils.dupBytes((byte) 'G', 5), new byte[]{30, 31, 32, 33, 34}, "5M");
+        reverseRead.setIsReverseStrand(true);
+        reverseRead.setMappingQuality(40);
+        reads.add(reverseRead);
+
+        final LocusIteratorByState li = makeLIBS(reads, header);
+        li.setBuildPileupColumns(true);
+
+        int nPileups = 0;
+        while ( li.hasNext() ) {
+            final ReadPileup pileup = li.next().getBasePileup();
+            final PileupColumns columns = pileup.getColumns();
+            Assert.assertSame(pileup.getColumns(), columns);
+            Assert.assertEquals(columns.size(), pileup.size());
+
+            int i = 0;
+            for ( final PileupElement element : pileup ) {
+                Assert.assertSame(columns.getRead(i), element.getRead());
+                Assert.assertEquals(columns.getBases()[i], element.getBase());
+                Assert.assertEquals(columns.getBaseQuals()[i], element.getQual());
+                Assert.assertEquals(columns.getMappingQuals()[i], element.getMappingQual());
+                Assert.assertEquals(columns.getOffsets()[i], element.getOffset());
+                Assert.assertEquals(columns.isDeletion(i), element.isDeletion());
+                Assert.assertEquals(columns.isReverseStrand(i), element.getRead().isReverseStrand());
+                Assert.assertEquals((columns.getFlags()[i] & PileupColumns.BEFORE_DELETION) != 0, element.isBeforeDeletionStart());
+                Assert.assertEquals((columns.getFlags()[i] & PileupColumns.BEFORE_INSERTION) != 0, element.isBeforeInsertion());
+                i++;
+            }
+            Assert.assertEquals(pileup.getBases(), PileupColumns.of(Utils.stream(pileup).collect(Collectors.toList())).getBases());
+            nPileups++;
+        }
+        Assert.assertEquals(nPileups, 8);
+    }
 }
@@ -11,6 +11,7 @@ import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.GATKBaseTest;
 import org.testng.Assert;
+import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
@@ -24,16 +25,27 @@ public final class PairHMMUnitTest extends GATKBaseTest {
     final N2MemoryPairHMM exactHMM = new Log10PairHMM(true); // the log truth implementation
     final N2MemoryPairHMM originalHMM = new Log10PairHMM(false); // the reference implementation
     final N2MemoryPairHMM loglessHMM = new LoglessPairHMM();
+    final N2MemoryPairHMM trieLoglessHMM = new TrieLoglessPairHMM();
+    final N2MemoryPairHMM floatLoglessHMM = new FloatLoglessPairHMM(false);
+    final N2MemoryPairHMM parallelLoglessHMM = new ParallelLoglessPairHMM(2);
 
     @BeforeClass
     public void initialize() {
         exactHMM.doNotUseTristateCorrection();
         originalHMM.doNotUseTristateCorrection();
         loglessHMM.doNotUseTristateCorrection();
+        trieLoglessHMM.doNotUseTristateCorrection();
+        floatLoglessHMM.doNotUseTristateCorrection();
+        parallelLoglessHMM.doNotUseTristateCorrection();
+    }
+
+    @AfterClass
+    public void closeHMMs() {
+        parallelLoglessHMM.close();
     }
 
     private List<N2MemoryPairHMM> getHMMs() {
-        return Arrays.asList(exactHMM, originalHMM, loglessHMM);
+        return Arrays.asList(exactHMM, originalHMM, loglessHMM, trieLoglessHMM, floatLoglessHMM, parallelLoglessHMM);
     }
 
     // --------------------------------------------------------------------------------
@@ -532,6 +544,157 @@ public final class PairHMMUnitTest extends GATKBaseTest {
 
     }
 
+    @DataProvider(name = "ParallelLoglessProvider")
+    public Object[][] makeParallelLoglessProvider() {
+        return new Object[][] {
+                {1, 1, 1},
+                {1, 3, 5},
+                {2, 1, 100},
+                {4, 4, 100},
+                {8, 7, 33}
+        };
+    }
+
+    @Test(dataProvider = "ParallelLoglessProvider")
+    public void testParallelLoglessMatchesLogless(final int numberOfThreads, final int numberOfHaplotypes, final int numberOfReads) {
+        final Random random = new Random(numberOfThreads * 1000 + numberOfReads);
+        final List<Haplotype> haplotypes = new ArrayList<>(numberOfHaplotypes);
+        for ( int i = 0; i < numberOfHaplotypes; i++ ) {
+            haplotypes.add(new Haplotype(randomBases(random, 50 + random.nextInt(50)), i == 0));
+        }
+        final List<GATKRead> reads = new ArrayList<>(numberOfReads);
+        for ( int i = 0; i < numberOfReads; i++ ) {
+            final int readLength = 10 + random.nextInt(40);
+            final byte[] quals = new byte[readLength];
+            for ( int j = 0; j < readLength; j++ ) {
+                quals[j] = (byte)(10 + random.nextInt(30));
+            }
+            reads.add(ArtificialReadUtils.createArtificialRead(randomBases(random, readLength), quals, readLength + "M"));
+        }
+        final Map<GATKRead, byte[]> gcps = buildGapContinuationPenalties(reads, (byte) 10);
+
+        final LoglessPairHMM logless = new LoglessPairHMM();
+        logless.computeLog10Likelihoods(matrix(haplotypes), reads, gcps);
+
+        try ( final ParallelLoglessPairHMM parallelLogless = new ParallelLoglessPairHMM(numberOfThreads) ) {
+            Assert.assertEquals(parallelLogless.getNumberOfThreads(), numberOfThreads);
+            // run twice, so that the per-thread HMMs are reused for reads other than the ones they were first used for
+            for ( int i = 0; i < 2; i++ ) {
+                parallelLogless.computeLog10Likelihoods(matrix(haplotypes), reads, gcps);
+                Assert.assertEquals(parallelLogless.getLogLikelihoodArray(), logless.getLogLikelihoodArray());
+            }
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testParallelLoglessInvalidNumberOfThreads() {
+        new ParallelLoglessPairHMM(0);
+    }
+
+    @DataProvider(name = "TrieLoglessProvider")
+    public Object[][] makeTrieLoglessProvider() {
+        return new Object[][] {
+                {1, 1},
+                {2, 10},
+                {8, 10},
+                {32, 25}
+        };
+    }
+
+    @Test(dataProvider = "TrieLoglessProvider")
+    public void testTrieLoglessMatchesLogless(final int numberOfHaplotypes, final int numberOfReads) {
+        final Random random = new Random(numberOfHaplotypes * 1000 + numberOfReads);
+        // haplotypes that share a common prefix and differ near their ends, with a couple of different lengths
+        final byte[] root = randomBases(random, 80);
+        final List<Haplotype> haplotypes = new ArrayList<>(numberOfHaplotypes);
+        for ( int i = 0; i < numberOfHaplotypes; i++ ) {
+            final byte[] bases = Arrays.copyOf(root, root.length - (i % 3 == 2 ? 1 : 0));
+            bases[bases.length - 1 - random.nextInt(20)] = BaseUtils.baseIndexToSimpleBase(random.nextInt(4));
+            haplotypes.add(new Haplotype(bases, i == 0));
+        }
+        final List<GATKRead> reads = new ArrayList<>(numberOfReads);
+        for ( int i = 0; i < numberOfReads; i++ ) {
+            final int readLength = 10 + random.nextInt(40);
+            reads.add(ArtificialReadUtils.createArtificialRead(randomBases(random, readLength), Utils.dupBytes((byte) 30, readLength), readLength + "M"));
+        }
+        final Map<GATKRead, byte[]> gcps = buildGapContinuationPenalties(reads, (byte) 10);
+
+        final LoglessPairHMM logless = new LoglessPairHMM();
+        logless.computeLog10Likelihoods(matrix(haplotypes), reads, gcps);
+
+        final TrieLoglessPairHMM trieLogless = new TrieLoglessPairHMM();
+        trieLogless.computeLog10Likelihoods(matrix(haplotypes), reads, gcps);
+        Assert.assertEquals(trieLogless.getLogLikelihoodArray(), logless.getLogLikelihoodArray());
+
+        final long totalReadBases = reads.stream().mapToLong(GATKRead::getLength).sum();
+        final long totalHaplotypeBases = haplotypes.stream().mapToLong(Haplotype::length).sum();
+        Assert.assertEquals(trieLogless.getNumberOfCellsComputed() + trieLogless.getNumberOfCellsSkipped(), totalReadBases * totalHaplotypeBases);
+        if ( numberOfHaplotypes > 3 ) {
+            Assert.assertTrue(trieLogless.getNumberOfCellsSkipped() > trieLogless.getNumberOfCellsComputed());
+        }
+    }
+
+    @Test
+    public void testTrieOrder() {
+        final byte[][] haplotypes = {"ACGT".getBytes(), "ACG".getBytes(), "AAGT".getBytes(), "ACGA".getBytes(), "TCG".getBytes()};
+        Assert.assertEquals(TrieLoglessPairHMM.trieOrder(haplotypes), new int[]{1, 4, 2, 3, 0});
+    }
+
+    @Test
+    public void testFloatLoglessValidation() {
+        final Random random = new Random(17);
+        final List<Haplotype> haplotypes = Arrays.asList(new Haplotype(randomBases(random, 100), true), new Haplotype(randomBases(random, 120), false));
+        final List<GATKRead> reads = new ArrayList<>();
+        for ( int i = 0; i < 20; i++ ) {
+            final int readLength = 10 + random.nextInt(60);
+            reads.add(ArtificialReadUtils.createArtificialRead(randomBases(random, readLength), Utils.dupBytes((byte) 30, readLength), readLength + "M"));
+        }
+        // copy the beginning of the first haplotype so that at least one read matches well
+        final byte[] matchingBases = Arrays.copyOfRange(haplotypes.get(0).getBases(), 10, 60);
+        reads.add(ArtificialReadUtils.createArtificialRead(matchingBases, Utils.dupBytes((byte) 30, matchingBases.length), matchingBases.length + "M"));
+
+        final FloatLoglessPairHMM hmm = new FloatLoglessPairHMM(true);
+        hmm.computeLog10Likelihoods(matrix(haplotypes), reads, buildGapContinuationPenalties(reads, (byte) 10));
+
+        Assert.assertEquals(hmm.getNumberOfLikelihoods(), reads.size() * haplotypes.size());
+        Assert.assertEquals(hmm.getNumberOfValidationFailures(), 0);
+        Assert.assertTrue(hmm.getMaxValidationDifference() > 0.0);
+        Assert.assertTrue(hmm.getMaxValidationDifference() <= FloatLoglessPairHMM.VALIDATION_TOLERANCE);
+    }
+
+    @Test
+    public void testFloatLoglessFallsBackToDoublePrecisionOnUnderflow() {
+        final Random random = new Random(31);
+        final byte[] haplotypeBases = randomBases(random, 200);
+        // a long read with high qualities that mismatches the haplotype everywhere underflows in single precision
+        final byte[] readBases = new byte[150];
+        for ( int i = 0; i < readBases.length; i++ ) {
+            readBases[i] = BaseUtils.baseIndexToSimpleBase((BaseUtils.simpleBaseToBaseIndex(haplotypeBases[i]) + 1) % 4);
+        }
+        final byte[] quals = Utils.dupBytes((byte) 40, readBases.length);
+        final byte[] gcp = Utils.dupBytes((byte) 10, readBases.length);
+
+        final FloatLoglessPairHMM floatHMM = new FloatLoglessPairHMM(false);
+        floatHMM.initialize(readBases.length, haplotypeBases.length);
+        final double floatResult = floatHMM.computeReadLikelihoodGivenHaplotypeLog10(haplotypeBases, readBases, quals, quals, quals, gcp, true, null);
+
+        final LoglessPairHMM doubleHMM = new LoglessPairHMM();
+        doubleHMM.initialize(readBases.length, haplotypeBases.length);
+        final double doubleResult = doubleHMM.computeReadLikelihoodGivenHaplotypeLog10(haplotypeBases, readBases, quals, quals, quals, gcp, true, null);
+
+        Assert.assertEquals(floatHMM.getNumberOfDoublePrecisionLikelihoods(), 1);
+        Assert.assertEquals(floatResult, doubleResult);
+        Assert.assertTrue(floatResult < Math.log10(FloatLoglessPairHMM.MIN_ACCEPTED) - FloatLoglessPairHMM.FLOAT_INITIAL_CONDITION_LOG10);
+    }
+
+    private static byte[] randomBases(final Random random, final int length) {
+        final byte[] bases = new byte[length];
+        for ( int i = 0; i < length; i++ ) {
+            bases[i] = BaseUtils.baseIndexToSimpleBase(random.nextInt(4));
+        }
+        return bases;
+    }
+
     private LikelihoodMatrix<Haplotype> matrix(final List<Haplotype> haplotypes) {
         return new LikelihoodMatrix<Haplotype>() {
             @Override
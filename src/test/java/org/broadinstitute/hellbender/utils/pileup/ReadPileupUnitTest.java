@@ -283,6 +283,41 @@ public final class ReadPileupUnitTest extends GATKBaseTest {
         Assert.assertEquals(pileup.getMappingQuals()[0], 200);
     }
 
+    @Test
+    public void testColumns() {
+        final GATKRead read1 = ArtificialReadUtils.createArtificialRead(header, "read1", 0, 1, new byte[]{'A', 'C', 'G'}, new byte[]{10, 20, 30}, "3M");
+        final GATKRead read2 = ArtificialReadUtils.createArtificialRead(header, "read2", 0, 1, new byte[]{'T', 'T', 'T'}, new byte[]{40, 40, 40}, "3M");
+        read2.setIsReverseStrand(true);
+        read2.setMappingQuality(200);
+
+        final List<PileupElement> elements = Arrays.asList(PileupElement.createPileupForReadAndOffset(read1, 1), PileupElement.createPileupForReadAndOffset(read2, 2));
+        final ReadPileup pileup = new ReadPileup(loc, elements);
+        final PileupColumns columns = pileup.getColumns();
+        Assert.assertSame(pileup.getColumns(), columns);
+        Assert.assertEquals(columns.size(), 2);
+        Assert.assertEquals(columns.getBases(), new byte[]{'C', 'T'});
+        Assert.assertEquals(columns.getBaseQuals(), new byte[]{20, 40});
+        Assert.assertEquals(columns.getMappingQuals(), new int[]{read1.getMappingQuality(), 200});
+        Assert.assertEquals(columns.getOffsets(), new int[]{1, 2});
+        Assert.assertFalse(columns.isReverseStrand(0));
+        Assert.assertTrue(columns.isReverseStrand(1));
+        Assert.assertFalse(columns.isDeletion(0));
+        Assert.assertSame(columns.getRead(1), read2);
+
+        // the array getters of the pileup return copies of the columns
+        pileup.getBases()[0] = 'N';
+        Assert.assertEquals(columns.getBases(), new byte[]{'C', 'T'});
+        Assert.assertEquals(new ReadPileup(loc, elements, columns).getBaseQuals(), new byte[]{20, 40});
+        Assert.assertEquals(new ReadPileup(loc).getColumns().size(), 0);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testColumnsOfDifferentSize() {
+        final GATKRead read = ArtificialReadUtils.createArtificialRead(header, "read", 0, 1, 10);
+        final List<PileupElement> elements = Collections.singletonList(PileupElement.createPileupForReadAndOffset(read, 0));
+        new ReadPileup(loc, elements, PileupColumns.of(Collections.emptyList()));
+    }
+
     @Test
     public void testEmptyPileup(){
         final ReadPileup empty = new ReadPileup(loc);
@@ -537,6 +572,17 @@ public final class ReadPileupUnitTest extends GATKBaseTest {
         Assert.assertEquals(elements.get(1).getQual(), expectedQualSecond);
     }
 
+    @Test(dataProvider = "FixPairOverlappingQualitiesTest")
+    public void testColumnsAfterFixOverlaps(final PileupElement first,
+            final PileupElement second, final byte expectedQualFirst,
+            final byte expectedQualSecond) throws Exception {
+        final List<PileupElement> elements = Arrays.asList(first, second);
+        final ReadPileup pileup = new ReadPileup(loc, elements, PileupColumns.of(elements));
+        pileup.fixOverlaps();
+        Assert.assertEquals(pileup.getColumns().getBaseQuals(), new byte[]{expectedQualFirst, expectedQualSecond});
+        Assert.assertEquals(pileup.getBaseQuals(), new byte[]{expectedQualFirst, expectedQualSecond});
+    }
+
     @Test
     public void testFixPairOverlappingQualitiesCap() {
         final PileupElement element1 = PileupElement
@@ -12,6 +12,8 @@ import org.testng.Assert;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -322,14 +324,34 @@ public class GATKReadAdaptersUnitTest extends GATKBaseTest {
         final Read baselessGoogleRead = basicGoogleGenomicsRead();
         baselessGoogleRead.setAlignedSequence(null);
 
+        final SAMRecord basesChangedBAMRecord = encodeAndDecodeAsBAM(basicSAMRecord());
+        basesChangedBAMRecord.setReadBases(new byte[]{'A', 'C'});
+
         return new Object[][]{
                 { basicReadBackedBySam(), BASIC_READ_BASES.length },
                 { basicReadBackedByGoogle(), BASIC_READ_BASES.length },
                 { new SAMRecordToGATKReadAdapter(baselessSam), 0 },
-                { new GoogleGenomicsReadToGATKReadAdapter(baselessGoogleRead), 0 }
+                { new GoogleGenomicsReadToGATKReadAdapter(baselessGoogleRead), 0 },
+                { new SAMRecordToGATKReadAdapter(encodeAndDecodeAsBAM(basicSAMRecord())), BASIC_READ_BASES.length },
+                { new SAMRecordToGATKReadAdapter(encodeAndDecodeAsBAM(baselessSam)), 0 },
+                { new SAMRecordToGATKReadAdapter(basesChangedBAMRecord), 2 }
         };
     }
 
+    /**
+     * @return the given record after a round trip through the BAM codec, ie., a lazily-decoded {@link BAMRecord}
+     */
+    private static SAMRecord encodeAndDecodeAsBAM( final SAMRecord record ) {
+        final BAMRecordCodec codec = new BAMRecordCodec(record.getHeader());
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        codec.setOutputStream(out);
+        codec.encode(record);
+        codec.setInputStream(new ByteArrayInputStream(out.toByteArray()));
+        final SAMRecord decoded = codec.decode();
+        Assert.assertTrue(decoded instanceof BAMRecord);
+        return decoded;
+    }
+
     @Test(dataProvider = "GetLengthData")
     public void testGetLength( final GATKRead read, final int expectedLength ) {
         Assert.assertEquals(read.getLength(), expectedLength, "Wrong length for read");
@@ -1,5 +1,7 @@
 package org.broadinstitute.hellbender.utils.recalibration;
 
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMReadGroupRecord;
 import htsjdk.samtools.TextCigarCodec;
 import org.broadinstitute.hellbender.engine.ReferenceDataSource;
 import org.broadinstitute.hellbender.engine.ReferenceMemorySource;
@@ -14,6 +16,7 @@ import org.testng.annotations.Test;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 public final class BaseRecalibrationEngineUnitTest {
@@ -145,4 +148,42 @@ public final class BaseRecalibrationEngineUnitTest {
         final int[] actual = (mode == EventType.BASE_INSERTION ? isInsertion : isDeletion);
         Assert.assertEquals(actual, expected, "calculateIsSNPOrIndel() failed with " + mode + " and cigar " + cigar + " Expected " + Arrays.toString(expected) + " but got " + Arrays.toString(actual));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testNoBufferAllocationsInSteadyState() {
+        final SAMReadGroupRecord readGroup = new SAMReadGroupRecord("rg");
+        readGroup.setPlatform("illumina");
+        final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeaderWithReadGroup(readGroup);
+        final BaseRecalibrationEngine engine = new BaseRecalibrationEngine(new RecalibrationArgumentCollection(), header);
+        final ReferenceDataSource refSource = new ReferenceMemorySource(new ReferenceBases(Utils.repeatBytes((byte)'A', 200), new SimpleInterval("1", 10000, 10199)), header.getSequenceDictionary());
+
+        final int readLength = 100;
+        long allocationsAfterFirstRead = -1;
+        for ( int i = 0; i < 10; i++ ) {
+            final byte[] quals = new byte[readLength];
+            Arrays.fill(quals, (byte)30);
+            final GATKRead read = ArtificialReadUtils.createArtificialRead(header, ArtificialReadUtils.createRandomReadBases(readLength, false), quals, readLength + "M");
+            read.setReadGroup(readGroup.getReadGroupId());
+            read.setIsReverseStrand(i % 2 == 1);
+            engine.processRead(read, refSource, Collections.emptyList());
+            if ( i == 0 ) {
+                allocationsAfterFirstRead = engine.getNumBufferAllocations();
+                Assert.assertTrue(allocationsAfterFirstRead > 0);
+            }
+        }
+
+        Assert.assertEquals(engine.getNumReadsProcessed(), 10);
+        Assert.assertEquals(engine.getNumBufferAllocations(), allocationsAfterFirstRead, "buffers were allocated after the first read of the same length");
+    }
+
+    @Test
+    public void testFractionalErrorArrayIntoBuffer() {
+        final byte[] baq = "@@@@@@@FGH".getBytes();
+        final int[] errors = new int[baq.length];
+        errors[7] = 1;
+        final double[] buffer = new double[baq.length];
+        Arrays.fill(buffer, 5.0);    // stale contents from a previous read must be overwritten
+        Assert.assertSame(BaseRecalibrationEngine.calculateFractionalErrorArray(errors, baq, buffer), buffer);
+        Assert.assertEquals(buffer, BaseRecalibrationEngine.calculateFractionalErrorArray(errors, baq));
+    }
+}
@@ -0,0 +1,117 @@
+package org.broadinstitute.hellbender.utils.recalibration;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.transformers.BQSRReadTransformer;
+import org.broadinstitute.hellbender.utils.MathUtils;
+import org.broadinstitute.hellbender.utils.QualityUtils;
+import org.broadinstitute.hellbender.utils.collections.NestedIntegerArray;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.util.Set;
+import java.util.TreeSet;
+
+public final class RecalibrationLookupTableUnitTest extends GATKBaseTest {
+
+    private static final String testDir = GATKBaseTest.publicTestDir + "/org/broadinstitute/hellbender/utils/recalibration/";
+    private static final int BASE_SUBSTITUTION_INDEX = EventType.BASE_SUBSTITUTION.ordinal();
+
+    @DataProvider(name = "reports")
+    public Object[][] reports() {
+        return new Object[][] {
+                {new File(testDir + "HiSeq.1mb.1RG.noSG.table"), -1.0},
+                {new File(testDir + "NA12878.rg_subset.chr1.recal_data.table"), -1.0},
+                {new File(testDir + "NA12878.rg_subset.chr1.recal_data.table"), 30.0},
+        };
+    }
+
+    /**
+     * Check that the lookup table gives the same qualities as the hierarchical estimate computed directly from the
+     * RecalDatums, for every combination of keys present in the report and for some keys that are not.
+     */
+    @Test(dataProvider = "reports")
+    public void testSameQualsAsHierarchicalEstimate(final File reportFile, final double globalQScorePrior) {
+        // separate reports, so that the RecalDatums used for the expected values can't be shared with the lookup table
+        final RecalibrationReport lookupReport = new RecalibrationReport(reportFile);
+        final RecalibrationReport report = new RecalibrationReport(reportFile);
+
+        final byte[] identityQuals = new byte[RecalDatum.MAX_RECALIBRATED_Q_SCORE + 1];
+        for ( int i = 0; i < identityQuals.length; i++ ) {
+            identityQuals[i] = (byte)i;
+        }
+        final RecalibrationLookupTable lookupTable = new RecalibrationLookupTable(lookupReport.getRecalibrationTables(), lookupReport.getCovariates(), globalQScorePrior, identityQuals);
+
+        final RecalibrationTables tables = report.getRecalibrationTables();
+        Assert.assertEquals(tables.numTables(), 4, "test assumes the standard covariates");
+        final NestedIntegerArray<RecalDatum> rgTable = tables.getReadGroupTable();
+        final NestedIntegerArray<RecalDatum> qualTable = tables.getQualityScoreTable();
+        final NestedIntegerArray<RecalDatum> contextTable = tables.getTable(2);
+        final NestedIntegerArray<RecalDatum> cycleTable = tables.getTable(3);
+        final int qualDimension = qualTable.getDimensions()[1];
+
+        int numChecked = 0;
+        for ( int rg = 0; rg <= rgTable.getDimensions()[0]; rg++ ) {
+            final RecalDatum empiricalQualRG = rgTable.get2Keys(rg, BASE_SUBSTITUTION_INDEX);
+            Assert.assertEquals(lookupTable.hasReadGroup(rg), empiricalQualRG != null);
+            if ( empiricalQualRG == null ) {
+                continue;
+            }
+            final double epsilon = globalQScorePrior > 0.0 ? globalQScorePrior : empiricalQualRG.getEstimatedQReported();
+
+            for ( int qual = 0; qual <= qualDimension; qual++ ) {
+                final Set<Integer> contextKeys = keysPresent(contextTable, rg, qual);
+                contextKeys.add(-1);
+                contextKeys.add(0);
+                final Set<Integer> cycleKeys = keysPresent(cycleTable, rg, qual);
+                cycleKeys.add(1);
+
+                for ( final int contextKey : contextKeys ) {
+                    for ( final int cycleKey : cycleKeys ) {
+                        final RecalDatum empiricalQualQS = qualTable.get3Keys(rg, qual, BASE_SUBSTITUTION_INDEX);
+                        final RecalDatum empiricalQualContext = contextKey < 0 ? null : contextTable.get4Keys(rg, qual, contextKey, BASE_SUBSTITUTION_INDEX);
+                        final RecalDatum empiricalQualCycle = cycleTable.get4Keys(rg, qual, cycleKey, BASE_SUBSTITUTION_INDEX);
+                        final double expected = BQSRReadTransformer.hierarchicalBayesianQualityEstimate(epsilon, empiricalQualRG, empiricalQualQS, empiricalQualContext, empiricalQualCycle);
+                        final byte expectedQual = QualityUtils.boundQual(MathUtils.fastRound(expected), RecalDatum.MAX_RECALIBRATED_Q_SCORE);
+
+                        Assert.assertEquals(lookupTable.getRecalibratedQual(new int[]{rg, qual, contextKey, cycleKey}), expectedQual,
+                                String.format("keys %d %d %d %d", rg, qual, contextKey, cycleKey));
+                        numChecked++;
+                    }
+                }
+            }
+        }
+        Assert.assertTrue(numChecked > 1000);
+    }
+
+    @Test
+    public void testFinalQualsApplied() {
+        final RecalibrationReport report = new RecalibrationReport(new File(testDir + "HiSeq.1mb.1RG.noSG.table"));
+        final byte[] finalQuals = new byte[RecalDatum.MAX_RECALIBRATED_Q_SCORE + 1];
+        for ( int i = 0; i < finalQuals.length; i++ ) {
+            finalQuals[i] = (byte)(i < 20 ? 10 : 40);
+        }
+        final RecalibrationLookupTable lookupTable = new RecalibrationLookupTable(report.getRecalibrationTables(), report.getCovariates(), -1.0, finalQuals);
+        for ( int qual = 0; qual < 50; qual++ ) {
+            final byte recalibratedQual = lookupTable.getRecalibratedQual(new int[]{0, qual, -1, 1});
+            Assert.assertTrue(recalibratedQual == 10 || recalibratedQual == 40, "quality was not mapped: " + recalibratedQual);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testFinalQualsTooShort() {
+        final RecalibrationReport report = new RecalibrationReport(new File(testDir + "HiSeq.1mb.1RG.noSG.table"));
+        new RecalibrationLookupTable(report.getRecalibrationTables(), report.getCovariates(), -1.0, new byte[10]);
+    }
+
+    private static Set<Integer> keysPresent( final NestedIntegerArray<RecalDatum> table, final int rg, final int qual ) {
+        final Set<Integer> keys = new TreeSet<>();
+        for ( int key = 0; key < table.getDimensions()[2]; key++ ) {
+            if ( table.get4Keys(rg, qual, key, BASE_SUBSTITUTION_INDEX) != null ) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+}
@@ -150,4 +150,124 @@ public final class RecalibrationTablesUnitTest extends GATKBaseTest {
             }
         }
     }
+
+    private void fillTableWithPendingCounts(final RecalibrationTables tables) {
+        for ( int iterations = 0; iterations < 10; iterations++ ) {
+            for ( final EventType et : EventType.values() ) {
+                for ( final int rg : combineStates) {
+                    final double error = rg % 2 == 0 ? 1 : 0.3;
+                    for ( final int qual : combineStates) {
+                        tables.incrementQualityScoreTable(qualByte, error, rg, qual, et.ordinal());
+                        for ( final int cycle : combineStates)
+                            tables.incrementTable(2, qualByte, error, rg, qual, cycle, et.ordinal());
+                        for ( final int context : combineStates)
+                            tables.incrementTable(3, qualByte, error, rg, qual, context, et.ordinal());
+                    }
+                }
+            }
+        }
+    }
+
+    private void fillTableWithRecalDatums(final RecalibrationTables tables) {
+        for ( int iterations = 0; iterations < 10; iterations++ ) {
+            for ( final EventType et : EventType.values() ) {
+                for ( final int rg : combineStates) {
+                    final double error = rg % 2 == 0 ? 1 : 0.3;
+                    for ( final int qual : combineStates) {
+                        RecalUtils.incrementDatumOrPutIfNecessary3keys(tables.getQualityScoreTable(), qualByte, error, rg, qual, et.ordinal());
+                        for ( final int cycle : combineStates)
+                            RecalUtils.incrementDatumOrPutIfNecessary4keys(tables.getTable(2), qualByte, error, rg, qual, cycle, et.ordinal());
+                        for ( final int context : combineStates)
+                            RecalUtils.incrementDatumOrPutIfNecessary4keys(tables.getTable(3), qualByte, error, rg, qual, context, et.ordinal());
+                    }
+                }
+            }
+        }
+    }
+
+    private void assertSameTables(final RecalibrationTables actual, final RecalibrationTables expected) {
+        for ( int i = 0; i < expected.numTables(); i++ ) {
+            final NestedIntegerArray<RecalDatum> expectedTable = expected.getTable(i);
+            final NestedIntegerArray<RecalDatum> actualTable = actual.getTable(i);
+
+            Assert.assertEquals(actualTable.getAllLeaves().size(), expectedTable.getAllLeaves().size());
+            for ( final NestedIntegerArray.Leaf<RecalDatum> leaf : expectedTable.getAllLeaves() ) {
+                final RecalDatum actualValue = actualTable.get(leaf.keys);
+                Assert.assertNotNull(actualValue);
+                Assert.assertEquals(actualValue.getNumObservations(), leaf.value.getNumObservations());
+                Assert.assertEquals(actualValue.getNumMismatches(), leaf.value.getNumMismatches());
+                Assert.assertEquals(actualValue.getEstimatedQReported(), leaf.value.getEstimatedQReported());
+            }
+        }
+    }
+
+    @Test
+    public void testIncrementSameAsRecalDatums() {
+        final RecalibrationTables expected = new RecalibrationTables(covariates, numReadGroups);
+        fillTableWithRecalDatums(expected);
+
+        final RecalibrationTables actual = new RecalibrationTables(covariates, numReadGroups);
+        fillTableWithPendingCounts(actual);
+
+        assertSameTables(actual, expected);
+    }
+
+    @Test
+    public void testIncrementAfterAccess() {
+        final RecalibrationTables expected = new RecalibrationTables(covariates, numReadGroups);
+        fillTableWithRecalDatums(expected);
+        fillTableWithRecalDatums(expected);
+
+        // counts pending at the time of an access are transferred to the existing RecalDatums
+        final RecalibrationTables actual = new RecalibrationTables(covariates, numReadGroups);
+        fillTableWithPendingCounts(actual);
+        Assert.assertFalse(actual.isEmpty());
+        fillTableWithPendingCounts(actual);
+
+        assertSameTables(actual, expected);
+    }
+
+    @Test
+    public void testCombinePendingCounts() {
+        final RecalibrationTables expected = new RecalibrationTables(covariates, numReadGroups);
+        fillTableWithRecalDatums(expected);
+        fillTable(expected);
+        fillTableWithRecalDatums(expected);
+
+        final RecalibrationTables merged = new RecalibrationTables(covariates, numReadGroups);
+        fillTableWithPendingCounts(merged);
+        final RecalibrationTables other = new RecalibrationTables(covariates, numReadGroups);
+        fillTable(other);
+        fillTableWithPendingCounts(other);
+
+        merged.combine(other);
+
+        for ( int i = 0; i < expected.numTables(); i++ ) {
+            final NestedIntegerArray<RecalDatum> expectedTable = expected.getTable(i);
+            final NestedIntegerArray<RecalDatum> mergedTable = merged.getTable(i);
+
+            Assert.assertEquals(mergedTable.getAllLeaves().size(), expectedTable.getAllLeaves().size());
+            for ( final NestedIntegerArray.Leaf<RecalDatum> leaf : expectedTable.getAllLeaves() ) {
+                final RecalDatum mergedValue = mergedTable.get(leaf.keys);
+                Assert.assertNotNull(mergedValue);
+                Assert.assertEquals(mergedValue.getNumObservations(), leaf.value.getNumObservations());
+                Assert.assertEquals(mergedValue.getNumMismatches(), leaf.value.getNumMismatches(), 1e-10);
+            }
+        }
+    }
+
+    @Test
+    public void testNewTablesAreEmpty() {
+        Assert.assertTrue(new RecalibrationTables(covariates, numReadGroups).isEmpty());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testIncrementReadGroupTable() {
+        tables.incrementTable(0, qualByte, 1.0, 0, 0, 0, 0);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testIncrementOutOfBounds() {
+        tables.incrementTable(2, qualByte, 1.0, numReadGroups, 0, 0, 0);
+    }
 }
@@ -13,8 +13,10 @@ import org.testng.annotations.BeforeClass;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.util.Arrays;
 import java.util.Random;
 
+import static org.broadinstitute.hellbender.utils.recalibration.covariates.ContextCovariate.fillStrandedClippedBases;
 import static org.broadinstitute.hellbender.utils.recalibration.covariates.ContextCovariate.getStrandedClippedBytes;
 import static org.broadinstitute.hellbender.utils.recalibration.covariates.ContextCovariate.getStrandedOffset;
 
@@ -73,6 +75,42 @@ public final class ContextCovariateUnitTest extends GATKBaseTest {
         Assert.assertEquals(new String(strandedBaseArray), new String(expected));
     }
 
+    @Test(dataProvider = "strandedBytes")
+    public void testFillStrandedClippedBases(final String baseStr, final byte[] quals, final String cigar, final boolean neg, final int lowQTail, final String expecteBaseStr){
+        final GATKRead read = ArtificialReadUtils.createArtificialRead(baseStr.getBytes(), quals, cigar);
+        read.setIsReverseStrand(neg);
+        final byte[] buffer = new byte[baseStr.length()];
+        final int length = fillStrandedClippedBases(read, (byte)lowQTail, buffer);
+        Assert.assertEquals(new String(buffer, 0, length), new String(getStrandedClippedBytes(read, (byte)lowQTail)));
+        Assert.assertEquals(new String(buffer, 0, length), expecteBaseStr);
+    }
+
+    @Test
+    public void testReusedKeysCache() {
+        final Random rnd = Utils.getRandomGenerator();
+        final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeader();
+        final CovariateKeyCache reusedCache = new CovariateKeyCache();
+
+        long allocationsAfterFirstRead = -1;
+        for(int i = 0; i < 10; i++) {
+            final GATKRead read = ArtificialReadUtils.createRandomRead(header, 100, true);
+            read.setIsReverseStrand(rnd.nextBoolean());
+
+            final ReadCovariates expected = new ReadCovariates(read.getLength(), 1, new CovariateKeyCache());
+            covariate.recordValues(read, header, expected, true);
+            final ReadCovariates actual = new ReadCovariates(read.getLength(), 1, reusedCache);
+            covariate.recordValues(read, header, actual, true);
+
+            Assert.assertTrue(Arrays.deepEquals(actual.getMismatchesKeySet(), expected.getMismatchesKeySet()));
+            Assert.assertTrue(Arrays.deepEquals(actual.getInsertionsKeySet(), expected.getInsertionsKeySet()));
+            Assert.assertTrue(Arrays.deepEquals(actual.getDeletionsKeySet(), expected.getDeletionsKeySet()));
+            if ( i == 0 ) {
+                allocationsAfterFirstRead = reusedCache.getNumAllocations();
+            }
+        }
+        Assert.assertEquals(reusedCache.getNumAllocations(), allocationsAfterFirstRead);
+    }
+
     @DataProvider(name="strandedOffset")
     public Object[][] strandedOffset() {
         return new Object[][]{
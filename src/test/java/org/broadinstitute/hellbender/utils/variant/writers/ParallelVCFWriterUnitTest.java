@@ -0,0 +1,185 @@
+package org.broadinstitute.hellbender.utils.variant.writers;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.util.BlockCompressedInputStream;
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.tribble.AbstractFeatureReader;
+import htsjdk.tribble.Tribble;
+import htsjdk.tribble.util.TabixUtils;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import htsjdk.variant.variantcontext.writer.Options;
+import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+import htsjdk.variant.vcf.VCFFileReader;
+import htsjdk.variant.vcf.VCFHeader;
+import org.apache.commons.io.IOUtils;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.variant.GATKVariantContextUtils;
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class ParallelVCFWriterUnitTest extends GATKBaseTest {
+
+    private static final File INPUT_VCF = new File(toolsTestDir + "walkers/CombineGVCFs/gvcf.basepairResolution.vcf");
+
+    @DataProvider(name = "writerData")
+    public Object[][] writerData() {
+        final List<Object[]> tests = new ArrayList<>();
+        for ( final String extension : new String[] { ".vcf", ".vcf.gz" } ) {
+            for ( final int numRecords : new int[] { 0, 1, ParallelVCFWriter.BATCH_SIZE, 5 * ParallelVCFWriter.BATCH_SIZE / 2, Integer.MAX_VALUE } ) {
+                for ( final int numThreads : new int[] { 1, 4 } ) {
+                    tests.add(new Object[] { extension, numRecords, numThreads });
+                }
+            }
+        }
+        return tests.toArray(new Object[][]{});
+    }
+
+    /**
+     * Write the first numRecords records of the input with both htsjdk's writer and ours, and check that the
+     * outputs, and queries through their indices, are the same.
+     */
+    @Test(dataProvider = "writerData")
+    public void testSameOutputAsHtsjdkWriter( final String extension, final int numRecords, final int numThreads ) throws IOException {
+        final VCFHeader header;
+        final List<VariantContext> records;
+        try ( final VCFFileReader reader = new VCFFileReader(INPUT_VCF, false) ) {
+            header = reader.getFileHeader();
+            records = reader.iterator().stream().limit(numRecords).collect(Collectors.toList());
+        }
+        final SAMSequenceDictionary dictionary = header.getSequenceDictionary();
+
+        final File expectedFile = createTempFile("expected", extension);
+        final File actualFile = createTempFile("actual", extension);
+        try ( final VariantContextWriter writer = GATKVariantContextUtils.createVCFWriter(expectedFile, dictionary, true, Options.INDEX_ON_THE_FLY) ) {
+            writer.writeHeader(header);
+            records.forEach(writer::add);
+        }
+        try ( final VariantContextWriter writer = new ParallelVCFWriter(actualFile, dictionary, numThreads, true, Options.INDEX_ON_THE_FLY) ) {
+            writer.writeHeader(header);
+            records.forEach(writer::add);
+        }
+
+        Assert.assertEquals(readContents(actualFile), readContents(expectedFile));
+        final File indexFile = extension.equals(".vcf") ? Tribble.indexFile(actualFile) : new File(actualFile.getPath() + TabixUtils.STANDARD_INDEX_EXTENSION);
+        Assert.assertTrue(indexFile.exists(), "Index was not created");
+        Assert.assertTrue(new File(actualFile.getPath() + ".md5").exists(), "MD5 digest was not created");
+
+        try ( final VCFFileReader expectedReader = new VCFFileReader(expectedFile, true);
+              final VCFFileReader actualReader = new VCFFileReader(actualFile, true) ) {
+            for ( int start = 9_999_000; start < 10_011_000; start += 700 ) {
+                Assert.assertEquals(queryStarts(actualReader, start, start + 300), queryStarts(expectedReader, start, start + 300),
+                        "Wrong records returned by query starting at " + start);
+            }
+        }
+    }
+
+    @Test
+    public void testWithoutIndex() throws IOException {
+        try ( final VCFFileReader reader = new VCFFileReader(INPUT_VCF, false) ) {
+            final File outFile = createTempFile("noIndex", ".vcf.gz");
+            try ( final VariantContextWriter writer = new ParallelVCFWriter(outFile, null, 2, false) ) {
+                writer.writeHeader(reader.getFileHeader());
+                reader.iterator().stream().limit(10).forEach(writer::add);
+            }
+            Assert.assertFalse(new File(outFile.getPath() + TabixUtils.STANDARD_INDEX_EXTENSION).exists(), "Index should not have been created");
+            try ( final VCFFileReader writtenReader = new VCFFileReader(outFile, false) ) {
+                Assert.assertEquals(writtenReader.iterator().stream().count(), 10);
+            }
+        }
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testAddBeforeHeader() throws IOException {
+        try ( final VCFFileReader reader = new VCFFileReader(INPUT_VCF, false);
+              final VariantContextWriter writer = new ParallelVCFWriter(createTempFile("noHeader", ".vcf"), null, 1, false) ) {
+            writer.add(reader.iterator().next());
+        }
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testSetHeaderAfterWriting() throws IOException {
+        try ( final VCFFileReader reader = new VCFFileReader(INPUT_VCF, false);
+              final VariantContextWriter writer = new ParallelVCFWriter(createTempFile("lateHeader", ".vcf"), null, 1, false) ) {
+            writer.writeHeader(reader.getFileHeader());
+            writer.setHeader(reader.getFileHeader());
+        }
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testAddAfterClose() throws IOException {
+        try ( final VCFFileReader reader = new VCFFileReader(INPUT_VCF, false) ) {
+            final VariantContextWriter writer = new ParallelVCFWriter(createTempFile("addAfterClose", ".vcf"), null, 1, false);
+            writer.writeHeader(reader.getFileHeader());
+            writer.close();
+            writer.add(reader.iterator().next());
+        }
+    }
+
+    @Test
+    public void testEncodingFailureClosesOutput() throws IOException {
+        final File outFile = createTempFile("encodingFailure", ".vcf.gz");
+        final ParallelVCFWriter writer = new ParallelVCFWriter(outFile, null, 2, true);
+        try ( final VCFFileReader reader = new VCFFileReader(INPUT_VCF, false) ) {
+            writer.writeHeader(reader.getFileHeader());
+            // the INFO field is not in the header, so the worker encoding this record fails
+            writer.add(new VariantContextBuilder(reader.iterator().next()).attribute("NOT_IN_HEADER", 1).make());
+            Assert.assertFalse(writer.checkError());
+            writer.close();
+            Assert.fail("The encoding failure should have been rethrown");
+        } catch ( final IllegalStateException e ) {
+            // expected
+        }
+        Assert.assertTrue(writer.checkError());
+        Assert.assertTrue(new File(outFile.getPath() + ".md5").exists(), "The output should have been closed");
+    }
+
+    @Test
+    public void testWriteFailureIsReported() throws IOException {
+        final File fullDevice = new File("/dev/full");
+        if ( ! fullDevice.exists() ) {
+            throw new SkipException("/dev/full is not available on this system");
+        }
+        final ParallelVCFWriter writer = new ParallelVCFWriter(fullDevice, null, 1, false);
+        try ( final VCFFileReader reader = new VCFFileReader(INPUT_VCF, false) ) {
+            writer.writeHeader(reader.getFileHeader());
+            reader.iterator().stream().forEach(writer::add);
+            writer.close();
+            Assert.fail("The write failure should have been thrown");
+        } catch ( final UserException.CouldNotCreateOutputFile e ) {
+            // expected
+        }
+        Assert.assertTrue(writer.checkError());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testBCFNotSupported() {
+        new ParallelVCFWriter(createTempFile("bcf", ".vcf"), null, 1, false, Options.FORCE_BCF);
+    }
+
+    private static byte[] readContents( final File file ) throws IOException {
+        if ( ! AbstractFeatureReader.hasBlockCompressedExtension(file.getPath()) ) {
+            return Files.readAllBytes(file.toPath());
+        }
+        try ( final InputStream in = new BlockCompressedInputStream(file) ) {
+            return IOUtils.toByteArray(in);
+        }
+    }
+
+    private static List<Integer> queryStarts( final VCFFileReader reader, final int start, final int end ) {
+        try ( final CloseableIterator<VariantContext> it = reader.query("20", start, end) ) {
+            return it.stream().map(VariantContext::getStart).collect(Collectors.toList());
+        }
+    }
+}